@@ -0,0 +1,29 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares one of the fixed values of a string {@link Option}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({})
+public @interface Choice {
+
+    /**
+     * Returns the name shown to the user.
+     *
+     * @return The choice name.
+     */
+    String name();
+
+    /**
+     * Returns the value the command receives.
+     *
+     * @return The choice value.
+     */
+    String value();
+}
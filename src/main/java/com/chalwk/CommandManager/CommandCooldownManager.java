@@ -2,6 +2,7 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.CommandManager;
 
+import com.chalwk.util.Scheduler;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 
@@ -45,7 +46,7 @@ public class CommandCooldownManager {
      */
     public void setCooldown(String commandName, User user) {
         Map<String, Instant> userCommandCooldowns = commandUserCooldowns.computeIfAbsent(user.getId(), k -> new ConcurrentHashMap<>());
-        userCommandCooldowns.put(commandName, Instant.now());
+        userCommandCooldowns.put(commandName, now());
     }
 
     /**
@@ -67,7 +68,7 @@ public class CommandCooldownManager {
             return false;
         }
 
-        long elapsedTime = Duration.between(lastExecutionTime, Instant.now()).getSeconds();
+        long elapsedTime = Duration.between(lastExecutionTime, now()).getSeconds();
         return elapsedTime >= getCooldownDuration();
     }
 
@@ -81,11 +82,11 @@ public class CommandCooldownManager {
         User user = event.getUser();
         Map<String, Instant> userCommandCooldowns = commandUserCooldowns.get(user.getId());
         Instant lastExecutionTime = userCommandCooldowns.get(commandName);
-        long elapsedTime = Duration.between(lastExecutionTime, Instant.now()).getSeconds();
+        long elapsedTime = Duration.between(lastExecutionTime, now()).getSeconds();
         long remainingTime = getCooldownDuration() - elapsedTime;
         if (remainingTime > 0) {
-            event.reply(String.format("Cooldown in progress. Please wait %d seconds before using the command again.", remainingTime))
-                    .setEphemeral(true).queue();
+            CommandReply.reply(event, String.format("Cooldown in progress. Please wait %d seconds before using the command again.",
+                    remainingTime), true).queue();
         }
     }
 
@@ -109,6 +110,15 @@ public class CommandCooldownManager {
         return false;
     }
 
+    /**
+     * Gets the current time from the scheduler in use.
+     *
+     * @return the current time
+     */
+    private static Instant now() {
+        return Instant.ofEpochMilli(Scheduler.get().currentTimeMillis());
+    }
+
     /**
      * Gets the cooldown duration, in seconds, for commands.
      *
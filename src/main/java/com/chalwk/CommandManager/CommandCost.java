@@ -0,0 +1,19 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+/**
+ * How long a command's handler is expected to take, which decides how the command listener runs it.
+ */
+public enum CommandCost {
+    /**
+     * The handler replies well within Discord's three-second acknowledgement window, so it runs inline on the
+     * event thread.
+     */
+    CHEAP,
+    /**
+     * The handler may do I/O or other slow work. The interaction is deferred straight away and the handler runs on
+     * a command worker thread, replying through the interaction hook with {@link CommandReply}.
+     */
+    EXPENSIVE
+}
@@ -3,36 +3,15 @@
 package com.chalwk.CommandManager;
 
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Sets up abstract methods for commands that will be used in the CommandManager class.
- * This interface defines the common methods required for any command implementation.
+ * This interface defines the common methods required for any command implementation; the command's name,
+ * description, options and cost are declared with {@link SlashCommand} on the implementing class.
  */
 public interface CommandInterface {
-    /**
-     * Returns the name of the command.
-     *
-     * @return The command name as a String.
-     */
-    String getName();
-
-    /**
-     * Returns the description of the command.
-     *
-     * @return The command description as a String.
-     */
-    String getDescription();
-
-    /**
-     * Returns the options available for the command.
-     *
-     * @return A list of OptionData objects representing the command options.
-     */
-    List<OptionData> getOptions();
 
     /**
      * Executes the command with the given event.
@@ -41,4 +20,4 @@ public interface CommandInterface {
      * @throws IOException if there's an error during command execution.
      */
     void execute(SlashCommandInteractionEvent event) throws IOException;
-}
\ No newline at end of file
+}
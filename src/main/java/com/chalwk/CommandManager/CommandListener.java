@@ -2,15 +2,28 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.CommandManager;
 
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.diagnostics.CommandEvent;
+import com.chalwk.diagnostics.InteractionTracer;
+import com.chalwk.util.DuplicateFilter;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.RestQueue;
+import com.chalwk.util.settings;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A listener class for registering and handling commands in the Virtual Pets game project.
@@ -19,50 +32,179 @@ import java.util.List;
 public class CommandListener extends ListenerAdapter {
 
     /**
-     * A list of CommandInterface implementations representing available commands.
+     * The commands, indexed as by {@link CommandRegistry#indexOf}. Set once the game state has loaded.
      */
-    private final List<CommandInterface> commands = new ArrayList<>();
+    private volatile CommandInterface[] commands;
 
     /**
-     * Registers all available commands in all guilds upon JDA's ready event.
+     * The schema hash each guild's commands were last registered under.
+     */
+    private final CommandSchemas schemas = new CommandSchemas(Paths.get(settings.getStateDirectory()));
+
+    /**
+     * Completed once every command has been added. Shards may become ready before that.
+     */
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    /**
+     * The threads that run expensive commands, off the event threads.
+     */
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(settings.getCommandWorkerThreads(), runnable -> {
+        Thread thread = new Thread(runnable, "command-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Registers all available commands upon JDA's ready event, or once the commands have been added if the shard
+     * became ready first. Only guilds whose commands were registered under a different schema hash, or before the
+     * bot last joined them, are updated, with one request per guild.
      *
      * @param event The ReadyEvent object containing JDA's initialization details.
      */
     @Override
     public void onReady(@NotNull ReadyEvent event) {
-        for (Guild guild : event.getJDA().getGuilds()) {
-            for (CommandInterface command : commands) {
-                guild.upsertCommand(command.getName(), command.getDescription()).addOptions(command.getOptions()).queue();
+        ready.thenRun(() -> {
+            List<SlashCommandData> definitions = null;
+            int upToDate = 0;
+            for (Guild guild : event.getJDA().getGuilds()) {
+                if (schemas.isCurrent(guild.getIdLong(), guild.getSelfMember().getTimeJoined().toInstant().toEpochMilli())) {
+                    upToDate++;
+                    continue;
+                }
+                if (definitions == null) {
+                    definitions = CommandRegistry.definitions();
+                }
+                register(guild, definitions);
             }
-        }
+            if (upToDate > 0) {
+                Logger.info("Commands are up to date in " + upToDate + " guilds, schema " + CommandRegistry.SCHEMA_HASH);
+            }
+        });
     }
 
     /**
-     * Executes the appropriate command based on the given slash command interaction event.
+     * Registers all available commands with a guild the bot joined while running.
+     *
+     * @param event The GuildJoinEvent of the joined guild.
+     */
+    @Override
+    public void onGuildJoin(@NotNull GuildJoinEvent event) {
+        Guild guild = event.getGuild();
+        ready.thenRun(() -> register(guild, CommandRegistry.definitions()));
+    }
+
+    /**
+     * Forgets the commands of a guild the bot left, as Discord deletes them.
+     *
+     * @param event The GuildLeaveEvent of the guild left.
+     */
+    @Override
+    public void onGuildLeave(@NotNull GuildLeaveEvent event) {
+        schemas.forget(event.getGuild().getIdLong());
+    }
+
+    private void register(Guild guild, List<SlashCommandData> definitions) {
+        long guildID = guild.getIdLong();
+        guild.updateCommands().addCommands(definitions).queue(
+                registered -> schemas.markCurrent(guildID, System.currentTimeMillis()),
+                failure -> Logger.warning("Failed to register commands in " + guild.getName() + ": " + failure.getMessage()));
+    }
+
+    /**
+     * Executes the appropriate command based on the given slash command interaction event. Expensive commands are
+     * deferred first and executed on a command worker thread. An interaction delivered a second time is ignored.
      *
      * @param event The SlashCommandInteractionEvent object containing command event details.
      */
     @Override
     public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent event) {
-        for (CommandInterface command : commands) {
-            String cmd = event.getName();
-            if (cmd.equals(command.getName())) {
-                try {
-                    command.execute(event);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-                return;
+        if (!DuplicateFilter.shared().firstDelivery(event.getIdLong())) return; // already handled before a resume
+        CommandEvent recorded = new CommandEvent();
+        recorded.begin();
+        InteractionTracer.Trace trace = InteractionTracer.begin(event.getIdLong(), "/" + event.getName(), true);
+        CommandInterface[] commands = this.commands;
+        int index = CommandRegistry.indexOf(event.getName());
+        if (commands != null && index >= 0) {
+            CommandInterface command = commands[index];
+            if (CommandRegistry.getCost(index) == CommandCost.EXPENSIVE) {
+                RestQueue.ack(event.deferReply());
+                trace.markDeferred();
+                recorded.deferred = true;
+                InteractionTracer.detach();
+                WORKERS.execute(() -> {
+                    InteractionTracer.attach(trace);
+                    execute(command, event, recorded);
+                });
+            } else {
+                execute(command, event, recorded);
             }
+            return;
+        }
+        String outcome = CommandEvent.UNKNOWN;
+        if (!ready.isDone()) {
+            outcome = CommandEvent.NOT_READY;
+            event.reply("## The bot is still starting up. Please try again in a moment.").setEphemeral(true).queue();
+        }
+        finish(event, recorded, outcome);
+    }
+
+    /**
+     * Runs a command's handler and records how it went.
+     *
+     * @param command  the command
+     * @param event    the command event
+     * @param recorded the flight recorder event of the command
+     */
+    private void execute(CommandInterface command, SlashCommandInteractionEvent event, CommandEvent recorded) {
+        String outcome = CommandEvent.FAILED;
+        try {
+            command.execute(event);
+            outcome = CommandEvent.HANDLED;
+            StartupTracker.commandHandled();
+        } catch (IOException e) {
+            if (!recorded.deferred) throw new RuntimeException(e);
+            reportFailure(event, e);
+        } catch (RuntimeException e) {
+            if (!recorded.deferred) throw e;
+            reportFailure(event, e);
+        } finally {
+            finish(event, recorded, outcome);
+        }
+    }
+
+    /**
+     * Logs the failure of a deferred command and tells the user, replacing the "thinking" message that would
+     * otherwise stay up until the interaction expires.
+     *
+     * @param event   the command event
+     * @param failure the exception the handler threw
+     */
+    private void reportFailure(SlashCommandInteractionEvent event, Exception failure) {
+        Logger.warning("Command /" + event.getName() + " failed: " + failure.getMessage());
+        event.getHook().editOriginal("## Something went wrong. Please try again later.")
+                .queue(null, error -> Logger.warning("Failed to report the failure of /" + event.getName() + ": " + error.getMessage()));
+    }
+
+    private void finish(SlashCommandInteractionEvent event, CommandEvent recorded, String outcome) {
+        InteractionTracer.endHandler();
+        recorded.end();
+        if (recorded.shouldCommit()) {
+            recorded.command = event.getName();
+            recorded.guildID = event.getGuild() != null ? event.getGuild().getIdLong() : 0;
+            recorded.userID = event.getUser().getIdLong();
+            recorded.outcome = outcome;
+            recorded.commit();
         }
     }
 
     /**
-     * Adds a new command to the list of available commands.
+     * Sets the available commands and registers them with the shards that are already ready.
      *
-     * @param command The CommandInterface instance representing the new command.
+     * @param commands The commands, as constructed by {@link CommandRegistry#create}.
      */
-    public void add(CommandInterface command) {
-        commands.add(command);
+    public void setCommands(CommandInterface[] commands) {
+        this.commands = commands;
+        ready.complete(null);
     }
 }
\ No newline at end of file
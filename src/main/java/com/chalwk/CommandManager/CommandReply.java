@@ -0,0 +1,67 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
+
+/**
+ * Replies to an interaction whether or not the command listener has already deferred it. Handlers of
+ * {@link CommandCost#EXPENSIVE} commands, and any helper they call, reply through this class instead of
+ * {@code event.reply(...)}, which fails once the interaction has been acknowledged.
+ * <p>
+ * The listener defers publicly. A public reply then replaces the "thinking" message. An ephemeral reply deletes it
+ * and is sent as an ephemeral follow-up, so that only the user sees it, as before.
+ */
+public class CommandReply {
+
+    private CommandReply() {
+    }
+
+    /**
+     * Replies with a text message.
+     *
+     * @param event     the interaction to reply to
+     * @param content   the message
+     * @param ephemeral whether only the user should see the reply
+     * @return the reply action, to be queued
+     */
+    public static RestAction<?> reply(IReplyCallback event, String content, boolean ephemeral) {
+        return reply(event, MessageCreateData.fromContent(content), ephemeral);
+    }
+
+    /**
+     * Replies with an embed.
+     *
+     * @param event     the interaction to reply to
+     * @param embed     the embed
+     * @param ephemeral whether only the user should see the reply
+     * @return the reply action, to be queued
+     */
+    public static RestAction<?> replyEmbeds(IReplyCallback event, MessageEmbed embed, boolean ephemeral) {
+        return reply(event, MessageCreateData.fromEmbeds(embed), ephemeral);
+    }
+
+    /**
+     * Replies with a message.
+     *
+     * @param event     the interaction to reply to
+     * @param message   the message
+     * @param ephemeral whether only the user should see the reply
+     * @return the reply action, to be queued
+     */
+    public static RestAction<?> reply(IReplyCallback event, MessageCreateData message, boolean ephemeral) {
+        if (!event.isAcknowledged()) {
+            return event.reply(message).setEphemeral(ephemeral);
+        }
+        InteractionHook hook = event.getHook();
+        if (!ephemeral) {
+            return hook.editOriginal(MessageEditData.fromCreateData(message));
+        }
+        return hook.deleteOriginal().flatMap(deleted -> hook.sendMessage(message).setEphemeral(true));
+    }
+}
@@ -0,0 +1,95 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import com.chalwk.util.Logging.Logger;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Remembers which {@link CommandRegistry#SCHEMA_HASH} each guild's commands were last registered under, and when, so
+ * that a restart only registers commands with the guilds whose commands have changed.
+ * <p>
+ * Discord deletes a guild's commands when the bot leaves it. A guild is forgotten when the bot leaves while running,
+ * and a guild the bot joined after its commands were registered, e.g. after being removed and invited again while
+ * the bot was offline, is not current either.
+ */
+class CommandSchemas {
+
+    private static final String FILE = "command-schemas.json";
+
+    private final Path directory;
+    private JSONObject registered;
+
+    /**
+     * Loads the registered schema hashes.
+     *
+     * @param directory the state directory
+     */
+    CommandSchemas(Path directory) {
+        this.directory = directory;
+        JSONObject loaded = new JSONObject();
+        try {
+            Path file = directory.resolve(FILE);
+            if (Files.exists(file)) {
+                loaded = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.warning("Failed to read the registered command schemas, registering every guild's commands: " + e.getMessage());
+        }
+        this.registered = loaded;
+    }
+
+    /**
+     * Checks if a guild's commands are registered under the current schema, since the bot joined the guild.
+     *
+     * @param guildID      the guild ID
+     * @param joinedMillis when the bot joined the guild, in epoch milliseconds
+     * @return true if the guild's commands are up to date
+     */
+    synchronized boolean isCurrent(long guildID, long joinedMillis) {
+        JSONObject guild = registered.optJSONObject(Long.toString(guildID));
+        return guild != null && CommandRegistry.SCHEMA_HASH.equals(guild.optString("schema"))
+                && guild.optLong("registered") > joinedMillis;
+    }
+
+    /**
+     * Records that a guild's commands were registered under the current schema.
+     *
+     * @param guildID          the guild ID
+     * @param registeredMillis when the commands were registered, in epoch milliseconds
+     */
+    synchronized void markCurrent(long guildID, long registeredMillis) {
+        registered.put(Long.toString(guildID), new JSONObject()
+                .put("schema", CommandRegistry.SCHEMA_HASH)
+                .put("registered", registeredMillis));
+        save();
+    }
+
+    /**
+     * Forgets a guild's commands, e.g. because the bot left the guild and Discord deleted them.
+     *
+     * @param guildID the guild ID
+     */
+    synchronized void forget(long guildID) {
+        if (registered.remove(Long.toString(guildID)) != null) {
+            save();
+        }
+    }
+
+    private void save() {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = directory.resolve(FILE + ".tmp");
+            Files.writeString(temporary, registered.toString(), StandardCharsets.UTF_8);
+            Files.move(temporary, directory.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.warning("Failed to save the registered command schemas: " + e.getMessage());
+        }
+    }
+}
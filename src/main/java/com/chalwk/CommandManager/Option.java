@@ -0,0 +1,73 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares an option of a {@link SlashCommand}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({})
+public @interface Option {
+
+    /**
+     * Returns the type of the option's value.
+     *
+     * @return The option type.
+     */
+    OptionType type();
+
+    /**
+     * Returns the name of the option. Its typed accessor is named after it, in camel case.
+     *
+     * @return The option name.
+     */
+    String name();
+
+    /**
+     * Returns the description of the option.
+     *
+     * @return The option description shown by Discord.
+     */
+    String description();
+
+    /**
+     * Returns whether the option must be given.
+     *
+     * @return True if the option is required.
+     */
+    boolean required() default true;
+
+    /**
+     * Returns the smallest value allowed for an integer or number option.
+     *
+     * @return The minimum value, or {@link Long#MIN_VALUE} for none.
+     */
+    long minValue() default Long.MIN_VALUE;
+
+    /**
+     * Returns the fixed values a string option may take.
+     *
+     * @return The choices, or none to allow any value.
+     */
+    Choice[] choices() default {};
+
+    /**
+     * Returns an enum whose constants are the values a string option may take, shown by their
+     * {@code getDisplayName()} if the enum has one. The typed accessor returns the enum constant.
+     *
+     * @return The enum of choices, or {@link NoChoices} for none.
+     */
+    Class<? extends Enum<?>> enumChoices() default NoChoices.class;
+
+    /**
+     * The default of {@link #enumChoices()}, for an option whose values are not taken from an enum.
+     */
+    enum NoChoices {
+    }
+}
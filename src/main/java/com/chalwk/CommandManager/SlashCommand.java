@@ -0,0 +1,51 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a slash command. At build time, {@link com.chalwk.CommandManager.processor.CommandRegistryProcessor}
+ * finds every class carrying this annotation and generates the {@code CommandRegistry} (the dispatch table, the
+ * command definitions and their schema hash) and {@code CommandOptions} (typed accessors for each option), so
+ * nothing about a command is looked up or built at runtime until Discord needs it.
+ * <p>
+ * The annotated class must implement {@link CommandInterface} and have one public constructor; its parameters are
+ * passed to the generated factory by type.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface SlashCommand {
+
+    /**
+     * Returns the name of the command.
+     *
+     * @return The command name, as typed after the slash.
+     */
+    String name();
+
+    /**
+     * Returns the description of the command.
+     *
+     * @return The command description shown by Discord.
+     */
+    String description();
+
+    /**
+     * Returns how long the command's handler is expected to take. Expensive commands are deferred and run off the
+     * event thread, so they must reply with {@link CommandReply}.
+     *
+     * @return The expected cost of the command.
+     */
+    CommandCost cost() default CommandCost.CHEAP;
+
+    /**
+     * Returns the options of the command, in the order Discord shows them.
+     *
+     * @return The command options.
+     */
+    Option[] options() default {};
+}
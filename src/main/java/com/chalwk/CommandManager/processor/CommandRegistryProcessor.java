@@ -0,0 +1,506 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Generates the command registry and the typed option accessors from the {@code @SlashCommand} annotations.
+ * <p>
+ * {@code CommandRegistry} holds the dispatch table (a string switch from command name to index, with the cost of
+ * each command), a factory that constructs every command, the slash command definitions to register with Discord,
+ * and a hash of those definitions, so that unchanged commands are not registered again. {@code CommandOptions} has a
+ * nested class per command with one static accessor per option, returning the option's value as its Java type.
+ * <p>
+ * Command names, descriptions and options are checked against Discord's rules here, so that a bad definition fails
+ * the build instead of the registration.
+ * <p>
+ * The annotations are read through their mirrors, so this processor is compiled on its own, before the rest of the
+ * sources, without depending on them.
+ */
+@SupportedAnnotationTypes(CommandRegistryProcessor.SLASH_COMMAND)
+public class CommandRegistryProcessor extends AbstractProcessor {
+
+    static final String SLASH_COMMAND = "com.chalwk.CommandManager.SlashCommand";
+    private static final String PACKAGE = "com.chalwk.CommandManager";
+    private static final String COMMAND_INTERFACE = PACKAGE + ".CommandInterface";
+    private static final String GENERATED = "@Generated(\"" + CommandRegistryProcessor.class.getName() + "\")";
+    private static final int MAX_NAME_LENGTH = 32;
+    private static final int MAX_DESCRIPTION_LENGTH = 100;
+    private static final int MAX_OPTIONS = 25;
+    private static final int MAX_CHOICES = 25;
+
+    /**
+     * The Java type each option type is read as: the type, its getter and, for primitives, the boxed type.
+     */
+    private static final Map<String, String[]> VALUE_TYPES = Map.of(
+            "STRING", new String[]{"String", "getAsString", ""},
+            "INTEGER", new String[]{"long", "getAsLong", "Long"},
+            "NUMBER", new String[]{"double", "getAsDouble", "Double"},
+            "BOOLEAN", new String[]{"boolean", "getAsBoolean", "Boolean"},
+            "USER", new String[]{"net.dv8tion.jda.api.entities.User", "getAsUser", ""},
+            "CHANNEL", new String[]{"net.dv8tion.jda.api.entities.channel.unions.GuildChannelUnion", "getAsChannel", ""},
+            "ROLE", new String[]{"net.dv8tion.jda.api.entities.Role", "getAsRole", ""},
+            "MENTIONABLE", new String[]{"net.dv8tion.jda.api.entities.IMentionable", "getAsMentionable", ""},
+            "ATTACHMENT", new String[]{"net.dv8tion.jda.api.entities.Message.Attachment", "getAsAttachment", ""});
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || annotations.isEmpty()) {
+            return false;
+        }
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(SLASH_COMMAND);
+        List<Command> commands = new ArrayList<>();
+        List<Element> origins = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            Command command = read((TypeElement) element);
+            if (command != null) {
+                commands.add(command);
+                origins.add(element);
+            }
+        }
+        commands.sort(Comparator.comparing(command -> command.name));
+        for (int i = 1; i < commands.size(); i++) {
+            if (commands.get(i).name.equals(commands.get(i - 1).name)) {
+                error(commands.get(i).type, "Another command is already named " + commands.get(i).name);
+            }
+        }
+        generated = true;
+        try {
+            writeRegistry(commands, origins);
+            writeOptions(commands, origins);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to generate the command registry: " + e);
+        }
+        return true;
+    }
+
+    /**
+     * Reads and checks the annotation of a command class.
+     *
+     * @return the command, or null if it is invalid
+     */
+    private Command read(TypeElement type) {
+        AnnotationMirror mirror = mirror(type, SLASH_COMMAND);
+        Map<String, AnnotationValue> values = values(mirror);
+        Command command = new Command(type, (String) values.get("name").getValue(),
+                (String) values.get("description").getValue(),
+                ((VariableElement) values.get("cost").getValue()).getSimpleName().toString());
+
+        boolean valid = checkName(type, "Command", command.name) & checkDescription(type, command.description);
+        TypeMirror commandInterface = processingEnv.getElementUtils().getTypeElement(COMMAND_INTERFACE).asType();
+        if (!processingEnv.getTypeUtils().isAssignable(type.asType(), commandInterface)) {
+            error(type, "A @SlashCommand must implement CommandInterface");
+            valid = false;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .filter(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC))
+                .toList();
+        if (constructors.size() != 1) {
+            error(type, "A @SlashCommand must have exactly one public constructor");
+            valid = false;
+        } else {
+            for (VariableElement parameter : constructors.get(0).getParameters()) {
+                command.parameters.add(parameter.asType().toString());
+            }
+        }
+
+        boolean optional = false;
+        for (AnnotationValue value : list(values.get("options"))) {
+            Map<String, AnnotationValue> option = values((AnnotationMirror) value.getValue());
+            CommandOption read = new CommandOption(
+                    ((VariableElement) option.get("type").getValue()).getSimpleName().toString(),
+                    (String) option.get("name").getValue(), (String) option.get("description").getValue(),
+                    (Boolean) option.get("required").getValue(), (Long) option.get("minValue").getValue());
+            for (AnnotationValue choice : list(option.get("choices"))) {
+                Map<String, AnnotationValue> choiceValues = values((AnnotationMirror) choice.getValue());
+                read.choices.add(new String[]{"\"" + escape((String) choiceValues.get("name").getValue()) + "\"",
+                        (String) choiceValues.get("value").getValue()});
+            }
+            TypeElement enumType = (TypeElement) ((DeclaredType) option.get("enumChoices").getValue()).asElement();
+            if (!enumType.getQualifiedName().contentEquals("com.chalwk.CommandManager.Option.NoChoices")) {
+                readEnumChoices(read, enumType);
+            }
+
+            valid &= checkName(type, "Option", read.name) & checkDescription(type, read.description);
+            if (!VALUE_TYPES.containsKey(read.type)) {
+                error(type, "Option " + read.name + " has unsupported type " + read.type);
+                valid = false;
+            }
+            if (!read.choices.isEmpty() && !read.type.equals("STRING")) {
+                error(type, "Option " + read.name + " has choices, which are only supported for string options");
+                valid = false;
+            }
+            if (read.choices.size() > MAX_CHOICES) {
+                error(type, "Option " + read.name + " has more than " + MAX_CHOICES + " choices");
+                valid = false;
+            }
+            if (read.minValue != Long.MIN_VALUE && !read.type.equals("INTEGER") && !read.type.equals("NUMBER")) {
+                error(type, "Option " + read.name + " has a minimum value, which is only supported for numbers");
+                valid = false;
+            }
+            if (read.required && optional) {
+                error(type, "Required option " + read.name + " must come before every optional option");
+                valid = false;
+            }
+            optional |= !read.required;
+            command.options.add(read);
+        }
+        if (command.options.size() > MAX_OPTIONS) {
+            error(type, "A command can have at most " + MAX_OPTIONS + " options");
+            valid = false;
+        }
+        return valid ? command : null;
+    }
+
+    private void readEnumChoices(CommandOption option, TypeElement enumType) {
+        option.enumType = enumType.getQualifiedName().toString();
+        boolean hasDisplayName = ElementFilter.methodsIn(enumType.getEnclosedElements()).stream()
+                .anyMatch(method -> method.getSimpleName().contentEquals("getDisplayName") && method.getParameters().isEmpty());
+        for (Element constant : enumType.getEnclosedElements()) {
+            if (constant.getKind() == ElementKind.ENUM_CONSTANT) {
+                String name = constant.getSimpleName().toString();
+                option.choices.add(new String[]{
+                        hasDisplayName ? option.enumType + "." + name + ".getDisplayName()" : "\"" + name + "\"", name});
+            }
+        }
+    }
+
+    private boolean checkName(Element type, String kind, String name) {
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH || !name.matches("[-_\\p{L}\\p{N}]+")
+                || !name.equals(name.toLowerCase(Locale.ROOT))) {
+            error(type, kind + " name \"" + name + "\" must be 1 to " + MAX_NAME_LENGTH
+                    + " lowercase letters, digits, dashes or underscores");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean checkDescription(Element type, String description) {
+        if (description.isEmpty() || description.length() > MAX_DESCRIPTION_LENGTH) {
+            error(type, "Description \"" + description + "\" must be 1 to " + MAX_DESCRIPTION_LENGTH + " characters");
+            return false;
+        }
+        return true;
+    }
+
+    private void writeRegistry(List<Command> commands, List<Element> origins) throws IOException {
+        List<String> parameterTypes = new ArrayList<>();
+        for (Command command : commands) {
+            for (String parameter : command.parameters) {
+                if (!parameterTypes.contains(parameter)) {
+                    parameterTypes.add(parameter);
+                }
+            }
+        }
+        parameterTypes.sort(Comparator.comparing(CommandRegistryProcessor::simpleName));
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("import net.dv8tion.jda.api.interactions.commands.OptionType;\n");
+        out.append("import net.dv8tion.jda.api.interactions.commands.build.Commands;\n");
+        out.append("import net.dv8tion.jda.api.interactions.commands.build.OptionData;\n");
+        out.append("import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;\n\n");
+        out.append("import javax.annotation.processing.Generated;\n");
+        out.append("import java.util.ArrayList;\n");
+        out.append("import java.util.List;\n\n");
+        out.append("/**\n * The bot's slash commands, generated from their {@link SlashCommand} annotations.\n */\n");
+        out.append(GENERATED).append('\n');
+        out.append("public final class CommandRegistry {\n\n");
+        out.append("    /**\n     * A hash of every command definition. Commands registered with a guild under the same hash need not be\n");
+        out.append("     * registered again.\n     */\n");
+        out.append("    public static final String SCHEMA_HASH = \"").append(schemaHash(commands)).append("\";\n\n");
+        out.append("    private static final String[] NAMES = {");
+        appendJoined(out, commands, command -> "\"" + command.name + "\"");
+        out.append("};\n\n");
+        out.append("    private static final CommandCost[] COSTS = {");
+        appendJoined(out, commands, command -> "CommandCost." + command.cost);
+        out.append("};\n\n");
+        out.append("    private CommandRegistry() {\n    }\n\n");
+
+        out.append("    /**\n     * Constructs every command, in dispatch table order.\n     *\n");
+        for (String parameter : parameterTypes) {
+            out.append("     * @param ").append(parameterName(parameter)).append(" passed to the commands that take it\n");
+        }
+        out.append("     * @return the commands, indexed as by {@link #indexOf}\n     */\n");
+        out.append("    public static CommandInterface[] create(");
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            if (i > 0) out.append(", ");
+            out.append(parameterTypes.get(i)).append(' ').append(parameterName(parameterTypes.get(i)));
+        }
+        out.append(") {\n        return new CommandInterface[]{\n");
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            out.append("                new ").append(command.type.getQualifiedName()).append('(');
+            for (int p = 0; p < command.parameters.size(); p++) {
+                if (p > 0) out.append(", ");
+                out.append(parameterName(command.parameters.get(p)));
+            }
+            out.append(')').append(i < commands.size() - 1 ? ",\n" : "\n");
+        }
+        out.append("        };\n    }\n\n");
+
+        out.append("    /**\n     * Finds a command in the dispatch table.\n     *\n     * @param name the command name\n");
+        out.append("     * @return the index of the command, or -1 if there is no such command\n     */\n");
+        out.append("    public static int indexOf(String name) {\n        return switch (name) {\n");
+        for (int i = 0; i < commands.size(); i++) {
+            out.append("            case \"").append(commands.get(i).name).append("\" -> ").append(i).append(";\n");
+        }
+        out.append("            default -> -1;\n        };\n    }\n\n");
+
+        out.append("    /**\n     * Gets the number of commands.\n     *\n     * @return the size of the dispatch table\n     */\n");
+        out.append("    public static int size() {\n        return NAMES.length;\n    }\n\n");
+        out.append("    /**\n     * Gets the name of a command.\n     *\n     * @param index the index of the command\n");
+        out.append("     * @return the command name\n     */\n");
+        out.append("    public static String getName(int index) {\n        return NAMES[index];\n    }\n\n");
+        out.append("    /**\n     * Gets the expected cost of a command.\n     *\n     * @param index the index of the command\n");
+        out.append("     * @return the command cost\n     */\n");
+        out.append("    public static CommandCost getCost(int index) {\n        return COSTS[index];\n    }\n\n");
+
+        out.append("    /**\n     * Builds the definitions of every command, to register with Discord.\n     *\n");
+        out.append("     * @return the command definitions\n     */\n");
+        out.append("    public static List<SlashCommandData> definitions() {\n");
+        out.append("        List<SlashCommandData> commands = new ArrayList<>(").append(commands.size()).append(");\n");
+        for (Command command : commands) {
+            out.append("        commands.add(Commands.slash(\"").append(command.name).append("\", \"")
+                    .append(escape(command.description)).append("\")");
+            if (!command.options.isEmpty()) {
+                out.append(".addOptions(");
+                for (int i = 0; i < command.options.size(); i++) {
+                    CommandOption option = command.options.get(i);
+                    out.append(i > 0 ? ",\n                " : "\n                ");
+                    out.append("new OptionData(OptionType.").append(option.type).append(", \"").append(option.name)
+                            .append("\", \"").append(escape(option.description)).append("\", ").append(option.required).append(')');
+                    if (option.minValue != Long.MIN_VALUE) {
+                        out.append("\n                        .setMinValue(").append(option.minValue).append("L)");
+                    }
+                    for (String[] choice : option.choices) {
+                        out.append("\n                        .addChoice(").append(choice[0]).append(", \"")
+                                .append(escape(choice[1])).append("\")");
+                    }
+                }
+                out.append(')');
+            }
+            out.append(");\n");
+        }
+        out.append("        return commands;\n    }\n}\n");
+        write(PACKAGE + ".CommandRegistry", out, origins);
+    }
+
+    private void writeOptions(List<Command> commands, List<Element> origins) throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;\n");
+        out.append("import net.dv8tion.jda.api.interactions.commands.OptionMapping;\n\n");
+        out.append("import javax.annotation.processing.Generated;\n\n");
+        out.append("/**\n * Typed accessors for the options of each slash command, generated from their {@link SlashCommand}\n");
+        out.append(" * annotations. Required options are read as their value; optional options return null when not given, or\n");
+        out.append(" * take a fallback value if they are primitives.\n */\n");
+        out.append(GENERATED).append('\n');
+        out.append("public final class CommandOptions {\n\n    private CommandOptions() {\n    }\n");
+        for (Command command : commands) {
+            if (command.options.isEmpty()) {
+                continue;
+            }
+            String className = command.type.getSimpleName().toString();
+            out.append("\n    /**\n     * The options of /").append(command.name).append(".\n     */\n");
+            out.append("    public static final class ").append(className).append(" {\n\n");
+            out.append("        private ").append(className).append("() {\n        }\n");
+            for (CommandOption option : command.options) {
+                appendAccessor(out, option);
+            }
+            out.append("    }\n");
+        }
+        out.append("}\n");
+        write(PACKAGE + ".CommandOptions", out, origins);
+    }
+
+    private void appendAccessor(StringBuilder out, CommandOption option) {
+        String[] valueType = VALUE_TYPES.get(option.type);
+        String type = option.enumType != null ? option.enumType : valueType[0];
+        String read = option.enumType != null ? option.enumType + ".valueOf(%s.getAsString())" : "%s." + valueType[1] + "()";
+        boolean primitive = option.enumType == null && !valueType[2].isEmpty();
+        String method = camelCase(option.name);
+
+        out.append("\n        /**\n         * Gets the \"").append(option.name).append("\" option: ")
+                .append(escapeComment(option.description)).append(".\n         *\n");
+        out.append("         * @param event the command event\n");
+        if (option.required) {
+            out.append("         * @return the option value\n         */\n");
+            out.append("        public static ").append(type).append(' ').append(method)
+                    .append("(SlashCommandInteractionEvent event) {\n");
+            out.append("            return ").append(read.formatted("event.getOption(\"" + option.name + "\")")).append(";\n");
+        } else if (primitive) {
+            out.append("         * @param fallback the value to use if the option was not given\n");
+            out.append("         * @return the option value, or the fallback\n         */\n");
+            out.append("        public static ").append(type).append(' ').append(method)
+                    .append("(SlashCommandInteractionEvent event, ").append(type).append(" fallback) {\n");
+            out.append("            OptionMapping option = event.getOption(\"").append(option.name).append("\");\n");
+            out.append("            return option != null ? ").append(read.formatted("option")).append(" : fallback;\n");
+        } else {
+            out.append("         * @return the option value, or null if it was not given\n         */\n");
+            out.append("        public static ").append(type).append(' ').append(method)
+                    .append("(SlashCommandInteractionEvent event) {\n");
+            out.append("            OptionMapping option = event.getOption(\"").append(option.name).append("\");\n");
+            out.append("            return option != null ? ").append(read.formatted("option")).append(" : null;\n");
+        }
+        out.append("        }\n");
+    }
+
+    /**
+     * Hashes the canonical form of every command definition, so that any change to a name, description, option or
+     * choice changes the hash.
+     */
+    private static String schemaHash(List<Command> commands) {
+        StringBuilder canonical = new StringBuilder();
+        for (Command command : commands) {
+            canonical.append(command.name).append('\u0000').append(command.description).append('\u0000');
+            for (CommandOption option : command.options) {
+                canonical.append(option.type).append('\u0000').append(option.name).append('\u0000')
+                        .append(option.description).append('\u0000').append(option.required).append('\u0000')
+                        .append(option.minValue).append('\u0000');
+                for (String[] choice : option.choices) {
+                    canonical.append(choice[0]).append('=').append(choice[1]).append('\u0000');
+                }
+            }
+            canonical.append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write(String className, StringBuilder source, List<Element> origins) throws IOException {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(className, origins.toArray(new Element[0])).openWriter()) {
+            writer.write("/* Generated by " + CommandRegistryProcessor.class.getSimpleName() + ". Do not edit. */\n\n");
+            writer.write(source.toString());
+        }
+    }
+
+    private static <T> void appendJoined(StringBuilder out, List<T> items, Function<T, String> format) {
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) out.append(", ");
+            out.append(format.apply(items.get(i)));
+        }
+    }
+
+    private static AnnotationMirror mirror(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+        throw new IllegalStateException(element + " is not annotated with " + annotation);
+    }
+
+    private Map<String, AnnotationValue> values(AnnotationMirror mirror) {
+        Map<String, AnnotationValue> values = new HashMap<>();
+        processingEnv.getElementUtils().getElementValuesWithDefaults(mirror)
+                .forEach((method, value) -> values.put(method.getSimpleName().toString(), value));
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<? extends AnnotationValue> list(AnnotationValue value) {
+        return (List<? extends AnnotationValue>) value.getValue();
+    }
+
+    private static String simpleName(String type) {
+        return type.substring(type.lastIndexOf('.') + 1);
+    }
+
+    private static String parameterName(String type) {
+        String simpleName = simpleName(type);
+        return Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1);
+    }
+
+    private static String camelCase(String name) {
+        StringBuilder method = new StringBuilder();
+        boolean upper = false;
+        for (char c : name.toCharArray()) {
+            if (c == '-' || c == '_') {
+                upper = method.length() > 0;
+            } else {
+                method.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        String result = method.toString();
+        return SourceVersion.isKeyword(result) ? result + "Option" : result;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String escapeComment(String text) {
+        return text.replace("*/", "*&#47;");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * A command read from its annotation.
+     */
+    private static final class Command {
+        private final TypeElement type;
+        private final String name;
+        private final String description;
+        private final String cost;
+        private final List<String> parameters = new ArrayList<>();
+        private final List<CommandOption> options = new ArrayList<>();
+
+        private Command(TypeElement type, String name, String description, String cost) {
+            this.type = type;
+            this.name = name;
+            this.description = description;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * An option read from its annotation. Choices are pairs of a Java expression for the name and a value.
+     */
+    private static final class CommandOption {
+        private final String type;
+        private final String name;
+        private final String description;
+        private final boolean required;
+        private final long minValue;
+        private final List<String[]> choices = new ArrayList<>();
+        private String enumType;
+
+        private CommandOption(String type, String name, String description, boolean required, long minValue) {
+            this.type = type;
+            this.name = name;
+            this.description = description;
+            this.required = required;
+            this.minValue = minValue;
+        }
+    }
+}
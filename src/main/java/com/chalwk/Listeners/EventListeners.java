@@ -3,17 +3,32 @@
 
 package com.chalwk.Listeners;
 
+import com.chalwk.bot.BotInitializer;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.diagnostics.InteractionTracer;
+import com.chalwk.diagnostics.RestActionEvent;
 import com.chalwk.game.Game;
+import com.chalwk.game.GameEmbedRenderer;
 import com.chalwk.game.GameManager;
-import net.dv8tion.jda.api.EmbedBuilder;
+import com.chalwk.game.MoveParser;
+import com.chalwk.util.DuplicateFilter;
+import com.chalwk.util.RestQueue;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.http.HttpRequestEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.requests.Response;
+import net.dv8tion.jda.api.requests.Route;
 import org.jetbrains.annotations.NotNull;
 
 import static com.chalwk.bot.BotInitializer.getGameManager;
-import static com.chalwk.game.Game.createGameEmbed;
 
 public class EventListeners extends ListenerAdapter {
 
@@ -24,11 +39,158 @@ public class EventListeners extends ListenerAdapter {
      * @param event the event that triggered the update
      */
     private static void updateEmbed(Game game, MessageReceivedEvent event) {
-        event.getMessage().delete().queue();
-        EmbedBuilder embed = createGameEmbed(game);
-        event.getChannel()
-                .retrieveMessageById(game.getEmbedID())
-                .queue(message -> message.editMessageEmbeds(embed.build()).queue());
+        long channelID = event.getChannel().getIdLong();
+        RestQueue.queue(RestQueue.Lane.HOUSEKEEPING, channelID, event.getMessage().delete());
+        MessageEmbed embed = game.renderUpdate();
+        RestQueue.edit(channelID, game.getEmbedID(), event.getChannel().editMessageEmbedsById(game.getEmbedID(), embed)
+                .setComponents(game.createComponents()));
+    }
+
+    /**
+     * Finds the game a component of a game embed belongs to, replying to the player if it cannot be used.
+     *
+     * @param event the component interaction
+     * @return the game, or null if the interaction was not for a game the user is playing
+     */
+    private static Game getComponentGame(GenericComponentInteractionCreateEvent event) {
+        String componentID = event.getComponentId();
+        if (!componentID.startsWith(GameEmbedRenderer.COMPONENT_PREFIX)) return null;
+
+        GameManager gameManager = getGameManager();
+        int end = componentID.indexOf(':', GameEmbedRenderer.COMPONENT_PREFIX.length());
+        Game game = gameManager == null || end < 0 ? null : gameManager.getGameByID(
+                Long.parseLong(componentID, GameEmbedRenderer.COMPONENT_PREFIX.length(), end, 10));
+        if (game == null) {
+            RestQueue.ack(event.reply("## This game is no longer being played.").setEphemeral(true));
+            return null;
+        }
+        if (!game.isPlayer(event.getUser())) {
+            RestQueue.ack(event.reply("## You are not playing in this game.").setEphemeral(true));
+            return null;
+        }
+        return game;
+    }
+
+    /**
+     * Acknowledges a move by editing the game embed in place, and ends the game if the move finished it.
+     *
+     * @param game  the game the move was played in
+     * @param event the component interaction that played the move
+     */
+    private static void finishMove(Game game, GenericComponentInteractionCreateEvent event) {
+        RestQueue.ack(event.editMessageEmbeds(game.renderUpdate()).setComponents(game.createComponents()));
+        if (game.isOver()) {
+            game.endGame(game.getWhosTurn(), null);
+        }
+    }
+
+    /**
+     * Tracks the shard's readiness for the startup report.
+     *
+     * @param event the event fired when a shard has connected
+     */
+    @Override
+    public void onReady(@NotNull ReadyEvent event) {
+        StartupTracker.shardReady(event.getJDA());
+    }
+
+    /**
+     * Plays the move of a move button on a game embed.
+     *
+     * @param event the button interaction
+     */
+    @Override
+    public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
+        if (!DuplicateFilter.shared().firstDelivery(event.getIdLong())) return; // already handled before a resume
+        InteractionTracer.begin(event.getIdLong(), "move button", true);
+        try {
+            playButtonMove(event);
+        } finally {
+            InteractionTracer.endHandler();
+        }
+    }
+
+    private void playButtonMove(ButtonInteractionEvent event) {
+        Game game = getComponentGame(event);
+        if (game == null) return;
+
+        String componentID = event.getComponentId();
+        int actionStart = componentID.indexOf(':', GameEmbedRenderer.COMPONENT_PREFIX.length()) + 1;
+        if (!componentID.startsWith(GameEmbedRenderer.MOVE_ACTION, actionStart)) return;
+        int move = Integer.parseInt(componentID, actionStart + GameEmbedRenderer.MOVE_ACTION.length(), componentID.length(), 10);
+
+        if (!game.play(event.getUser(), move)) {
+            RestQueue.ack(event.reply("## It is not your turn, or that move is not allowed.").setEphemeral(true));
+            return;
+        }
+        finishMove(game, event);
+    }
+
+    /**
+     * Handles the game actions menu on a game embed.
+     *
+     * @param event the select menu interaction
+     */
+    @Override
+    public void onStringSelectInteraction(@NotNull StringSelectInteractionEvent event) {
+        if (!DuplicateFilter.shared().firstDelivery(event.getIdLong())) return; // already handled before a resume
+        InteractionTracer.begin(event.getIdLong(), "actions menu", true);
+        try {
+            Game game = getComponentGame(event);
+            if (game == null) return;
+
+            if (event.getValues().contains(GameEmbedRenderer.RESIGN_OPTION)) {
+                RestQueue.ack(event.editComponents());
+                game.resign(event.getUser());
+            } else {
+                RestQueue.ack(event.deferEdit());
+            }
+        } finally {
+            InteractionTracer.endHandler();
+        }
+    }
+
+    /**
+     * Records every finished HTTP request to Discord for the flight recorder, and marks an interaction's trace as
+     * acknowledged once Discord has accepted its first response, however the response was sent.
+     *
+     * @param event the event fired for every finished HTTP request
+     */
+    @Override
+    public void onHttpRequest(@NotNull HttpRequestEvent event) {
+        recordRequest(event);
+        Route.CompiledRoute route = event.getRoute();
+        if (route.getBaseRoute() != Route.Interactions.CALLBACK || event.getResponse() == null || !event.getResponse().isOk()) {
+            return;
+        }
+        String compiled = route.getCompiledRoute(); // interactions/{interaction_id}/{interaction_token}/callback
+        int start = compiled.indexOf('/') + 1;
+        int end = compiled.indexOf('/', start);
+        if (start > 0 && end > start) {
+            InteractionTracer.acknowledged(Long.parseLong(compiled, start, end, 10));
+        }
+    }
+
+    /**
+     * Records an HTTP request under its route, e.g. {@code PATCH channels/{channel_id}/messages/{message_id}}, so
+     * that requests to different channels and messages add up.
+     *
+     * @param event the event fired for the finished request
+     */
+    private static void recordRequest(HttpRequestEvent event) {
+        RestActionEvent recorded = new RestActionEvent();
+        if (!recorded.shouldCommit()) {
+            return;
+        }
+        Route route = event.getRoute().getBaseRoute();
+        Response response = event.getResponse();
+        okhttp3.Response raw = event.getResponseRaw();
+        recorded.route = route.getMethod() + " " + route.getRoute();
+        recorded.status = response != null ? response.code : -1;
+        recorded.responseTime = raw != null ? raw.receivedResponseAtMillis() - raw.sentRequestAtMillis() : 0;
+        recorded.rateLimited = event.isRateLimit();
+        recorded.succeeded = response != null && response.isOk();
+        recorded.commit();
     }
 
     /**
@@ -38,6 +200,15 @@ public class EventListeners extends ListenerAdapter {
      */
     @Override
     public void onGuildReady(@NotNull GuildReadyEvent event) {
+        long guildID = event.getGuild().getIdLong();
+        BotInitializer.whenGameManagerReady()
+                .thenCompose(gameManager -> {
+                    gameManager.adoptLegacyChannel(event.getGuild());
+                    gameManager.openGuildData(guildID);
+                    return gameManager.restoreGuild(event.getGuild());
+                })
+                .whenComplete((restored, failure) -> StartupTracker.guildReady(guildID));
+
         // TODO: REPLACE THIS ASCII ART WITH RELEVANT INFORMATION
         System.out.println("""
                 __________________________________________________________
@@ -53,26 +224,47 @@ public class EventListeners extends ListenerAdapter {
     }
 
     /**
-     * Handles player moves in messaged-based games.
+     * Handles player moves in messaged-based games, if they are enabled in the settings. A move message holds
+     * a move code or a move's label, as read by the {@link MoveParser}; other messages are ignored before any game
+     * is looked up, and so is a move message delivered a second time.
      *
      * @param event the event that triggered the player move
      */
     @Override
     public void onMessageReceived(@NotNull MessageReceivedEvent event) {
 
+        if (!settings.isMessageMovesEnabled()) return; // moves are played with the embed's components
+
         User player = event.getAuthor();
         if (player.isBot()) return; // ignore bots
 
         GameManager gameManager = getGameManager();
+        if (gameManager == null) return; // the game state is still loading
+
+        int move = gameManager.getMoveParser().parse(event.getMessage().getContentRaw());
+        if (move == MoveParser.NO_MOVE) return; // chatter
         if (!gameManager.isInGame(player)) return; // only players in a game can play
+        if (!DuplicateFilter.shared().firstDelivery(event.getMessageIdLong())) return; // already handled before a resume
 
         Game game = gameManager.getGame(player);
+        if (game == null) return; // the game ended in the meantime
 
         if (!game.isPlayer(player)) return; // only the players in this specific game can play
         if (notYourTurn(event, game, player)) return; // only the player whose turn it is can play
 
-        game.setWhosTurn();
-        updateEmbed(game, event);
+        InteractionTracer.begin(event.getMessageIdLong(), "message move", false);
+        try {
+            if (!game.play(player, move)) {
+                RestQueue.queue(RestQueue.Lane.HOUSEKEEPING, event.getChannel().getIdLong(), event.getMessage().delete());
+                return;
+            }
+            updateEmbed(game, event);
+            if (game.isOver()) {
+                game.endGame(game.getWhosTurn(), null);
+            }
+        } finally {
+            InteractionTracer.endHandler();
+        }
     }
 
     /**
@@ -86,7 +278,7 @@ public class EventListeners extends ListenerAdapter {
     private boolean notYourTurn(@NotNull MessageReceivedEvent event, Game game, User player) {
         User whos_turn = game.getWhosTurn();
         if (!player.equals(whos_turn)) {
-            event.getMessage().delete().queue();
+            RestQueue.queue(RestQueue.Lane.HOUSEKEEPING, event.getChannel().getIdLong(), event.getMessage().delete());
             return true;
         }
         return false;
@@ -3,8 +3,12 @@
 package com.chalwk;
 
 import com.chalwk.bot.BotInitializer;
+import com.chalwk.cluster.ClusterCoordinator;
+import com.chalwk.diagnostics.RecordingAnalyzer;
+import com.chalwk.simulation.GameSimulation;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * The main entry point of the Virtual Pets game project.
@@ -25,12 +29,28 @@ public class Main {
     /**
      * The main method of the Virtual Pets game project.
      * It calls the initializeBot method to start the bot initialization process.
+     * <p>
+     * To run a cluster on one machine, start one coordinator with {@code --coordinator <port> <totalShards>}
+     * and any number of bot processes with {@code --node <port> <name>}.
+     * <p>
+     * {@code --simulate <seed> <invites>} plays that many invites in virtual time without connecting to Discord.
+     * {@code --analyze-jfr <file>} summarises a flight recording of the bot.
      *
      * @param args The command-line arguments passed to the program.
      */
     public static void main(String[] args) {
         try {
-            initializeBot();
+            if (args.length == 3 && args[0].equals("--coordinator")) {
+                new ClusterCoordinator(Integer.parseInt(args[1]), Integer.parseInt(args[2])).run();
+            } else if (args.length == 3 && args[0].equals("--node")) {
+                new BotInitializer().initializeClusterNode(Integer.parseInt(args[1]), args[2]);
+            } else if (args.length == 3 && args[0].equals("--simulate")) {
+                GameSimulation.runAndReport(Long.parseLong(args[1]), Long.parseLong(args[2]));
+            } else if (args.length == 2 && args[0].equals("--analyze-jfr")) {
+                RecordingAnalyzer.analyze(Paths.get(args[1]), System.out);
+            } else {
+                initializeBot();
+            }
         } catch (IOException e) {
             System.err.println("Error reading token or initializing the bot: " + e.getMessage());
         }
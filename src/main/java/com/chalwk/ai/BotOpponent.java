@@ -0,0 +1,65 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.ai;
+
+import com.chalwk.game.Game;
+import com.chalwk.game.GameRules;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the bot's side of games against the bot. Moves are searched on a dedicated fork/join pool, never on a JDA
+ * event thread, and each search stops when its time budget is spent: the configured budget per move, or a tenth of
+ * the bot's remaining clock time if that is less.
+ */
+public class BotOpponent {
+
+    private final ForkJoinPool pool;
+    private final MctsSearch search;
+
+    /**
+     * Creates the bot opponent and its search pool.
+     *
+     * @param rules the rules of the game being played
+     */
+    public BotOpponent(GameRules rules) {
+        this.pool = new ForkJoinPool(settings.getBotSearchThreads());
+        this.search = new MctsSearch(rules, pool, settings.getBotTableSize());
+    }
+
+    /**
+     * Checks if a user is the bot itself.
+     *
+     * @param user the user to check
+     * @return true if the user is the bot's own account, false otherwise
+     */
+    public static boolean isBot(User user) {
+        return user.getIdLong() == user.getJDA().getSelfUser().getIdLong();
+    }
+
+    /**
+     * Searches for the bot's move in a game whose turn it is, and plays it once the search is done.
+     *
+     * @param game the game
+     */
+    public void takeTurn(Game game) {
+        User bot = game.getWhosTurn();
+        int state = game.getState();
+        long budgetMillis = Math.min(settings.getBotMoveBudgetMillis(), game.getRemainingMillis(bot) / 10);
+        long seed = ThreadLocalRandom.current().nextLong();
+
+        CompletableFuture.supplyAsync(() -> search.search(state, TimeUnit.MILLISECONDS.toNanos(budgetMillis), seed), pool)
+                .thenAccept(result -> game.playAndPublish(bot, result.move()))
+                .exceptionally(e -> {
+                    Logger.warning("Bot failed to move in game " + game.getGameID() + ": " + e.getMessage());
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,200 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.ai;
+
+import com.chalwk.game.GameRules;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds a move with a parallel Monte-Carlo tree search over any {@link GameRules}. Every thread of the pool runs
+ * playouts until the time budget is spent, and all of them grow one search tree held in a shared
+ * {@link TranspositionTable}, so positions reached by different move orders share their statistics.
+ * <p>
+ * Each playout descends the tree by UCT, stores the first unvisited state it reaches, finishes the game with random
+ * moves and credits the playout's winner on every stored state along the way. The chosen move is the most visited
+ * one.
+ */
+public class MctsSearch {
+
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int INITIAL_PATH_LENGTH = 64;
+
+    private final GameRules rules;
+    private final ForkJoinPool pool;
+    private final int tableSize;
+
+    /**
+     * Creates a search for a game.
+     *
+     * @param rules     the rules of the game
+     * @param pool      the pool to search on; one playout worker runs per unit of parallelism
+     * @param tableSize the number of states the transposition table can hold
+     */
+    public MctsSearch(GameRules rules, ForkJoinPool pool, int tableSize) {
+        this.rules = rules;
+        this.pool = pool;
+        this.tableSize = tableSize;
+    }
+
+    /**
+     * Searches a state for the best move. Returns once the budget is spent, however far the search got.
+     *
+     * @param state       the state to move from; must not be over
+     * @param budgetNanos the time to search for, in nanoseconds
+     * @param seed        the seed of the playouts' random moves
+     * @return the chosen move and the search statistics
+     */
+    public Result search(int state, long budgetNanos, long seed) {
+        long start = System.nanoTime();
+        TranspositionTable table = new TranspositionTable(tableSize);
+        int parallelism = pool.getParallelism();
+        Playouts[] workers = new Playouts[parallelism];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Playouts(table, state, start + budgetNanos, random.split());
+        }
+        if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(workers);
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(workers)));
+        }
+
+        long playouts = 0;
+        long nodes = 0;
+        for (Playouts worker : workers) {
+            playouts += worker.playouts;
+            nodes += worker.nodes;
+        }
+        return new Result(bestMove(table, state), playouts, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Picks the most visited move of a state.
+     */
+    private int bestMove(TranspositionTable table, int state) {
+        int[] moves = new int[rules.getMaxMoves()];
+        int count = rules.getLegalMoves(state, moves);
+        int best = moves[0];
+        long bestVisits = -1;
+        for (int i = 0; i < count; i++) {
+            int child = rules.play(state, moves[i]);
+            if (rules.isOver(child)) {
+                return moves[i]; // the player who makes the final move wins
+            }
+            long visits = TranspositionTable.visits(table.get(child));
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The outcome of a search.
+     *
+     * @param move         the chosen move
+     * @param playouts     the number of playouts run
+     * @param nodes        the number of states visited by all playouts
+     * @param elapsedNanos how long the search took, in nanoseconds
+     */
+    public record Result(int move, long playouts, long nodes, long elapsedNanos) {
+
+        /**
+         * Gets the search speed.
+         *
+         * @return the number of states visited per second
+         */
+        public double nodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+        }
+    }
+
+    /**
+     * One thread's share of the playouts. Its buffers are reused across playouts, so a playout allocates nothing.
+     */
+    @SuppressWarnings("serial") // fork/join tasks are Serializable, but a search is never serialized
+    private final class Playouts extends RecursiveAction {
+        private final TranspositionTable table;
+        private final int root;
+        private final long deadline;
+        private final SplittableRandom random;
+        private final int[] moves = new int[rules.getMaxMoves()];
+        private int[] path = new int[INITIAL_PATH_LENGTH];
+        private long playouts;
+        private long nodes;
+
+        private Playouts(TranspositionTable table, int root, long deadline, SplittableRandom random) {
+            this.table = table;
+            this.root = root;
+            this.deadline = deadline;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            do {
+                playout();
+                playouts++;
+            } while (System.nanoTime() < deadline);
+        }
+
+        /**
+         * Runs one playout from the root. States on the path are indexed by ply, so the state at an odd index was
+         * moved into by the searching player and the state at an even index by the opponent.
+         */
+        private void playout() {
+            int length = 0;
+            int state = root;
+            path[length++] = state;
+            boolean expanded = false;
+            while (!rules.isOver(state) && !expanded) {
+                long parentVisits = TranspositionTable.visits(table.get(state));
+                int count = rules.getLegalMoves(state, moves);
+                int chosen = -1;
+                double bestScore = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < count; i++) {
+                    int child = rules.play(state, moves[i]);
+                    long stats = table.get(child);
+                    long visits = TranspositionTable.visits(stats);
+                    if (visits == 0) {
+                        chosen = child;
+                        expanded = true;
+                        break;
+                    }
+                    double score = (double) TranspositionTable.wins(stats) / visits
+                            + EXPLORATION * Math.sqrt(Math.log(Math.max(parentVisits, 1)) / visits);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        chosen = child;
+                    }
+                }
+                state = chosen;
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, length * 2);
+                }
+                path[length++] = state;
+            }
+
+            int plies = length - 1;
+            while (!rules.isOver(state)) {
+                int count = rules.getLegalMoves(state, moves);
+                state = rules.play(state, moves[random.nextInt(count)]);
+                plies++;
+            }
+            nodes += plies + 1;
+
+            boolean searcherWon = plies % 2 == 1;
+            for (int i = 0; i < length; i++) {
+                boolean movedBySearcher = i % 2 == 1;
+                table.visit(path[i], movedBySearcher == searcherWon);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The search statistics of game states, shared by every search thread without locks. States are stored in an
+ * open-addressed table: a thread claims an empty slot for a state with a compare-and-set on its key, and the visit and
+ * win counts of a slot are packed into one long so that a playout result is added with a single atomic add.
+ * <p>
+ * The table never grows. A state whose probe sequence is full is simply not stored, and the search treats it as
+ * unvisited.
+ */
+final class TranspositionTable {
+
+    private static final int MAX_PROBES = 16;
+    private static final long VISIT = 1L << 32;
+    private static final long EMPTY = 0;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray stats;
+    private final int mask;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.keys = new AtomicLongArray(size);
+        this.stats = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the packed statistics of a state.
+     *
+     * @param state the state
+     * @return the packed visit and win counts, 0 if the state is not stored
+     */
+    long get(int state) {
+        long key = keyOf(state);
+        int slot = hash(state);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long stored = keys.get(slot);
+            if (stored == key) {
+                return stats.get(slot);
+            }
+            if (stored == EMPTY) {
+                return 0;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Records a visit of a state, storing the state if it is new.
+     *
+     * @param state the state
+     * @param won   whether the player who moved into the state won the playout
+     */
+    void visit(int state, boolean won) {
+        long key = keyOf(state);
+        int slot = hash(state);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long stored = keys.get(slot);
+            if (stored == EMPTY && (keys.compareAndSet(slot, EMPTY, key) || keys.get(slot) == key)) {
+                stored = key;
+            }
+            if (stored == key) {
+                stats.getAndAdd(slot, won ? VISIT | 1 : VISIT);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Gets the number of visits from packed statistics.
+     *
+     * @param stats the packed statistics
+     * @return the visit count
+     */
+    static long visits(long stats) {
+        return stats >>> 32;
+    }
+
+    /**
+     * Gets the number of wins from packed statistics.
+     *
+     * @param stats the packed statistics
+     * @return the win count
+     */
+    static long wins(long stats) {
+        return stats & 0xFFFFFFFFL;
+    }
+
+    private static long keyOf(int state) {
+        return VISIT | (state & 0xFFFFFFFFL);
+    }
+
+    private int hash(int state) {
+        int h = state * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -4,10 +4,17 @@
 package com.chalwk.bot;
 
 import com.chalwk.CommandManager.CommandListener;
+import com.chalwk.CommandManager.CommandRegistry;
 import com.chalwk.Listeners.EventListeners;
-import com.chalwk.commands.*;
+import com.chalwk.cluster.ClusterNode;
+import com.chalwk.cluster.ShardAssignment;
+import com.chalwk.diagnostics.FlightRecorder;
 import com.chalwk.game.GameManager;
+import com.chalwk.tournament.TournamentManager;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.Scheduler;
 import com.chalwk.util.authentication;
+import com.chalwk.util.settings;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.requests.GatewayIntent;
@@ -16,6 +23,11 @@ import net.dv8tion.jda.api.sharding.ShardManager;
 import net.dv8tion.jda.api.utils.MemberCachePolicy;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A class responsible for initializing and setting up the bot for the Virtual Pets game project.
@@ -30,17 +42,62 @@ public class BotInitializer {
     public static GameManager gameManager;
 
     /**
-     * The bot's authentication token.
+     * Runs the tournaments of every guild, on top of the game manager.
      */
-    private final String token;
+    private static TournamentManager tournamentManager;
 
     /**
-     * Constructs a BotInitializer instance and retrieves the bot's authentication token.
+     * Completed once the game manager has loaded the game state, so listeners started before that can wait for it.
+     */
+    private static final CompletableFuture<GameManager> GAME_MANAGER_READY = new CompletableFuture<>();
+
+    /**
+     * The bot's authentication token, read during startup.
+     */
+    private String token;
+
+    /**
+     * The shard range this cluster node owns, or null if it is not part of a cluster or has not been assigned one.
+     */
+    private ShardAssignment assignment;
+
+    /**
+     * The next scan for checkpoints handed over after the last shard assignment, or null if there is none.
+     */
+    private Scheduler.Task checkpointRescan;
+
+    /**
+     * Constructs a BotInitializer instance. The authentication token is read as part of the startup pipeline.
+     */
+    public BotInitializer() {
+    }
+
+    /**
+     * Returns a future completed with the game manager once the game state has been loaded.
      *
-     * @throws IOException if there's an error reading the token file.
+     * @return the game manager future
      */
-    public BotInitializer() throws IOException {
-        this.token = authentication.getToken();
+    public static CompletableFuture<GameManager> whenGameManagerReady() {
+        return GAME_MANAGER_READY;
+    }
+
+    /**
+     * Waits for a startup stage and rethrows its failure.
+     *
+     * @param stage the startup stage
+     * @param <T>   the stage's result type
+     * @return the stage's result
+     * @throws IOException if the stage failed to read its files
+     */
+    private static <T> T await(CompletableFuture<T> stage) throws IOException {
+        try {
+            return stage.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     public static GameManager getGameManager() {
@@ -53,37 +110,175 @@ public class BotInitializer {
 
     /**
      * Initializes the bot and sets up event listeners and commands.
+     * <p>
+     * Startup runs in stages: the token is read while the game state is loaded, the shards start logging in as soon
+     * as the token is available, and the game state finishes loading while the shards connect. The time of each stage
+     * is reported by the {@link StartupTracker}.
+     *
+     * @throws IOException if the token or the game data cannot be loaded
+     */
+    public void initializeBot() throws IOException {
+        FlightRecorder.start();
+        CompletableFuture<GameManager> state = loadGameState(() -> new GameManager(Paths.get(settings.getArchiveDirectory())));
+        this.token = await(readToken());
+        shardManager = StartupTracker.time("start shards", () -> buildShardManager(createBuilder()));
+        publishGameManager(await(state));
+        DrainController.installShutdownHook();
+    }
+
+    /**
+     * Initializes the bot as one node of a cluster. The nodes share the archive directory, where each guild's game
+     * archive and profiles follow the guild from node to node, and each node only starts the shards the cluster
+     * coordinator assigns to it, restarting them whenever the assignment changes.
+     *
+     * @param coordinatorPort the local port of the cluster coordinator
+     * @param nodeName        the name of this node
+     * @throws IOException if the game data cannot be loaded
      */
-    public void initializeBot() {
+    public void initializeClusterNode(int coordinatorPort, String nodeName) throws IOException {
+        FlightRecorder.start();
+        CompletableFuture<GameManager> state = loadGameState(
+                () -> new GameManager(Paths.get(settings.getArchiveDirectory()), nodeName));
+        this.token = await(readToken());
+        publishGameManager(await(state));
+        new ClusterNode(coordinatorPort, nodeName, this::applyAssignment).start();
+        DrainController.installShutdownHook();
+    }
 
-        gameManager = new GameManager();
+    /**
+     * Reads the bot's authentication token in the background.
+     *
+     * @return the token future
+     */
+    private CompletableFuture<String> readToken() {
+        return CompletableFuture.supplyAsync(() -> StartupTracker.time("read token", authentication::getToken));
+    }
 
+    /**
+     * Loads the game state, scanning the game archive, in the background.
+     *
+     * @param loader opens the game manager
+     * @return the game manager future
+     */
+    private CompletableFuture<GameManager> loadGameState(Callable<GameManager> loader) {
+        return CompletableFuture.supplyAsync(() -> StartupTracker.time("load game state", loader));
+    }
+
+    /**
+     * Makes the loaded game manager available to the listeners waiting for it, and starts hibernating idle games.
+     *
+     * @param loaded the loaded game manager
+     */
+    private void publishGameManager(GameManager loaded) {
+        gameManager = loaded;
+        tournamentManager = new TournamentManager(loaded);
+        loaded.startHibernation();
+        GAME_MANAGER_READY.complete(loaded);
+    }
+
+    /**
+     * Switches this node over to a new shard range. Guilds that moved to another node stop taking game commands, and
+     * their games and invites are checkpointed for that node before the shards are restarted. For a while after the switch, the node keeps
+     * looking for checkpoints of the guilds it now owns, since their previous owners may only write them after the
+     * guilds became ready here.
+     *
+     * @param assignment the new shard range
+     */
+    private synchronized void applyAssignment(ShardAssignment assignment) {
+        this.assignment = assignment;
+        StartupTracker.retainGuilds(assignment::owns);
+        gameManager.retainGuilds(assignment);
+        if (checkpointRescan != null) {
+            checkpointRescan.cancel();
+            checkpointRescan = null;
+        }
+        if (shardManager != null) {
+            shardManager.shutdown();
+            shardManager = null;
+        }
+        if (assignment.isEmpty()) {
+            Logger.info("No shards assigned; waiting for the cluster to grow");
+            return;
+        }
+        shardManager = buildShardManager(createBuilder()
+                .setShardsTotal(assignment.getTotalShards())
+                .setShards(assignment.getMinShard(), assignment.getMaxShard()));
+        scheduleCheckpointRescan(assignment, Scheduler.get().nanoTime()
+                + TimeUnit.SECONDS.toNanos(settings.getHandoffWindowSeconds()));
+    }
+
+    /**
+     * Scans for checkpoints of the guilds an assignment owns after a delay, and again until a deadline.
+     *
+     * @param assignment    the current shard range
+     * @param deadlineNanos the monotonic time after which no more scans are scheduled
+     */
+    private void scheduleCheckpointRescan(ShardAssignment assignment, long deadlineNanos) {
+        checkpointRescan = Scheduler.get().schedule(() -> rescanCheckpoints(assignment, deadlineNanos),
+                settings.getHandoffRescanSeconds(), TimeUnit.SECONDS);
+    }
+
+    private synchronized void rescanCheckpoints(ShardAssignment assignment, long deadlineNanos) {
+        ShardManager shards = shardManager;
+        if (shards == null || assignment != this.assignment) {
+            return; // the assignment changed while this scan was waiting to run
+        }
+        try {
+            int found = gameManager.restorePendingGuilds(guildID -> assignment.owns(guildID) ? shards.getGuildById(guildID) : null);
+            if (found > 0) {
+                Logger.info("Restoring " + found + " guilds handed over after the shard assignment changed");
+            }
+        } finally {
+            if (Scheduler.get().nanoTime() < deadlineNanos) {
+                scheduleCheckpointRescan(assignment, deadlineNanos);
+            } else {
+                checkpointRescan = null;
+            }
+        }
+    }
+
+    /**
+     * Creates the shard manager builder with the bot's settings and gateway intents.
+     *
+     * @return the shard manager builder
+     */
+    private DefaultShardManagerBuilder createBuilder() {
         DefaultShardManagerBuilder builder = DefaultShardManagerBuilder.createDefault(this.token)
                 .setStatus(OnlineStatus.ONLINE)
                 .setActivity(Activity.playing("GAME"))
                 .setMemberCachePolicy(MemberCachePolicy.ALL)
+                .setEnableShutdownHook(false) // DrainController flushes and checkpoints before shutting the shards down
                 .enableIntents(GatewayIntent.GUILD_MEMBERS,
-                        GatewayIntent.GUILD_MESSAGES,
-                        GatewayIntent.GUILD_PRESENCES,
-                        GatewayIntent.MESSAGE_CONTENT);
-
-        shardManager = builder.build();
-        shardManager.addEventListener(new EventListeners());
-        registerCommands(shardManager);
+                        GatewayIntent.GUILD_PRESENCES);
+        if (settings.isMessageMovesEnabled()) {
+            // only message-based moves need every guild message and its content
+            builder.enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT);
+        } else {
+            builder.disableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT);
+        }
+        return builder;
     }
 
     /**
-     * Registers the available commands for the bot.
+     * Builds the shard manager with the event listeners and commands. The listeners are attached before the shards
+     * log in so no ready event is missed; the commands are added once the game state has loaded.
      *
-     * @param shardManager The ShardManager instance used to manage the bot.
+     * @param builder the configured shard manager builder
+     * @return the started shard manager
      */
-    private void registerCommands(ShardManager shardManager) {
+    private ShardManager buildShardManager(DefaultShardManagerBuilder builder) {
         CommandListener commands = new CommandListener();
-        commands.add(new invite(gameManager));
-        commands.add(new accept(gameManager));
-        commands.add(new decline(gameManager));
-        commands.add(new channel(gameManager));
-        commands.add(new cancel(gameManager));
-        shardManager.addEventListener(commands);
+        GAME_MANAGER_READY.thenAccept(loaded -> registerCommands(commands, loaded));
+        return builder.addEventListeners(new EventListeners(), commands).build();
+    }
+
+    /**
+     * Registers the available commands for the bot, as declared with {@code @SlashCommand} on the command classes.
+     *
+     * @param commands    the command listener to register the commands with
+     * @param gameManager the game manager used by the commands
+     */
+    private void registerCommands(CommandListener commands, GameManager gameManager) {
+        commands.setCommands(CommandRegistry.create(gameManager, tournamentManager));
     }
 }
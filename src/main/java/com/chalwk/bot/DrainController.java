@@ -0,0 +1,158 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.bot;
+
+import com.chalwk.CommandManager.CommandReply;
+import com.chalwk.game.GameManager;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.RestQueue;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shuts the bot down without losing games. Draining stops new games from being started, flushes the REST actions
+ * still in flight, checkpoints every active game and invite to disk for the next process, and finally shuts the
+ * shards down. The whole drain is bounded by {@link settings#DRAIN_TIMEOUT_SECONDS}.
+ */
+public class DrainController {
+
+    private static volatile boolean draining;
+    private static boolean drained;
+
+    private DrainController() {
+    }
+
+    /**
+     * Drains the bot when the JVM is asked to stop, e.g. by SIGTERM during a redeploy.
+     */
+    public static void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(DrainController::drain, "drain"));
+    }
+
+    /**
+     * Checks if the bot is draining.
+     *
+     * @return true if the bot is shutting down, false otherwise
+     */
+    public static boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Rejects a command that would start a new game while the bot is draining.
+     *
+     * @param event the command event
+     * @return true if the command was rejected, false otherwise
+     */
+    public static boolean rejectIfDraining(SlashCommandInteractionEvent event) {
+        if (draining) {
+            CommandReply.reply(event, "## The bot is restarting. Please try again in a moment.", true).queue();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drains the bot. Calling this more than once has no further effect. JDA's own shutdown hook is turned off when
+     * the shards are built, so this is the only path that shuts them down.
+     */
+    public static synchronized void drain() {
+        if (drained) {
+            return;
+        }
+        drained = true;
+        draining = true;
+
+        Report report = shutDown(BotInitializer.getGameManager(), BotInitializer.getShardManager(),
+                TimeUnit.SECONDS.toNanos(settings.getDrainTimeoutSeconds()));
+        if (report.isClean()) {
+            Logger.info(report.toString());
+        } else {
+            Logger.warning(report.toString());
+        }
+    }
+
+    /**
+     * Flushes the REST actions in flight, checkpoints every game and then shuts the shards down, in that order, so
+     * that nothing queued for Discord is dropped by a shard that is already closing.
+     *
+     * @param gameManager  the game manager to checkpoint, or null if the game state never loaded
+     * @param shardManager the shard manager to shut down, or null if the shards were never built
+     * @param timeoutNanos the time the whole drain may take, in nanoseconds
+     * @return how the drain went
+     */
+    static Report shutDown(GameManager gameManager, ShardManager shardManager, long timeoutNanos) {
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+
+        int inFlight = RestQueue.getPendingCount();
+        boolean flushed = RestQueue.flush(remainingMillis(deadline));
+        long flushedAt = System.nanoTime();
+
+        int checkpointed = 0;
+        if (gameManager != null) {
+            checkpointed = gameManager.checkpointGuilds(guildID -> true);
+            gameManager.awaitFlush(remainingMillis(deadline));
+        }
+        long checkpointedAt = System.nanoTime();
+
+        boolean shardsStopped = true;
+        if (shardManager != null) {
+            shardManager.shutdown();
+            try {
+                for (JDA shard : shardManager.getShards()) {
+                    shardsStopped &= shard.awaitShutdown(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shardsStopped = false;
+            }
+        }
+        long end = System.nanoTime();
+
+        return new Report(inFlight, flushed, checkpointed, shardsStopped,
+                flushedAt - start, checkpointedAt - flushedAt, end - checkpointedAt);
+    }
+
+    /**
+     * How a drain went, step by step.
+     *
+     * @param inFlight        the REST actions in flight when the drain began
+     * @param flushed         whether they all finished before the timeout
+     * @param checkpointed    the number of games checkpointed
+     * @param shardsStopped   whether every shard shut down before the timeout
+     * @param flushNanos      the time taken to flush, in nanoseconds
+     * @param checkpointNanos the time taken to checkpoint, in nanoseconds
+     * @param shutdownNanos   the time taken to shut the shards down, in nanoseconds
+     */
+    record Report(int inFlight, boolean flushed, int checkpointed, boolean shardsStopped,
+                  long flushNanos, long checkpointNanos, long shutdownNanos) {
+
+        /**
+         * Checks if every step finished before the timeout.
+         *
+         * @return true if the drain was clean, false otherwise
+         */
+        boolean isClean() {
+            return flushed && shardsStopped;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Drained in %d ms: flushed %d REST actions in %d ms%s, checkpointed %d games in %d ms, shut down shards in %d ms%s",
+                    TimeUnit.NANOSECONDS.toMillis(flushNanos + checkpointNanos + shutdownNanos),
+                    inFlight, TimeUnit.NANOSECONDS.toMillis(flushNanos), flushed ? "" : " (timed out)",
+                    checkpointed, TimeUnit.NANOSECONDS.toMillis(checkpointNanos),
+                    TimeUnit.NANOSECONDS.toMillis(shutdownNanos), shardsStopped ? "" : " (timed out)");
+        }
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+}
@@ -0,0 +1,166 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.bot;
+
+import com.chalwk.CommandManager.CommandReply;
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+/**
+ * Tracks how far the bot has come in starting up. Each startup phase is timed and reported once every shard is
+ * ready, shards are tracked as they connect, and each guild is marked ready once its checkpointed games have been
+ * loaded. Game commands only wait for their own guild, not for the whole bot.
+ */
+public class StartupTracker {
+
+    private static final long START_NANOS = System.nanoTime();
+    private static final Map<String, Long> PHASES = new LinkedHashMap<>();
+    private static final Set<Long> READY_GUILDS = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger READY_SHARDS = new AtomicInteger();
+    private static final AtomicBoolean FIRST_COMMAND = new AtomicBoolean();
+
+    private StartupTracker() {
+    }
+
+    /**
+     * Runs a startup phase and records how long it took.
+     *
+     * @param phase the name of the phase
+     * @param task  the phase's work
+     * @param <T>   the phase's result type
+     * @return the phase's result
+     * @throws CompletionException if the phase failed
+     */
+    public static <T> T time(String phase, Callable<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the duration of a startup phase.
+     *
+     * @param phase         the name of the phase
+     * @param durationNanos how long the phase took
+     */
+    public static void record(String phase, long durationNanos) {
+        synchronized (PHASES) {
+            PHASES.put(phase, durationNanos);
+        }
+    }
+
+    /**
+     * Marks a shard as connected, and reports the startup phases once every shard is.
+     *
+     * @param jda the shard that is ready
+     */
+    public static void shardReady(JDA jda) {
+        int ready = READY_SHARDS.incrementAndGet();
+        long elapsed = System.nanoTime() - START_NANOS;
+        Logger.info("Shard " + jda.getShardInfo().getShardId() + " ready after " + toMillis(elapsed) + " ms ("
+                + jda.getGuilds().size() + " guilds)");
+        if (ready == 1) {
+            record("first shard ready", elapsed);
+        }
+        ShardManager shardManager = jda.getShardManager();
+        if (shardManager == null || shardManager.getShardsQueued() == 0
+                && shardManager.getShardCache().stream().allMatch(shard -> shard.getStatus() == JDA.Status.CONNECTED)) {
+            record("all shards ready", elapsed);
+            report();
+        }
+    }
+
+    /**
+     * Marks a guild as ready for game commands.
+     *
+     * @param guildID the guild ID
+     */
+    public static void guildReady(long guildID) {
+        READY_GUILDS.add(guildID);
+    }
+
+    /**
+     * Forgets the ready guilds this process no longer serves, so that their game commands wait for the guild to be
+     * ready again if it comes back.
+     *
+     * @param owned selects the guilds this process still serves
+     */
+    public static void retainGuilds(LongPredicate owned) {
+        READY_GUILDS.removeIf(guildID -> !owned.test(guildID));
+    }
+
+    /**
+     * Checks if a guild's game state has been loaded.
+     *
+     * @param guildID the guild ID
+     * @return true if game commands can run in the guild, false otherwise
+     */
+    public static boolean isGuildReady(long guildID) {
+        return READY_GUILDS.contains(guildID);
+    }
+
+    /**
+     * Rejects a game command in a guild whose game state is still loading.
+     *
+     * @param event the command event
+     * @return true if the command was rejected, false otherwise
+     */
+    public static boolean rejectIfNotReady(SlashCommandInteractionEvent event) {
+        if (event.getGuild() != null && !isGuildReady(event.getGuild().getIdLong())) {
+            CommandReply.reply(event, "## The bot is still starting up. Please try again in a moment.", true).queue();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Logs the time to the first command the first time a command is handled.
+     */
+    public static void commandHandled() {
+        if (FIRST_COMMAND.compareAndSet(false, true)) {
+            String sinceLaunch = ProcessHandle.current().info().startInstant()
+                    .map(launch -> Duration.between(launch, Instant.now()).toMillis() + " ms after launch, ")
+                    .orElse("");
+            Logger.info("First command handled " + sinceLaunch + toMillis(System.nanoTime() - START_NANOS)
+                    + " ms after startup began");
+        }
+    }
+
+    /**
+     * Logs the duration of every startup phase recorded so far.
+     */
+    public static void report() {
+        StringBuilder report = new StringBuilder("Startup phases:");
+        synchronized (PHASES) {
+            for (Map.Entry<String, Long> phase : PHASES.entrySet()) {
+                report.append("\n  ").append(phase.getKey()).append(": ").append(toMillis(phase.getValue())).append(" ms");
+            }
+        }
+        Logger.info(report.toString());
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,134 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.cluster;
+
+import com.chalwk.util.Logging.Logger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out shard ranges to the bot processes of a cluster running on the same machine.
+ * <p>
+ * Nodes connect over a local socket and introduce themselves with {@code HELLO <name>}, then send {@code PING}
+ * regularly. Whenever a node joins, leaves or stops sending heartbeats, the shards are split again into contiguous
+ * ranges and every node is sent its range as {@code ASSIGN <total> <min> <max>}.
+ */
+public class ClusterCoordinator {
+
+    public static final String HELLO = "HELLO";
+    public static final String PING = "PING";
+    public static final String ASSIGN = "ASSIGN";
+
+    /**
+     * How often nodes send heartbeats, in milliseconds.
+     */
+    public static final int HEARTBEAT_INTERVAL_MILLIS = 5000;
+
+    /**
+     * How long the coordinator waits for a heartbeat before dropping a node, in milliseconds.
+     */
+    private static final int HEARTBEAT_TIMEOUT_MILLIS = 3 * HEARTBEAT_INTERVAL_MILLIS;
+
+    private final int port;
+    private final int totalShards;
+    private final List<NodeConnection> nodes = new ArrayList<>();
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param port        the local port to listen on
+     * @param totalShards the total number of shards to split between the nodes
+     */
+    public ClusterCoordinator(int port, int totalShards) {
+        this.port = port;
+        this.totalShards = totalShards;
+    }
+
+    /**
+     * Accepts node connections until the process is stopped.
+     *
+     * @throws IOException if the port cannot be opened
+     */
+    public void run() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            Logger.info("Cluster coordinator listening on port " + port + " for " + totalShards + " shards");
+            while (true) {
+                Socket socket = server.accept();
+                Thread thread = new Thread(() -> handle(socket), "cluster-node-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Serves one node connection until it closes or its heartbeats stop.
+     *
+     * @param socket the node's socket
+     */
+    private void handle(Socket socket) {
+        NodeConnection node = null;
+        try (socket) {
+            socket.setSoTimeout(HEARTBEAT_TIMEOUT_MILLIS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String hello = in.readLine();
+            if (hello == null || !hello.startsWith(HELLO + " ")) {
+                return;
+            }
+
+            node = new NodeConnection(hello.substring(HELLO.length() + 1).trim(),
+                    new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true));
+            synchronized (this) {
+                nodes.add(node);
+                Logger.info("Cluster node " + node.name + " joined");
+                rebalance();
+            }
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.equals(PING)) {
+                    Logger.warning("Unexpected message from cluster node " + node.name + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            Logger.warning("Lost cluster node" + (node != null ? " " + node.name : "") + ": " + e.getMessage());
+        } finally {
+            if (node != null) {
+                synchronized (this) {
+                    nodes.remove(node);
+                    Logger.info("Cluster node " + node.name + " left");
+                    rebalance();
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the shards into one contiguous range per node, in the order the nodes joined, and sends every node its
+     * range. Nodes beyond the number of shards are left idle.
+     */
+    private void rebalance() {
+        int count = nodes.size();
+        for (int i = 0; i < count; i++) {
+            int min = (int) ((long) i * totalShards / count);
+            int max = (int) ((long) (i + 1) * totalShards / count) - 1;
+            ShardAssignment assignment = max < min
+                    ? new ShardAssignment(totalShards, -1, -1)
+                    : new ShardAssignment(totalShards, min, max);
+
+            NodeConnection node = nodes.get(i);
+            node.out.println(ASSIGN + " " + totalShards + " " + assignment.getMinShard() + " " + assignment.getMaxShard());
+            Logger.info("Assigned " + assignment + " to cluster node " + node.name);
+        }
+    }
+
+    private record NodeConnection(String name, PrintWriter out) {
+    }
+}
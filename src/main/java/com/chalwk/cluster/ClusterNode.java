@@ -0,0 +1,153 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.cluster;
+
+import com.chalwk.util.Logging.Logger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Connects a bot process to the cluster coordinator and reports every shard range it is assigned.
+ * If the coordinator goes away, the node keeps running its current shards and reconnects in the background.
+ */
+public class ClusterNode {
+
+    private static final int RECONNECT_DELAY_MILLIS = 5000;
+
+    private final int port;
+    private final String name;
+    private final Consumer<ShardAssignment> onAssignment;
+    private volatile ShardAssignment assignment;
+
+    /**
+     * Creates a cluster node.
+     *
+     * @param port         the local port of the coordinator
+     * @param name         the name this node reports to the coordinator
+     * @param onAssignment called with every new shard range this node is assigned
+     */
+    public ClusterNode(int port, String name, Consumer<ShardAssignment> onAssignment) {
+        this.port = port;
+        this.name = name;
+        this.onAssignment = onAssignment;
+    }
+
+    /**
+     * Starts talking to the coordinator on a background thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this::run, "cluster-node");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the shard range this node currently owns.
+     *
+     * @return the current assignment, or null if none has been received yet
+     */
+    public ShardAssignment getAssignment() {
+        return assignment;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void run() {
+        while (true) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                out.println(ClusterCoordinator.HELLO + " " + name);
+                Thread heartbeat = startHeartbeat(out);
+
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        handle(line);
+                    }
+                } finally {
+                    heartbeat.interrupt();
+                }
+            } catch (IOException e) {
+                Logger.warning("Cluster coordinator unavailable: " + e.getMessage());
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private Thread startHeartbeat(PrintWriter out) {
+        Thread heartbeat = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted() && !out.checkError()) {
+                out.println(ClusterCoordinator.PING);
+                try {
+                    Thread.sleep(ClusterCoordinator.HEARTBEAT_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "cluster-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+        return heartbeat;
+    }
+
+    /**
+     * Handles a line from the coordinator. Malformed lines are logged and skipped, so that they cannot stop the node
+     * from hearing later assignments.
+     *
+     * @param line the line
+     */
+    private void handle(String line) {
+        String[] parts = line.split(" ");
+        if (parts.length != 4 || !parts[0].equals(ClusterCoordinator.ASSIGN)) {
+            Logger.warning("Unexpected message from cluster coordinator: " + line);
+            return;
+        }
+
+        ShardAssignment received;
+        try {
+            received = new ShardAssignment(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        } catch (NumberFormatException e) {
+            Logger.warning("Malformed assignment from cluster coordinator: " + line);
+            return;
+        }
+        if (!isValid(received)) {
+            Logger.warning("Invalid shard range from cluster coordinator: " + line);
+            return;
+        }
+        if (received.equals(assignment)) {
+            return;
+        }
+        assignment = received;
+        Logger.info("Cluster node " + name + " now owns " + received);
+        onAssignment.accept(received);
+    }
+
+    /**
+     * Checks that an assignment is either empty or a range of existing shards.
+     *
+     * @param assignment the assignment
+     * @return true if the assignment can be applied, false otherwise
+     */
+    private static boolean isValid(ShardAssignment assignment) {
+        if (assignment.getTotalShards() <= 0) {
+            return false;
+        }
+        if (assignment.getMinShard() < 0 || assignment.getMaxShard() < 0) {
+            return assignment.getMinShard() == -1 && assignment.getMaxShard() == -1;
+        }
+        return assignment.getMinShard() <= assignment.getMaxShard() && assignment.getMaxShard() < assignment.getTotalShards();
+    }
+}
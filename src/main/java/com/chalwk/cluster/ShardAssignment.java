@@ -0,0 +1,89 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.cluster;
+
+/**
+ * The range of shards a cluster node is responsible for.
+ */
+public class ShardAssignment {
+
+    private final int totalShards;
+    private final int minShard;
+    private final int maxShard;
+
+    /**
+     * Creates a shard assignment.
+     *
+     * @param totalShards the total number of shards in the cluster
+     * @param minShard    the first shard of this node, or -1 if the node owns no shards
+     * @param maxShard    the last shard of this node, or -1 if the node owns no shards
+     */
+    public ShardAssignment(int totalShards, int minShard, int maxShard) {
+        this.totalShards = totalShards;
+        this.minShard = minShard;
+        this.maxShard = maxShard;
+    }
+
+    /**
+     * Gets the shard that receives the events of a guild.
+     *
+     * @param guildID     the guild ID
+     * @param totalShards the total number of shards
+     * @return the shard ID
+     */
+    public static int shardOf(long guildID, int totalShards) {
+        return (int) ((guildID >>> 22) % totalShards);
+    }
+
+    public int getTotalShards() {
+        return totalShards;
+    }
+
+    public int getMinShard() {
+        return minShard;
+    }
+
+    public int getMaxShard() {
+        return maxShard;
+    }
+
+    /**
+     * Checks if this node owns any shards.
+     *
+     * @return true if at least one shard is assigned, false otherwise
+     */
+    public boolean isEmpty() {
+        return minShard < 0;
+    }
+
+    /**
+     * Checks if a guild is served by one of this node's shards.
+     *
+     * @param guildID the guild ID
+     * @return true if this node owns the guild's shard, false otherwise
+     */
+    public boolean owns(long guildID) {
+        if (isEmpty()) {
+            return false;
+        }
+        int shard = shardOf(guildID, totalShards);
+        return shard >= minShard && shard <= maxShard;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ShardAssignment assignment && assignment.totalShards == totalShards
+                && assignment.minShard == minShard && assignment.maxShard == maxShard;
+    }
+
+    @Override
+    public int hashCode() {
+        return (totalShards * 31 + minShard) * 31 + maxShard;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "no shards" : "shards " + minShard + "-" + maxShard + " of " + totalShards;
+    }
+}
@@ -3,19 +3,25 @@
 package com.chalwk.commands;
 
 import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandCost;
 import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.CommandReply;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.DrainController;
+import com.chalwk.bot.StartupTracker;
 import com.chalwk.game.GameManager;
 import com.chalwk.util.settings;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.interactions.commands.build.OptionData;
-
-import java.util.ArrayList;
-import java.util.List;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
 
 /**
  * Represents a command for accepting a game invite.
  */
+@SlashCommand(name = "accept", description = "Accept an invite to play a game", cost = CommandCost.EXPENSIVE, options = {
+        @Option(type = OptionType.USER, name = "inviter", description = "The player whose invite to accept, if not the oldest", required = false)})
 public class accept implements CommandInterface {
 
     /**
@@ -36,21 +42,6 @@ public class accept implements CommandInterface {
         this.gameManager = gameManager;
     }
 
-    @Override
-    public String getName() {
-        return "accept";
-    }
-
-    @Override
-    public String getDescription() {
-        return "Accept an invite to play a game";
-    }
-
-    @Override
-    public List<OptionData> getOptions() {
-        return new ArrayList<>();
-    }
-
     /**
      * Executes the accept command when called.
      *
@@ -60,19 +51,23 @@ public class accept implements CommandInterface {
     public void execute(SlashCommandInteractionEvent event) {
         if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
 
+        if (DrainController.rejectIfDraining(event)) return;
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
         if (settings.notCorrectChannel(event)) return;
 
         User acceptingPlayer = event.getUser();
+        User invitingPlayer = CommandOptions.accept.inviter(event);
 
         if (gameManager.isInGame(acceptingPlayer)) {
-            event.reply("## You are already in a game.").setEphemeral(true).queue();
+            CommandReply.reply(event, "## You are already in a game.", true).queue();
             return;
-        } else if (gameManager.getPendingInvites().containsKey(acceptingPlayer)) {
-            gameManager.acceptInvite(acceptingPlayer, event);
+        } else if (gameManager.hasPendingInvite(acceptingPlayer)) {
+            gameManager.acceptInvite(acceptingPlayer, invitingPlayer, event);
         } else {
-            event.reply("## You don't have any pending invites.").setEphemeral(true).queue();
+            CommandReply.reply(event, "## You don't have any pending invites.", true).queue();
         }
 
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
     }
 }
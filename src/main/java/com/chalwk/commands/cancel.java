@@ -4,18 +4,21 @@ package com.chalwk.commands;
 
 import com.chalwk.CommandManager.CommandCooldownManager;
 import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.game.GameInvite;
 import com.chalwk.game.GameManager;
 import com.chalwk.util.settings;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.StringJoiner;
 
 /**
  * Represents a command for canceling a game invite.
  */
+@SlashCommand(name = "cancel", description = "Cancel an invite to play a game")
 public class cancel implements CommandInterface {
 
     /**
@@ -37,21 +40,6 @@ public class cancel implements CommandInterface {
         this.gameManager = gameManager;
     }
 
-    @Override
-    public String getName() {
-        return "cancel";
-    }
-
-    @Override
-    public String getDescription() {
-        return "Cancel an invite to play a game";
-    }
-
-    @Override
-    public List<OptionData> getOptions() {
-        return new ArrayList<>();
-    }
-
     /**
      * Executes the accept command when called.
      *
@@ -61,13 +49,23 @@ public class cancel implements CommandInterface {
     public void execute(SlashCommandInteractionEvent event) {
         if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
 
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
         if (settings.notCorrectChannel(event)) return;
 
         User user = event.getUser();
-        String invitee = gameManager.getInvitee(user);
-        gameManager.cancelInvite(user);
-        event.reply("Invite to play a game with " + invitee + " has been canceled.").setEphemeral(true).queue();
+        List<GameInvite> canceled = gameManager.cancelInvites(user);
+        if (canceled.isEmpty()) {
+            event.reply("## You don't have any pending invites.").setEphemeral(true).queue();
+            return;
+        }
+
+        StringJoiner invitees = new StringJoiner(", ");
+        for (GameInvite invite : canceled) {
+            invitees.add(invite.getInvitedPlayer().getAsMention());
+        }
+        event.reply("Invite to play a game with " + invitees + " has been canceled.").setEphemeral(true).queue();
 
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
     }
 }
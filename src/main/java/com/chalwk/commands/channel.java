@@ -2,25 +2,32 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.commands;
 
+import com.chalwk.CommandManager.Choice;
 import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandCost;
 import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.CommandReply;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
 import com.chalwk.game.GameManager;
+import com.chalwk.util.Logging.Logger;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
-import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import static com.chalwk.util.fileIO.isChannelIdConfigured;
-import static com.chalwk.util.fileIO.saveChannelID;
+import java.io.IOException;
 
 /**
- * Represents a command for setting or removing the channel for the game to use.
+ * Represents a command for setting or removing the channel for the game to use in the server it is run in.
  */
+@SlashCommand(name = "channel", description = "Set or remove the channel for the game to use (admins only)",
+        cost = CommandCost.EXPENSIVE, options = {
+        @Option(type = OptionType.STRING, name = "operation", description = "The type of operation to perform",
+                choices = {@Choice(name = "add", value = "add"), @Choice(name = "remove", value = "remove")}),
+        @Option(type = OptionType.CHANNEL, name = "channel", description = "The channel to set or remove")})
 public class channel implements CommandInterface {
 
     private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
@@ -30,31 +37,6 @@ public class channel implements CommandInterface {
         this.gameManager = gameManager;
     }
 
-    @Override
-    public String getName() {
-        return "channel";
-    }
-
-    @Override
-    public String getDescription() {
-        return "Set or remove the channel for the game to use (admins only)";
-    }
-
-    public List<OptionData> getOptions() {
-
-        List<OptionData> options = new ArrayList<>();
-
-        OptionData operation = new OptionData(OptionType.STRING, "operation", "The type of operation to perform", true);
-        operation.addChoice("add", "add");
-        operation.addChoice("remove", "remove");
-
-        OptionData channel = new OptionData(OptionType.CHANNEL, "channel", "The channel to set or remove", true);
-        options.add(operation);
-        options.add(channel);
-
-        return options;
-    }
-
     /**
      * Executes the accept command when called.
      *
@@ -65,39 +47,47 @@ public class channel implements CommandInterface {
 
         if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
 
-        String optionName = event.getOptions().get(0).getName();
-        String optionValue = event.getOption(optionName).getAsString();
+        String optionValue = CommandOptions.channel.operation(event);
 
-        TextChannel channel = event.getOption("channel").getAsChannel().asTextChannel();
+        TextChannel channel = CommandOptions.channel.channel(event).asTextChannel();
 
         String channelID = channel.getId();
         boolean isAddOperation = optionValue.equals("add");
 
         if (initialErrorChecking(event, channel)) return;
+        long guildID = event.getGuild().getIdLong();
+        String configuredChannelID = GameManager.getChannelID(guildID);
         if (isAddOperation) {
-            if (isChannelIdConfigured(channelID)) {
-                event.reply("## Channel ID is already configured!").setEphemeral(true).queue();
+            if (!configuredChannelID.isEmpty()) {
+                CommandReply.reply(event, "## Channel ID is already configured!", true).queue();
                 return;
             }
         } else {
-            if (!isChannelIdConfigured(channelID)) {
-                event.reply("## Channel ID is not configured! Unable to remove.").setEphemeral(true).queue();
+            if (!configuredChannelID.equals(channelID)) {
+                CommandReply.reply(event, "## Channel ID is not configured! Unable to remove.", true).queue();
                 return;
             }
         }
 
-        saveChannelID(channelID, isAddOperation, event, gameManager);
+        try {
+            gameManager.setChannelID(guildID, isAddOperation ? channelID : "");
+            CommandReply.reply(event, isAddOperation ? "## Channel ID saved!" : "## Channel ID removed!", true).queue();
+        } catch (IOException e) {
+            Logger.info("Failed to save channel ID: " + e.getMessage());
+            CommandReply.reply(event, "## Failed to save channel ID!", true).queue();
+            return;
+        }
 
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
     }
 
     private boolean initialErrorChecking(SlashCommandInteractionEvent event, TextChannel channel) {
         Member member = event.getMember();
         if (!member.hasPermission(Permission.ADMINISTRATOR)) {
-            event.reply("## You must be an administrator to use this command!").setEphemeral(true).queue();
+            CommandReply.reply(event, "## You must be an administrator to use this command!", true).queue();
             return false;
         } else if (channel == null) {
-            event.reply("## Invalid channel ID!").setEphemeral(true).queue();
+            CommandReply.reply(event, "## Invalid channel ID!", true).queue();
             return true;
         }
         return false;
@@ -4,18 +4,21 @@ package com.chalwk.commands;
 
 import com.chalwk.CommandManager.CommandCooldownManager;
 import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.StartupTracker;
 import com.chalwk.game.GameManager;
 import com.chalwk.util.settings;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.interactions.commands.build.OptionData;
-
-import java.util.ArrayList;
-import java.util.List;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
 
 /**
  * Represents a command for declining a game invite.
  */
+@SlashCommand(name = "decline", description = "Decline an invite to play a game", options = {
+        @Option(type = OptionType.USER, name = "inviter", description = "The player whose invite to decline, if not the oldest", required = false)})
 public class decline implements CommandInterface {
 
     /**
@@ -37,21 +40,6 @@ public class decline implements CommandInterface {
         this.gameManager = gameManager;
     }
 
-    @Override
-    public String getName() {
-        return "decline";
-    }
-
-    @Override
-    public String getDescription() {
-        return "Decline an invite to play a game";
-    }
-
-    @Override
-    public List<OptionData> getOptions() {
-        return new ArrayList<>();
-    }
-
     /**
      * Executes the decline command when called.
      *
@@ -61,17 +49,20 @@ public class decline implements CommandInterface {
     public void execute(SlashCommandInteractionEvent event) {
         if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
 
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
         if (settings.notCorrectChannel(event)) return;
 
         User decliningPlayer = event.getUser();
+        User invitingPlayer = CommandOptions.decline.inviter(event);
 
-        if (!gameManager.getPendingInvites().containsKey(decliningPlayer)) {
+        if (!gameManager.hasPendingInvite(decliningPlayer)) {
             event.reply("## You don't have any pending invites.").setEphemeral(true).queue();
             return;
         }
 
-        gameManager.declineInvite(decliningPlayer, event);
+        gameManager.declineInvite(decliningPlayer, invitingPlayer, event);
 
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
     }
 }
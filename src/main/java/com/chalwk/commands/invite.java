@@ -4,19 +4,22 @@ package com.chalwk.commands;
 
 import com.chalwk.CommandManager.CommandCooldownManager;
 import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.DrainController;
+import com.chalwk.bot.StartupTracker;
 import com.chalwk.game.GameManager;
 import com.chalwk.util.settings;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
-import net.dv8tion.jda.api.interactions.commands.build.OptionData;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Represents a command for inviting a user to play a game.
  */
+@SlashCommand(name = "invite", description = "Invite a player to a game", options = {
+        @Option(type = OptionType.USER, name = "opponent", description = "The user to invite, or the bot to play against it")})
 public class invite implements CommandInterface {
 
     /**
@@ -38,30 +41,6 @@ public class invite implements CommandInterface {
         this.gameManager = gameManager;
     }
 
-    @Override
-    public String getName() {
-        return "invite";
-    }
-
-    @Override
-    public String getDescription() {
-        return "Invite a player to a game";
-    }
-
-    @Override
-    public List<OptionData> getOptions() {
-
-        List<OptionData> options = new ArrayList<>();
-        options.add(new OptionData(OptionType.USER, "opponent", "The user to invite", true));
-        OptionData option = new OptionData(OptionType.STRING, "SUB_COMMAND", "Some description here", true);
-
-        option.addChoice("something", "SOME_VALUE");
-        option.addChoice("something_else", "ANOTHER_VALUE");
-
-        options.add(option);
-        return options;
-    }
-
     /**
      * Executes the invite command when called.
      *
@@ -71,16 +50,23 @@ public class invite implements CommandInterface {
     public void execute(SlashCommandInteractionEvent event) {
         if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
 
+        if (DrainController.rejectIfDraining(event)) return;
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
         if (settings.notCorrectChannel(event)) return;
 
-        User userToInvite = event.getOption("opponent").getAsUser();
+        User userToInvite = CommandOptions.invite.opponent(event);
         User invitingPlayer = event.getUser();
 
         if (isSelf(event, userToInvite, invitingPlayer)) return;
 
-        gameManager.invitePlayer(invitingPlayer, userToInvite, event);
+        if (userToInvite.equals(event.getJDA().getSelfUser())) {
+            gameManager.startBotGame(invitingPlayer, userToInvite, event);
+        } else {
+            gameManager.invitePlayer(invitingPlayer, userToInvite, event);
+        }
 
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
     }
 
     private boolean isSelf(SlashCommandInteractionEvent event, User userToInvite, User invitingPlayer) {
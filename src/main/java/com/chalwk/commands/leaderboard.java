@@ -0,0 +1,73 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.commands;
+
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.game.GameManager;
+import com.chalwk.rating.Leaderboard;
+import com.chalwk.rating.RatingManager;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+/**
+ * Represents a command for showing the player leaderboard.
+ */
+@SlashCommand(name = "leaderboard", description = "Show the player leaderboard", options = {
+        @Option(type = OptionType.INTEGER, name = "page", description = "The page to show", required = false, minValue = 1)})
+public class leaderboard implements CommandInterface {
+
+    /**
+     * The cooldown manager for the command.
+     */
+    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
+
+    /**
+     * The game manager for managing game operations.
+     */
+    private final GameManager gameManager;
+
+    /**
+     * Initializes the leaderboard command instance with the provided GameManager.
+     *
+     * @param gameManager the GameManager managing game operations
+     */
+    public leaderboard(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    /**
+     * Executes the leaderboard command when called.
+     *
+     * @param event the event associated with the command execution
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) {
+        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
+        RatingManager ratingManager = gameManager.getRatingManager(event.getGuild().getIdLong());
+        Leaderboard leaderboard = ratingManager.getLeaderboard();
+
+        int page = (int) CommandOptions.leaderboard.page(event, 1);
+        if (page > leaderboard.getPageCount()) {
+            event.reply("## There are only " + leaderboard.getPageCount() + " leaderboard pages.").setEphemeral(true).queue();
+            return;
+        }
+
+        User user = event.getUser();
+        int rank = ratingManager.getRank(user);
+        String yourRank = rank < 0
+                ? "You are not ranked yet. Finish a game to get a rating."
+                : "Your rank: **#" + rank + "** (" + ratingManager.getRating(user) + ")";
+
+        event.reply(yourRank).addEmbeds(leaderboard.getPage(page - 1)).setEphemeral(true).queue();
+
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
+    }
+}
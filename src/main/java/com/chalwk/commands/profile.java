@@ -0,0 +1,91 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.commands;
+
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandCost;
+import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.CommandReply;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.game.GameManager;
+import com.chalwk.profile.PlayerProfile;
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.utils.TimeFormat;
+
+import java.io.IOException;
+
+import java.awt.*;
+
+/**
+ * Represents a command for showing a player's profile: their results, moves played and rating.
+ */
+@SlashCommand(name = "profile", description = "Show a player's profile", cost = CommandCost.EXPENSIVE, options = {
+        @Option(type = OptionType.USER, name = "player", description = "The player whose profile to show", required = false)})
+public class profile implements CommandInterface {
+
+    /**
+     * The cooldown manager for the command.
+     */
+    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
+
+    /**
+     * The game manager for managing game operations.
+     */
+    private final GameManager gameManager;
+
+    /**
+     * Initializes the profile command instance with the provided GameManager.
+     *
+     * @param gameManager the GameManager managing game operations
+     */
+    public profile(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    /**
+     * Executes the profile command when called.
+     *
+     * @param event the event associated with the command execution
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) {
+        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
+        User player = CommandOptions.profile.player(event);
+        if (player == null) player = event.getUser();
+
+        long guildID = event.getGuild().getIdLong();
+        PlayerProfile profile;
+        try {
+            profile = gameManager.getProfileStore(guildID).get(player.getIdLong());
+        } catch (IOException e) {
+            Logger.warning("Failed to read the profile of " + player.getId() + ": " + e.getMessage());
+            CommandReply.reply(event, "## The profile could not be read. Try again later.", true).queue();
+            return;
+        }
+
+        int rank = gameManager.getRatingManager(guildID).getRank(player);
+        EmbedBuilder embed = new EmbedBuilder()
+                .setTitle("Profile of " + player.getEffectiveName())
+                .setThumbnail(player.getEffectiveAvatarUrl())
+                .addField("Games: ", String.valueOf(profile.getGamesPlayed()), true)
+                .addField("Won / Lost / Drawn: ", profile.getWins() + " / " + profile.getLosses() + " / " + profile.getDraws(), true)
+                .addField("Moves: ", String.valueOf(profile.getMovesPlayed()), true)
+                .addField("Rating: ", rank < 0 ? "Unranked"
+                        : gameManager.getRatingManager(guildID).getRating(player) + " (#" + rank + ")", true)
+                .addField("Last played: ", profile.getLastPlayedMillis() == 0 ? "Never"
+                        : TimeFormat.RELATIVE.format(profile.getLastPlayedMillis()), true)
+                .setColor(Color.CYAN);
+        CommandReply.replyEmbeds(event, embed.build(), true).queue();
+
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
+    }
+}
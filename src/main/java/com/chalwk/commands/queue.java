@@ -0,0 +1,84 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.commands;
+
+import com.chalwk.CommandManager.Choice;
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.DrainController;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.game.GameManager;
+import com.chalwk.game.MatchmakingQueue;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+/**
+ * Represents a command for joining or leaving the matchmaking queue.
+ */
+@SlashCommand(name = "queue", description = "Join or leave the matchmaking queue", options = {
+        @Option(type = OptionType.STRING, name = "operation", description = "Join or leave the queue",
+                choices = {@Choice(name = "join", value = "join"), @Choice(name = "leave", value = "leave")})})
+public class queue implements CommandInterface {
+
+    /**
+     * The cooldown manager for the command.
+     */
+    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
+
+    /**
+     * The game manager for managing game operations.
+     */
+    private final GameManager gameManager;
+
+    /**
+     * Initializes the queue command instance with the provided GameManager.
+     *
+     * @param gameManager the GameManager managing game operations
+     */
+    public queue(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    /**
+     * Executes the queue command when called.
+     *
+     * @param event the event associated with the command execution
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) {
+        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
+
+        if (DrainController.rejectIfDraining(event)) return;
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
+        if (settings.notCorrectChannel(event)) return;
+
+        User player = event.getUser();
+        MatchmakingQueue matchmakingQueue = gameManager.getMatchmakingQueue(event.getGuild().getIdLong());
+        boolean isJoinOperation = CommandOptions.queue.operation(event).equals("join");
+
+        if (isJoinOperation) {
+            if (gameManager.isInGame(player)) {
+                event.reply("## You are already in a game.").setEphemeral(true).queue();
+                return;
+            } else if (!matchmakingQueue.join(player)) {
+                event.reply("## You are already in the queue.").setEphemeral(true).queue();
+                return;
+            }
+            event.reply("## You joined the matchmaking queue.\nYour game will start in this channel once an opponent is found.").setEphemeral(true).queue();
+        } else {
+            if (!matchmakingQueue.leave(player)) {
+                event.reply("## You are not in the queue.").setEphemeral(true).queue();
+                return;
+            }
+            event.reply("## You left the matchmaking queue.").setEphemeral(true).queue();
+        }
+
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
+    }
+}
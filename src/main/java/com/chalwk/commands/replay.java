@@ -0,0 +1,230 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.commands;
+
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandCost;
+import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.CommandReply;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.game.GameManager;
+import com.chalwk.history.GameRecord;
+import com.chalwk.history.ReplayReader;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.RestQueue;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+import java.awt.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a command for replaying a finished game, or listing a player's recent games. Both read the game archive
+ * from disk, so the command is deferred and replies through {@link CommandReply}.
+ */
+@SlashCommand(name = "replay", description = "Replay a finished game, or list a player's recent games",
+        cost = CommandCost.EXPENSIVE, options = {
+        @Option(type = OptionType.INTEGER, name = "game", description = "The ID of the game to replay", required = false, minValue = 1),
+        @Option(type = OptionType.USER, name = "player", description = "List this player's recent games", required = false)})
+public class replay implements CommandInterface {
+
+    /**
+     * The cooldown manager for the command.
+     */
+    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
+
+    /**
+     * Steps every running replay forward, one move at a time.
+     */
+    private static final ScheduledExecutorService REPLAY_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Caps the replays running at once, each of which holds a file of the game archive open until it ends.
+     */
+    private static final Semaphore REPLAY_SLOTS = new Semaphore(settings.getMaxConcurrentReplays());
+
+    private static final int RECENT_GAMES_LIMIT = 10;
+
+    /**
+     * The game manager for managing game operations.
+     */
+    private final GameManager gameManager;
+
+    /**
+     * Initializes the replay command instance with the provided GameManager.
+     *
+     * @param gameManager the GameManager managing game operations
+     */
+    public replay(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    private static String describeResult(GameRecord header) {
+        return switch (header.getResult()) {
+            case GameRecord.RESULT_FIRST_PLAYER_WON -> "<@" + header.getFirstPlayerID() + "> won";
+            case GameRecord.RESULT_SECOND_PLAYER_WON -> "<@" + header.getSecondPlayerID() + "> won";
+            default -> "Draw";
+        };
+    }
+
+    private static MessageEmbed replayEmbed(ReplayReader reader, String lastMove) {
+        GameRecord header = reader.getHeader();
+        EmbedBuilder embed = new EmbedBuilder()
+                .setTitle("Replay of game #" + header.getGameID())
+                .addField("Players: ", "<@" + header.getFirstPlayerID() + "> VS <@" + header.getSecondPlayerID() + ">", true)
+                .addField("Move: ", reader.getMovesRead() + "/" + header.getMoveCount(), true)
+                .setColor(Color.GRAY);
+        if (lastMove != null) {
+            embed.setDescription(lastMove);
+        }
+        if (!reader.hasNextMove()) {
+            embed.addField("Result: ", describeResult(header), false);
+        }
+        return embed.build();
+    }
+
+    private static String describeMove(ReplayReader reader) {
+        GameRecord header = reader.getHeader();
+        long playerID = reader.getPlayerIndex() == 0 ? header.getFirstPlayerID() : header.getSecondPlayerID();
+        String action = reader.getMove() == GameRecord.PASS ? "took their turn" : "played move " + reader.getMove();
+        return String.format("<@%d> %s (+%.1fs)", playerID, action, reader.getElapsedMillis() / 1000.0);
+    }
+
+    /**
+     * Executes the replay command when called.
+     *
+     * @param event the event associated with the command execution
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) {
+        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
+        long gameID = CommandOptions.replay.game(event, 0);
+        User player = CommandOptions.replay.player(event);
+
+        try {
+            if (gameID > 0) {
+                startReplay(event, gameID);
+            } else {
+                listRecentGames(event, player != null ? player : event.getUser());
+            }
+        } catch (IOException e) {
+            Logger.info("Failed to read the game archive: " + e.getMessage());
+            CommandReply.reply(event, "## Failed to read the game archive!", true).queue();
+            return;
+        }
+
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
+    }
+
+    private void listRecentGames(SlashCommandInteractionEvent event, User player) throws IOException {
+        List<GameRecord> games = gameManager.getGameArchive(event.getGuild().getIdLong()).findRecentGames(player.getIdLong(), RECENT_GAMES_LIMIT);
+        if (games.isEmpty()) {
+            CommandReply.reply(event, "## " + player.getName() + " has no finished games.", true).queue();
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (GameRecord game : games) {
+            lines.append("**#").append(game.getGameID()).append("** <@").append(game.getFirstPlayerID())
+                    .append("> VS <@").append(game.getSecondPlayerID()).append("> - <t:")
+                    .append(game.getStartMillis() / 1000).append(":R> - ").append(game.getMoveCount())
+                    .append(" moves\n");
+        }
+        CommandReply.replyEmbeds(event, new EmbedBuilder()
+                .setTitle("Recent games of " + player.getName())
+                .setDescription(lines)
+                .setFooter("Use /replay game:<id> to watch a game.")
+                .setColor(Color.GRAY).build(), true).queue();
+    }
+
+    private void startReplay(SlashCommandInteractionEvent event, long gameID) throws IOException {
+        if (!REPLAY_SLOTS.tryAcquire()) {
+            CommandReply.reply(event, "## Too many replays are running.\nPlease try again in a moment.", true).queue();
+            return;
+        }
+        ReplayReader reader;
+        try {
+            reader = gameManager.getGameArchive(event.getGuild().getIdLong()).openReplay(gameID);
+        } catch (IOException | RuntimeException e) {
+            REPLAY_SLOTS.release();
+            throw e;
+        }
+        if (reader == null) {
+            REPLAY_SLOTS.release();
+            CommandReply.reply(event, "## Game #" + gameID + " was not found.", true).queue();
+            return;
+        }
+        InteractionHook hook = event.getHook();
+        long channelID = event.getChannel().getIdLong();
+        CommandReply.replyEmbeds(event, replayEmbed(reader, null), false).queue(
+                // the reply of a deferred command is its original message; otherwise the interaction ID is unique too
+                reply -> scheduleNextMove(hook, channelID, reply instanceof Message message ? message.getId() : event.getId(), reader),
+                failure -> close(reader));
+    }
+
+    /**
+     * Shows the next move of a replay after a delay, then schedules the move after it. The edits go through the
+     * spectator lane of the {@link RestQueue}, so a replay never delays a live game, and an edit still waiting when
+     * the next move is shown is replaced by it.
+     *
+     * @param hook      the hook of the replay message
+     * @param channelID the ID of the channel of the replay message
+     * @param messageID the ID of the replay message
+     * @param reader    the reader streaming the game's moves
+     */
+    private void scheduleNextMove(InteractionHook hook, long channelID, String messageID, ReplayReader reader) {
+        if (!reader.hasNextMove()) {
+            close(reader);
+            return;
+        }
+        REPLAY_TIMER.schedule(() -> {
+            try {
+                reader.nextMove();
+                RestQueue.edit(RestQueue.Lane.SPECTATOR, channelID, messageID,
+                        hook.editOriginalEmbeds(replayEmbed(reader, describeMove(reader))));
+                scheduleNextMove(hook, channelID, messageID, reader);
+            } catch (IOException e) {
+                Logger.info("Failed to read the game archive: " + e.getMessage());
+                close(reader);
+            } catch (RuntimeException e) {
+                Logger.warning("Replay failed: " + e.getMessage());
+                close(reader);
+            }
+        }, settings.getReplayMoveDelayMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes a replay's reader and frees its slot for the next replay.
+     *
+     * @param reader the reader streaming the game's moves
+     */
+    private void close(ReplayReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // nothing left to do with a reader that failed to close
+        } finally {
+            REPLAY_SLOTS.release();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.commands;
+
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.game.Game;
+import com.chalwk.game.GameManager;
+import com.chalwk.util.RestQueue;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+/**
+ * Represents a command for following a game as a spectator.
+ */
+@SlashCommand(name = "spectate", description = "Follow a player's game in this channel", options = {
+        @Option(type = OptionType.USER, name = "player", description = "The player whose game to follow")})
+public class spectate implements CommandInterface {
+
+    /**
+     * The cooldown manager for the command.
+     */
+    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
+
+    /**
+     * The game manager for managing game operations.
+     */
+    private final GameManager gameManager;
+
+    /**
+     * Initializes the spectate command instance with the provided GameManager.
+     *
+     * @param gameManager the GameManager managing game operations
+     */
+    public spectate(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    /**
+     * Executes the spectate command when called. The game embed is posted in the channel and kept up to date until
+     * the game ends.
+     *
+     * @param event the event associated with the command execution
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) {
+        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
+
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
+        User player = CommandOptions.spectate.player(event);
+        Game game = gameManager.getGame(player);
+        if (game == null) {
+            event.reply("## " + player.getName() + " is not playing a game.").setEphemeral(true).queue();
+            return;
+        }
+        if (game.getSpectators().isFull()) {
+            event.reply("## This game already has the most spectators allowed.").setEphemeral(true).queue();
+            return;
+        }
+
+        long channelID = event.getChannel().getIdLong();
+        RestQueue.queue(RestQueue.Lane.SPECTATOR, channelID, event.getChannel().sendMessageEmbeds(game.createGameEmbed()),
+                message -> game.getSpectators().add(channelID, message.getId()));
+        RestQueue.ack(event.reply("## Now spectating " + player.getName() + "'s game.").setEphemeral(true));
+
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
+    }
+}
@@ -0,0 +1,103 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.commands;
+
+import com.chalwk.CommandManager.Choice;
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.CommandOptions;
+import com.chalwk.CommandManager.Option;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.bot.DrainController;
+import com.chalwk.bot.StartupTracker;
+import com.chalwk.tournament.Tournament;
+import com.chalwk.tournament.TournamentFormat;
+import com.chalwk.tournament.TournamentManager;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+/**
+ * Represents a command for creating, joining and starting tournaments.
+ */
+@SlashCommand(name = "tournament", description = "Create, join or start a tournament", options = {
+        @Option(type = OptionType.STRING, name = "operation", description = "What to do", choices = {
+                @Choice(name = "create", value = "create"), @Choice(name = "join", value = "join"),
+                @Choice(name = "start", value = "start")}),
+        @Option(type = OptionType.STRING, name = "format", description = "The format of a new tournament", required = false,
+                enumChoices = TournamentFormat.class)})
+public class tournament implements CommandInterface {
+
+    /**
+     * The cooldown manager for the command.
+     */
+    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
+
+    /**
+     * The tournament manager running the tournaments.
+     */
+    private final TournamentManager tournamentManager;
+
+    /**
+     * Initializes the tournament command instance with the provided TournamentManager.
+     *
+     * @param tournamentManager the TournamentManager running the tournaments
+     */
+    public tournament(TournamentManager tournamentManager) {
+        this.tournamentManager = tournamentManager;
+    }
+
+    /**
+     * Executes the tournament command when called.
+     *
+     * @param event the event associated with the command execution
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) {
+        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
+
+        if (DrainController.rejectIfDraining(event)) return;
+        if (StartupTracker.rejectIfNotReady(event)) return;
+
+        if (settings.notCorrectChannel(event)) return;
+
+        User user = event.getUser();
+        long guildID = event.getGuild().getIdLong();
+        Tournament current = tournamentManager.getTournament(guildID);
+
+        switch (CommandOptions.tournament.operation(event)) {
+            case "create" -> {
+                TournamentFormat format = CommandOptions.tournament.format(event);
+                if (format == null) format = TournamentFormat.SINGLE_ELIMINATION;
+                if (tournamentManager.create(guildID, format, user) == null) {
+                    event.reply("## There is already a tournament in this server.").setEphemeral(true).queue();
+                    return;
+                }
+                event.reply("## You created a " + format.getDisplayName() + " tournament.\nUse /tournament start once everyone has joined.").setEphemeral(true).queue();
+            }
+            case "join" -> {
+                if (current == null) {
+                    event.reply("## There is no tournament to join.").setEphemeral(true).queue();
+                    return;
+                } else if (!tournamentManager.join(guildID, user)) {
+                    event.reply("## You cannot join this tournament.\nYou may have joined already, or it is full or has started.").setEphemeral(true).queue();
+                    return;
+                }
+                event.reply("## You joined the tournament.").setEphemeral(true).queue();
+            }
+            default -> {
+                if (current == null || current.getHostID() != user.getIdLong()) {
+                    event.reply("## Only the player who created the tournament can start it.").setEphemeral(true).queue();
+                    return;
+                } else if (!tournamentManager.start(guildID)) {
+                    event.reply("## The tournament needs at least two players and cannot already be running.").setEphemeral(true).queue();
+                    return;
+                }
+                event.reply("## The tournament has started!").setEphemeral(true).queue();
+            }
+        }
+
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
+    }
+}
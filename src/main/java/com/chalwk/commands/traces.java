@@ -0,0 +1,75 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.commands;
+
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.CommandManager.SlashCommand;
+import com.chalwk.diagnostics.AcknowledgementStats;
+import com.chalwk.diagnostics.InteractionTracer;
+import com.chalwk.game.GameManager;
+import com.chalwk.util.DuplicateFilter;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.utils.FileUpload;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a command for dumping the acknowledgement times, profile store and hibernation metrics, game event
+ * subscriber lag and recent interaction traces, for administrators looking into slow responses.
+ */
+@SlashCommand(name = "traces", description = "Dump acknowledgement times and recent interaction traces (admins only)")
+public class traces implements CommandInterface {
+
+    /**
+     * The cooldown manager for the command.
+     */
+    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
+
+    /**
+     * The game manager for managing game operations.
+     */
+    private final GameManager gameManager;
+
+    /**
+     * Initializes the traces command instance with the provided GameManager.
+     *
+     * @param gameManager the GameManager managing game operations
+     */
+    public traces(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    /**
+     * Executes the traces command when called.
+     *
+     * @param event the event associated with the command execution
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) {
+        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
+
+        Member member = event.getMember();
+        if (member == null || !member.hasPermission(Permission.ADMINISTRATOR)) {
+            event.reply("## You must be an administrator to use this command!").setEphemeral(true).queue();
+            return;
+        }
+
+        StringBuilder dump = new StringBuilder();
+        AcknowledgementStats.report(dump);
+        dump.append('\n').append("Profile store: ").append(gameManager.getProfileStore(event.getGuild().getIdLong()).getMetrics()).append('\n');
+        dump.append("Hibernated games: ").append(gameManager.getHibernationMetrics()).append('\n');
+        dump.append("Duplicate deliveries: ").append(DuplicateFilter.shared().getMetrics()).append('\n');
+        dump.append("Game event subscribers:\n");
+        gameManager.getEventBus().describe(dump);
+        dump.append('\n');
+        int count = InteractionTracer.dump(dump);
+        event.reply("## " + count + " recent interaction traces")
+                .addFiles(FileUpload.fromData(dump.toString().getBytes(StandardCharsets.UTF_8), "traces.txt"))
+                .setEphemeral(true).queue();
+
+        COOLDOWN_MANAGER.setCooldown(event.getName(), event.getUser());
+    }
+}
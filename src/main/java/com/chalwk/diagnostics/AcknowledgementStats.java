@@ -0,0 +1,76 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts, per command, how often the interaction was deferred and how long Discord took to receive its
+ * acknowledgement, measured from the interaction's creation. Times are counted in fixed buckets, so recording one
+ * is a couple of atomic increments.
+ */
+public class AcknowledgementStats {
+
+    private static final long[] BUCKET_BOUNDS_MILLIS = {100, 250, 500, 1000, 1500, 2000, 2500, 3000, Long.MAX_VALUE};
+    private static final int COUNT = BUCKET_BOUNDS_MILLIS.length;
+    private static final int DEFERRED = COUNT + 1;
+    private static final int MAX = COUNT + 2;
+
+    private static final Map<String, AtomicLongArray> STATS = new ConcurrentHashMap<>();
+
+    private AcknowledgementStats() {
+    }
+
+    /**
+     * Records an acknowledgement.
+     *
+     * @param name      the command or interaction name
+     * @param deferred  whether the acknowledgement was a deferral
+     * @param ackMillis the time from the interaction's creation to Discord accepting the acknowledgement
+     */
+    public static void record(String name, boolean deferred, long ackMillis) {
+        AtomicLongArray stats = STATS.computeIfAbsent(name, k -> new AtomicLongArray(MAX + 1));
+        int bucket = 0;
+        while (ackMillis >= BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        stats.incrementAndGet(bucket);
+        stats.incrementAndGet(COUNT);
+        if (deferred) {
+            stats.incrementAndGet(DEFERRED);
+        }
+        stats.accumulateAndGet(MAX, ackMillis, Math::max);
+    }
+
+    /**
+     * Writes the deferral rate and time-to-acknowledge of every command seen so far.
+     *
+     * @param out where to write the report
+     */
+    public static void report(StringBuilder out) {
+        out.append("Time to acknowledge (from interaction creation):\n");
+        for (Map.Entry<String, AtomicLongArray> entry : new TreeMap<>(STATS).entrySet()) {
+            AtomicLongArray stats = entry.getValue();
+            long count = stats.get(COUNT);
+            out.append(String.format("  %-16s %,6d acks, %5.1f%% deferred, p50 %s, p99 %s, max %d ms, %d over 3 s%n",
+                    entry.getKey(), count, 100.0 * stats.get(DEFERRED) / count, percentile(stats, count, 0.5),
+                    percentile(stats, count, 0.99), stats.get(MAX), stats.get(COUNT - 1)));
+        }
+    }
+
+    private static String percentile(AtomicLongArray stats, long count, double percentile) {
+        long target = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int bucket = 0; bucket < COUNT; bucket++) {
+            seen += stats.get(bucket);
+            if (seen >= target) {
+                return bucket == COUNT - 1 ? ">3000 ms" : "<" + BUCKET_BOUNDS_MILLIS[bucket] + " ms";
+            }
+        }
+        return "-";
+    }
+}
@@ -0,0 +1,49 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import jdk.jfr.*;
+
+/**
+ * A slash command handled by the bot, from the interaction arriving to the command returning.
+ */
+@Name("com.chalwk.Command")
+@Label("Slash Command")
+@Category({"Chalwk Bot", "Commands"})
+@StackTrace(false)
+public class CommandEvent extends Event {
+
+    /**
+     * The command ran.
+     */
+    public static final String HANDLED = "handled";
+    /**
+     * The bot was still starting up and had not added the command yet.
+     */
+    public static final String NOT_READY = "not ready";
+    /**
+     * No command has the name.
+     */
+    public static final String UNKNOWN = "unknown";
+    /**
+     * The command threw an exception.
+     */
+    public static final String FAILED = "failed";
+
+    @Label("Command")
+    public String command;
+
+    @Label("Guild ID")
+    public long guildID;
+
+    @Label("User ID")
+    public long userID;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Deferred")
+    @Description("Whether the interaction was deferred and the command run on a worker thread")
+    public boolean deferred;
+}
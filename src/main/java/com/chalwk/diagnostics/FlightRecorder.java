@@ -0,0 +1,67 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.settings;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts the continuous flight recording of the bot with the bundled {@code chalwk.jfc} settings. The recording keeps
+ * a rolling window of recent events in memory and on disk, and is written out when the bot exits, so that a stall can
+ * be examined after the fact with {@link RecordingAnalyzer}.
+ */
+public class FlightRecorder {
+
+    private static final String SETTINGS_RESOURCE = "/chalwk.jfc";
+
+    private FlightRecorder() {
+    }
+
+    /**
+     * Starts the recording, unless recording is disabled in the settings. A failure to start is logged, not thrown;
+     * the bot runs without a recording.
+     */
+    public static void start() {
+        if (!settings.isJfrRecordingEnabled()) {
+            return;
+        }
+        try (InputStream in = FlightRecorder.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (in == null) {
+                Logger.warning("Flight recording not started: " + SETTINGS_RESOURCE + " is missing");
+                return;
+            }
+            Configuration configuration;
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                configuration = Configuration.create(reader);
+            }
+            Path file = Paths.get(settings.getJfrRecordingFile());
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Recording recording = new Recording(configuration);
+            recording.setName("chalwk-bot");
+            recording.setMaxAge(Duration.ofMinutes(settings.getJfrMaxAgeMinutes()));
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            recording.setDumpOnExit(true);
+            recording.start();
+            Logger.info("Flight recording to " + file.toAbsolutePath());
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            Logger.warning("Flight recording not started: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import jdk.jfr.*;
+
+/**
+ * A step in the life of a game: its start, each move, a timeout and its end.
+ */
+@Name("com.chalwk.Game")
+@Label("Game")
+@Category({"Chalwk Bot", "Games"})
+@StackTrace(false)
+public class GameEvent extends Event {
+
+    public static final String START = "start";
+    public static final String MOVE = "move";
+    public static final String TIMEOUT = "timeout";
+    public static final String END = "end";
+
+    @Label("Game ID")
+    public long gameID;
+
+    @Label("Guild ID")
+    public long guildID;
+
+    @Label("Action")
+    public String action;
+
+    @Label("Player ID")
+    @Description("The player who moved, ran out of time or won; 0 if there is none")
+    public long playerID;
+
+    @Label("Move")
+    public int move;
+
+    @Label("State")
+    @Description("The game state after the action, as encoded by the game's rules")
+    public int state;
+
+    /**
+     * Emits a game event if game events are being recorded.
+     *
+     * @param gameID   the game ID
+     * @param guildID  the guild ID
+     * @param action   what happened
+     * @param playerID the player involved, or 0
+     * @param move     the move played, or 0
+     * @param state    the state after the action
+     */
+    public static void emit(long gameID, long guildID, String action, long playerID, int move, int state) {
+        GameEvent event = new GameEvent();
+        if (event.shouldCommit()) {
+            event.gameID = gameID;
+            event.guildID = guildID;
+            event.action = action;
+            event.playerID = playerID;
+            event.move = move;
+            event.state = state;
+            event.commit();
+        }
+    }
+}
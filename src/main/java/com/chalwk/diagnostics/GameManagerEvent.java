@@ -0,0 +1,40 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import jdk.jfr.*;
+
+/**
+ * A change to the games and invites held by the game manager. The duration of a rehydration is the time it took to
+ * bring the game back into memory.
+ */
+@Name("com.chalwk.GameManager")
+@Label("Game Manager Change")
+@Category({"Chalwk Bot", "Games"})
+@StackTrace(false)
+public class GameManagerEvent extends Event {
+
+    public static final String ADD_GAME = "add game";
+    public static final String REMOVE_GAME = "remove game";
+    public static final String ADD_INVITE = "add invite";
+    public static final String CHECKPOINT = "checkpoint";
+    public static final String RESTORE = "restore";
+    public static final String HIBERNATE = "hibernate";
+    public static final String REHYDRATE = "rehydrate";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Game ID")
+    @Description("The game added or removed; 0 for operations on many games")
+    public long gameID;
+
+    @Label("Games")
+    @Description("The number of games the operation touched")
+    public int count;
+
+    @Label("Active Games")
+    @Description("The number of games being played after the operation")
+    public int activeGames;
+}
@@ -0,0 +1,312 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import com.chalwk.util.Scheduler;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Traces where the time of each interaction goes. A trace is keyed by a correlation ID, the ID of the interaction (or
+ * of the message, for moves typed in chat), and collects spans from every stage that works on it: the wait from
+ * Discord creating the interaction to the bot handling it, the handler, the game manager, each REST action queued on
+ * its behalf (time queued and time in flight), and the moment Discord accepted the acknowledgement.
+ * <p>
+ * The trace follows the handler's thread, and {@link com.chalwk.util.RestQueue} carries it over to the REST
+ * callbacks. A trace is complete once its handler has returned, its REST actions have finished and, for an
+ * interaction, it has been acknowledged; a trace still incomplete after {@link #ABANDON_AFTER_MILLIS} is completed
+ * as it stands. Completed traces are sampled into a bounded ring buffer: every trace slower than the slow
+ * threshold is kept, and a fraction of the others.
+ */
+public class InteractionTracer {
+
+    private static final long ABANDON_AFTER_MILLIS = 15_000;
+    private static final int MAX_SPANS = 32;
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+    private static final Map<Long, Trace> ACTIVE = new ConcurrentHashMap<>();
+    private static final AtomicReferenceArray<Trace> BUFFER = new AtomicReferenceArray<>(settings.getTraceBufferSize());
+    private static final AtomicLong WRITTEN = new AtomicLong();
+    private static final AtomicBoolean SWEEPING = new AtomicBoolean();
+
+    private InteractionTracer() {
+    }
+
+    /**
+     * Starts the trace of an interaction or message and makes it the current trace of this thread.
+     *
+     * @param id       the correlation ID: the snowflake ID of the interaction or message
+     * @param name     what is being traced, e.g. the command name
+     * @param needsAck whether the trace waits for an interaction acknowledgement
+     * @return the trace
+     */
+    public static Trace begin(long id, String name, boolean needsAck) {
+        Trace trace = new Trace(id, name, needsAck);
+        ACTIVE.put(id, trace);
+        CURRENT.set(trace);
+        if (SWEEPING.compareAndSet(false, true)) {
+            scheduleSweep();
+        }
+        return trace;
+    }
+
+    /**
+     * Marks the handler of the current trace as returned and detaches the trace from this thread.
+     */
+    public static void endHandler() {
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            CURRENT.remove();
+            trace.span("handler", trace.receivedNanos, System.nanoTime());
+            trace.handlerDone = true;
+            trace.completeIfDone();
+        }
+    }
+
+    /**
+     * Detaches the current trace from this thread, so that its handler can carry on on another thread.
+     *
+     * @return the detached trace, or null if there is none
+     */
+    public static Trace detach() {
+        Trace trace = CURRENT.get();
+        CURRENT.remove();
+        return trace;
+    }
+
+    /**
+     * Makes a detached trace the current trace of this thread.
+     *
+     * @param trace the trace, or null
+     */
+    public static void attach(Trace trace) {
+        if (trace != null) {
+            CURRENT.set(trace);
+        }
+    }
+
+    /**
+     * Gets the trace of the interaction being handled on this thread.
+     *
+     * @return the current trace, or null if there is none
+     */
+    public static Trace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Records a span of the current trace that started at a given time and ends now. Does nothing if there is no
+     * current trace.
+     *
+     * @param name       the span name
+     * @param startNanos when the span started, from {@link System#nanoTime()}
+     */
+    public static void span(String name, long startNanos) {
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            trace.span(name, startNanos, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records that Discord accepted the acknowledgement of an interaction.
+     *
+     * @param interactionID the interaction ID
+     */
+    public static void acknowledged(long interactionID) {
+        Trace trace = ACTIVE.get(interactionID);
+        if (trace != null && !trace.acknowledged) {
+            long now = System.nanoTime();
+            trace.span("acknowledged", now, now);
+            trace.acknowledged = true;
+            AcknowledgementStats.record(trace.name, trace.deferred,
+                    trace.gatewayDelayMillis + TimeUnit.NANOSECONDS.toMillis(now - trace.receivedNanos));
+            trace.completeIfDone();
+        }
+    }
+
+    /**
+     * Writes every buffered trace, oldest first.
+     *
+     * @param out where to write the traces
+     * @return the number of traces written
+     */
+    public static int dump(StringBuilder out) {
+        long written = WRITTEN.get();
+        int size = BUFFER.length();
+        int dumped = 0;
+        for (long i = Math.max(0, written - size); i < written; i++) {
+            Trace trace = BUFFER.get((int) (i % size));
+            if (trace != null) {
+                trace.format(out);
+                dumped++;
+            }
+        }
+        return dumped;
+    }
+
+    private static void keep(Trace trace) {
+        BUFFER.set((int) (WRITTEN.getAndIncrement() % BUFFER.length()), trace);
+    }
+
+    private static void scheduleSweep() {
+        Scheduler.get().schedule(() -> {
+            long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ABANDON_AFTER_MILLIS);
+            for (Trace trace : ACTIVE.values()) {
+                if (trace.receivedNanos < cutoff) {
+                    trace.complete();
+                }
+            }
+            scheduleSweep();
+        }, ABANDON_AFTER_MILLIS / 3, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The spans recorded for one interaction.
+     */
+    public static final class Trace {
+        private final long id;
+        private final String name;
+        private final boolean needsAck;
+        private final long receivedNanos = System.nanoTime();
+        private final long gatewayDelayMillis;
+        private final String[] spanNames = new String[MAX_SPANS];
+        private final long[] spanStarts = new long[MAX_SPANS];
+        private final long[] spanEnds = new long[MAX_SPANS];
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private int spans;
+        private int droppedSpans;
+        private int pendingRest;
+        private volatile boolean handlerDone;
+        private volatile boolean acknowledged;
+        private volatile boolean deferred;
+        private long completedNanos;
+
+        private Trace(long id, String name, boolean needsAck) {
+            this.id = id;
+            this.name = name;
+            this.needsAck = needsAck;
+            this.gatewayDelayMillis = Math.max(0,
+                    System.currentTimeMillis() - TimeUtil.getTimeCreated(id).toInstant().toEpochMilli());
+        }
+
+        /**
+         * Records a span of this trace.
+         *
+         * @param name       the span name
+         * @param startNanos when the span started, from {@link System#nanoTime()}
+         * @param endNanos   when the span ended, from {@link System#nanoTime()}
+         */
+        public synchronized void span(String name, long startNanos, long endNanos) {
+            if (spans == MAX_SPANS) {
+                droppedSpans++;
+                return;
+            }
+            spanNames[spans] = name;
+            spanStarts[spans] = startNanos;
+            spanEnds[spans] = endNanos;
+            spans++;
+        }
+
+        /**
+         * Notes that the interaction was deferred, so that its handler could run on a worker thread.
+         */
+        public void markDeferred() {
+            deferred = true;
+            long now = System.nanoTime();
+            span("deferred", now, now);
+        }
+
+        /**
+         * Notes that a REST action was queued on behalf of this trace. The trace stays open until it finishes.
+         */
+        public synchronized void restQueued() {
+            pendingRest++;
+        }
+
+        /**
+         * Records a finished REST action of this trace as two spans: its time queued and its time in flight.
+         *
+         * @param route          the kind of request
+         * @param queuedNanos    when the action was queued
+         * @param submittedNanos when the action was handed to JDA
+         * @param succeeded      whether the action succeeded
+         */
+        public void restFinished(String route, long queuedNanos, long submittedNanos, boolean succeeded) {
+            long now = System.nanoTime();
+            synchronized (this) {
+                span("queued " + route, queuedNanos, submittedNanos);
+                span((succeeded ? "rest " : "rest failed ") + route, submittedNanos, now);
+                pendingRest--;
+            }
+            completeIfDone();
+        }
+
+        private void completeIfDone() {
+            boolean done;
+            synchronized (this) {
+                done = handlerDone && pendingRest == 0 && (acknowledged || !needsAck);
+            }
+            if (done) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            ACTIVE.remove(id, this);
+            synchronized (this) {
+                completedNanos = System.nanoTime();
+            }
+            if (getTotalMillis() >= settings.getTraceSlowThresholdMillis()
+                    || ThreadLocalRandom.current().nextDouble() < settings.getTraceSampleRate()) {
+                keep(this);
+            }
+        }
+
+        /**
+         * Gets the time from Discord creating the interaction to the trace completing.
+         *
+         * @return the total time, in milliseconds
+         */
+        public synchronized long getTotalMillis() {
+            return gatewayDelayMillis + TimeUnit.NANOSECONDS.toMillis(completedNanos - receivedNanos);
+        }
+
+        private synchronized void format(StringBuilder out) {
+            long total = getTotalMillis();
+            out.append('#').append(id).append(' ').append(name).append(": ").append(total).append(" ms");
+            if (total >= settings.getTraceSlowThresholdMillis()) out.append(" (slow)");
+            if (deferred) out.append(" (deferred)");
+            if (needsAck && !acknowledged) out.append(" (not acknowledged)");
+            if (pendingRest > 0) out.append(" (").append(pendingRest).append(" REST actions unfinished)");
+            out.append('\n');
+            out.append(String.format("  %9s  gateway to handler, %d ms%n", "-" + gatewayDelayMillis + " ms", gatewayDelayMillis));
+            for (int i = 0; i < spans; i++) {
+                out.append(String.format("  %9s  %s", millis(spanStarts[i] - receivedNanos), spanNames[i]));
+                if (spanEnds[i] != spanStarts[i]) {
+                    out.append(", ").append(millis(spanEnds[i] - spanStarts[i]));
+                }
+                out.append('\n');
+            }
+            if (droppedSpans > 0) {
+                out.append("  ").append(droppedSpans).append(" more spans dropped\n");
+            }
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+    }
+}
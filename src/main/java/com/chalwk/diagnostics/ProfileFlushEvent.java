@@ -0,0 +1,28 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import jdk.jfr.*;
+
+/**
+ * A batch flush of pending player profile updates to the profile log.
+ */
+@Name("com.chalwk.ProfileFlush")
+@Label("Profile Flush")
+@Category({"Chalwk Bot", "Storage"})
+@StackTrace(false)
+public class ProfileFlushEvent extends Event {
+
+    @Label("Records")
+    @Description("The number of profiles written")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Cache Misses")
+    @Description("The number of updated profiles that had to be read from disk first")
+    public int cacheMisses;
+}
@@ -0,0 +1,191 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarises a flight recording of the bot offline: command latencies by command and outcome, game lifecycle
+ * counts, game manager changes and rehydration times, REST queue and execution times by lane, REST response times by
+ * route, profile store flushes and the longest GC pauses.
+ */
+public class RecordingAnalyzer {
+
+    private static final int SLOWEST_GC_PAUSES = 5;
+
+    private final Map<String, Timings> commands = new TreeMap<>();
+    private final Map<String, Integer> gameActions = new TreeMap<>();
+    private final Map<String, Integer> managerOperations = new TreeMap<>();
+    private final Timings rehydrations = new Timings();
+    private final Map<String, Timings> restExecution = new TreeMap<>();
+    private final Map<String, Timings> restQueueing = new TreeMap<>();
+    private final Map<String, Integer> restFailures = new TreeMap<>();
+    private final Map<String, Timings> restRequests = new TreeMap<>();
+    private final Map<String, Integer> requestFailures = new TreeMap<>();
+    private final Map<String, Integer> rateLimits = new TreeMap<>();
+    private final Timings profileFlushes = new Timings();
+    private long profileRecordsFlushed;
+    private final Timings gcPauses = new Timings();
+    private int peakActiveGames;
+    private Instant first;
+    private Instant last;
+
+    /**
+     * Reads a recording and prints its summary.
+     *
+     * @param file the recording file
+     * @param out  where to print the summary
+     * @throws IOException if the recording cannot be read
+     */
+    public static void analyze(Path file, PrintStream out) throws IOException {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                analyzer.add(recording.readEvent());
+            }
+        }
+        analyzer.print(out);
+    }
+
+    private void add(RecordedEvent event) {
+        if (first == null || event.getStartTime().isBefore(first)) first = event.getStartTime();
+        if (last == null || event.getEndTime().isAfter(last)) last = event.getEndTime();
+
+        switch (event.getEventType().getName()) {
+            case "com.chalwk.Command" -> commands
+                    .computeIfAbsent("/" + event.getString("command") + " (" + event.getString("outcome") + ")", k -> new Timings())
+                    .add(event.getDuration());
+            case "com.chalwk.Game" -> gameActions.merge(event.getString("action"), 1, Integer::sum);
+            case "com.chalwk.GameManager" -> {
+                managerOperations.merge(event.getString("operation"), 1, Integer::sum);
+                if (GameManagerEvent.REHYDRATE.equals(event.getString("operation"))) {
+                    rehydrations.add(event.getDuration());
+                }
+                peakActiveGames = Math.max(peakActiveGames, event.getInt("activeGames"));
+            }
+            case "com.chalwk.RestQueue" -> {
+                String lane = event.getString("lane");
+                restExecution.computeIfAbsent(lane, k -> new Timings()).add(event.getDuration());
+                restQueueing.computeIfAbsent(lane, k -> new Timings()).add(event.getDuration("queueTime"));
+                if (!event.getBoolean("succeeded")) {
+                    restFailures.merge(lane, 1, Integer::sum);
+                }
+            }
+            case "com.chalwk.RestAction" -> {
+                String route = event.getString("route");
+                restRequests.computeIfAbsent(route, k -> new Timings()).add(event.getDuration("responseTime"));
+                if (event.getBoolean("rateLimited")) {
+                    rateLimits.merge(route, 1, Integer::sum);
+                } else if (!event.getBoolean("succeeded")) {
+                    requestFailures.merge(route, 1, Integer::sum);
+                }
+            }
+            case "com.chalwk.ProfileFlush" -> {
+                profileFlushes.add(event.getDuration());
+                profileRecordsFlushed += event.getInt("records");
+            }
+            case "jdk.GarbageCollection" -> gcPauses.add(event.getDuration("longestPause"));
+            default -> {
+            }
+        }
+    }
+
+    private void print(PrintStream out) {
+        if (first == null) {
+            out.println("The recording has no events.");
+            return;
+        }
+        out.println("Recording spans " + formatMillis(Duration.between(first, last)) + " from " + first);
+
+        out.println();
+        out.println("Commands:");
+        commands.forEach((command, timings) -> out.println("  " + timings.format(command)));
+
+        out.println();
+        out.println("Games:");
+        gameActions.forEach((action, count) -> out.printf("  %-12s %,d%n", action, count));
+        managerOperations.forEach((operation, count) -> out.printf("  %-12s %,d%n", operation, count));
+        out.printf("  peak active games: %,d%n", peakActiveGames);
+        out.println("  " + rehydrations.format("rehydrations"));
+
+        out.println();
+        out.println("REST queue by lane (execution, then time queued):");
+        restExecution.forEach((lane, timings) -> {
+            out.println("  " + timings.format(lane) + ", " + restFailures.getOrDefault(lane, 0) + " failed");
+            out.println("    " + restQueueing.get(lane).format("queued"));
+        });
+
+        out.println();
+        out.println("REST requests by route (response time):");
+        restRequests.forEach((route, timings) -> out.println("  " + timings.format(route) + ", "
+                + requestFailures.getOrDefault(route, 0) + " failed, " + rateLimits.getOrDefault(route, 0) + " rate limited"));
+
+        out.println();
+        out.printf("Profile flushes: %s, %,d records%n", profileFlushes.format("flushes"), profileRecordsFlushed);
+
+        out.println();
+        out.println("GC pauses: " + gcPauses.format("longest pause per collection"));
+        long[] slowest = gcPauses.slowest(SLOWEST_GC_PAUSES);
+        if (slowest.length > 0) {
+            out.println("  slowest: " + Arrays.stream(slowest).mapToObj(RecordingAnalyzer::formatNanos).toList());
+        }
+    }
+
+    private static String formatMillis(Duration duration) {
+        return formatNanos(duration.toNanos());
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+
+    /**
+     * The durations of one kind of event.
+     */
+    private static final class Timings {
+        private long[] nanos = new long[16];
+        private int count;
+
+        private void add(Duration duration) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = duration.toNanos();
+        }
+
+        private long percentile(long[] sorted, double percentile) {
+            return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+        }
+
+        private long[] slowest(int limit) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            long[] slowest = new long[Math.min(limit, count)];
+            for (int i = 0; i < slowest.length; i++) {
+                slowest[i] = sorted[count - 1 - i];
+            }
+            return slowest;
+        }
+
+        private String format(String label) {
+            if (count == 0) {
+                return label + ": none";
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return String.format("%s: %,d, p50 %s, p99 %s, max %s", label, count, formatNanos(percentile(sorted, 0.5)),
+                    formatNanos(percentile(sorted, 0.99)), formatNanos(sorted[count - 1]));
+        }
+    }
+}
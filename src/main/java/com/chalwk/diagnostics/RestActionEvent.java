@@ -0,0 +1,35 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import jdk.jfr.*;
+
+/**
+ * An HTTP request JDA made to Discord for a REST action, whether the action went through the REST queue or was
+ * queued directly. Committed when the response arrives; the round trip is recorded as the response time.
+ */
+@Name("com.chalwk.RestAction")
+@Label("REST Action")
+@Category({"Chalwk Bot", "REST"})
+@StackTrace(false)
+public class RestActionEvent extends Event {
+
+    @Label("Route")
+    @Description("The method and path template of the request, e.g. POST channels/{channel_id}/messages")
+    public String route;
+
+    @Label("Status")
+    @Description("The HTTP status code, or -1 if no response was received")
+    public int status;
+
+    @Label("Response Time")
+    @Timespan(Timespan.MILLISECONDS)
+    public long responseTime;
+
+    @Label("Rate Limited")
+    public boolean rateLimited;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,31 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.diagnostics;
+
+import jdk.jfr.*;
+
+/**
+ * A REST action sent through the REST queue. The event's duration is the action's execution, from being handed to
+ * JDA to its response; the time it waited in its lane before that is recorded separately. The HTTP requests the
+ * action made are recorded as {@link RestActionEvent}s.
+ */
+@Name("com.chalwk.RestQueue")
+@Label("REST Queue Entry")
+@Category({"Chalwk Bot", "REST"})
+@StackTrace(false)
+public class RestQueueEvent extends Event {
+
+    @Label("Lane")
+    public String lane;
+
+    @Label("Channel ID")
+    public long channelID;
+
+    @Label("Queue Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueTime;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
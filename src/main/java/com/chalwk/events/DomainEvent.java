@@ -0,0 +1,80 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.events;
+
+/**
+ * Something that happened to an invite or a game, as published on the {@link GameEventBus}. Events carry IDs and
+ * values rather than JDA entities, so a subscriber that falls behind never holds on to a game.
+ */
+public sealed interface DomainEvent {
+
+    /**
+     * Gets when the event happened.
+     *
+     * @return the time, in epoch milliseconds
+     */
+    long timeMillis();
+
+    /**
+     * A player invited another player to a game.
+     *
+     * @param invitingPlayerID the ID of the player who sent the invite
+     * @param invitedPlayerID  the ID of the invited player
+     * @param guildID          the ID of the guild the invite was sent in
+     * @param timeMillis       when the invite was sent
+     */
+    record InviteSent(long invitingPlayerID, long invitedPlayerID, long guildID, long timeMillis) implements DomainEvent {
+    }
+
+    /**
+     * A game started.
+     *
+     * @param gameID           the game ID
+     * @param guildID          the ID of the guild the game is played in
+     * @param invitingPlayerID the ID of the player who sent the invite
+     * @param invitedPlayerID  the ID of the invited player
+     * @param firstPlayerID    the ID of the player who moves first
+     * @param state            the starting state, as encoded by the game's rules
+     * @param timeMillis       when the game started
+     */
+    record GameStarted(long gameID, long guildID, long invitingPlayerID, long invitedPlayerID, long firstPlayerID,
+                       int state, long timeMillis) implements DomainEvent {
+    }
+
+    /**
+     * A move was played.
+     *
+     * @param gameID     the game ID
+     * @param playerID   the ID of the player who moved
+     * @param move       the move code
+     * @param state      the state after the move
+     * @param timeMillis when the move was played
+     */
+    record MoveApplied(long gameID, long playerID, int move, int state, long timeMillis) implements DomainEvent {
+    }
+
+    /**
+     * A player ran out of time. The game ends straight after, with a {@link GameEnded} event.
+     *
+     * @param gameID     the game ID
+     * @param playerID   the ID of the player who ran out of time
+     * @param timeMillis when the player ran out of time
+     */
+    record TimedOut(long gameID, long playerID, long timeMillis) implements DomainEvent {
+    }
+
+    /**
+     * A game ended.
+     *
+     * @param gameID     the game ID
+     * @param guildID    the ID of the guild the game was played in
+     * @param winnerID   the ID of the winner, or 0 for a draw
+     * @param loserID    the ID of the loser, or 0 for a draw
+     * @param state      the final state
+     * @param timeMillis when the game ended
+     */
+    record GameEnded(long gameID, long guildID, long winnerID, long loserID, int state, long timeMillis)
+            implements DomainEvent {
+    }
+}
@@ -0,0 +1,299 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.events;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Publishes {@link DomainEvent}s to any number of {@link Flow.Subscriber}s, e.g. stats, logging or webhook plugins,
+ * without them being wired into the game code.
+ * <p>
+ * Every subscriber has its own bounded buffer and receives events on the bus's delivery threads, one at a time and
+ * only as many as it has requested. Publishing only appends to the buffers and never waits: when a subscriber's
+ * buffer is full, its {@link OverflowPolicy} decides what gives. A slow subscriber therefore only ever loses its own
+ * events, and its lag (events buffered but not yet delivered) and drop count can be read from {@link #describe}.
+ */
+public class GameEventBus implements Flow.Publisher<DomainEvent> {
+
+    private static final int DELIVERIES_PER_TURN = 64;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Executor executor;
+    private final int defaultBufferSize;
+
+    /**
+     * Creates a bus that delivers events on its own daemon threads.
+     *
+     * @param threads           the number of delivery threads
+     * @param defaultBufferSize the buffer size of subscribers that do not choose one
+     */
+    public GameEventBus(int threads, int defaultBufferSize) {
+        this(Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "game-events");
+            thread.setDaemon(true);
+            return thread;
+        }), defaultBufferSize);
+    }
+
+    /**
+     * Creates a bus that delivers events on an executor.
+     *
+     * @param executor          the executor to deliver events on
+     * @param defaultBufferSize the buffer size of subscribers that do not choose one
+     */
+    public GameEventBus(Executor executor, int defaultBufferSize) {
+        this.executor = executor;
+        this.defaultBufferSize = defaultBufferSize;
+    }
+
+    /**
+     * Subscribes with the default buffer size, dropping the oldest events when the subscriber falls behind.
+     *
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super DomainEvent> subscriber) {
+        subscribe(subscriber.getClass().getSimpleName(), subscriber, defaultBufferSize, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Subscribes with a chosen buffer size and overflow policy.
+     *
+     * @param name       the name to show the subscriber under in {@link #describe}
+     * @param subscriber the subscriber
+     * @param bufferSize the number of events to buffer for the subscriber
+     * @param overflow   what to do when the buffer is full
+     */
+    public void subscribe(String name, Flow.Subscriber<? super DomainEvent> subscriber, int bufferSize,
+                          OverflowPolicy overflow) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer must hold at least one event");
+        }
+        Subscription subscription = new Subscription(name, subscriber, bufferSize, overflow);
+        subscriptions.add(subscription);
+        executor.execute(() -> {
+            try {
+                subscriber.onSubscribe(subscription);
+            } catch (Throwable e) {
+                subscription.fail(e);
+            }
+            subscription.schedule();
+        });
+    }
+
+    /**
+     * Checks if anyone is subscribed, so that publishers can skip building events nobody receives.
+     *
+     * @return true if there is at least one subscriber
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Offers an event to every subscriber. Never blocks.
+     *
+     * @param event the event
+     */
+    public void publish(DomainEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Writes every subscriber's buffer use, lag and counts, one line each.
+     *
+     * @param out where to write the description
+     */
+    public void describe(StringBuilder out) {
+        if (subscriptions.isEmpty()) {
+            out.append("  no subscribers\n");
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.describe(out);
+        }
+    }
+
+    /**
+     * The link between the bus and one subscriber: its buffer, its outstanding demand and its counters.
+     */
+    private final class Subscription implements Flow.Subscription {
+        private final String name;
+        private final Flow.Subscriber<? super DomainEvent> subscriber;
+        private final OverflowPolicy overflow;
+        private final DomainEvent[] buffer;
+        private int head;
+        private int size;
+        private long demand;
+        private boolean scheduled;
+        private boolean cancelled;
+        private Throwable error;
+        private long published;
+        private long delivered;
+        private long dropped;
+        private long maxLag;
+
+        private Subscription(String name, Flow.Subscriber<? super DomainEvent> subscriber, int bufferSize,
+                             OverflowPolicy overflow) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+            this.buffer = new DomainEvent[bufferSize];
+        }
+
+        private void offer(DomainEvent event) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                published++;
+                if (size == buffer.length) {
+                    dropped++;
+                    switch (overflow) {
+                        case DROP_NEWEST -> {
+                            return;
+                        }
+                        case DROP_OLDEST -> {
+                            buffer[head] = null;
+                            head = (head + 1) % buffer.length;
+                            size--;
+                        }
+                        case CANCEL -> {
+                            fail(new IllegalStateException("Subscriber " + name + " fell " + size
+                                    + " events behind and was cancelled"));
+                            return;
+                        }
+                    }
+                }
+                buffer[(head + size) % buffer.length] = event;
+                size++;
+                maxLag = Math.max(maxLag, size);
+                if (demand == 0 || scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            executor.execute(this::deliver);
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested " + n + " events; requests must be positive"));
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Cancels the subscription, discarding its buffer, and queues an error for the subscriber.
+         */
+        private void fail(Throwable cause) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                error = cause;
+                clear();
+            }
+            subscriptions.remove(this);
+            schedule();
+        }
+
+        private void clear() {
+            Arrays.fill(buffer, null);
+            head = 0;
+            size = 0;
+        }
+
+        /**
+         * Starts a delivery turn if there is something to deliver and none is running.
+         */
+        private void schedule() {
+            synchronized (this) {
+                if (scheduled || (error == null && (size == 0 || demand == 0))) {
+                    return;
+                }
+                scheduled = true;
+            }
+            executor.execute(this::deliver);
+        }
+
+        /**
+         * Delivers buffered events while there is demand, a bounded number per turn so that one busy subscriber
+         * cannot hold a delivery thread forever. Only one turn runs at a time, so signals never overlap.
+         */
+        private void deliver() {
+            for (int i = 0; i < DELIVERIES_PER_TURN; i++) {
+                DomainEvent event;
+                Throwable failure;
+                synchronized (this) {
+                    failure = error;
+                    error = null;
+                    if (failure == null) {
+                        if (cancelled || size == 0 || demand == 0) {
+                            scheduled = false;
+                            return;
+                        }
+                        event = buffer[head];
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        size--;
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                        delivered++;
+                    } else {
+                        event = null;
+                    }
+                }
+                if (failure != null) {
+                    try {
+                        subscriber.onError(failure);
+                    } finally {
+                        synchronized (this) {
+                            scheduled = false;
+                        }
+                    }
+                    return;
+                }
+                try {
+                    subscriber.onNext(event);
+                } catch (Throwable e) {
+                    synchronized (this) {
+                        scheduled = false;
+                    }
+                    fail(e);
+                    return;
+                }
+            }
+            executor.execute(this::deliver);
+        }
+
+        private synchronized void describe(StringBuilder out) {
+            out.append(String.format("  %s (%s, buffer %,d): lag %,d, max lag %,d, %,d published, %,d delivered, %,d dropped%s%n",
+                    name, overflow, buffer.length, size, maxLag, published, delivered, dropped,
+                    cancelled ? ", cancelled" : ""));
+        }
+    }
+}
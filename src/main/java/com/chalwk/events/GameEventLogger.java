@@ -0,0 +1,33 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.events;
+
+import com.chalwk.util.Logging.Logger;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Logs every game event, for following games from the console. Subscribed when enabled in the settings.
+ */
+public class GameEventLogger implements Flow.Subscriber<DomainEvent> {
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(DomainEvent event) {
+        Logger.info(event.toString());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Logger.warning("Stopped logging game events: " + throwable.getMessage());
+    }
+
+    @Override
+    public void onComplete() {
+    }
+}
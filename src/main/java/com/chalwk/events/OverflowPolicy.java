@@ -0,0 +1,26 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.events;
+
+/**
+ * What the {@link GameEventBus} does when an event arrives for a subscriber whose buffer is full. Publishing never
+ * waits for a subscriber, so every policy gives something up.
+ */
+public enum OverflowPolicy {
+    /**
+     * Discard the new event, keeping the ones already buffered. Suits subscribers that need a gap-free prefix,
+     * e.g. to notice the gap and resynchronise.
+     */
+    DROP_NEWEST,
+    /**
+     * Discard the oldest buffered event to make room. Suits subscribers that only care about recent activity,
+     * e.g. live dashboards.
+     */
+    DROP_OLDEST,
+    /**
+     * Cancel the subscription and signal the subscriber with an error. Suits subscribers that must not miss
+     * events, e.g. exports, which can then resubscribe and recover.
+     */
+    CANCEL
+}
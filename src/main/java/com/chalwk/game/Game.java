@@ -2,19 +2,29 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.game;
 
+import com.chalwk.ai.BotOpponent;
+import com.chalwk.diagnostics.GameEvent;
+import com.chalwk.diagnostics.InteractionTracer;
+import com.chalwk.events.DomainEvent;
+import com.chalwk.events.GameEventBus;
+import com.chalwk.history.GameRecord;
+import com.chalwk.rating.RatingManager;
+import com.chalwk.util.RestQueue;
+import com.chalwk.util.Scheduler;
 import com.chalwk.util.settings;
-import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.components.ActionRow;
 
-import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Date;
-import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
-
-import static com.chalwk.bot.BotInitializer.getShardManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
 
 /**
  * Represents a game between two players, managing game-related operations such as starting a game and scheduling game end tasks.
@@ -24,10 +34,18 @@ public class Game {
     private final User invitingPlayer;
     private final User invitedPlayer;
     private final GameManager gameManager;
+    private final GameRules rules;
+    private final GameEmbedRenderer renderer;
+    private final GameSpectators spectators = new GameSpectators(settings.getMaxSpectatorsPerGame());
+    private final long guildID;
     private String embedID;
     private User whos_turn;
+    private int state;
     private Date startTime;
-    private TimerTask gameEndTask;
+    private final Scheduler scheduler = Scheduler.get();
+    private final GameClock clock;
+    private GameRecord record;
+    private boolean ended;
 
     /**
      * Creates a new Game instance for the specified players, event, and layout.
@@ -39,23 +57,322 @@ public class Game {
     public Game(User invitingPlayer, User invitedPlayer, SlashCommandInteractionEvent event, GameManager gameManager) {
         this.invitingPlayer = invitingPlayer;
         this.invitedPlayer = invitedPlayer;
-        this.whos_turn = getStartingPlayer();
         this.gameManager = gameManager;
+        this.whos_turn = getStartingPlayer();
+        this.rules = gameManager.getRules();
+        this.state = rules.getInitialState();
+        this.startTime = new Date(scheduler.currentTimeMillis());
+        this.guildID = event.getGuild() != null ? event.getGuild().getIdLong() : 0;
+        this.record = newRecord();
+        this.renderer = new GameEmbedRenderer(invitingPlayer, invitedPlayer, record.getGameID(), rules);
+        this.clock = newClock(settings.getDefaultTimeLimit() * 1000L, settings.getDefaultTimeLimit() * 1000L);
         startGame(event);
     }
 
     /**
-     * Creates an embed for the game with the specified game and guess box.
+     * Creates a new Game instance for the specified players and posts the game embed in a channel.
+     * Used when no slash command interaction is available to reply to, e.g. for matchmaking.
+     *
+     * @param invitingPlayer the first player of the game
+     * @param invitedPlayer  the second player of the game
+     * @param channel        the channel to post the game embed in
+     */
+    public Game(User invitingPlayer, User invitedPlayer, TextChannel channel, GameManager gameManager) {
+        this.invitingPlayer = invitingPlayer;
+        this.invitedPlayer = invitedPlayer;
+        this.gameManager = gameManager;
+        this.whos_turn = getStartingPlayer();
+        this.rules = gameManager.getRules();
+        this.state = rules.getInitialState();
+        this.startTime = new Date(scheduler.currentTimeMillis());
+        this.guildID = channel.getGuild().getIdLong();
+        this.record = newRecord();
+        this.renderer = new GameEmbedRenderer(invitingPlayer, invitedPlayer, record.getGameID(), rules);
+        this.clock = newClock(settings.getDefaultTimeLimit() * 1000L, settings.getDefaultTimeLimit() * 1000L);
+        startGame(channel);
+    }
+
+    /**
+     * Restores a game that was checkpointed by a previous process or hibernated by this one. The game embed already
+     * exists, so nothing is posted; the game carries on from its saved state once it is {@link #resume resumed}.
+     *
+     * @param invitingPlayer the user who initiated the game
+     * @param invitedPlayer  the user who was invited to join the game
+     * @param whosTurn       the player whose turn it is
+     * @param state          the state of the game
+     * @param guildID        the ID of the guild the game is played in
+     * @param embedID        the ID of the game embed message
+     * @param startMillis    the time the game started, in epoch milliseconds
+     * @param record         the move record of the game so far
+     * @param clockMillis    the remaining clock time of both players, in milliseconds
+     */
+    Game(User invitingPlayer, User invitedPlayer, User whosTurn, int state, long guildID, String embedID,
+         long startMillis, GameRecord record, long[] clockMillis, GameManager gameManager) {
+        this.invitingPlayer = invitingPlayer;
+        this.invitedPlayer = invitedPlayer;
+        this.whos_turn = whosTurn;
+        this.state = state;
+        this.gameManager = gameManager;
+        this.rules = gameManager.getRules();
+        this.renderer = new GameEmbedRenderer(invitingPlayer, invitedPlayer, record.getGameID(), rules);
+        this.guildID = guildID;
+        this.embedID = embedID;
+        this.startTime = new Date(startMillis);
+        this.record = record;
+        this.clock = newClock(clockMillis[0], clockMillis[1]);
+    }
+
+    /**
+     * Starts the clock of a restored game, and lets the bot move if it is the bot's turn. Called once the game is
+     * registered with the game manager, so that a timeout straight away finds the game to remove.
+     */
+    void resume() {
+        clock.start(getPlayerIndex(whos_turn));
+        promptBot();
+    }
+
+    /**
+     * Stops a game nobody has moved in for a while, so that it can be hibernated, and encodes its state. The game is
+     * over as far as this object is concerned: moves, resignations and timeouts that reach it afterwards are
+     * ignored, and the game carries on in the object {@link #rehydrate} makes from the encoded state.
+     *
+     * @param idleMillis         how long the player to move must have been thinking, in milliseconds
+     * @param minRemainingMillis how much time the player to move must have left, in milliseconds
+     * @return the encoded game, or null if the game was left running because it is not idle, its embed has not been
+     * posted yet, it has spectators or it is waiting on the bot
+     */
+    synchronized ByteBuffer hibernate(long idleMillis, long minRemainingMillis) {
+        if (ended || embedID == null || spectators.size() > 0 || BotOpponent.isBot(whos_turn)
+                || !clock.suspend(TimeUnit.MILLISECONDS.toNanos(idleMillis), TimeUnit.MILLISECONDS.toNanos(minRemainingMillis))) {
+            return null;
+        }
+        ended = true;
+        byte[] moves = record.toBytes();
+        return ByteBuffer.allocate(2 * Long.BYTES + Integer.BYTES + 1 + 2 * Long.BYTES + moves.length)
+                .putLong(guildID)
+                .putLong(Long.parseLong(embedID))
+                .putInt(state)
+                .put((byte) getPlayerIndex(whos_turn))
+                .putLong(clock.getRemainingMillis(0))
+                .putLong(clock.getRemainingMillis(1))
+                .put(moves)
+                .flip();
+    }
+
+    /**
+     * Makes a game from the state {@link #hibernate} encoded. The game is not resumed yet.
+     *
+     * @param state       the encoded game
+     * @param turnMillis  the time the player to move has left now, in milliseconds
+     * @param users       looks up the players by user ID
+     * @param gameManager the game manager
+     * @return the game
+     * @throws IOException if the state cannot be decoded
+     */
+    static Game rehydrate(ByteBuffer state, long turnMillis, LongFunction<User> users, GameManager gameManager) throws IOException {
+        long guildID = state.getLong();
+        String embedID = Long.toString(state.getLong());
+        int gameState = state.getInt();
+        int turn = state.get();
+        long[] clockMillis = {state.getLong(), state.getLong()};
+        clockMillis[turn] = turnMillis;
+        byte[] moves = new byte[state.remaining()];
+        state.get(moves);
+        GameRecord record = GameRecord.fromBytes(moves);
+
+        User invitingPlayer = users.apply(record.getFirstPlayerID());
+        User invitedPlayer = users.apply(record.getSecondPlayerID());
+        return new Game(invitingPlayer, invitedPlayer, turn == 0 ? invitingPlayer : invitedPlayer, gameState, guildID,
+                embedID, record.getStartMillis(), record, clockMillis, gameManager);
+    }
+
+    /**
+     * Creates the chess clock of the game, which ends the game when a player runs out of time.
+     *
+     * @param invitingPlayerMillis the inviting player's time, in milliseconds
+     * @param invitedPlayerMillis  the invited player's time, in milliseconds
+     * @return the stopped clock
+     */
+    private GameClock newClock(long invitingPlayerMillis, long invitedPlayerMillis) {
+        return new GameClock(invitingPlayerMillis, invitedPlayerMillis, settings.getClockIncrementSeconds() * 1000L,
+                this::timeOut);
+    }
+
+    /**
+     * Ends the game in favour of the opponent of a player who ran out of time, and takes the move components off
+     * the game embed.
+     *
+     * @param player the index of the player who ran out of time
+     */
+    private void timeOut(int player) {
+        User timedOut = player == 0 ? invitingPlayer : invitedPlayer;
+        GameEvent.emit(getGameID(), guildID, GameEvent.TIMEOUT, timedOut.getIdLong(), 0, getState());
+        GameEventBus events = gameManager.getEventBus();
+        if (events.hasSubscribers()) {
+            events.publish(new DomainEvent.TimedOut(getGameID(), timedOut.getIdLong(), scheduler.currentTimeMillis()));
+        }
+        TextChannel channel = GameManager.getGameChannel(guildID);
+        if (channel != null && embedID != null) {
+            RestQueue.edit(channel.getIdLong(), embedID, channel.editMessageEmbedsById(embedID, renderUpdate()).setComponents());
+        }
+        endGame(player == 0 ? invitedPlayer : invitingPlayer, null);
+    }
+
+    /**
+     * Gets the index of a player, as used by the game record and clock.
+     *
+     * @param player the player
+     * @return 0 for the inviting player, 1 for the invited player
+     */
+    private int getPlayerIndex(User player) {
+        return player.equals(invitingPlayer) ? 0 : 1;
+    }
+
+    /**
+     * Gets a player's remaining clock time.
+     *
+     * @param player the player
+     * @return the remaining time, in milliseconds
+     */
+    public long getRemainingMillis(User player) {
+        return clock.getRemainingMillis(getPlayerIndex(player));
+    }
+
+    /**
+     * Renders the embed for the current state of the game.
      *
-     * @param game the game to create an embed for
      * @return the embed for the game
      */
-    public static EmbedBuilder createGameEmbed(Game game) {
-        return new EmbedBuilder()
-                .setTitle("\uD83D\uDD74 \uD80C\uDF6F GAME \uD80C\uDF6F \uD83D\uDD74")
-                .addField("Players: ", game.getInvitingPlayer().getAsMention() + " VS " + game.getInvitedPlayer().getAsMention(), true)
-                .addField("Turn: ", game.getWhosTurn().getAsMention(), false)
-                .setColor(Color.BLUE);
+    public synchronized MessageEmbed createGameEmbed() {
+        return renderer.render(whos_turn, state, clock);
+    }
+
+    /**
+     * Renders the embed for the current state of the game once, and shows it to every spectator.
+     *
+     * @return the embed for the game, to show to the players
+     */
+    public MessageEmbed renderUpdate() {
+        MessageEmbed embed = createGameEmbed();
+        spectators.publish(embed);
+        return embed;
+    }
+
+    /**
+     * Gets the spectator messages following the game.
+     *
+     * @return the game's spectators
+     */
+    public GameSpectators getSpectators() {
+        return spectators;
+    }
+
+    /**
+     * Renders the move buttons and action menu for the current state of the game.
+     *
+     * @return the rows of components for the game embed
+     */
+    public synchronized List<ActionRow> createComponents() {
+        return renderer.renderComponents(state);
+    }
+
+    /**
+     * Plays a move for a player, if it is their turn, the move is legal and their time has not run out. The turn
+     * passes to the other player unless the move ended the game, in which case the mover has won.
+     *
+     * @param player the player making the move
+     * @param move   the move code
+     * @return true if the move was played, false otherwise
+     */
+    public synchronized boolean play(User player, int move) {
+        if (ended || !player.equals(whos_turn) || !rules.isLegal(state, move)) {
+            return false;
+        }
+        int next = rules.play(state, move);
+        if (!clock.endTurn(getPlayerIndex(player), rules.isOver(next))) {
+            return false; // the player's time ran out just before the move, and the timeout ends the game
+        }
+        long start = System.nanoTime();
+        recordMove(move);
+        gameManager.getProfileStore(guildID).recordMove(player.getIdLong());
+        state = next;
+        GameEvent.emit(getGameID(), guildID, GameEvent.MOVE, player.getIdLong(), move, state);
+        GameEventBus events = gameManager.getEventBus();
+        if (events.hasSubscribers()) {
+            events.publish(new DomainEvent.MoveApplied(getGameID(), player.getIdLong(), move, state,
+                    scheduler.currentTimeMillis()));
+        }
+        if (!rules.isOver(state)) {
+            whos_turn = whos_turn.equals(invitingPlayer) ? invitedPlayer : invitingPlayer;
+            promptBot();
+        }
+        InteractionTracer.span("Game.play", start);
+        return true;
+    }
+
+    /**
+     * Plays a move that did not come from an interaction, e.g. the bot's move, and shows it on the game embed.
+     *
+     * @param player the player making the move
+     * @param move   the move code
+     */
+    public void playAndPublish(User player, int move) {
+        if (!play(player, move)) {
+            return;
+        }
+        TextChannel channel = GameManager.getGameChannel(guildID);
+        if (channel != null && embedID != null) {
+            RestQueue.edit(channel.getIdLong(), embedID,
+                    channel.editMessageEmbedsById(embedID, renderUpdate()).setComponents(createComponents()));
+        }
+        if (isOver()) {
+            endGame(player, null);
+        }
+    }
+
+    /**
+     * Asks the bot for its move if it is the bot's turn in a game against the bot.
+     */
+    private synchronized void promptBot() {
+        if (!ended && !rules.isOver(state) && BotOpponent.isBot(whos_turn)) {
+            gameManager.getBotOpponent().takeTurn(this);
+        }
+    }
+
+    /**
+     * Ends the game in favour of the opponent of a player who resigned.
+     *
+     * @param player the player who resigned
+     */
+    public void resign(User player) {
+        endGame(player.equals(invitingPlayer) ? invitedPlayer : invitingPlayer, null);
+    }
+
+    /**
+     * Checks if the last move ended the game.
+     *
+     * @return true if the game is over, false otherwise
+     */
+    public synchronized boolean isOver() {
+        return rules.isOver(state);
+    }
+
+    /**
+     * Gets the state of the game.
+     *
+     * @return the state, as encoded by the game's rules
+     */
+    public synchronized int getState() {
+        return state;
+    }
+
+    /**
+     * Gets the ID of the game, shared with its record in the game archive.
+     *
+     * @return the game ID
+     */
+    public long getGameID() {
+        return record.getGameID();
     }
 
     /**
@@ -68,19 +385,22 @@ public class Game {
     }
 
     /**
-     * Sets the ID of the message embed for the game.
+     * Sets the ID of the message embed for the game, and lets the bot make the first move once the embed it will
+     * edit exists, if the bot starts.
      *
      * @param embedID the ID of the message embed for the game
      */
     private void setEmbedID(String embedID) {
         this.embedID = embedID;
+        promptBot();
     }
 
     /**
      * Sets the player whose turn it is to play.
      */
-    public void setWhosTurn() {
+    public synchronized void setWhosTurn() {
         this.whos_turn = this.whos_turn.equals(invitingPlayer) ? invitedPlayer : invitingPlayer;
+        clock.switchTurn();
     }
 
     /**
@@ -98,56 +418,127 @@ public class Game {
      * @param event the event that triggered the game start
      */
     public void startGame(SlashCommandInteractionEvent event) {
-        this.startTime = new Date();
-        scheduleGameEndTask();
-        event.replyEmbeds(createGameEmbed(this).build()).queue();
+        clock.start(getPlayerIndex(whos_turn));
+        GameEvent.emit(getGameID(), guildID, GameEvent.START, whos_turn.getIdLong(), 0, state);
+        publishStart();
+        if (event.isAcknowledged()) {
+            // deferred by the command listener: the game embed replaces the "thinking" message
+            RestQueue.queue(RestQueue.Lane.GAME_STATE, event.getChannel().getIdLong(),
+                    event.getHook().editOriginalEmbeds(createGameEmbed()).setComponents(createComponents()),
+                    message -> setEmbedID(message.getId()));
+            return;
+        }
+        RestQueue.ack(event.replyEmbeds(createGameEmbed()).setComponents(createComponents()));
         setMessageID(event);
     }
 
     /**
-     * Ends the game, sends a notification to both players, and removes the game from the game manager.
-     *
-     * @param winner the player who won the game
-     * @param nobody the message to display if no player won the game
+     * Tells the game event subscribers, if there are any, that the game has started.
      */
-    public void endGame(User winner, String nobody) {
-        String channelID = GameManager.getChannelID();
-        TextChannel channel = getShardManager().getTextChannelById(channelID);
+    private void publishStart() {
+        GameEventBus events = gameManager.getEventBus();
+        if (events.hasSubscribers()) {
+            events.publish(new DomainEvent.GameStarted(getGameID(), guildID, invitingPlayer.getIdLong(),
+                    invitedPlayer.getIdLong(), whos_turn.getIdLong(), getState(), scheduler.currentTimeMillis()));
+        }
+    }
 
-        cancelGameEndTask();
+    /**
+     * Starts the game, posts the game embed in a channel, and schedules the game end task.
+     *
+     * @param channel the channel to post the game embed in
+     */
+    public void startGame(MessageChannel channel) {
+        clock.start(getPlayerIndex(whos_turn));
+        GameEvent.emit(getGameID(), guildID, GameEvent.START, whos_turn.getIdLong(), 0, state);
+        publishStart();
+        RestQueue.queue(RestQueue.Lane.GAME_STATE, channel.getIdLong(),
+                channel.sendMessageEmbeds(createGameEmbed()).setComponents(createComponents()),
+                message -> setEmbedID(message.getId()));
+    }
 
-        String result = nobody != null ? nobody : winner.getAsMention();
+    /**
+     * Creates the move record for a game starting now.
+     *
+     * @return the new game record
+     */
+    private GameRecord newRecord() {
+        return new GameRecord(gameManager.nextGameID(guildID), startTime.getTime(),
+                invitingPlayer.getIdLong(), invitedPlayer.getIdLong());
+    }
 
-        channel.sendMessageEmbeds(new EmbedBuilder()
-                .setTitle("Game Over!")
-                .setDescription("The game between " + invitingPlayer.getName() + " and " + invitedPlayer.getName() + " has ended!")
-                .addField("Winner: ", result, true)
-                .setColor(Color.BLUE).build()).queue();
+    /**
+     * Records a move by the player whose turn it is.
+     *
+     * @param move the move code
+     */
+    public void recordMove(int move) {
+        record.addMove(getPlayerIndex(whos_turn), move, scheduler.currentTimeMillis());
+    }
 
-        gameManager.removeGame(invitingPlayer, invitedPlayer);
+    /**
+     * Gets the move record of the game.
+     *
+     * @return the game record
+     */
+    public GameRecord getRecord() {
+        return record;
     }
 
     /**
-     * Schedules a task to end the game when the default time limit is reached.
+     * Ends the game, sends a notification to both players, and removes the game from the game manager.
+     * A game can only end once; later calls are ignored. The game is removed even if the notification fails, e.g.
+     * because the game channel is in a guild this bot process does not own.
+     *
+     * @param winner the player who won the game
+     * @param nobody the message to display if no player won the game
      */
-    private void scheduleGameEndTask() {
-        if (gameEndTask != null) {
-            gameEndTask.cancel();
+    public void endGame(User winner, String nobody) {
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
         }
-        gameEndTask = new TimerTask() {
-            @Override
-            public void run() {
-                if (isTimeUp()) {
-                    this.cancel();
-                    String channelID = GameManager.getChannelID();
-                    TextChannel channel = getShardManager().getTextChannelById(channelID);
-                    channel.sendMessage("Times up! Game between " + invitingPlayer.getAsMention() + " and " + invitedPlayer.getAsMention() + " has ended!").queue();
-                }
+        try {
+            clock.stop();
+            GameEvent.emit(getGameID(), guildID, GameEvent.END, winner != null ? winner.getIdLong() : 0, 0, getState());
+            GameEventBus events = gameManager.getEventBus();
+            if (events.hasSubscribers()) {
+                User loser = winner == null ? null : winner.equals(invitingPlayer) ? invitedPlayer : invitingPlayer;
+                events.publish(new DomainEvent.GameEnded(getGameID(), guildID, winner != null ? winner.getIdLong() : 0,
+                        loser != null ? loser.getIdLong() : 0, getState(), scheduler.currentTimeMillis()));
+            }
+
+            String result = nobody != null ? nobody : winner.getAsMention();
+
+            double score = winner == null ? RatingManager.DRAW : winner.equals(invitingPlayer) ? RatingManager.WIN : RatingManager.LOSS;
+            boolean invitingBot = BotOpponent.isBot(invitingPlayer);
+            boolean invitedBot = BotOpponent.isBot(invitedPlayer);
+            if (!invitingBot && !invitedBot) { // games against the bot are unrated, and the bot is never ranked
+                gameManager.getRatingManager(guildID).recordResult(invitingPlayer, invitedPlayer, score);
             }
-        };
+            long finishedMillis = scheduler.currentTimeMillis();
+            if (!invitingBot) {
+                gameManager.getProfileStore(guildID).recordResult(invitingPlayer.getIdLong(), score, finishedMillis);
+            }
+            if (!invitedBot) {
+                gameManager.getProfileStore(guildID).recordResult(invitedPlayer.getIdLong(), 1 - score, finishedMillis);
+            }
+            record.setResult(winner == null ? GameRecord.RESULT_DRAW
+                    : winner.equals(invitingPlayer) ? GameRecord.RESULT_FIRST_PLAYER_WON : GameRecord.RESULT_SECOND_PLAYER_WON);
 
-        Timer gameEndTimer = new Timer();
-        gameEndTimer.scheduleAtFixedRate(gameEndTask, 0, 1000);
+            MessageEmbed gameOver = GameEmbedRenderer.gameOver(invitingPlayer, invitedPlayer, result);
+            TextChannel channel = GameManager.getGameChannel(guildID);
+            if (channel != null) {
+                RestQueue.queue(RestQueue.Lane.GAME_STATE, channel.getIdLong(), channel.sendMessageEmbeds(gameOver));
+            }
+            spectators.publish(gameOver);
+            spectators.clear();
+        } finally {
+            gameManager.removeGame(invitingPlayer, invitedPlayer);
+        }
+        gameManager.fireGameEnd(this, winner);
     }
 
     /**
@@ -156,22 +547,7 @@ public class Game {
      * @param event the event associated with the command execution
      */
     private void setMessageID(SlashCommandInteractionEvent event) {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                setEmbedID(event.getChannel().getLatestMessageId());
-            }
-        }, 500);
-    }
-
-    /**
-     * Checks if the default time limit for the game has been exceeded.
-     *
-     * @return true if the time limit has been exceeded, false otherwise
-     */
-    private boolean isTimeUp() {
-        long elapsedTime = System.currentTimeMillis() - startTime.getTime();
-        return elapsedTime > settings.getDefaultTimeLimit() * 1000L;
+        scheduler.schedule(() -> setEmbedID(event.getChannel().getLatestMessageId()), 500, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -193,12 +569,12 @@ public class Game {
     }
 
     /**
-     * Gets the player who starts the game.
+     * Picks the player who starts the game, using the game manager's random generator.
      *
      * @return the player who starts the game
      */
     public User getStartingPlayer() {
-        return new Random().nextBoolean() ? invitingPlayer : invitedPlayer;
+        return gameManager.getRandom().nextBoolean() ? invitingPlayer : invitedPlayer;
     }
 
     /**
@@ -212,12 +588,27 @@ public class Game {
     }
 
     /**
-     * Cancels the game end task if it is active.
+     * Gets the time the game started.
+     *
+     * @return the start time, in epoch milliseconds
      */
-    private void cancelGameEndTask() {
-        if (gameEndTask != null) {
-            gameEndTask.cancel();
-            gameEndTask = null;
-        }
+    public long getStartMillis() {
+        return startTime.getTime();
+    }
+
+    /**
+     * Gets the ID of the guild the game is played in.
+     *
+     * @return the guild ID
+     */
+    public long getGuildID() {
+        return guildID;
+    }
+
+    /**
+     * Stops the game's timers without announcing a result, e.g. when the game is handed over to another process.
+     */
+    void abandon() {
+        clock.stop();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Saves the active games and pending invites of a guild to disk, so that the next process serving the guild can
+ * pick them up again. Each guild gets its own file, named after the guild ID.
+ */
+public class GameCheckpoint {
+
+    private GameCheckpoint() {
+    }
+
+    /**
+     * Writes the checkpoint of a guild, replacing any previous one.
+     *
+     * @param directory the checkpoint directory
+     * @param guildID   the guild ID
+     * @param games     the guild's active games
+     * @param invites   the guild's pending invites
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public static void write(Path directory, long guildID, List<Game> games, List<GameInvite> invites) throws IOException {
+        JSONArray savedGames = new JSONArray();
+        for (Game game : games) {
+            savedGames.put(new JSONObject()
+                    .put("inviting", game.getInvitingPlayer().getIdLong())
+                    .put("invited", game.getInvitedPlayer().getIdLong())
+                    .put("turn", game.getWhosTurn().getIdLong())
+                    .put("state", game.getState())
+                    .put("clock", new JSONArray()
+                            .put(game.getRemainingMillis(game.getInvitingPlayer()))
+                            .put(game.getRemainingMillis(game.getInvitedPlayer())))
+                    .put("embed", game.getEmbedID() != null ? game.getEmbedID() : "")
+                    .put("start", game.getStartMillis())
+                    .put("record", Base64.getEncoder().encodeToString(game.getRecord().toBytes())));
+        }
+
+        JSONArray savedInvites = new JSONArray();
+        for (GameInvite invite : invites) {
+            savedInvites.put(new JSONObject()
+                    .put("inviting", invite.getInvitingPlayer().getIdLong())
+                    .put("invited", invite.getInvitedPlayer().getIdLong())
+                    .put("created", invite.getCreatedMillis()));
+        }
+
+        Files.createDirectories(directory);
+        Path file = path(directory, guildID);
+        Path temporary = directory.resolve(guildID + ".json.tmp");
+        Files.writeString(temporary, new JSONObject().put("games", savedGames).put("invites", savedInvites).toString(),
+                StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads and deletes the checkpoint of a guild. The checkpoint is claimed by moving it aside first, so that when
+     * two threads take the same checkpoint, only one of them gets it.
+     *
+     * @param directory the checkpoint directory
+     * @param guildID   the guild ID
+     * @return the checkpoint, with "games" and "invites" arrays, or null if the guild has no checkpoint
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public static JSONObject take(Path directory, long guildID) throws IOException {
+        Path file = path(directory, guildID);
+        Path taken = directory.resolve(guildID + ".json." + Thread.currentThread().getId() + ".taken");
+        try {
+            Files.move(file, taken, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        JSONObject checkpoint = new JSONObject(Files.readString(taken, StandardCharsets.UTF_8));
+        Files.delete(taken);
+        return checkpoint;
+    }
+
+    /**
+     * Lists the guilds that have a checkpoint waiting to be taken.
+     *
+     * @param directory the checkpoint directory
+     * @return the guild IDs
+     * @throws IOException if the directory cannot be read
+     */
+    public static List<Long> pending(Path directory) throws IOException {
+        List<Long> guildIDs = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return guildIDs;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.matches("\\d+\\.json")) {
+                    guildIDs.add(Long.parseLong(name.substring(0, name.length() - ".json".length())));
+                }
+            }
+        }
+        return guildIDs;
+    }
+
+    private static Path path(Path directory, long guildID) {
+        return directory.resolve(guildID + ".json");
+    }
+}
@@ -0,0 +1,179 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.util.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * A chess clock for a two-player game. Each player has their own remaining time, which only runs down during their
+ * turn and grows by a fixed increment whenever they finish a turn. Time is measured with the monotonic time of the
+ * {@link Scheduler} the clock was created with.
+ * <p>
+ * Instead of polling, each clock keeps exactly one scheduled deadline: the moment the player to move runs out of
+ * time. The deadline is re-armed whenever the turn passes.
+ */
+public class GameClock {
+
+    private final Scheduler scheduler = Scheduler.get();
+    private final long[] remainingNanos = new long[2];
+    private final long incrementNanos;
+    private final IntConsumer onTimeout;
+    private int activePlayer = -1;
+    private long turnStartNanos;
+    private long turn;
+    private Scheduler.Task deadline;
+
+    /**
+     * Creates a stopped clock.
+     *
+     * @param firstPlayerMillis  the first player's time, in milliseconds
+     * @param secondPlayerMillis the second player's time, in milliseconds
+     * @param incrementMillis    the time added to a player's clock after each of their turns, in milliseconds
+     * @param onTimeout          called with the index of the player who ran out of time
+     */
+    public GameClock(long firstPlayerMillis, long secondPlayerMillis, long incrementMillis, IntConsumer onTimeout) {
+        this.remainingNanos[0] = TimeUnit.MILLISECONDS.toNanos(firstPlayerMillis);
+        this.remainingNanos[1] = TimeUnit.MILLISECONDS.toNanos(secondPlayerMillis);
+        this.incrementNanos = TimeUnit.MILLISECONDS.toNanos(incrementMillis);
+        this.onTimeout = onTimeout;
+    }
+
+    /**
+     * Starts the clock of the player to move.
+     *
+     * @param player the index of the player to move
+     */
+    public synchronized void start(int player) {
+        activePlayer = player;
+        turnStartNanos = scheduler.nanoTime();
+        arm();
+    }
+
+    /**
+     * Ends the turn of the player to move, adding their increment, and starts the other player's clock.
+     */
+    public synchronized void switchTurn() {
+        if (activePlayer < 0) {
+            return;
+        }
+        long now = scheduler.nanoTime();
+        remainingNanos[activePlayer] -= now - turnStartNanos;
+        remainingNanos[activePlayer] += incrementNanos;
+        activePlayer = 1 - activePlayer;
+        turnStartNanos = now;
+        arm();
+    }
+
+    /**
+     * Ends a player's turn with a move, unless their time has already run out: the clock passes to the opponent, or
+     * stops if the move ended the game. Checking and switching at once means that a move and a timeout of the same
+     * turn cannot both take effect.
+     *
+     * @param player   the index of the player who moved
+     * @param gameOver whether the move ended the game
+     * @return true if the turn ended, false if it was not the player's turn on the clock, e.g. because their time
+     * ran out
+     */
+    public synchronized boolean endTurn(int player, boolean gameOver) {
+        if (activePlayer != player) {
+            return false;
+        }
+        if (gameOver) {
+            stop();
+        } else {
+            switchTurn();
+        }
+        return true;
+    }
+
+    /**
+     * Stops the clock if the player to move has been thinking for a while and is not about to run out of time,
+     * e.g. to hibernate the game. Checking and stopping at once means that the clock cannot also time out.
+     *
+     * @param minIdleNanos      how long the current turn must have lasted, in nanoseconds
+     * @param minRemainingNanos how much time the player to move must have left, in nanoseconds
+     * @return true if the clock was stopped, false if it was left as it was
+     */
+    public synchronized boolean suspend(long minIdleNanos, long minRemainingNanos) {
+        if (activePlayer < 0) {
+            return false;
+        }
+        long elapsed = scheduler.nanoTime() - turnStartNanos;
+        if (elapsed < minIdleNanos || remainingNanos[activePlayer] - elapsed < minRemainingNanos) {
+            return false;
+        }
+        stop();
+        return true;
+    }
+
+    /**
+     * Stops the clock, cancelling its deadline. The time used in the current turn is charged.
+     */
+    public synchronized void stop() {
+        if (activePlayer >= 0) {
+            remainingNanos[activePlayer] -= scheduler.nanoTime() - turnStartNanos;
+            activePlayer = -1;
+        }
+        turn++;
+        if (deadline != null) {
+            deadline.cancel();
+            deadline = null;
+        }
+    }
+
+    /**
+     * Gets a player's remaining time.
+     *
+     * @param player the index of the player
+     * @return the remaining time in milliseconds, never negative
+     */
+    public synchronized long getRemainingMillis(int player) {
+        long remaining = remainingNanos[player];
+        if (player == activePlayer) {
+            remaining -= scheduler.nanoTime() - turnStartNanos;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining));
+    }
+
+    /**
+     * Gets the index of the player whose clock is running.
+     *
+     * @return the player index, or -1 if the clock is stopped
+     */
+    public synchronized int getActivePlayer() {
+        return activePlayer;
+    }
+
+    /**
+     * Replaces the deadline with the moment the player to move runs out of time.
+     */
+    private void arm() {
+        if (deadline != null) {
+            deadline.cancel();
+        }
+        long armedTurn = ++turn;
+        long delay = Math.max(0, remainingNanos[activePlayer]);
+        deadline = scheduler.schedule(() -> expire(armedTurn), delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ends the game of a player who ran out of time, unless the turn has passed since the deadline was armed.
+     *
+     * @param armedTurn the turn the deadline was armed for
+     */
+    private void expire(long armedTurn) {
+        int player;
+        synchronized (this) {
+            if (armedTurn != turn || activePlayer < 0) {
+                return;
+            }
+            player = activePlayer;
+            stop();
+        }
+        onTimeout.accept(player);
+    }
+}
@@ -0,0 +1,237 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.util.Scheduler;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+import net.dv8tion.jda.api.interactions.components.selections.StringSelectMenu;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders the embeds used by a game. The parts of the game embed that never change during a game (title, colour
+ * and the players field) are built once when the game starts; each render only fills in the fields that depend on
+ * the current game state, reusing the same builder.
+ * <p>
+ * The game embed carries the components players move with: one button per move, disabled while the move is not
+ * legal, and a menu of other actions. Their custom IDs start with {@link #COMPONENT_PREFIX} and the game ID, so
+ * interactions can be routed back to the game. The buttons are created once per game as well.
+ * <p>
+ * Also provides the one-off embeds for invites and game results, with their fixed parts shared as constants.
+ */
+public class GameEmbedRenderer {
+
+    private static final String GAME_TITLE = "\uD83D\uDD74 \uD80C\uDF6F GAME \uD80C\uDF6F \uD83D\uDD74";
+    private static final Color GAME_COLOR = Color.BLUE;
+    private static final String TURN_FIELD = "Turn: ";
+    private static final String BOARD_FIELD = "Board: ";
+    private static final String CLOCK_FIELD = "Clock: ";
+
+    /**
+     * The prefix of the custom ID of every game component, followed by the game ID.
+     */
+    public static final String COMPONENT_PREFIX = "game:";
+
+    /**
+     * The action of a move button, followed by the move.
+     */
+    public static final String MOVE_ACTION = "move:";
+
+    /**
+     * The action of the game actions menu.
+     */
+    public static final String MENU_ACTION = "actions";
+
+    /**
+     * The value of the resign option in the game actions menu.
+     */
+    public static final String RESIGN_OPTION = "resign";
+
+    private static final int BUTTONS_PER_ROW = 5;
+
+    private static final String INVITE_TITLE = "Game Invite";
+    private static final String INVITE_FOOTER = "Type /accept to join the game or /decline to decline the invite.";
+    private static final String DECLINED_TITLE = "Game Invite Declined";
+    private static final String GAME_OVER_TITLE = "Game Over!";
+    private static final String WINNER_FIELD = "Winner: ";
+
+    private final EmbedBuilder builder;
+    private final MessageEmbed.Field invitingPlayerTurn;
+    private final MessageEmbed.Field invitedPlayerTurn;
+    private final User invitingPlayer;
+    private final String invitingPlayerMention;
+    private final String invitedPlayerMention;
+    private final GameRules rules;
+    private final int[] moves;
+    private final Button[] moveButtons;
+    private final StringSelectMenu actionMenu;
+    private final StringBuilder clockText = new StringBuilder(64); // reused by render, which is synchronized
+
+    /**
+     * Creates a renderer for a game and precomputes the static parts of its embed and components.
+     *
+     * @param invitingPlayer the player who initiated the game
+     * @param invitedPlayer  the player who was invited to the game
+     * @param gameID         the ID of the game, used in the components' custom IDs
+     * @param rules          the rules of the game
+     */
+    public GameEmbedRenderer(User invitingPlayer, User invitedPlayer, long gameID, GameRules rules) {
+        this.invitingPlayer = invitingPlayer;
+        this.invitingPlayerMention = invitingPlayer.getAsMention();
+        this.invitedPlayerMention = invitedPlayer.getAsMention();
+        this.rules = rules;
+
+        int[] legal = new int[rules.getMaxMoves()];
+        this.moves = Arrays.copyOf(legal, rules.getLegalMoves(rules.getInitialState(), legal));
+        this.moveButtons = new Button[moves.length];
+        String prefix = COMPONENT_PREFIX + gameID + ":";
+        for (int i = 0; i < moves.length; i++) {
+            moveButtons[i] = Button.primary(prefix + MOVE_ACTION + moves[i], rules.getMoveLabel(moves[i]));
+        }
+        this.actionMenu = StringSelectMenu.create(prefix + MENU_ACTION)
+                .setPlaceholder("Other actions")
+                .addOption("Resign", RESIGN_OPTION)
+                .build();
+
+        this.invitingPlayerTurn = new MessageEmbed.Field(TURN_FIELD, invitingPlayer.getAsMention(), false);
+        this.invitedPlayerTurn = new MessageEmbed.Field(TURN_FIELD, invitedPlayer.getAsMention(), false);
+        this.builder = new EmbedBuilder()
+                .setTitle(GAME_TITLE)
+                .setColor(GAME_COLOR);
+        this.builder.addField("Players: ", invitingPlayer.getAsMention() + " VS " + invitedPlayer.getAsMention(), true);
+    }
+
+    /**
+     * Builds the embed announcing a game invite.
+     *
+     * @param invitingPlayer the user who sent the invite
+     * @param invitedPlayer  the user who was invited
+     * @return the invite embed
+     */
+    public static MessageEmbed invite(User invitingPlayer, User invitedPlayer) {
+        return new EmbedBuilder()
+                .setTitle(INVITE_TITLE)
+                .setDescription(invitingPlayer.getAsMention() + " has invited " + invitedPlayer.getAsMention() + " to play a game!")
+                .setFooter(INVITE_FOOTER)
+                .setColor(Color.GREEN).build();
+    }
+
+    /**
+     * Builds the embed rejecting an invite.
+     *
+     * @param reason the reason the invite was rejected
+     * @return the rejected invite embed
+     */
+    public static MessageEmbed inviteRejected(String reason) {
+        return new EmbedBuilder()
+                .setTitle(INVITE_TITLE)
+                .setDescription(reason)
+                .setColor(Color.RED).build();
+    }
+
+    /**
+     * Builds the embed announcing a declined invite.
+     *
+     * @param invitedPlayer  the user who declined the invite
+     * @param invitingPlayer the user who sent the invite
+     * @return the declined invite embed
+     */
+    public static MessageEmbed declined(User invitedPlayer, User invitingPlayer) {
+        return new EmbedBuilder()
+                .setTitle(DECLINED_TITLE)
+                .setDescription(invitedPlayer.getAsMention() + " has declined the invite from " + invitingPlayer.getAsMention() + "!")
+                .setColor(Color.RED).build();
+    }
+
+    /**
+     * Builds the embed announcing the end of a game.
+     *
+     * @param invitingPlayer the player who initiated the game
+     * @param invitedPlayer  the player who was invited to the game
+     * @param result         the winner of the game
+     * @return the game over embed
+     */
+    public static MessageEmbed gameOver(User invitingPlayer, User invitedPlayer, String result) {
+        return new EmbedBuilder()
+                .setTitle(GAME_OVER_TITLE)
+                .setDescription("The game between " + invitingPlayer.getAsMention() + " and " + invitedPlayer.getAsMention() + " has ended!")
+                .addField(WINNER_FIELD, result, true)
+                .setColor(GAME_COLOR).build();
+    }
+
+    /**
+     * Renders the game embed for the current game state.
+     *
+     * @param whosTurn the player whose turn it is
+     * @param state    the state of the game
+     * @param clock    the game's chess clock
+     * @return the immutable game embed
+     */
+    public synchronized MessageEmbed render(User whosTurn, int state, GameClock clock) {
+        builder.getFields().subList(1, builder.getFields().size()).clear();
+        builder.addField(BOARD_FIELD, rules.describe(state), false);
+        if (!rules.isOver(state)) {
+            builder.addField(whosTurn.equals(invitingPlayer) ? invitingPlayerTurn : invitedPlayerTurn);
+            clockText.setLength(0);
+            clockText.append(invitingPlayerMention).append(' ');
+            appendClock(clockText, clock, 0);
+            clockText.append(" | ").append(invitedPlayerMention).append(' ');
+            appendClock(clockText, clock, 1);
+            builder.addField(CLOCK_FIELD, clockText.toString(), false);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Appends a player's clock. The running clock is shown as a Discord relative timestamp, which counts down on
+     * the players' screens without the embed being edited; the stopped clock is shown as minutes and seconds.
+     *
+     * @param text   the text to append to
+     * @param clock  the game's chess clock
+     * @param player the index of the player
+     */
+    private static void appendClock(StringBuilder text, GameClock clock, int player) {
+        long remainingMillis = clock.getRemainingMillis(player);
+        if (clock.getActivePlayer() == player) {
+            text.append("<t:").append((Scheduler.get().currentTimeMillis() + remainingMillis) / 1000).append(":R>");
+            return;
+        }
+        long seconds = remainingMillis / 1000;
+        text.append(seconds / 60).append(':');
+        if (seconds % 60 < 10) {
+            text.append('0');
+        }
+        text.append(seconds % 60);
+    }
+
+    /**
+     * Renders the components of the game embed for the current game state.
+     *
+     * @param state the state of the game
+     * @return the rows of components, or no rows once the game is over
+     */
+    public List<ActionRow> renderComponents(int state) {
+        if (rules.isOver(state)) {
+            return List.of();
+        }
+        List<ActionRow> rows = new ArrayList<>();
+        List<Button> row = new ArrayList<>(BUTTONS_PER_ROW);
+        for (int i = 0; i < moveButtons.length; i++) {
+            row.add(moveButtons[i].withDisabled(!rules.isLegal(state, moves[i])));
+            if (row.size() == BUTTONS_PER_ROW || i == moveButtons.length - 1) {
+                rows.add(ActionRow.of(row));
+                row = new ArrayList<>(BUTTONS_PER_ROW);
+            }
+        }
+        rows.add(ActionRow.of(actionMenu));
+        return rows;
+    }
+}
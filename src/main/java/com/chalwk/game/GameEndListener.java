@@ -0,0 +1,20 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * Notified whenever a game ends with a result, e.g. to advance a tournament.
+ */
+public interface GameEndListener {
+
+    /**
+     * Called once when a game has ended.
+     *
+     * @param game   the game that ended
+     * @param winner the player who won, or null for a draw
+     */
+    void onGameEnd(Game game, User winner);
+}
@@ -3,16 +3,34 @@
 
 package com.chalwk.game;
 
+import com.chalwk.util.Scheduler;
 import net.dv8tion.jda.api.entities.User;
 
 public class GameInvite {
 
     private final User invitingPlayer;
     private final User invitedPlayer;
+    private final long guildID;
+    private final long createdMillis;
+    private Scheduler.Task expiryTask;
 
-    public GameInvite(User invitingPlayer, User invitedPlayer) {
+    public GameInvite(User invitingPlayer, User invitedPlayer, long guildID) {
+        this(invitingPlayer, invitedPlayer, guildID, Scheduler.get().currentTimeMillis());
+    }
+
+    /**
+     * Creates an invite that was sent at the given time, e.g. when restoring invites after a restart.
+     *
+     * @param invitingPlayer the user who sent the invite
+     * @param invitedPlayer  the user who was invited
+     * @param guildID        the ID of the guild the invite was sent in
+     * @param createdMillis  the time the invite was sent, in epoch milliseconds
+     */
+    public GameInvite(User invitingPlayer, User invitedPlayer, long guildID, long createdMillis) {
         this.invitingPlayer = invitingPlayer;
         this.invitedPlayer = invitedPlayer;
+        this.guildID = guildID;
+        this.createdMillis = createdMillis;
     }
 
     public User getInvitingPlayer() {
@@ -22,4 +40,31 @@ public class GameInvite {
     public User getInvitedPlayer() {
         return invitedPlayer;
     }
+
+    public long getGuildID() {
+        return guildID;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Sets the task that will expire this invite.
+     *
+     * @param expiryTask the scheduled expiry task
+     */
+    void setExpiryTask(Scheduler.Task expiryTask) {
+        this.expiryTask = expiryTask;
+    }
+
+    /**
+     * Cancels the expiry task of this invite, if one is scheduled.
+     */
+    void cancelExpiryTask() {
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+    }
 }
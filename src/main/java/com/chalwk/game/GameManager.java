@@ -2,15 +2,54 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.game;
 
-import net.dv8tion.jda.api.EmbedBuilder;
+import com.chalwk.CommandManager.CommandReply;
+import com.chalwk.ai.BotOpponent;
+import com.chalwk.cluster.ShardAssignment;
+import com.chalwk.diagnostics.GameManagerEvent;
+import com.chalwk.diagnostics.InteractionTracer;
+import com.chalwk.events.DomainEvent;
+import com.chalwk.events.GameEventBus;
+import com.chalwk.events.GameEventLogger;
+import com.chalwk.events.OverflowPolicy;
+import com.chalwk.history.GameArchive;
+import com.chalwk.history.GameRecord;
+import com.chalwk.profile.ProfileStore;
+import com.chalwk.rating.RatingManager;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.RestQueue;
+import com.chalwk.util.Scheduler;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.entities.UserImpl;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
-import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.random.RandomGenerator;
 
-import static com.chalwk.util.fileIO.loadChannelID;
+import static com.chalwk.bot.BotInitializer.getShardManager;
+import static com.chalwk.util.fileIO.LEGACY_GUILD_ID;
+import static com.chalwk.util.fileIO.loadChannelIDs;
+import static com.chalwk.util.fileIO.saveChannelID;
 
 /**
  * Manages game-related operations, including creating games, inviting players, and managing pending invites.
@@ -18,79 +57,274 @@ import static com.chalwk.util.fileIO.loadChannelID;
 public class GameManager {
 
     private final Map<User, Game> games;
-    private final Map<User, GameInvite> pendingInvites;
-    private static String channelID = "";
+    private final Map<Long, Game> gamesByID;
+    private final GameRules rules;
+    private final MoveParser moveParser;
+    private final List<GameEndListener> gameEndListeners = new CopyOnWriteArrayList<>();
+    private final InviteStore pendingInvites;
+    private final Map<Long, MatchmakingQueue> matchmakingQueues = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService pairingThread;
+    private volatile BotOpponent botOpponent;
+    private final Path archiveDirectory;
 
     /**
-     * Initializes an empty map for storing active games and pending invites.
+     * The stores of every guild, or null if each guild has its own stores.
      */
-    public GameManager() {
-        channelID = loadChannelID();
-        this.games = new HashMap<>();
-        this.pendingInvites = new HashMap<>();
+    private final GameStores sharedStores;
+    private final Map<Long, GameStores> guildStores = new ConcurrentHashMap<>();
+    private final SharedGameIDs sharedGameIDs;
+    private volatile LongPredicate ownedGuilds = guildID -> true;
+    private final GameEventBus eventBus;
+    private final HibernationStore hibernated;
+    private final RandomGenerator random;
+
+    /**
+     * Held while a game is hibernated or rehydrated, so that a game is never both in memory and hibernated, or
+     * rehydrated twice.
+     */
+    private final Object hibernationLock = new Object();
+
+    /**
+     * Held from checking that players are free until their game is registered or their invite is added, so that
+     * racing accepts cannot put a player in two games and no invite is added for a player whose game is starting.
+     */
+    private final Object lobbyLock = new Object();
+
+    /**
+     * The ID of the game channel of each guild that has one.
+     */
+    private static final Map<Long, String> channelIDs = new ConcurrentHashMap<>();
+
+    /**
+     * Initializes an empty map for storing active games and pending invites, and opens the game archive, the
+     * player profile store and the hibernation store.
+     *
+     * @throws IOException if the game archive, the profile store or the hibernation store cannot be opened
+     */
+    public GameManager() throws IOException {
+        this(Paths.get(settings.getArchiveDirectory()));
     }
 
     /**
-     * Checks if a user is currently playing a game.
+     * Initializes an empty map for storing active games and pending invites, and opens the game archive in the
+     * given directory and the player profile store and hibernation store in its subdirectories.
+     *
+     * @param archiveDirectory the directory of the game archive
+     * @throws IOException if the game archive, the profile store or the hibernation store cannot be opened
+     */
+    public GameManager(Path archiveDirectory) throws IOException {
+        this(archiveDirectory, new Random());
+    }
+
+    /**
+     * Initializes an empty map for storing active games and pending invites, and opens the game archive in the
+     * given directory and the player profile store and hibernation store in its subdirectories. Who starts each game
+     * is drawn from the given generator, so a seeded generator makes the draws repeatable.
+     *
+     * @param archiveDirectory the directory of the game archive
+     * @param random           the generator of random choices, shared by all games; must be thread-safe
+     * @throws IOException if the game archive, the profile store or the hibernation store cannot be opened
+     */
+    public GameManager(Path archiveDirectory, RandomGenerator random) throws IOException {
+        this(archiveDirectory, random, null);
+    }
+
+    /**
+     * Initializes the game manager of one node of a cluster. The directory is shared by the nodes: each guild's game
+     * archive, player profiles and ratings are kept in a subdirectory of their own, so that they move with the guild
+     * to whichever node serves it, and are only opened once the guild is served here. The hibernation store only
+     * lives as long as the process, so each node keeps its own.
+     *
+     * @param archiveDirectory the directory shared by the nodes
+     * @param nodeName         the name of this node
+     * @throws IOException if the hibernation store cannot be opened
+     */
+    public GameManager(Path archiveDirectory, String nodeName) throws IOException {
+        this(archiveDirectory, new Random(), nodeName);
+    }
+
+    private GameManager(Path archiveDirectory, RandomGenerator random, String nodeName) throws IOException {
+        this.random = random;
+        channelIDs.clear();
+        channelIDs.putAll(loadChannelIDs());
+        this.games = new ConcurrentHashMap<>();
+        this.gamesByID = new ConcurrentHashMap<>();
+        this.rules = new NimRules(settings.getNimPileSize(), settings.getNimMaxTake());
+        this.moveParser = new MoveParser(rules);
+        this.pendingInvites = new InviteStore(settings.getMaxInvitesPerPlayer(), settings.getInviteExpirySeconds());
+        this.archiveDirectory = archiveDirectory;
+        Path hibernationDirectory = archiveDirectory.resolve(settings.getHibernationDirectory());
+        if (nodeName == null) {
+            this.sharedStores = new GameStores(archiveDirectory);
+            this.sharedGameIDs = null;
+        } else {
+            this.sharedStores = null;
+            this.sharedGameIDs = new SharedGameIDs(archiveDirectory);
+            hibernationDirectory = hibernationDirectory.resolve(nodeName);
+        }
+        this.eventBus = new GameEventBus(settings.getEventBusThreads(), settings.getEventBufferSize());
+        this.hibernated = new HibernationStore(hibernationDirectory);
+        if (settings.isGameEventLogEnabled()) {
+            eventBus.subscribe("log", new GameEventLogger(), settings.getEventBufferSize(), OverflowPolicy.DROP_OLDEST);
+        }
+    }
+
+    /**
+     * Checks if a user is currently playing a game, whether it is in memory or hibernated.
      *
      * @param player the user to check
      * @return true if the user is in a game, false otherwise
      */
     public boolean isInGame(User player) {
-        return games.containsKey(player);
+        return games.containsKey(player) || !hibernated.isEmpty() && hibernated.hasPlayer(player.getIdLong());
     }
 
-    public static String getChannelID() {
-        return GameManager.channelID;
+    /**
+     * Gets the ID of a guild's game channel.
+     *
+     * @param guildID the guild ID
+     * @return the channel ID, or an empty string if the guild has no game channel
+     */
+    public static String getChannelID(long guildID) {
+        return channelIDs.getOrDefault(guildID, "");
     }
 
-    public void setChannelID(String channelID) {
-        GameManager.channelID = channelID;
+    /**
+     * Gets a guild's game channel.
+     *
+     * @param guildID the guild ID
+     * @return the channel, or null if the guild has no game channel or it is not available
+     */
+    public static TextChannel getGameChannel(long guildID) {
+        String channelID = channelIDs.get(guildID);
+        return channelID == null ? null : getShardManager().getTextChannelById(channelID);
+    }
+
+    /**
+     * Sets or removes a guild's game channel and saves it to the config file.
+     *
+     * @param guildID   the guild ID
+     * @param channelID the channel ID, or an empty string to remove the guild's game channel
+     * @throws IOException if the config file cannot be saved
+     */
+    public void setChannelID(long guildID, String channelID) throws IOException {
+        saveChannelID(guildID, channelID);
+        if (channelID.isEmpty()) {
+            channelIDs.remove(guildID);
+        } else {
+            channelIDs.put(guildID, channelID);
+        }
     }
 
     /**
-     * Accepts a pending invite and creates a new game with the inviting and invited players.
+     * Makes the single game channel saved by an earlier version the game channel of its guild, once that guild is
+     * ready and the channel can be found in it.
      *
-     * @param invitedPlayer the user who accepted the invite
-     * @param event         the event that triggered the invite acceptance
+     * @param guild the guild that became ready
      */
-    public void acceptInvite(User invitedPlayer, SlashCommandInteractionEvent event) {
-        GameInvite invite = pendingInvites.get(invitedPlayer);
-        User invitingPlayer = invite.getInvitingPlayer();
-        if (isInGame(invitingPlayer)) {
-            event.reply(invitingPlayer.getName() + " is already in a game.\nPlease wait until their current game is finished.").setEphemeral(true).queue();
+    public void adoptLegacyChannel(Guild guild) {
+        String legacy = channelIDs.get(LEGACY_GUILD_ID);
+        if (legacy == null || channelIDs.containsKey(guild.getIdLong()) || guild.getTextChannelById(legacy) == null) {
             return;
         }
-        createGame(invitingPlayer, invitedPlayer, event);
+        try {
+            setChannelID(guild.getIdLong(), legacy);
+            channelIDs.remove(LEGACY_GUILD_ID, legacy);
+            Logger.info("Game channel " + legacy + " now belongs to guild " + guild.getId());
+        } catch (IOException e) {
+            Logger.warning("Failed to save the game channel of guild " + guild.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Accepts a pending invite and creates a new game with the inviting and invited players. The invite is only
+     * accepted if it is still pending and neither player has started another game in the meantime.
+     *
+     * @param invitedPlayer  the user who accepted the invite
+     * @param invitingPlayer the user whose invite to accept, or null for the oldest invite
+     * @param event          the event that triggered the invite acceptance
+     */
+    public void acceptInvite(User invitedPlayer, User invitingPlayer, SlashCommandInteractionEvent event) {
+        String refusal;
+        synchronized (lobbyLock) {
+            GameInvite invite = pendingInvites.peek(invitedPlayer, invitingPlayer);
+            if (invite == null) {
+                refusal = noInvite(invitingPlayer);
+            } else if (isInGame(invitedPlayer)) {
+                refusal = "## You are already in a game.";
+            } else if (isInGame(invite.getInvitingPlayer())) {
+                refusal = invite.getInvitingPlayer().getName() + " is already in a game.\nPlease wait until their current game is finished.";
+            } else if (!pendingInvites.remove(invite)) {
+                refusal = noInvite(invitingPlayer); // canceled or expired just now
+            } else {
+                createGame(invite.getInvitingPlayer(), invitedPlayer, event);
+                return;
+            }
+        }
+        CommandReply.reply(event, refusal, true).queue();
     }
 
     /**
      * Declines a pending invite and notifies the inviting player.
      *
-     * @param invitedPlayer the user who declined the invite
-     * @param event         the event that triggered the invite decline
+     * @param invitedPlayer  the user who declined the invite
+     * @param invitingPlayer the user whose invite to decline, or null for the oldest invite
+     * @param event          the event that triggered the invite decline
+     */
+    public void declineInvite(User invitedPlayer, User invitingPlayer, SlashCommandInteractionEvent event) {
+        long start = System.nanoTime();
+        GameInvite invite = pendingInvites.take(invitedPlayer, invitingPlayer);
+        if (invite == null) {
+            event.reply(noInvite(invitingPlayer)).setEphemeral(true).queue();
+            return;
+        }
+        event.replyEmbeds(GameEmbedRenderer.declined(invitedPlayer, invite.getInvitingPlayer())).queue();
+        InteractionTracer.span("GameManager.declineInvite", start);
+    }
+
+    /**
+     * Gets the reply to a player who has no invite to accept or decline.
+     *
+     * @param invitingPlayer the user whose invite the player asked for, or null if they did not name one
+     * @return the reply
      */
-    public void declineInvite(User invitedPlayer, SlashCommandInteractionEvent event) {
-        GameInvite invite = pendingInvites.get(invitedPlayer);
-        User invitingPlayer = invite.getInvitingPlayer();
-        event.replyEmbeds(new EmbedBuilder()
-                .setTitle("Game Invite Declined")
-                .setDescription(invitedPlayer.getAsMention() + " has declined the invite from " + invitingPlayer.getAsMention() + "!")
-                .setColor(Color.RED).build()).queue();
-        pendingInvites.remove(invitedPlayer);
+    private static String noInvite(User invitingPlayer) {
+        return invitingPlayer == null ? "## You don't have any pending invites."
+                : "## You don't have a pending invite from " + invitingPlayer.getName() + ".";
     }
 
     /**
-     * Returns the map of pending invites.
+     * Returns the store of pending invites.
      *
-     * @return a map containing the pending invites
+     * @return the pending invites
      */
-    public Map<User, GameInvite> getPendingInvites() {
+    public InviteStore getPendingInvites() {
         return pendingInvites;
     }
 
+    /**
+     * Checks if a user has any pending invites.
+     *
+     * @param invitedPlayer the user to check
+     * @return true if the user has at least one pending invite, false otherwise
+     */
+    public boolean hasPendingInvite(User invitedPlayer) {
+        return pendingInvites.hasInvite(invitedPlayer);
+    }
+
+    /**
+     * Gets the game a user is playing, rehydrating it if it was hibernated.
+     *
+     * @param player the user
+     * @return the game, or null if the user is not in a game
+     */
     public Game getGame(User player) {
-        return games.get(player);
+        Game game = games.get(player);
+        if (game != null || hibernated.isEmpty()) {
+            return game;
+        }
+        long gameID = hibernated.gameOf(player.getIdLong());
+        return gameID == 0 ? null : rehydrate(gameID);
     }
 
     /**
@@ -101,10 +335,473 @@ public class GameManager {
      * @param event          the event that triggered the game creation
      */
     public void createGame(User invitingPlayer, User invitedPlayer, SlashCommandInteractionEvent event) {
+        long start = System.nanoTime();
         Game game = new Game(invitingPlayer, invitedPlayer, event, this);
-        pendingInvites.remove(invitedPlayer);
+        addGame(game);
+        InteractionTracer.span("GameManager.createGame", start);
+    }
+
+    /**
+     * Creates a new game for two players and posts the game embed in the game channel.
+     *
+     * @param invitingPlayer the first player of the game
+     * @param invitedPlayer  the second player of the game
+     * @param channel        the channel to post the game embed in
+     * @return the new game
+     */
+    public Game createGame(User invitingPlayer, User invitedPlayer, TextChannel channel) {
+        Game game = new Game(invitingPlayer, invitedPlayer, channel, this);
+        addGame(game);
+        return game;
+    }
+
+    /**
+     * Creates a new game for two players in the game channel, e.g. a tournament match, unless either of them is
+     * already in a game. The check and the creation happen under the lobby lock, so neither player can start another
+     * game in between.
+     *
+     * @param invitingPlayer the first player of the game
+     * @param invitedPlayer  the second player of the game
+     * @param channel        the channel to post the game embed in
+     * @return the new game, or null if either player is in a game
+     */
+    public Game createGameIfFree(User invitingPlayer, User invitedPlayer, TextChannel channel) {
+        synchronized (lobbyLock) {
+            if (isInGame(invitingPlayer) || isInGame(invitedPlayer)) {
+                return null;
+            }
+            return createGame(invitingPlayer, invitedPlayer, channel);
+        }
+    }
+
+    /**
+     * Registers a listener to be notified whenever a game ends with a result.
+     *
+     * @param listener the listener
+     */
+    public void addGameEndListener(GameEndListener listener) {
+        gameEndListeners.add(listener);
+    }
+
+    /**
+     * Notifies the game end listeners of a game's result.
+     *
+     * @param game   the game that ended
+     * @param winner the player who won, or null for a draw
+     */
+    void fireGameEnd(Game game, User winner) {
+        for (GameEndListener listener : gameEndListeners) {
+            listener.onGameEnd(game, winner);
+        }
+    }
+
+    /**
+     * Registers a newly created game and clears any invites or queue entries its players still have.
+     *
+     * @param game the game to register
+     */
+    private void addGame(Game game) {
+        User invitingPlayer = game.getInvitingPlayer();
+        User invitedPlayer = game.getInvitedPlayer();
+        pendingInvites.removeAll(invitingPlayer);
+        pendingInvites.removeAll(invitedPlayer);
+        for (MatchmakingQueue queue : matchmakingQueues.values()) {
+            queue.leave(invitingPlayer);
+            queue.leave(invitedPlayer);
+        }
         games.put(invitingPlayer, game);
-        games.put(invitedPlayer, game);
+        if (!BotOpponent.isBot(invitedPlayer)) {
+            games.put(invitedPlayer, game); // the bot plays any number of games at once
+        }
+        gamesByID.put(game.getGameID(), game);
+        recordChange(GameManagerEvent.ADD_GAME, game.getGameID(), 1);
+    }
+
+    /**
+     * Emits a flight recorder event for a change to the games or invites.
+     *
+     * @param operation the change
+     * @param gameID    the game added or removed, or 0
+     * @param count     the number of games the change touched
+     */
+    private void recordChange(String operation, long gameID, int count) {
+        GameManagerEvent event = new GameManagerEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.gameID = gameID;
+            event.count = count;
+            event.activeGames = gamesByID.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts a game for two players paired by a guild's matchmaking queue, in the guild's game channel. If either
+     * player has started another game in the meantime, the other player is put back in the queue.
+     *
+     * @param guildID  the guild whose queue paired the players
+     * @param player   the first matched player
+     * @param opponent the second matched player
+     */
+    private void createMatchedGame(long guildID, User player, User opponent) {
+        TextChannel channel = getGameChannel(guildID);
+        if (channel == null) {
+            Logger.warning("Matchmaking: game channel of guild " + guildID + " is not available");
+            return;
+        }
+        synchronized (lobbyLock) {
+            if (!isInGame(player) && !isInGame(opponent)) {
+                createGame(player, opponent, channel);
+                return;
+            }
+        }
+        if (!isInGame(player)) getMatchmakingQueue(guildID).join(player);
+        if (!isInGame(opponent)) getMatchmakingQueue(guildID).join(opponent);
+    }
+
+    /**
+     * Gets the game being played with a given ID, e.g. to route a button press to it, rehydrating it if it was
+     * hibernated.
+     *
+     * @param gameID the game ID
+     * @return the game, or null if no game with the ID is being played
+     */
+    public Game getGameByID(long gameID) {
+        Game game = gamesByID.get(gameID);
+        return game != null || hibernated.isEmpty() || !hibernated.contains(gameID) ? game : rehydrate(gameID);
+    }
+
+    /**
+     * Starts hibernating idle games. Every sweep interval, games in which the player to move has been thinking for
+     * longer than the idle threshold are written to the hibernation store and dropped from memory, and hibernated
+     * games whose player to move runs out of time before the next sweep but one are rehydrated, so that their
+     * clock can end them on time. Any other hibernated game is rehydrated when it is next looked up.
+     */
+    public void startHibernation() {
+        Scheduler.get().schedule(this::sweepIdleGames, settings.getHibernationSweepSeconds(), TimeUnit.SECONDS);
+    }
+
+    private void sweepIdleGames() {
+        long sweepMillis = TimeUnit.SECONDS.toMillis(settings.getHibernationSweepSeconds());
+        try {
+            if (!hibernated.isEmpty()) {
+                for (long gameID : hibernated.due(Scheduler.get().nanoTime() + TimeUnit.MILLISECONDS.toNanos(2 * sweepMillis))) {
+                    rehydrate(gameID);
+                }
+            }
+            int count = 0;
+            for (Game game : gamesByID.values()) {
+                if (hibernate(game, TimeUnit.SECONDS.toMillis(settings.getHibernateIdleSeconds()), 3 * sweepMillis)) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                recordChange(GameManagerEvent.HIBERNATE, 0, count);
+            }
+        } catch (RuntimeException e) {
+            Logger.warning("Failed to sweep idle games: " + e.getMessage());
+        } finally {
+            startHibernation();
+        }
+    }
+
+    /**
+     * Hibernates a game if it is idle, moving it from memory to the hibernation store.
+     *
+     * @param game               the game
+     * @param idleMillis         how long the player to move must have been thinking, in milliseconds
+     * @param minRemainingMillis how much time the player to move must have left, in milliseconds
+     * @return true if the game was hibernated
+     * @see Game#hibernate
+     */
+    public boolean hibernate(Game game, long idleMillis, long minRemainingMillis) {
+        synchronized (hibernationLock) {
+            ByteBuffer state = game.hibernate(idleMillis, minRemainingMillis);
+            if (state == null) {
+                return false;
+            }
+            User invitingPlayer = game.getInvitingPlayer();
+            User invitedPlayer = game.getInvitedPlayer();
+            long deadline = Scheduler.get().nanoTime() + TimeUnit.MILLISECONDS.toNanos(game.getRemainingMillis(game.getWhosTurn()));
+            try {
+                hibernated.put(game.getGameID(), game.getGuildID(), invitingPlayer.getIdLong(),
+                        BotOpponent.isBot(invitedPlayer) ? 0 : invitedPlayer.getIdLong(), deadline, state.duplicate());
+            } catch (IOException e) {
+                Logger.warning("Failed to hibernate game " + game.getGameID() + ": " + e.getMessage());
+                try {
+                    // the game is already stopped, so carry it on in memory from its encoded state
+                    register(Game.rehydrate(state, game.getRemainingMillis(game.getWhosTurn()),
+                            userID -> userID == invitingPlayer.getIdLong() ? invitingPlayer : invitedPlayer, this));
+                } catch (IOException impossible) {
+                    throw new IllegalStateException(impossible);
+                }
+                return false;
+            }
+            // registered as hibernated before leaving memory, so that the players are never free in between
+            games.remove(invitingPlayer, game);
+            games.remove(invitedPlayer, game);
+            gamesByID.remove(game.getGameID(), game);
+            return true;
+        }
+    }
+
+    /**
+     * Brings a hibernated game back into memory and resumes it. A game that cannot be read back, or whose players
+     * cannot be found, is dropped, freeing its players.
+     *
+     * @param gameID the game ID
+     * @return the game, or null if it was dropped or is no longer being played
+     */
+    private Game rehydrate(long gameID) {
+        GameManagerEvent event = new GameManagerEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Game game;
+        synchronized (hibernationLock) {
+            game = gamesByID.get(gameID);
+            if (game != null || !hibernated.contains(gameID)) {
+                return game; // rehydrated by another thread in the meantime, or over
+            }
+            try {
+                long turnNanos = hibernated.getDeadline(gameID) - Scheduler.get().nanoTime();
+                game = Game.rehydrate(hibernated.read(gameID), Math.max(0, TimeUnit.NANOSECONDS.toMillis(turnNanos)),
+                        this::resolveUser, this);
+                register(game);
+            } catch (IOException | RuntimeException e) {
+                Logger.warning("Failed to rehydrate game " + gameID + ", dropping it: " + e.getMessage());
+                game = null;
+            }
+            // registered in memory before leaving the hibernation store, so that the players are never free in between
+            hibernated.remove(gameID, System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = GameManagerEvent.REHYDRATE;
+            event.gameID = gameID;
+            event.count = 1;
+            event.activeGames = gamesByID.size();
+            event.commit();
+        }
+        return game;
+    }
+
+    /**
+     * Registers a restored game and starts its clock.
+     *
+     * @param game the game
+     */
+    private void register(Game game) {
+        games.put(game.getInvitingPlayer(), game);
+        if (!BotOpponent.isBot(game.getInvitedPlayer())) {
+            games.put(game.getInvitedPlayer(), game);
+        }
+        gamesByID.put(game.getGameID(), game);
+        game.resume();
+    }
+
+    /**
+     * Looks up a player of a rehydrated game in the shards' cache. A player who is not cached is stood in for by a
+     * user that only knows its ID, which is all a game needs to be played and rendered. Rehydrating runs under the
+     * hibernation lock, on event threads and on the scheduler thread, so it must never wait for Discord.
+     *
+     * @param userID the user ID
+     * @return the user
+     */
+    private User resolveUser(long userID) {
+        ShardManager shardManager = getShardManager();
+        User user = shardManager.getUserById(userID);
+        return user != null ? user : new UserImpl(userID, (JDAImpl) shardManager.getShards().get(0));
+    }
+
+    /**
+     * Describes the hibernated games, the memory their stubs take and the rehydrations so far.
+     *
+     * @return the metrics, one line
+     */
+    public String getHibernationMetrics() {
+        return hibernated.getMetrics();
+    }
+
+    /**
+     * Returns the rules of the game being played.
+     *
+     * @return the game rules
+     */
+    public GameRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the generator of the random choices made for games, e.g. who starts.
+     *
+     * @return the random generator
+     */
+    public RandomGenerator getRandom() {
+        return random;
+    }
+
+    /**
+     * Returns the parser of moves sent as chat messages, compiled for the game's rules.
+     *
+     * @return the move parser
+     */
+    public MoveParser getMoveParser() {
+        return moveParser;
+    }
+
+    /**
+     * Returns the rating manager of a guild.
+     *
+     * @param guildID the guild ID
+     * @return the rating manager
+     */
+    public RatingManager getRatingManager(long guildID) {
+        return getStores(guildID).getRatings();
+    }
+
+    /**
+     * Returns the archive of the finished games of a guild.
+     *
+     * @param guildID the guild ID
+     * @return the game archive
+     */
+    public GameArchive getGameArchive(long guildID) {
+        return getStores(guildID).getArchive();
+    }
+
+    /**
+     * Returns the store of the player profiles of a guild.
+     *
+     * @param guildID the guild ID
+     * @return the profile store
+     */
+    public ProfileStore getProfileStore(long guildID) {
+        return getStores(guildID).getProfiles();
+    }
+
+    /**
+     * Hands out the ID of a new game in a guild.
+     *
+     * @param guildID the guild ID
+     * @return the game ID
+     */
+    long nextGameID(long guildID) {
+        return sharedGameIDs != null ? sharedGameIDs.next() : sharedStores.getArchive().nextGameID();
+    }
+
+    /**
+     * Gets the stores of a guild, opening them the first time they are needed. In a cluster, opening waits until
+     * the node that served the guild before has closed them.
+     *
+     * @param guildID the guild ID
+     * @return the guild's stores
+     * @throws IllegalStateException if the guild is served by another node
+     * @throws UncheckedIOException  if the stores cannot be opened
+     */
+    private GameStores getStores(long guildID) {
+        if (sharedStores != null) {
+            return sharedStores;
+        }
+        GameStores stores = guildStores.get(guildID);
+        if (stores != null) {
+            return stores;
+        }
+        if (!ownedGuilds.test(guildID)) {
+            throw new IllegalStateException("Guild " + guildID + " is served by another node");
+        }
+        return guildStores.computeIfAbsent(guildID, id -> {
+            try {
+                return new GameStores(archiveDirectory.resolve(settings.getGuildDataDirectory()).resolve(Long.toString(id)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open the game data of guild " + id, e);
+            }
+        });
+    }
+
+    /**
+     * Waits until every finished game and profile update recorded so far has been written to disk.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return true if every store was flushed, false if one failed or the timeout was reached first
+     */
+    public boolean awaitFlush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (sharedStores != null) {
+            return sharedStores.awaitFlush(deadline);
+        }
+        boolean flushed = true;
+        for (GameStores stores : guildStores.values()) {
+            flushed &= stores.awaitFlush(deadline);
+        }
+        return flushed;
+    }
+
+    /**
+     * Returns the stream of invite and game events, for plugins to subscribe to.
+     *
+     * @return the game event bus
+     */
+    public GameEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Returns the matchmaking queue of a guild, whose matches are played in the guild's game channel. The queues
+     * share one pairing thread, which is only started the first time a player joins a queue, keeping it off the
+     * startup path.
+     *
+     * @param guildID the guild ID
+     * @return the guild's matchmaking queue
+     */
+    public MatchmakingQueue getMatchmakingQueue(long guildID) {
+        MatchmakingQueue queue = matchmakingQueues.get(guildID);
+        if (queue == null) {
+            synchronized (this) {
+                if (pairingThread == null) {
+                    pairingThread = MatchmakingQueue.newPairingThread();
+                }
+                RatingManager ratings = getRatingManager(guildID);
+                queue = matchmakingQueues.computeIfAbsent(guildID, id -> new MatchmakingQueue(ratings::getRating,
+                        (player, opponent) -> createMatchedGame(id, player, opponent), pairingThread));
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Returns the bot opponent. Its search pool is only started the first time someone plays the bot.
+     *
+     * @return the bot opponent
+     */
+    public BotOpponent getBotOpponent() {
+        BotOpponent bot = botOpponent;
+        if (bot == null) {
+            synchronized (this) {
+                bot = botOpponent;
+                if (bot == null) {
+                    bot = new BotOpponent(rules);
+                    botOpponent = bot;
+                }
+            }
+        }
+        return bot;
+    }
+
+    /**
+     * Starts a game against the bot straight away; the bot needs no invite.
+     *
+     * @param player the user playing the bot
+     * @param bot    the bot's own user
+     * @param event  the event that triggered the game
+     */
+    public void startBotGame(User player, User bot, SlashCommandInteractionEvent event) {
+        synchronized (lobbyLock) {
+            if (!isInGame(player)) {
+                createGame(player, bot, event);
+                return;
+            }
+        }
+        RestQueue.ack(event.replyEmbeds(GameEmbedRenderer.inviteRejected("You are already in a game.")).setEphemeral(true));
     }
 
     /**
@@ -115,37 +812,274 @@ public class GameManager {
      * @param event          the event that triggered the invite
      */
     public void invitePlayer(User invitingPlayer, User invitedPlayer, SlashCommandInteractionEvent event) {
-
-        EmbedBuilder embed = new EmbedBuilder();
-        embed.setTitle("Game Invite");
-
-        if (!isInGame(invitingPlayer) && !isInGame(invitedPlayer)) {
-            pendingInvites.put(invitedPlayer, new GameInvite(invitingPlayer, invitedPlayer));
-            event.replyEmbeds(embed
-                    .setDescription(invitingPlayer.getAsMention() + " has invited " + invitedPlayer.getAsMention() + " to play a game!")
-                    .setFooter("Type /accept to join the game or /decline to decline the invite.")
-                    .setColor(Color.GREEN).build()).queue();
+        long start = System.nanoTime();
+        boolean busy;
+        boolean added = false;
+        synchronized (lobbyLock) {
+            busy = isInGame(invitingPlayer) || isInGame(invitedPlayer);
+            if (!busy) {
+                added = pendingInvites.add(new GameInvite(invitingPlayer, invitedPlayer, event.getGuild().getIdLong()));
+            }
+        }
+        if (busy) {
+            RestQueue.ack(event.replyEmbeds(GameEmbedRenderer.inviteRejected("You or " + invitedPlayer.getName() + " are already in a game."))
+                    .setEphemeral(true));
+        } else if (!added) {
+            RestQueue.ack(event.replyEmbeds(GameEmbedRenderer.inviteRejected("You already have " + settings.getMaxInvitesPerPlayer()
+                    + " pending invites.\nUse /cancel or wait for them to expire.")).setEphemeral(true));
         } else {
-            event.replyEmbeds(embed
-                    .setDescription("You or " + invitedPlayer.getName() + " are already in a game.")
-                    .setColor(Color.RED).build()).setEphemeral(true).queue();
+            recordChange(GameManagerEvent.ADD_INVITE, 0, 0);
+            if (eventBus.hasSubscribers()) {
+                eventBus.publish(new DomainEvent.InviteSent(invitingPlayer.getIdLong(), invitedPlayer.getIdLong(),
+                        event.getGuild().getIdLong(), Scheduler.get().currentTimeMillis()));
+            }
+            RestQueue.ack(event.replyEmbeds(GameEmbedRenderer.invite(invitingPlayer, invitedPlayer)));
         }
+        InteractionTracer.span("GameManager.invitePlayer", start);
     }
 
     public Map<User, Game> getGames() {
         return games;
     }
 
+    /**
+     * Removes a finished game and appends its move history to the game archive.
+     *
+     * @param invitingPlayer the user who initiated the game
+     * @param invitedPlayer  the user who was invited to join the game
+     */
     public void removeGame(User invitingPlayer, User invitedPlayer) {
-        this.getGames().remove(invitingPlayer);
-        this.getGames().remove(invitedPlayer);
+        Game game = this.getGames().get(invitingPlayer);
+        if (game != null) {
+            gamesByID.remove(game.getGameID());
+            getGameArchive(game.getGuildID()).append(game.getRecord());
+            this.getGames().remove(invitingPlayer, game);
+            this.getGames().remove(invitedPlayer, game);
+            recordChange(GameManagerEvent.REMOVE_GAME, game.getGameID(), 1);
+        }
+    }
+
+    /**
+     * Cancels every pending invite sent by a player.
+     *
+     * @param invitingPlayer the user who sent the invites
+     * @return the canceled invites
+     */
+    public List<GameInvite> cancelInvites(User invitingPlayer) {
+        return pendingInvites.cancelAll(invitingPlayer);
+    }
+
+    /**
+     * Hands over every game and invite in a guild that is no longer served by this process's shards, by
+     * checkpointing them for the process that now owns the guild, then flushes and closes the guild's stores so that
+     * the new owner can open them.
+     *
+     * @param assignment the shards this process now owns
+     */
+    public void retainGuilds(ShardAssignment assignment) {
+        ownedGuilds = assignment::owns;
+        checkpointGuilds(guildID -> !assignment.owns(guildID));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getHandoffWindowSeconds());
+        Iterator<Map.Entry<Long, GameStores>> entries = guildStores.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, GameStores> entry = entries.next();
+            if (!assignment.owns(entry.getKey())) {
+                entries.remove();
+                if (!entry.getValue().close(deadline)) {
+                    Logger.warning("Game data of guild " + entry.getKey() + " was not fully flushed before the handover");
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the stores of a guild this process has started serving, so that its first command does not wait for
+     * them. Does nothing if every guild shares the same stores.
+     *
+     * @param guildID the guild ID
+     */
+    public void openGuildData(long guildID) {
+        try {
+            getStores(guildID);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            Logger.warning(e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the games and invites of the matching guilds to disk and removes them from this process.
+     *
+     * @param guilds selects the guilds to checkpoint
+     * @return the number of games checkpointed
+     */
+    public int checkpointGuilds(LongPredicate guilds) {
+        if (!hibernated.isEmpty()) {
+            for (long gameID : hibernated.inGuilds(guilds)) {
+                rehydrate(gameID);
+            }
+        }
+        Map<Long, List<Game>> gamesByGuild = new HashMap<>();
+        Map<Long, List<GameInvite>> invitesByGuild = new HashMap<>();
+
+        for (Game game : new HashSet<>(games.values())) {
+            if (guilds.test(game.getGuildID())) {
+                game.abandon();
+                games.remove(game.getInvitingPlayer(), game);
+                games.remove(game.getInvitedPlayer(), game);
+                gamesByID.remove(game.getGameID(), game);
+                gamesByGuild.computeIfAbsent(game.getGuildID(), k -> new ArrayList<>()).add(game);
+            }
+        }
+        for (GameInvite invite : pendingInvites.removeIf(invite -> guilds.test(invite.getGuildID()))) {
+            invitesByGuild.computeIfAbsent(invite.getGuildID(), k -> new ArrayList<>()).add(invite);
+        }
+
+        Set<Long> guildIDs = new HashSet<>(gamesByGuild.keySet());
+        guildIDs.addAll(invitesByGuild.keySet());
+        int saved = 0;
+        for (long guildID : guildIDs) {
+            List<Game> guildGames = gamesByGuild.getOrDefault(guildID, List.of());
+            try {
+                GameCheckpoint.write(getStateDirectory(), guildID, guildGames, invitesByGuild.getOrDefault(guildID, List.of()));
+                saved += guildGames.size();
+            } catch (IOException e) {
+                Logger.warning("Failed to checkpoint guild " + guildID + ": " + e.getMessage());
+            }
+        }
+        if (!guildIDs.isEmpty()) {
+            Logger.info("Checkpointed " + saved + " games in " + guildIDs.size() + " guilds");
+            recordChange(GameManagerEvent.CHECKPOINT, 0, saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Restores the games and invites checkpointed for a guild by a previous process, if there are any.
+     * The players are looked up asynchronously; the guild's games are registered once they have all been found.
+     *
+     * @param guild the guild that has become ready
+     * @return a future completed once the guild's state is loaded, whether or not anything was restored
+     */
+    public CompletableFuture<Void> restoreGuild(Guild guild) {
+        JSONObject checkpoint;
+        try {
+            checkpoint = GameCheckpoint.take(getStateDirectory(), guild.getIdLong());
+        } catch (IOException | JSONException e) {
+            Logger.warning("Failed to read checkpoint of guild " + guild.getId() + ": " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        if (checkpoint == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        JSONArray savedGames = checkpoint.getJSONArray("games");
+        JSONArray savedInvites = checkpoint.getJSONArray("invites");
+        Set<Long> userIDs = new HashSet<>();
+        for (int i = 0; i < savedGames.length(); i++) {
+            userIDs.add(savedGames.getJSONObject(i).getLong("inviting"));
+            userIDs.add(savedGames.getJSONObject(i).getLong("invited"));
+        }
+        for (int i = 0; i < savedInvites.length(); i++) {
+            userIDs.add(savedInvites.getJSONObject(i).getLong("inviting"));
+            userIDs.add(savedInvites.getJSONObject(i).getLong("invited"));
+        }
+        if (userIDs.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<RestAction<User>> lookups = new ArrayList<>();
+        for (long userID : userIDs) {
+            lookups.add(guild.getJDA().retrieveUserById(userID));
+        }
+        CompletableFuture<Void> restored = new CompletableFuture<>();
+        RestAction.allOf(lookups).queue(users -> {
+            Map<Long, User> byID = new HashMap<>();
+            for (User user : users) {
+                byID.put(user.getIdLong(), user);
+            }
+            restoreGames(guild.getIdLong(), savedGames, byID);
+            restoreInvites(guild.getIdLong(), savedInvites, byID);
+            restored.complete(null);
+        }, failure -> {
+            Logger.warning("Failed to restore guild " + guild.getId() + ": " + failure.getMessage());
+            restored.complete(null);
+        });
+        return restored;
+    }
+
+    /**
+     * Restores the checkpoints waiting for guilds this process serves. A guild's previous owner may write its
+     * checkpoint after the guild became ready here, so the state directory is scanned again after the shards change
+     * hands, rather than only when a guild becomes ready.
+     *
+     * @param guilds finds a ready guild this process serves by ID, or returns null for any other guild
+     * @return the number of checkpoints found
+     */
+    public int restorePendingGuilds(LongFunction<Guild> guilds) {
+        List<Long> pending;
+        try {
+            pending = GameCheckpoint.pending(getStateDirectory());
+        } catch (IOException e) {
+            Logger.warning("Failed to scan for checkpoints: " + e.getMessage());
+            return 0;
+        }
+        int found = 0;
+        for (long guildID : pending) {
+            Guild guild = guilds.apply(guildID);
+            if (guild != null) {
+                restoreGuild(guild);
+                found++;
+            }
+        }
+        return found;
     }
 
-    public void cancelInvite(User invitingPlayer) {
-        pendingInvites.remove(invitingPlayer);
+    private void restoreGames(long guildID, JSONArray savedGames, Map<Long, User> users) {
+        int restored = 0;
+        for (int i = 0; i < savedGames.length(); i++) {
+            JSONObject saved = savedGames.getJSONObject(i);
+            User invitingPlayer = users.get(saved.getLong("inviting"));
+            User invitedPlayer = users.get(saved.getLong("invited"));
+            if (isInGame(invitingPlayer) || isInGame(invitedPlayer)) {
+                continue;
+            }
+
+            GameRecord record;
+            try {
+                record = GameRecord.fromBytes(Base64.getDecoder().decode(saved.getString("record")));
+            } catch (IOException | IllegalArgumentException e) {
+                Logger.warning("Skipping unreadable game in checkpoint of guild " + guildID + ": " + e.getMessage());
+                continue;
+            }
+            if (sharedStores != null) {
+                sharedStores.getArchive().reserveGameID(record.getGameID());
+            }
+
+            User whosTurn = users.get(saved.getLong("turn"));
+            String embedID = saved.getString("embed");
+            long defaultMillis = settings.getDefaultTimeLimit() * 1000L;
+            JSONArray savedClock = saved.optJSONArray("clock");
+            long[] clockMillis = savedClock == null ? new long[]{defaultMillis, defaultMillis}
+                    : new long[]{savedClock.getLong(0), savedClock.getLong(1)};
+            register(new Game(invitingPlayer, invitedPlayer, whosTurn, saved.optInt("state", rules.getInitialState()),
+                    guildID, embedID.isEmpty() ? null : embedID, saved.getLong("start"), record, clockMillis, this));
+            restored++;
+        }
+        if (restored > 0) {
+            Logger.info("Restored " + restored + " games in guild " + guildID);
+            recordChange(GameManagerEvent.RESTORE, 0, restored);
+        }
+    }
+
+    private void restoreInvites(long guildID, JSONArray savedInvites, Map<Long, User> users) {
+        for (int i = 0; i < savedInvites.length(); i++) {
+            JSONObject saved = savedInvites.getJSONObject(i);
+            pendingInvites.add(new GameInvite(users.get(saved.getLong("inviting")), users.get(saved.getLong("invited")),
+                    guildID, saved.getLong("created")));
+        }
     }
 
-    public String getInvitee(User invitingPlayer) {
-        return pendingInvites.get(invitingPlayer).getInvitedPlayer().getAsMention();
+    private Path getStateDirectory() {
+        return Paths.get(settings.getStateDirectory());
     }
 }
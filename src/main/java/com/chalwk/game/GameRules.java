@@ -0,0 +1,78 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+/**
+ * The rules of the game being played. A game's state and its moves are encoded as ints, so that the state can be
+ * stored, checkpointed and searched without allocating. The player who makes the final move of a game wins it.
+ * <p>
+ * Replace {@link NimRules} with an implementation of your own game.
+ */
+public interface GameRules {
+
+    /**
+     * Gets the state every game starts in.
+     *
+     * @return the initial state
+     */
+    int getInitialState();
+
+    /**
+     * Gets the largest number of moves that can be legal in any state.
+     *
+     * @return the maximum number of legal moves
+     */
+    int getMaxMoves();
+
+    /**
+     * Fills an array with the moves that are legal in a state.
+     *
+     * @param state the state
+     * @param moves the array to fill, at least {@link #getMaxMoves()} long
+     * @return the number of legal moves written
+     */
+    int getLegalMoves(int state, int[] moves);
+
+    /**
+     * Checks if a move is legal in a state.
+     *
+     * @param state the state
+     * @param move  the move
+     * @return true if the move is legal, false otherwise
+     */
+    boolean isLegal(int state, int move);
+
+    /**
+     * Plays a legal move.
+     *
+     * @param state the state before the move
+     * @param move  the move
+     * @return the state after the move
+     */
+    int play(int state, int move);
+
+    /**
+     * Checks if a game in a state is over.
+     *
+     * @param state the state
+     * @return true if no further moves can be played, false otherwise
+     */
+    boolean isOver(int state);
+
+    /**
+     * Describes a state for the game embed.
+     *
+     * @param state the state
+     * @return the description of the state
+     */
+    String describe(int state);
+
+    /**
+     * Gets the label of a move's button.
+     *
+     * @param move the move
+     * @return the button label
+     */
+    String getMoveLabel(int move);
+}
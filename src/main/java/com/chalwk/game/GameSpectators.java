@@ -0,0 +1,99 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.RestQueue;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.chalwk.bot.BotInitializer.getShardManager;
+
+/**
+ * The spectator messages following a game. Every state change is rendered once by the game and the same embed is
+ * fanned out to each spectator message in the spectator lane of the {@link RestQueue}, below the players' own
+ * updates. A spectator message that falls behind only ever gets the latest embed, since a waiting edit is replaced
+ * by the next one; a spectator message that can no longer be edited is dropped.
+ */
+public class GameSpectators {
+
+    private final Map<String, Long> targets = new ConcurrentHashMap<>();
+    private final int maxTargets;
+
+    /**
+     * Creates an empty set of spectator messages.
+     *
+     * @param maxTargets the most spectator messages a game can have
+     */
+    public GameSpectators(int maxTargets) {
+        this.maxTargets = maxTargets;
+    }
+
+    /**
+     * Adds a spectator message.
+     *
+     * @param channelID the ID of the channel of the message
+     * @param messageID the ID of the message
+     * @return true if the message was added, false if the game already has the most spectators allowed
+     */
+    public boolean add(long channelID, String messageID) {
+        if (targets.size() >= maxTargets) {
+            return false;
+        }
+        targets.put(messageID, channelID);
+        return true;
+    }
+
+    /**
+     * Checks if the game has no room for another spectator message.
+     *
+     * @return true if the game is full, false otherwise
+     */
+    public boolean isFull() {
+        return targets.size() >= maxTargets;
+    }
+
+    /**
+     * Gets the number of spectator messages.
+     *
+     * @return the number of spectator messages
+     */
+    public int size() {
+        return targets.size();
+    }
+
+    /**
+     * Shows an embed on every spectator message.
+     *
+     * @param embed the rendered game embed
+     */
+    public void publish(MessageEmbed embed) {
+        for (Map.Entry<String, Long> target : targets.entrySet()) {
+            String messageID = target.getKey();
+            long channelID = target.getValue();
+            GuildMessageChannel channel = getShardManager().getChannelById(GuildMessageChannel.class, channelID);
+            if (channel == null) {
+                targets.remove(messageID);
+                continue;
+            }
+            RestQueue.edit(RestQueue.Lane.SPECTATOR, channelID, messageID, channel.editMessageEmbedsById(messageID, embed)
+                    .setComponents()
+                    .onErrorMap(failure -> {
+                        targets.remove(messageID);
+                        Logger.info("Dropped spectator message " + messageID + ": " + failure.getMessage());
+                        return null;
+                    }));
+        }
+    }
+
+    /**
+     * Stops following the game on every spectator message.
+     */
+    public void clear() {
+        targets.clear();
+    }
+}
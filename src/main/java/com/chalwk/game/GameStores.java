@@ -0,0 +1,107 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.history.GameArchive;
+import com.chalwk.profile.ProfileStore;
+import com.chalwk.rating.RatingManager;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.settings;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The game archive, player profiles and ratings kept together in one directory: those of every guild when a single
+ * process serves all guilds, or those of one guild in a cluster, where a guild's data has to move from node to node
+ * with the guild.
+ * <p>
+ * The directory is locked for as long as the stores are open. A node taking a guild over waits for the lock, so it
+ * only reads the guild's data once the node handing the guild over has flushed and closed it.
+ */
+final class GameStores {
+
+    private static final String LOCK_FILE = "owner.lock";
+
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final GameArchive archive;
+    private final ProfileStore profiles;
+    private final RatingManager ratings;
+
+    /**
+     * Locks a directory, waiting for another process to release it if needed, and opens the stores in it.
+     *
+     * @param directory the directory of the stores
+     * @throws IOException if the directory cannot be locked or a store cannot be opened
+     */
+    GameStores(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock held = lockChannel.tryLock();
+            if (held == null) {
+                Logger.info("Waiting for another process to release " + directory);
+                held = lockChannel.lock();
+            }
+            lock = held;
+            archive = new GameArchive(directory, settings.getArchiveSegmentBytes(), settings.getArchiveIndexInterval());
+            profiles = new ProfileStore(directory.resolve(settings.getProfileDirectory()),
+                    settings.getProfileCacheSize(), settings.getProfileMaxPending(), settings.getProfileFlushIntervalMillis());
+            ratings = new RatingManager(profiles);
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    GameArchive getArchive() {
+        return archive;
+    }
+
+    ProfileStore getProfiles() {
+        return profiles;
+    }
+
+    RatingManager getRatings() {
+        return ratings;
+    }
+
+    /**
+     * Waits until every game and profile update recorded so far has been written to disk.
+     *
+     * @param deadlineNanos the {@link System#nanoTime()} by which to give up
+     * @return true if both stores were flushed, false otherwise
+     */
+    boolean awaitFlush(long deadlineNanos) {
+        boolean archived = archive.awaitFlush(remainingMillis(deadlineNanos));
+        return profiles.awaitFlush(remainingMillis(deadlineNanos)) && archived;
+    }
+
+    /**
+     * Flushes and closes the stores, then releases the directory for the next owner.
+     *
+     * @param deadlineNanos the {@link System#nanoTime()} by which to give up flushing
+     * @return true if both stores were flushed, false otherwise
+     */
+    boolean close(long deadlineNanos) {
+        boolean archived = archive.close(remainingMillis(deadlineNanos));
+        boolean flushed = profiles.close(remainingMillis(deadlineNanos)) && archived;
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            Logger.warning("Failed to release the lock on the game stores: " + e.getMessage());
+        }
+        return flushed;
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(0, (deadlineNanos - System.nanoTime()) / 1_000_000);
+    }
+}
@@ -0,0 +1,384 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.util.Logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Holds the games that were hibernated because nobody had moved in them for a while. Each game's state is appended
+ * to a file, and only a stub stays in memory: its game ID, guild, players, clock deadline and position in the file,
+ * in primitive arrays indexed by game ID and by player ID.
+ * <p>
+ * The file only lives as long as the process: hibernated games are handed over or lost with the process, like the
+ * games in memory, so it is never synced and is emptied when the store is opened. Records of rehydrated games are
+ * dead space; the file is truncated once no game is hibernated, and compacted once it is mostly dead space.
+ * Thread-safe.
+ */
+final class HibernationStore {
+
+    private static final String FILE = "hibernated.dat";
+    private static final String COMPACT_FILE = "hibernated.dat.tmp";
+    private static final long MIN_BYTES_TO_COMPACT = 1 << 20;
+
+    private final Path directory;
+    private FileChannel channel;
+    private long length;
+    private long liveBytes;
+
+    // the stubs, packed at the front of the arrays; a removed stub is replaced by the last one
+    private long[] gameIDs = new long[16];
+    private long[] guildIDs = new long[16];
+    private long[] firstPlayers = new long[16];
+    private long[] secondPlayers = new long[16];
+    private long[] deadlines = new long[16];
+    private long[] offsets = new long[16];
+    private int[] lengths = new int[16];
+    private volatile int size;
+    private final LongIndex byGame = new LongIndex();
+    private final LongIndex byPlayer = new LongIndex();
+
+    private long hibernations;
+    private long rehydrations;
+    private long rehydrateNanos;
+
+    /**
+     * Opens the store in a directory, creating it if needed and discarding what a previous process left in it.
+     *
+     * @param directory the hibernation directory
+     * @throws IOException if the file cannot be opened
+     */
+    HibernationStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        channel = FileChannel.open(directory.resolve(FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (channel.size() > 0) {
+            Logger.warning(String.format("Discarding %,d bytes of games hibernated by a previous process", channel.size()));
+            channel.truncate(0);
+        }
+    }
+
+    /**
+     * Checks, without locking, if no game is hibernated, so that lookups of games in memory need not wait.
+     *
+     * @return true if no game is hibernated
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Hibernates a game.
+     *
+     * @param gameID        the game ID
+     * @param guildID       the ID of the guild the game is played in
+     * @param firstPlayer   the ID of the first player, or 0 if it is not to be indexed
+     * @param secondPlayer  the ID of the second player, or 0 if it is not to be indexed, e.g. the bot
+     * @param deadlineNanos the monotonic time the player to move runs out of time, in nanoseconds
+     * @param state         the encoded game, from its position to its limit
+     * @throws IOException if the game cannot be written
+     */
+    synchronized void put(long gameID, long guildID, long firstPlayer, long secondPlayer, long deadlineNanos,
+                          ByteBuffer state) throws IOException {
+        int recordLength = state.remaining();
+        long offset = length;
+        while (state.hasRemaining()) {
+            channel.write(state, offset + recordLength - state.remaining());
+        }
+        length += recordLength;
+        liveBytes += recordLength;
+
+        int i = size;
+        if (i == gameIDs.length) {
+            grow();
+        }
+        gameIDs[i] = gameID;
+        guildIDs[i] = guildID;
+        firstPlayers[i] = firstPlayer;
+        secondPlayers[i] = secondPlayer;
+        deadlines[i] = deadlineNanos;
+        offsets[i] = offset;
+        lengths[i] = recordLength;
+        byGame.put(gameID, i);
+        if (firstPlayer != 0) byPlayer.put(firstPlayer, i);
+        if (secondPlayer != 0) byPlayer.put(secondPlayer, i);
+        size = i + 1;
+        hibernations++;
+    }
+
+    /**
+     * Checks if a game is hibernated.
+     *
+     * @param gameID the game ID
+     * @return true if the game is hibernated
+     */
+    synchronized boolean contains(long gameID) {
+        return byGame.get(gameID) >= 0;
+    }
+
+    /**
+     * Checks if a player is in a hibernated game.
+     *
+     * @param playerID the player's user ID
+     * @return true if the player is in a hibernated game
+     */
+    synchronized boolean hasPlayer(long playerID) {
+        return byPlayer.get(playerID) >= 0;
+    }
+
+    /**
+     * Gets the hibernated game of a player.
+     *
+     * @param playerID the player's user ID
+     * @return the game ID, or 0 if the player is not in a hibernated game
+     */
+    synchronized long gameOf(long playerID) {
+        int i = byPlayer.get(playerID);
+        return i < 0 ? 0 : gameIDs[i];
+    }
+
+    /**
+     * Gets the moment the player to move in a hibernated game runs out of time.
+     *
+     * @param gameID the game ID
+     * @return the monotonic deadline, in nanoseconds
+     */
+    synchronized long getDeadline(long gameID) {
+        return deadlines[byGame.get(gameID)];
+    }
+
+    /**
+     * Reads the encoded state of a hibernated game.
+     *
+     * @param gameID the game ID
+     * @return the encoded game, as it was put
+     * @throws IOException if the game cannot be read
+     */
+    synchronized ByteBuffer read(long gameID) throws IOException {
+        int i = byGame.get(gameID);
+        ByteBuffer state = ByteBuffer.allocate(lengths[i]);
+        while (state.hasRemaining()) {
+            if (channel.read(state, offsets[i] + state.position()) < 0) {
+                throw new IOException("Hibernated game " + gameID + " is cut off");
+            }
+        }
+        return state.flip();
+    }
+
+    /**
+     * Removes a hibernated game once it has been rehydrated, or could not be.
+     *
+     * @param gameID        the game ID
+     * @param rehydrateTime how long the rehydration took, in nanoseconds
+     */
+    synchronized void remove(long gameID, long rehydrateTime) {
+        int i = byGame.get(gameID);
+        if (i < 0) {
+            return;
+        }
+        byGame.remove(gameID);
+        if (firstPlayers[i] != 0) byPlayer.remove(firstPlayers[i]);
+        if (secondPlayers[i] != 0) byPlayer.remove(secondPlayers[i]);
+        liveBytes -= lengths[i];
+        int last = size - 1;
+        if (i != last) {
+            move(last, i);
+        }
+        size = last;
+        rehydrations++;
+        rehydrateNanos += rehydrateTime;
+
+        try {
+            if (last == 0) {
+                channel.truncate(0);
+                length = 0;
+            } else if (length >= MIN_BYTES_TO_COMPACT && length > 2 * liveBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            Logger.warning("Failed to reclaim space in the hibernation store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the hibernated games whose player to move runs out of time before a given moment.
+     *
+     * @param nanos the monotonic time, in nanoseconds
+     * @return the game IDs
+     */
+    synchronized long[] due(long nanos) {
+        long[] due = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (deadlines[i] - nanos < 0) due[count++] = gameIDs[i];
+        }
+        return Arrays.copyOf(due, count);
+    }
+
+    /**
+     * Gets the hibernated games in the matching guilds.
+     *
+     * @param guilds selects the guilds
+     * @return the game IDs
+     */
+    synchronized long[] inGuilds(LongPredicate guilds) {
+        long[] matching = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (guilds.test(guildIDs[i])) matching[count++] = gameIDs[i];
+        }
+        return Arrays.copyOf(matching, count);
+    }
+
+    /**
+     * Describes the hibernated games, the memory their stubs take and the rehydrations so far.
+     *
+     * @return the metrics, one line
+     */
+    synchronized String getMetrics() {
+        long stubBytes = gameIDs.length * (6L * Long.BYTES + Integer.BYTES) + byGame.bytes() + byPlayer.bytes();
+        return String.format("%,d games hibernated in %,d bytes on disk, %,d bytes of stubs in memory (%,d per game); "
+                        + "%,d hibernations, %,d rehydrations averaging %.1f us",
+                size, length, stubBytes, size == 0 ? 0 : stubBytes / size, hibernations, rehydrations,
+                rehydrations == 0 ? 0 : rehydrateNanos / 1e3 / rehydrations);
+    }
+
+    /**
+     * Moves a stub to another place in the arrays, pointing its indexes at the new place.
+     */
+    private void move(int from, int to) {
+        gameIDs[to] = gameIDs[from];
+        guildIDs[to] = guildIDs[from];
+        firstPlayers[to] = firstPlayers[from];
+        secondPlayers[to] = secondPlayers[from];
+        deadlines[to] = deadlines[from];
+        offsets[to] = offsets[from];
+        lengths[to] = lengths[from];
+        byGame.put(gameIDs[to], to);
+        if (firstPlayers[to] != 0) byPlayer.put(firstPlayers[to], to);
+        if (secondPlayers[to] != 0) byPlayer.put(secondPlayers[to], to);
+    }
+
+    private void grow() {
+        int capacity = gameIDs.length * 2;
+        gameIDs = Arrays.copyOf(gameIDs, capacity);
+        guildIDs = Arrays.copyOf(guildIDs, capacity);
+        firstPlayers = Arrays.copyOf(firstPlayers, capacity);
+        secondPlayers = Arrays.copyOf(secondPlayers, capacity);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    /**
+     * Rewrites the file with only the records of hibernated games, then swaps it in.
+     */
+    private void compact() throws IOException {
+        Path compacted = directory.resolve(COMPACT_FILE);
+        long position = 0;
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < size; i++) {
+                long copied = 0;
+                while (copied < lengths[i]) {
+                    copied += channel.transferTo(offsets[i] + copied, lengths[i] - copied, out);
+                }
+                offsets[i] = position;
+                position += lengths[i];
+            }
+        }
+        channel.close();
+        Files.move(compacted, directory.resolve(FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(directory.resolve(FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        length = position;
+    }
+
+    /**
+     * Maps IDs to places in the stub arrays, with open addressing in two primitive arrays kept at most half full.
+     * Removal shifts the following entries back, so lookups never need tombstones.
+     */
+    private static final class LongIndex {
+
+        private static final long EMPTY = 0; // snowflakes are never 0
+
+        private long[] keys = new long[32];
+        private int[] values = new int[32];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+                if (keys[slot] == EMPTY) return -1;
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != key) {
+                if (keys[slot] == EMPTY) return;
+                slot = (slot + 1) & mask;
+            }
+            size--;
+            // shift back every following entry that the gap would otherwise hide from its lookups
+            for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                int home = slot(keys[next], mask);
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    slot = next;
+                }
+            }
+            keys[slot] = EMPTY;
+        }
+
+        long bytes() {
+            return (long) keys.length * (Long.BYTES + Integer.BYTES);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
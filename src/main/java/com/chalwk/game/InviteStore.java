@@ -0,0 +1,243 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.util.Scheduler;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Stores pending game invites, indexed both by the inviting player and by the invited player.
+ * Every invite expires automatically after a fixed time, and each player may only have a limited number
+ * of outgoing invites at once.
+ */
+public class InviteStore {
+
+    /**
+     * Outgoing invites, keyed by the inviting player's ID and then by the invited player's ID.
+     */
+    private final Map<Long, Map<Long, GameInvite>> byInviter = new HashMap<>();
+
+    /**
+     * Incoming invites, keyed by the invited player's ID and then by the inviting player's ID, oldest first.
+     */
+    private final Map<Long, Map<Long, GameInvite>> byInvitee = new HashMap<>();
+
+    private final int maxInvitesPerPlayer;
+    private final long expirySeconds;
+
+    /**
+     * Creates an invite store.
+     *
+     * @param maxInvitesPerPlayer the maximum number of outgoing invites a player can have at once
+     * @param expirySeconds       the number of seconds after which an invite expires
+     */
+    public InviteStore(int maxInvitesPerPlayer, long expirySeconds) {
+        this.maxInvitesPerPlayer = maxInvitesPerPlayer;
+        this.expirySeconds = expirySeconds;
+    }
+
+    /**
+     * Adds an invite to the store. An existing invite between the same two players is replaced.
+     *
+     * @param invite the invite to add
+     * @return true if the invite was added, false if the inviting player has too many pending invites
+     */
+    public synchronized boolean add(GameInvite invite) {
+        long inviterID = invite.getInvitingPlayer().getIdLong();
+        long inviteeID = invite.getInvitedPlayer().getIdLong();
+
+        Map<Long, GameInvite> outgoing = byInviter.get(inviterID);
+        if (outgoing != null && !outgoing.containsKey(inviteeID) && outgoing.size() >= maxInvitesPerPlayer) {
+            return false;
+        }
+
+        GameInvite previous = outgoing != null ? outgoing.get(inviteeID) : null;
+        if (previous != null) {
+            unlink(previous);
+        }
+
+        byInviter.computeIfAbsent(inviterID, k -> new HashMap<>()).put(inviteeID, invite);
+        byInvitee.computeIfAbsent(inviteeID, k -> new LinkedHashMap<>()).put(inviterID, invite);
+        Scheduler scheduler = Scheduler.get();
+        long remainingMillis = TimeUnit.SECONDS.toMillis(expirySeconds) - (scheduler.currentTimeMillis() - invite.getCreatedMillis());
+        invite.setExpiryTask(scheduler.schedule(() -> expire(invite), Math.max(0, remainingMillis), TimeUnit.MILLISECONDS));
+        return true;
+    }
+
+    /**
+     * Gets the oldest pending invite sent to a player without removing it.
+     *
+     * @param invitedPlayer the invited player
+     * @return the oldest pending invite, or null if there is none
+     */
+    public synchronized GameInvite peek(User invitedPlayer) {
+        return peek(invitedPlayer, null);
+    }
+
+    /**
+     * Gets the pending invite a player sent to another player without removing it.
+     *
+     * @param invitedPlayer  the invited player
+     * @param invitingPlayer the inviting player, or null for the oldest invite from anyone
+     * @return the pending invite, or null if there is none
+     */
+    public synchronized GameInvite peek(User invitedPlayer, User invitingPlayer) {
+        Map<Long, GameInvite> incoming = byInvitee.get(invitedPlayer.getIdLong());
+        if (incoming == null) {
+            return null;
+        }
+        return invitingPlayer == null ? incoming.values().iterator().next() : incoming.get(invitingPlayer.getIdLong());
+    }
+
+    /**
+     * Removes and returns the oldest pending invite sent to a player.
+     *
+     * @param invitedPlayer the invited player
+     * @return the removed invite, or null if there is none
+     */
+    public synchronized GameInvite take(User invitedPlayer) {
+        return take(invitedPlayer, null);
+    }
+
+    /**
+     * Removes and returns the pending invite a player sent to another player.
+     *
+     * @param invitedPlayer  the invited player
+     * @param invitingPlayer the inviting player, or null for the oldest invite from anyone
+     * @return the removed invite, or null if there is none
+     */
+    public synchronized GameInvite take(User invitedPlayer, User invitingPlayer) {
+        GameInvite invite = peek(invitedPlayer, invitingPlayer);
+        if (invite != null) {
+            unlink(invite);
+        }
+        return invite;
+    }
+
+    /**
+     * Removes an invite if it is still pending, i.e. it has not been taken, canceled, replaced or expired.
+     *
+     * @param invite the invite
+     * @return true if the invite was removed, false if it was no longer pending
+     */
+    public synchronized boolean remove(GameInvite invite) {
+        Map<Long, GameInvite> outgoing = byInviter.get(invite.getInvitingPlayer().getIdLong());
+        if (outgoing == null || outgoing.get(invite.getInvitedPlayer().getIdLong()) != invite) {
+            return false;
+        }
+        unlink(invite);
+        return true;
+    }
+
+    /**
+     * Removes every invite sent by a player.
+     *
+     * @param invitingPlayer the inviting player
+     * @return the removed invites
+     */
+    public synchronized List<GameInvite> cancelAll(User invitingPlayer) {
+        Map<Long, GameInvite> outgoing = byInviter.get(invitingPlayer.getIdLong());
+        if (outgoing == null) {
+            return Collections.emptyList();
+        }
+        List<GameInvite> canceled = new ArrayList<>(outgoing.values());
+        for (GameInvite invite : canceled) {
+            unlink(invite);
+        }
+        return canceled;
+    }
+
+    /**
+     * Removes every invite sent to or by a player, e.g. once they have started a game.
+     *
+     * @param player the player
+     */
+    public synchronized void removeAll(User player) {
+        cancelAll(player);
+        Map<Long, GameInvite> incoming = byInvitee.get(player.getIdLong());
+        if (incoming != null) {
+            for (GameInvite invite : new ArrayList<>(incoming.values())) {
+                unlink(invite);
+            }
+        }
+    }
+
+    /**
+     * Removes every invite that matches a condition.
+     *
+     * @param condition the condition for removing an invite
+     * @return the removed invites
+     */
+    public synchronized List<GameInvite> removeIf(Predicate<GameInvite> condition) {
+        List<GameInvite> matching = new ArrayList<>();
+        for (Map<Long, GameInvite> outgoing : byInviter.values()) {
+            for (GameInvite invite : outgoing.values()) {
+                if (condition.test(invite)) {
+                    matching.add(invite);
+                }
+            }
+        }
+        for (GameInvite invite : matching) {
+            unlink(invite);
+        }
+        return matching;
+    }
+
+    /**
+     * Checks if a player has any pending invites.
+     *
+     * @param invitedPlayer the invited player
+     * @return true if the player has at least one pending invite, false otherwise
+     */
+    public synchronized boolean hasInvite(User invitedPlayer) {
+        return byInvitee.containsKey(invitedPlayer.getIdLong());
+    }
+
+    /**
+     * Gets the total number of pending invites.
+     *
+     * @return the number of pending invites
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Map<Long, GameInvite> outgoing : byInviter.values()) {
+            size += outgoing.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes an invite once it has expired, unless it has already been removed or replaced.
+     *
+     * @param invite the expired invite
+     */
+    private void expire(GameInvite invite) {
+        remove(invite);
+    }
+
+    /**
+     * Removes an invite from both indexes and cancels its expiry task. Empty index entries are dropped
+     * so that the store never holds more than the live invites.
+     *
+     * @param invite the invite to remove
+     */
+    private void unlink(GameInvite invite) {
+        long inviterID = invite.getInvitingPlayer().getIdLong();
+        long inviteeID = invite.getInvitedPlayer().getIdLong();
+
+        Map<Long, GameInvite> outgoing = byInviter.get(inviterID);
+        if (outgoing != null && outgoing.remove(inviteeID) != null && outgoing.isEmpty()) {
+            byInviter.remove(inviterID);
+        }
+        Map<Long, GameInvite> incoming = byInvitee.get(inviteeID);
+        if (incoming != null && incoming.remove(inviterID) != null && incoming.isEmpty()) {
+            byInvitee.remove(inviteeID);
+        }
+        invite.cancelExpiryTask();
+    }
+}
@@ -0,0 +1,282 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pairs waiting players by rating. Joining and leaving the queue never block: joins are handed to the pairing
+ * thread through a lock-free inbox, and leaving simply marks the ticket as canceled. The pairing thread runs in
+ * fixed ticks and is the only thread that touches the rating-ordered pool, so the pool needs no locking.
+ * <p>
+ * A player's acceptable rating band starts narrow and widens the longer they wait. Players who have waited the
+ * longest are paired first.
+ */
+public class MatchmakingQueue {
+
+    private static final int WAITING = 0;
+    private static final int MATCHED = 1;
+    private static final int CANCELED = 2;
+
+    /**
+     * Tickets that have joined the queue but have not yet been moved into the pool by the pairing thread.
+     */
+    private final Queue<Ticket> inbox = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Waiting tickets, keyed by player ID.
+     */
+    private final Map<Long, Ticket> tickets = new ConcurrentHashMap<>();
+
+    /**
+     * Waiting tickets ordered by rating (only accessed by the pairing thread).
+     */
+    private final NavigableMap<Long, Ticket> pool = new TreeMap<>();
+
+    /**
+     * Waiting tickets in the order they joined (only accessed by the pairing thread).
+     */
+    private final Deque<Ticket> waitOrder = new ArrayDeque<>();
+
+    private final ToIntFunction<User> ratings;
+    private final BiConsumer<User, User> onMatch;
+    private long sequence;
+
+    /**
+     * Creates a matchmaking queue and starts its pairing ticks on a thread of its own.
+     *
+     * @param ratings provides the rating of a player
+     * @param onMatch called with both players whenever a pair is found
+     */
+    public MatchmakingQueue(ToIntFunction<User> ratings, BiConsumer<User, User> onMatch) {
+        this(ratings, onMatch, newPairingThread());
+    }
+
+    /**
+     * Creates a matchmaking queue and starts its pairing ticks on a given thread, which may tick other queues too.
+     *
+     * @param ratings       provides the rating of a player
+     * @param onMatch       called with both players whenever a pair is found
+     * @param pairingThread the single-threaded executor to run the ticks on
+     */
+    public MatchmakingQueue(ToIntFunction<User> ratings, BiConsumer<User, User> onMatch,
+                            ScheduledExecutorService pairingThread) {
+        this(ratings, onMatch, 0);
+        long tickMillis = settings.getMatchmakingTickMillis();
+        pairingThread.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a matchmaking queue with a given tick.
+     *
+     * @param ratings    provides the rating of a player
+     * @param onMatch    called with both players whenever a pair is found
+     * @param tickMillis the time between pairing ticks, in milliseconds, or 0 to pair only when {@link #tick} is
+     *                   called, e.g. by a benchmark
+     */
+    MatchmakingQueue(ToIntFunction<User> ratings, BiConsumer<User, User> onMatch, long tickMillis) {
+        this.ratings = ratings;
+        this.onMatch = onMatch;
+        if (tickMillis > 0) {
+            newPairingThread().scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Creates the daemon thread that runs pairing ticks.
+     *
+     * @return the single-threaded executor
+     */
+    public static ScheduledExecutorService newPairingThread() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaking");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a player to the queue.
+     *
+     * @param player the player to add
+     * @return true if the player joined the queue, false if they were already waiting
+     */
+    public boolean join(User player) {
+        Ticket ticket = new Ticket(player, ratings.applyAsInt(player));
+        if (tickets.putIfAbsent(player.getIdLong(), ticket) != null) {
+            return false;
+        }
+        inbox.add(ticket);
+        return true;
+    }
+
+    /**
+     * Removes a player from the queue.
+     *
+     * @param player the player to remove
+     * @return true if the player was waiting, false otherwise
+     */
+    public boolean leave(User player) {
+        Ticket ticket = tickets.remove(player.getIdLong());
+        return ticket != null && ticket.state.compareAndSet(WAITING, CANCELED);
+    }
+
+    /**
+     * Checks if a player is waiting in the queue.
+     *
+     * @param player the player to check
+     * @return true if the player is waiting, false otherwise
+     */
+    public boolean isQueued(User player) {
+        return tickets.containsKey(player.getIdLong());
+    }
+
+    /**
+     * Gets the number of players waiting in the queue.
+     *
+     * @return the number of waiting players
+     */
+    public int size() {
+        return tickets.size();
+    }
+
+    /**
+     * Runs one pairing tick: moves new tickets into the pool, then pairs the longest-waiting players with the
+     * closest-rated opponent inside their band.
+     */
+    void tick() {
+        try {
+            long tickStart = System.nanoTime();
+            Ticket joined;
+            while ((joined = inbox.poll()) != null) {
+                joined.key = ((long) joined.rating << 32) | (sequence++ & 0xFFFFFFFFL);
+                pool.put(joined.key, joined);
+                waitOrder.add(joined);
+            }
+
+            List<Ticket> pairs = new ArrayList<>();
+            long totalWaitNanos = 0;
+            int waiting = waitOrder.size();
+            for (int i = 0; i < waiting; i++) {
+                Ticket ticket = waitOrder.poll();
+                if (!ticket.state.compareAndSet(WAITING, MATCHED)) {
+                    pool.remove(ticket.key);
+                    continue;
+                }
+
+                Ticket opponent = findOpponent(ticket, tickStart);
+                if (opponent == null) {
+                    if (release(ticket)) {
+                        waitOrder.add(ticket);
+                    } else {
+                        pool.remove(ticket.key);
+                    }
+                    continue;
+                }
+
+                pool.remove(ticket.key);
+                pool.remove(opponent.key);
+                tickets.remove(ticket.player.getIdLong(), ticket);
+                tickets.remove(opponent.player.getIdLong(), opponent);
+                pairs.add(ticket);
+                pairs.add(opponent);
+                totalWaitNanos += (tickStart - ticket.joinedAt) + (tickStart - opponent.joinedAt);
+            }
+
+            for (int i = 0; i < pairs.size(); i += 2) {
+                onMatch.accept(pairs.get(i).player, pairs.get(i + 1).player);
+            }
+
+            if (!pairs.isEmpty()) {
+                Logger.info(String.format("Matchmaking: paired %d players in %.2f ms (average wait %.1f s, %d still waiting)",
+                        pairs.size(), (System.nanoTime() - tickStart) / 1e6,
+                        totalWaitNanos / 1e9 / pairs.size(), pool.size()));
+            }
+        } catch (RuntimeException e) {
+            Logger.warning("Matchmaking tick failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns a claimed ticket to the waiting state, unless its player left the queue while it was claimed.
+     *
+     * @param ticket the claimed ticket
+     * @return true if the ticket is waiting again, false if it has been canceled
+     */
+    private boolean release(Ticket ticket) {
+        ticket.state.set(WAITING);
+        if (tickets.get(ticket.player.getIdLong()) != ticket) {
+            ticket.state.set(CANCELED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the closest-rated waiting opponent inside a ticket's current rating band. The opponent is also
+     * claimed, so it can no longer leave the queue.
+     *
+     * @param ticket the ticket to find an opponent for
+     * @param now    the current time, in nanoseconds
+     * @return the claimed opponent, or null if there is none inside the band
+     */
+    private Ticket findOpponent(Ticket ticket, long now) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - ticket.joinedAt);
+        long band = Math.min(settings.getMatchmakingMaxBand(),
+                settings.getMatchmakingBaseBand() + waitedSeconds * settings.getMatchmakingBandGrowth());
+
+        while (true) {
+            Map.Entry<Long, Ticket> lower = pool.lowerEntry(ticket.key);
+            Map.Entry<Long, Ticket> higher = pool.higherEntry(ticket.key);
+            Ticket below = lower != null ? lower.getValue() : null;
+            Ticket above = higher != null ? higher.getValue() : null;
+
+            Ticket closest;
+            if (below == null) {
+                closest = above;
+            } else if (above == null) {
+                closest = below;
+            } else {
+                closest = ticket.rating - below.rating <= above.rating - ticket.rating ? below : above;
+            }
+
+            if (closest == null || Math.abs(closest.rating - ticket.rating) > band) {
+                return null;
+            }
+            if (closest.state.compareAndSet(WAITING, MATCHED)) {
+                return closest;
+            }
+            pool.remove(closest.key);
+        }
+    }
+
+    /**
+     * A player waiting in the queue.
+     */
+    private static final class Ticket {
+
+        private final User player;
+        private final int rating;
+        private final long joinedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long key;
+
+        private Ticket(User player, int rating) {
+            this.player = player;
+            this.rating = rating;
+        }
+    }
+}
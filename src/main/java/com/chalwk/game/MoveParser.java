@@ -0,0 +1,148 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import java.util.Locale;
+
+/**
+ * Reads moves from chat messages for message-based games, straight from the message text and without allocating.
+ * <p>
+ * A move message is a move code, e.g. {@code 2}, or the label of a move's button, e.g. {@code take 2}, in any case
+ * and with any spacing between words. The labels are compiled once, into the words of each phrase in lower case
+ * and the set of characters a move can start with, so a message that is plain chatter is usually rejected after
+ * looking at its first character. Thread-safe.
+ */
+public final class MoveParser {
+
+    /**
+     * Returned for a message that is not a move.
+     */
+    public static final int NO_MOVE = Integer.MIN_VALUE;
+
+    private final char[][][] phrases;
+    private final int[] phraseMoves;
+    private final long[] firstChars = new long[2]; // the ASCII characters a move can start with
+    private final boolean nonAsciiFirstChar;
+
+    /**
+     * Compiles the move phrases of a game: the labels of the moves that are legal when a game starts.
+     *
+     * @param rules the game rules
+     */
+    public MoveParser(GameRules rules) {
+        int[] moves = new int[rules.getMaxMoves()];
+        int count = rules.getLegalMoves(rules.getInitialState(), moves);
+        this.phrases = new char[count][][];
+        this.phraseMoves = new int[count];
+        boolean nonAscii = false;
+        for (int i = 0; i < count; i++) {
+            String[] words = rules.getMoveLabel(moves[i]).trim().toLowerCase(Locale.ROOT).split("\\s+");
+            phrases[i] = new char[words.length][];
+            for (int w = 0; w < words.length; w++) {
+                phrases[i][w] = words[w].toCharArray();
+            }
+            phraseMoves[i] = moves[i];
+            char first = phrases[i][0][0];
+            nonAscii |= !markFirstChar(first) | !markFirstChar(Character.toUpperCase(first));
+        }
+        for (char digit = '0'; digit <= '9'; digit++) {
+            markFirstChar(digit);
+        }
+        this.nonAsciiFirstChar = nonAscii;
+    }
+
+    /**
+     * Reads the move a message holds.
+     *
+     * @param text the message text
+     * @return the move code, or {@link #NO_MOVE} if the message is not a move
+     */
+    public int parse(CharSequence text) {
+        int length = text.length();
+        int start = skipSpaces(text, 0, length);
+        if (start == length) {
+            return NO_MOVE;
+        }
+        char first = text.charAt(start);
+        if (first < 128 ? (firstChars[first >>> 6] & (1L << first)) == 0 : !nonAsciiFirstChar) {
+            return NO_MOVE;
+        }
+        if (first >= '0' && first <= '9') {
+            int move = parseNumber(text, start, length);
+            if (move != NO_MOVE) {
+                return move;
+            }
+        }
+        for (int i = 0; i < phrases.length; i++) {
+            if (matches(phrases[i], text, start, length)) {
+                return phraseMoves[i];
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Reads a message that is only a number, e.g. a move code.
+     *
+     * @return the number, or {@link #NO_MOVE} if the message holds anything else or the number is too large
+     */
+    private static int parseNumber(CharSequence text, int start, int length) {
+        long value = 0;
+        int position = start;
+        while (position < length) {
+            char c = text.charAt(position);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return NO_MOVE;
+            }
+            position++;
+        }
+        return skipSpaces(text, position, length) == length ? (int) value : NO_MOVE;
+    }
+
+    /**
+     * Checks if a message is a phrase, word by word, ignoring case and the spacing between words.
+     */
+    private static boolean matches(char[][] phrase, CharSequence text, int start, int length) {
+        int position = start;
+        for (char[] word : phrase) {
+            position = skipSpaces(text, position, length);
+            if (length - position < word.length) {
+                return false;
+            }
+            for (char expected : word) {
+                if (Character.toLowerCase(text.charAt(position++)) != expected) {
+                    return false;
+                }
+            }
+            if (position < length && !Character.isWhitespace(text.charAt(position))) {
+                return false; // the word goes on
+            }
+        }
+        return skipSpaces(text, position, length) == length;
+    }
+
+    private static int skipSpaces(CharSequence text, int position, int length) {
+        while (position < length && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Adds a character to the characters a move can start with.
+     *
+     * @return false if the character is not ASCII, so that it cannot be added
+     */
+    private boolean markFirstChar(char c) {
+        if (c >= 128) {
+            return false;
+        }
+        firstChars[c >>> 6] |= 1L << c;
+        return true;
+    }
+}
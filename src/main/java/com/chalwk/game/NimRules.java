@@ -0,0 +1,69 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+/**
+ * The template game: players take turns removing stones from a single pile, and whoever takes the last stone wins.
+ * The state is the number of stones left; a move is the number of stones taken.
+ */
+public class NimRules implements GameRules {
+
+    private final int pileSize;
+    private final int maxTake;
+
+    /**
+     * Creates the rules for a pile of a given size.
+     *
+     * @param pileSize the number of stones the pile starts with
+     * @param maxTake  the most stones that can be taken in one move
+     */
+    public NimRules(int pileSize, int maxTake) {
+        this.pileSize = pileSize;
+        this.maxTake = maxTake;
+    }
+
+    @Override
+    public int getInitialState() {
+        return pileSize;
+    }
+
+    @Override
+    public int getMaxMoves() {
+        return maxTake;
+    }
+
+    @Override
+    public int getLegalMoves(int state, int[] moves) {
+        int count = Math.min(state, maxTake);
+        for (int i = 0; i < count; i++) {
+            moves[i] = i + 1;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isLegal(int state, int move) {
+        return move >= 1 && move <= maxTake && move <= state;
+    }
+
+    @Override
+    public int play(int state, int move) {
+        return state - move;
+    }
+
+    @Override
+    public boolean isOver(int state) {
+        return state == 0;
+    }
+
+    @Override
+    public String describe(int state) {
+        return "\uD83E\uDEA8".repeat(state) + " (" + state + " left)";
+    }
+
+    @Override
+    public String getMoveLabel(int move) {
+        return "Take " + move;
+    }
+}
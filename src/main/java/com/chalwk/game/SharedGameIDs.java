@@ -0,0 +1,76 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hands out game IDs that are unique across the processes sharing a directory, for a cluster whose guilds each have
+ * their own game archive. The next free ID is kept in a file; each process reserves a block of IDs at a time under a
+ * file lock, so the file is only touched once per block. IDs increase with time within a process, but not across
+ * processes. Thread-safe.
+ */
+final class SharedGameIDs {
+
+    private static final String FILE = "next-game-id";
+    private static final int BLOCK_SIZE = 1024;
+
+    private final Path file;
+    private long next;
+    private long limit;
+
+    /**
+     * Creates the allocator for a directory, creating the directory if needed.
+     *
+     * @param directory the directory shared by the processes
+     * @throws IOException if the directory cannot be created
+     */
+    SharedGameIDs(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(FILE);
+    }
+
+    /**
+     * Hands out the next game ID, reserving a new block first if this process has used up its block.
+     *
+     * @return the game ID
+     * @throws UncheckedIOException if a new block cannot be reserved
+     */
+    synchronized long next() {
+        if (next == limit) {
+            try {
+                reserveBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to reserve game IDs", e);
+            }
+        }
+        return next++;
+    }
+
+    private void reserveBlock() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            channel.lock(); // released when the channel is closed
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // fill the buffer
+            }
+            long start = buffer.hasRemaining() ? 1 : buffer.getLong(0);
+            buffer.clear();
+            buffer.putLong(0, start + BLOCK_SIZE);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+            channel.force(false);
+            next = start;
+            limit = start + BLOCK_SIZE;
+        }
+    }
+}
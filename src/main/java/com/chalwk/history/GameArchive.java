@@ -0,0 +1,540 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.history;
+
+import com.chalwk.util.Logging.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * An append-only archive of finished games, stored as a series of segment files.
+ * <p>
+ * Each record is a varint body length followed by the body written by {@link GameRecord}. Segments are rolled once
+ * they reach a size limit. Nothing but a sparse index is kept in memory: the position of every Nth record of a segment,
+ * each starting a block of records, and a small bloom filter per segment of the players who appear in it. Games are
+ * archived when they end, not in the order of their IDs or start times, so each block also keeps the range of game IDs
+ * and start times it holds. Lookups stream through the blocks whose range covers what they look for.
+ */
+public class GameArchive {
+
+    private static final String SEGMENT_PREFIX = "games-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int BLOOM_BITS = 1 << 16;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final int indexInterval;
+    private final AtomicLong nextGameID = new AtomicLong(1);
+
+    /**
+     * Sparse index blocks, in the order they were archived.
+     */
+    private final List<Block> blocks = new ArrayList<>();
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * The single thread that appends to the archive. Appends are flushed whenever the queue runs dry.
+     */
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "game-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+    private OutputStream out;
+
+    /**
+     * Opens the archive in a directory, creating it if needed, and rebuilds the sparse index from existing segments.
+     *
+     * @param directory       the archive directory
+     * @param maxSegmentBytes the size at which a new segment is started
+     * @param indexInterval   index every Nth record of a segment
+     * @throws IOException if the archive cannot be read
+     */
+    public GameArchive(Path directory, long maxSegmentBytes, int indexInterval) throws IOException {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.indexInterval = indexInterval;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segmentFiles = files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+            for (Path file : segmentFiles) {
+                String name = file.getFileName().toString();
+                int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                loadSegment(number, file);
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(new Segment(0));
+        }
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Reserves the ID for a new game. IDs increase with time and are never reused.
+     *
+     * @return the new game ID
+     */
+    public long nextGameID() {
+        return nextGameID.getAndIncrement();
+    }
+
+    /**
+     * Makes sure a game ID that was handed out before a restart is never handed out again.
+     *
+     * @param gameID the game ID in use
+     */
+    public void reserveGameID(long gameID) {
+        nextGameID.accumulateAndGet(gameID + 1, Math::max);
+    }
+
+    /**
+     * Queues a finished game to be appended to the archive.
+     *
+     * @param record the record of the finished game
+     */
+    public void append(GameRecord record) {
+        writer.execute(() -> {
+            try {
+                write(record);
+                if (writer.getQueue().isEmpty()) {
+                    flush();
+                }
+            } catch (IOException e) {
+                Logger.warning("Failed to archive game " + record.getGameID() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Waits until every game queued so far has been written and flushed to disk.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return true if the archive was flushed, false if it failed or the timeout was reached first
+     */
+    public boolean awaitFlush(long timeoutMillis) {
+        try {
+            writer.submit(() -> {
+                flush();
+                return null;
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes and flushes every game queued so far, then closes the archive. The archive must not be used afterwards.
+     *
+     * @param timeoutMillis the maximum time to wait for queued games, in milliseconds
+     * @return true if every queued game was flushed, false if it failed or the timeout was reached first
+     */
+    public boolean close(long timeoutMillis) {
+        writer.shutdown();
+        boolean flushed;
+        try {
+            flushed = writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flushed = false;
+        }
+        if (!flushed) {
+            writer.shutdownNow();
+            return false;
+        }
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            return true;
+        } catch (IOException e) {
+            Logger.warning("Failed to close the game archive: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens a replay of an archived game.
+     *
+     * @param gameID the ID of the game
+     * @return a reader positioned at the first move, or null if the game is not in the archive
+     * @throws IOException if the archive cannot be read
+     */
+    public ReplayReader openReplay(long gameID) throws IOException {
+        for (Span span : findSpans(block -> gameID >= block.minGameID && gameID <= block.maxGameID)) {
+            CountingInputStream in = open(span.segment(), span.offset());
+            try {
+                while (in.position() < span.end()) {
+                    long length = Varint.read(in);
+                    long bodyStart = in.position();
+                    GameRecord header = GameRecord.readHeader(in);
+                    if (header.getGameID() == gameID) {
+                        return new ReplayReader(header, in);
+                    }
+                    in.skipNBytes(length - (in.position() - bodyStart));
+                }
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            in.close();
+        }
+        return null;
+    }
+
+    /**
+     * Finds the archived games that started in a time range, in the order they were archived. Only the blocks whose
+     * start times overlap the range are read.
+     *
+     * @param fromMillis the earliest start time, in epoch milliseconds
+     * @param toMillis   the latest start time, in epoch milliseconds
+     * @param limit      the maximum number of games to return
+     * @return the headers of the games
+     * @throws IOException if the archive cannot be read
+     */
+    public List<GameRecord> findGamesStartedBetween(long fromMillis, long toMillis, int limit) throws IOException {
+        List<GameRecord> games = new ArrayList<>();
+        for (Span span : findSpans(block -> block.minStartMillis <= toMillis && block.maxStartMillis >= fromMillis)) {
+            try (CountingInputStream in = open(span.segment(), span.offset())) {
+                while (in.position() < span.end() && games.size() < limit) {
+                    long length = Varint.read(in);
+                    long bodyStart = in.position();
+                    GameRecord header = GameRecord.readHeader(in);
+                    if (header.getStartMillis() >= fromMillis && header.getStartMillis() <= toMillis) {
+                        games.add(header);
+                    }
+                    in.skipNBytes(length - (in.position() - bodyStart));
+                }
+            }
+            if (games.size() >= limit) {
+                break;
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Finds the most recent archived games of a player, newest first. Only segments whose bloom filter may contain
+     * the player are read.
+     *
+     * @param playerID the player's user ID
+     * @param limit    the maximum number of games to return
+     * @return the headers of the player's most recent games
+     * @throws IOException if the archive cannot be read
+     */
+    public List<GameRecord> findRecentGames(long playerID, int limit) throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                if (segments.get(i).mightContain(playerID)) {
+                    candidates.add(segments.get(i));
+                }
+            }
+        }
+
+        List<GameRecord> games = new ArrayList<>();
+        for (Segment segment : candidates) {
+            List<GameRecord> inSegment = new ArrayList<>();
+            try (CountingInputStream in = open(segment.number, 0)) {
+                while (in.position() < segment.flushedLength) {
+                    long length = Varint.read(in);
+                    long bodyStart = in.position();
+                    GameRecord header = GameRecord.readHeader(in);
+                    if (header.getFirstPlayerID() == playerID || header.getSecondPlayerID() == playerID) {
+                        inSegment.add(header);
+                    }
+                    in.skipNBytes(length - (in.position() - bodyStart));
+                }
+            }
+            for (int i = inSegment.size() - 1; i >= 0 && games.size() < limit; i--) {
+                games.add(inSegment.get(i));
+            }
+            if (games.size() >= limit) {
+                break;
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Writes one record, rolling over to a new segment if the current one is full.
+     *
+     * @param record the record to write
+     * @throws IOException if the segment cannot be written
+     */
+    private void write(GameRecord record) throws IOException {
+        body.reset();
+        record.writeTo(body);
+
+        Segment segment;
+        synchronized (this) {
+            segment = segments.get(segments.size() - 1);
+        }
+        if (segment.records > 0 && segment.length + body.size() > maxSegmentBytes) {
+            flush();
+            out.close();
+            out = null;
+            segment = new Segment(segment.number + 1);
+            synchronized (this) {
+                segments.add(segment);
+            }
+        }
+        if (out == null) {
+            out = new BufferedOutputStream(new FileOutputStream(segmentPath(segment.number).toFile(), true), 64 * 1024);
+        }
+
+        long offset = segment.length;
+        CountingOutputStream counter = new CountingOutputStream(out);
+        Varint.write(counter, body.size());
+        body.writeTo(counter);
+
+        synchronized (this) {
+            segment.length += counter.count;
+            indexRecord(segment, record, offset, segment.length);
+        }
+    }
+
+    /**
+     * Flushes buffered records and makes them visible to readers.
+     *
+     * @throws IOException if the segment cannot be written
+     */
+    private void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+        synchronized (this) {
+            for (Segment segment : segments) {
+                segment.flushedLength = segment.length;
+            }
+        }
+    }
+
+    /**
+     * Adds a record to the bloom filter of its segment and to the last block of the sparse index, starting a new
+     * block for every Nth record.
+     */
+    private void indexRecord(Segment segment, GameRecord record, long offset, long end) {
+        if (segment.records % indexInterval == 0) {
+            blocks.add(new Block(segment.number, offset));
+        }
+        blocks.get(blocks.size() - 1).add(record, end);
+        segment.records++;
+        segment.add(record.getFirstPlayerID());
+        segment.add(record.getSecondPlayerID());
+        nextGameID.accumulateAndGet(record.getGameID() + 1, Math::max);
+    }
+
+    /**
+     * Scans an existing segment to rebuild its part of the index. A partly written record at the end of the
+     * segment, left behind by a crash, is cut off.
+     */
+    private void loadSegment(int number, Path file) throws IOException {
+        Segment segment = new Segment(number);
+        long fileLength = Files.size(file);
+        try (CountingInputStream in = open(number, 0)) {
+            while (in.position() < fileLength) {
+                long offset = in.position();
+                try {
+                    long length = Varint.read(in);
+                    long bodyStart = in.position();
+                    GameRecord header = GameRecord.readHeader(in);
+                    in.skipNBytes(length - (in.position() - bodyStart));
+                    indexRecord(segment, header, offset, in.position());
+                    segment.length = in.position();
+                } catch (EOFException e) {
+                    Logger.warning("Truncating incomplete record at " + offset + " in " + file);
+                    break;
+                }
+            }
+        }
+        if (segment.length < fileLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(segment.length);
+            }
+        }
+        segment.flushedLength = segment.length;
+        segments.add(segment);
+    }
+
+    /**
+     * Finds the flushed part of every block that matches a condition.
+     *
+     * @param condition the condition for reading a block
+     * @return the parts of the segments to read, in the order they were archived
+     */
+    private synchronized List<Span> findSpans(Predicate<Block> condition) {
+        List<Span> spans = new ArrayList<>();
+        for (Block block : blocks) {
+            if (condition.test(block)) {
+                long end = Math.min(block.end, segments.get(block.segment).flushedLength);
+                if (end > block.offset) {
+                    spans.add(new Span(block.segment, block.offset, end));
+                }
+            }
+        }
+        return spans;
+    }
+
+    private CountingInputStream open(int segment, long offset) throws IOException {
+        InputStream in = new FileInputStream(segmentPath(segment).toFile());
+        in.skipNBytes(offset);
+        return new CountingInputStream(new BufferedInputStream(in, 16 * 1024), offset);
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A part of a segment file to read, from an offset up to the end offset.
+     */
+    private record Span(int segment, long offset, long end) {
+    }
+
+    /**
+     * A block of the sparse index: the records of a segment from an indexed record up to the next one, and the
+     * ranges of the game IDs and start times they hold.
+     */
+    private static final class Block {
+
+        private final int segment;
+        private final long offset;
+        private long end;
+        private long minGameID = Long.MAX_VALUE;
+        private long maxGameID = Long.MIN_VALUE;
+        private long minStartMillis = Long.MAX_VALUE;
+        private long maxStartMillis = Long.MIN_VALUE;
+
+        private Block(int segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+            this.end = offset;
+        }
+
+        private void add(GameRecord record, long recordEnd) {
+            end = recordEnd;
+            minGameID = Math.min(minGameID, record.getGameID());
+            maxGameID = Math.max(maxGameID, record.getGameID());
+            minStartMillis = Math.min(minStartMillis, record.getStartMillis());
+            maxStartMillis = Math.max(maxStartMillis, record.getStartMillis());
+        }
+    }
+
+    /**
+     * Bookkeeping for one segment file.
+     */
+    private static final class Segment {
+
+        private final int number;
+        private final long[] bloom = new long[BLOOM_BITS / 64];
+        private long length;
+        private long flushedLength;
+        private int records;
+
+        private Segment(int number) {
+            this.number = number;
+        }
+
+        private void add(long playerID) {
+            long hash = mix(playerID);
+            int first = (int) (hash & (BLOOM_BITS - 1));
+            int second = (int) ((hash >>> 32) & (BLOOM_BITS - 1));
+            bloom[first >>> 6] |= 1L << first;
+            bloom[second >>> 6] |= 1L << second;
+        }
+
+        private boolean mightContain(long playerID) {
+            long hash = mix(playerID);
+            int first = (int) (hash & (BLOOM_BITS - 1));
+            int second = (int) ((hash >>> 32) & (BLOOM_BITS - 1));
+            return (bloom[first >>> 6] & (1L << first)) != 0 && (bloom[second >>> 6] & (1L << second)) != 0;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    static final class CountingInputStream extends FilterInputStream {
+
+        private long position;
+
+        private CountingInputStream(InputStream in, long position) {
+            super(in);
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            position += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The move history of one game, kept in the same compact encoding that is written to the archive.
+ * <p>
+ * Each move is stored as a varint holding the milliseconds since the previous move (shifted left by one, with the
+ * low bit naming the player who moved), followed by the zigzag varint move code.
+ */
+public class GameRecord {
+
+    /**
+     * The move code for a move that simply passes the turn to the other player.
+     */
+    public static final int PASS = 0;
+
+    public static final byte RESULT_DRAW = 0;
+    public static final byte RESULT_FIRST_PLAYER_WON = 1;
+    public static final byte RESULT_SECOND_PLAYER_WON = 2;
+
+    private final long gameID;
+    private final long startMillis;
+    private final long firstPlayerID;
+    private final long secondPlayerID;
+    private final ByteArrayOutputStream moves = new ByteArrayOutputStream(32);
+    private int moveCount;
+    private long lastMoveMillis;
+    private byte result = RESULT_DRAW;
+
+    /**
+     * Creates an empty record for a game that starts now.
+     *
+     * @param gameID         the ID of the game
+     * @param startMillis    the time the game started, in epoch milliseconds
+     * @param firstPlayerID  the user ID of the player who initiated the game
+     * @param secondPlayerID the user ID of the player who was invited to the game
+     */
+    public GameRecord(long gameID, long startMillis, long firstPlayerID, long secondPlayerID) {
+        this.gameID = gameID;
+        this.startMillis = startMillis;
+        this.firstPlayerID = firstPlayerID;
+        this.secondPlayerID = secondPlayerID;
+        this.lastMoveMillis = startMillis;
+    }
+
+    /**
+     * Appends a move to the record.
+     *
+     * @param playerIndex 0 for the player who initiated the game, 1 for the invited player
+     * @param move        the move code
+     * @param nowMillis   the time of the move, in epoch milliseconds
+     */
+    public synchronized void addMove(int playerIndex, int move, long nowMillis) {
+        long delta = Math.max(0, nowMillis - lastMoveMillis);
+        lastMoveMillis = nowMillis;
+        try {
+            Varint.write(moves, (delta << 1) | (playerIndex & 1));
+            Varint.writeSigned(moves, move);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        moveCount++;
+    }
+
+    /**
+     * Sets the result of the game.
+     *
+     * @param result one of the {@code RESULT_} constants
+     */
+    public synchronized void setResult(byte result) {
+        this.result = result;
+    }
+
+    /**
+     * Writes the record body in archive format.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    synchronized void writeTo(OutputStream out) throws IOException {
+        Varint.write(out, gameID);
+        Varint.write(out, startMillis);
+        Varint.write(out, firstPlayerID);
+        Varint.write(out, secondPlayerID);
+        out.write(result);
+        Varint.write(out, moveCount);
+        moves.writeTo(out);
+    }
+
+    public long getGameID() {
+        return gameID;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getFirstPlayerID() {
+        return firstPlayerID;
+    }
+
+    public long getSecondPlayerID() {
+        return secondPlayerID;
+    }
+
+    public synchronized int getMoveCount() {
+        return moveCount;
+    }
+
+    public synchronized byte getResult() {
+        return result;
+    }
+
+    /**
+     * Serializes the record, including the time of the last move, so that an unfinished game can be restored.
+     *
+     * @return the serialized record
+     */
+    public synchronized byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(moves.size() + 48);
+        try {
+            Varint.write(out, lastMoveMillis);
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Restores a record serialized by {@link #toBytes()}.
+     *
+     * @param bytes the serialized record
+     * @return the restored record
+     * @throws IOException if the bytes are not a valid record
+     */
+    public static GameRecord fromBytes(byte[] bytes) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        long lastMoveMillis = Varint.read(in);
+        GameRecord record = readHeader(in);
+        record.lastMoveMillis = lastMoveMillis;
+        in.transferTo(record.moves);
+        return record;
+    }
+
+    /**
+     * Reads the fixed header of an archived record. The stream is left at the first move.
+     *
+     * @param in the stream to read from
+     * @return a record holding the header values but no moves
+     * @throws IOException if the stream cannot be read
+     */
+    static GameRecord readHeader(InputStream in) throws IOException {
+        GameRecord record = new GameRecord(Varint.read(in), Varint.read(in), Varint.read(in), Varint.read(in));
+        int result = in.read();
+        if (result < 0) {
+            throw new EOFException();
+        }
+        record.result = (byte) result;
+        record.moveCount = (int) Varint.read(in);
+        return record;
+    }
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams the moves of one archived game, one at a time, straight from its segment file.
+ */
+public class ReplayReader implements Closeable {
+
+    private final GameRecord header;
+    private final InputStream in;
+    private int movesRead;
+    private int playerIndex;
+    private int move;
+    private long elapsedMillis;
+
+    ReplayReader(GameRecord header, InputStream in) {
+        this.header = header;
+        this.in = in;
+    }
+
+    /**
+     * Returns the game's header: its ID, start time, players, result and move count.
+     *
+     * @return the game header
+     */
+    public GameRecord getHeader() {
+        return header;
+    }
+
+    /**
+     * Checks if there are moves left to read.
+     *
+     * @return true if another move can be read, false otherwise
+     */
+    public boolean hasNextMove() {
+        return movesRead < header.getMoveCount();
+    }
+
+    /**
+     * Reads the next move. Its values are then available from {@link #getPlayerIndex()}, {@link #getMove()} and
+     * {@link #getElapsedMillis()}.
+     *
+     * @throws IOException if the archive cannot be read
+     */
+    public void nextMove() throws IOException {
+        long timing = Varint.read(in);
+        playerIndex = (int) (timing & 1);
+        elapsedMillis = timing >>> 1;
+        move = (int) Varint.readSigned(in);
+        movesRead++;
+    }
+
+    /**
+     * Gets the number of moves read so far.
+     *
+     * @return the number of moves read
+     */
+    public int getMovesRead() {
+        return movesRead;
+    }
+
+    /**
+     * Gets the player who made the last move read.
+     *
+     * @return 0 for the player who initiated the game, 1 for the invited player
+     */
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    /**
+     * Gets the code of the last move read.
+     *
+     * @return the move code
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Gets the time between the last move read and the move before it.
+     *
+     * @return the elapsed time, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,79 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.history;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads and writes variable-length integers: seven bits per byte, with the high bit set on every byte but the last.
+ * Small values, such as the milliseconds between two moves, take one or two bytes instead of eight.
+ */
+public final class Varint {
+
+    private Varint() {
+    }
+
+    /**
+     * Writes an unsigned variable-length integer.
+     *
+     * @param out   the stream to write to
+     * @param value the value to write, treated as unsigned
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Writes a signed variable-length integer, zigzag-encoded so that small negative values stay small.
+     *
+     * @param out   the stream to write to
+     * @param value the value to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeSigned(OutputStream out, long value) throws IOException {
+        write(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @param in the stream to read from
+     * @return the value read
+     * @throws IOException if the stream cannot be read or ends in the middle of the value
+     */
+    public static long read(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads a zigzag-encoded signed variable-length integer.
+     *
+     * @param in the stream to read from
+     * @return the value read
+     * @throws IOException if the stream cannot be read or ends in the middle of the value
+     */
+    public static long readSigned(InputStream in) throws IOException {
+        long value = read(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
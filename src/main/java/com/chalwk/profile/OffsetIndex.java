@@ -0,0 +1,90 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.profile;
+
+import java.util.Arrays;
+
+/**
+ * Maps user IDs to the position of their latest profile in the profile log, in two primitive arrays with open
+ * addressing: 16 bytes per slot, kept at most half full, so a million players take about 32 MB. Not thread-safe.
+ */
+final class OffsetIndex {
+
+    private static final long EMPTY = 0; // user snowflakes are never 0
+
+    private long[] keys;
+    private long[] offsets;
+    private int size;
+
+    OffsetIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 15)) << 1;
+        keys = new long[capacity];
+        offsets = new long[capacity];
+    }
+
+    /**
+     * Gets the log position of a user's profile.
+     *
+     * @param userID the user ID
+     * @return the position, or -1 if the user has no stored profile
+     */
+    long get(long userID) {
+        int mask = keys.length - 1;
+        for (int slot = slot(userID, mask); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == userID) return offsets[slot];
+            if (keys[slot] == EMPTY) return -1;
+        }
+    }
+
+    void put(long userID, long offset) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = slot(userID, mask);
+        while (keys[slot] != EMPTY && keys[slot] != userID) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = userID;
+            size++;
+        }
+        offsets[slot] = offset;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the log positions of every stored profile, in log order.
+     *
+     * @return the sorted positions
+     */
+    long[] sortedOffsets() {
+        long[] sorted = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) sorted[i++] = offsets[slot];
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldOffsets = offsets;
+        keys = new long[oldKeys.length * 2];
+        offsets = new long[oldKeys.length * 2];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) put(oldKeys[slot], oldOffsets[slot]);
+        }
+    }
+
+    private static int slot(long userID, int mask) {
+        long h = userID * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
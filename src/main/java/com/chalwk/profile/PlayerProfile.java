@@ -0,0 +1,147 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.profile;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The stored data of a player: game results, moves played, when they last played and their rating. Profiles are
+ * immutable; updates produce a new profile.
+ */
+public final class PlayerProfile {
+
+    /**
+     * The size of a profile in the profile log, in bytes.
+     */
+    static final int RECORD_BYTES = 44;
+
+    /**
+     * The size of a profile in the log of earlier versions, which had no rating, in bytes.
+     */
+    static final int LEGACY_RECORD_BYTES = 40;
+
+    /**
+     * The position of the rating in a record, in bytes.
+     */
+    static final int RATING_OFFSET = 36;
+
+    /**
+     * The rating of a player who has not finished a rated game.
+     */
+    public static final int UNRATED = -1;
+
+    private final long userID;
+    private final int wins;
+    private final int losses;
+    private final int draws;
+    private final long movesPlayed;
+    private final long lastPlayedMillis;
+    private final int rating;
+
+    PlayerProfile(long userID, int wins, int losses, int draws, long movesPlayed, long lastPlayedMillis, int rating) {
+        this.userID = userID;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+        this.movesPlayed = movesPlayed;
+        this.lastPlayedMillis = lastPlayedMillis;
+        this.rating = rating;
+    }
+
+    /**
+     * Creates the profile of a player who has never played.
+     *
+     * @param userID the player's user ID
+     * @return the empty profile
+     */
+    static PlayerProfile empty(long userID) {
+        return new PlayerProfile(userID, 0, 0, 0, 0, 0, UNRATED);
+    }
+
+    /**
+     * Reads a profile from the profile log.
+     *
+     * @param buffer the buffer, positioned at the profile
+     * @return the profile
+     */
+    static PlayerProfile read(ByteBuffer buffer) {
+        return new PlayerProfile(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong(),
+                buffer.getLong(), buffer.getInt());
+    }
+
+    /**
+     * Reads a profile from the profile log of an earlier version, as an unrated profile.
+     *
+     * @param buffer the buffer, positioned at the profile
+     * @return the profile
+     */
+    static PlayerProfile readLegacy(ByteBuffer buffer) {
+        return new PlayerProfile(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong(),
+                buffer.getLong(), UNRATED);
+    }
+
+    /**
+     * Writes the profile to the profile log. The last four bytes of a record are left for its checksum.
+     *
+     * @param buffer the buffer to write to
+     */
+    void write(ByteBuffer buffer) {
+        buffer.putLong(userID).putInt(wins).putInt(losses).putInt(draws).putLong(movesPlayed).putLong(lastPlayedMillis)
+                .putInt(rating);
+    }
+
+    /**
+     * Applies pending updates to the profile.
+     *
+     * @param delta the updates
+     * @return the updated profile
+     */
+    PlayerProfile plus(ProfileDelta delta) {
+        return new PlayerProfile(userID, wins + delta.wins, losses + delta.losses, draws + delta.draws,
+                movesPlayed + delta.movesPlayed, Math.max(lastPlayedMillis, delta.lastPlayedMillis),
+                delta.rating != UNRATED ? delta.rating : rating);
+    }
+
+    public long getUserID() {
+        return userID;
+    }
+
+    public int getGamesPlayed() {
+        return wins + losses + draws;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public long getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    /**
+     * Gets the time the player last finished a game.
+     *
+     * @return the time in epoch milliseconds, or 0 if they never have
+     */
+    public long getLastPlayedMillis() {
+        return lastPlayedMillis;
+    }
+
+    /**
+     * Gets the player's rating.
+     *
+     * @return the rating, or {@link #UNRATED} if they have not finished a rated game
+     */
+    public int getRating() {
+        return rating;
+    }
+}
@@ -0,0 +1,30 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.profile;
+
+/**
+ * The updates to a player's profile that have not been written yet. Successive updates are added together, so however
+ * many moves and games a player finishes between two flushes, one record is written for them. The rating is not
+ * added: the latest one replaces the stored one.
+ */
+final class ProfileDelta {
+
+    int wins;
+    int losses;
+    int draws;
+    long movesPlayed;
+    long lastPlayedMillis;
+    int rating = PlayerProfile.UNRATED;
+
+    ProfileDelta copy() {
+        ProfileDelta copy = new ProfileDelta();
+        copy.wins = wins;
+        copy.losses = losses;
+        copy.draws = draws;
+        copy.movesPlayed = movesPlayed;
+        copy.lastPlayedMillis = lastPlayedMillis;
+        copy.rating = rating;
+        return copy;
+    }
+}
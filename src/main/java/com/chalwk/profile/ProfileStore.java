@@ -0,0 +1,520 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.profile;
+
+import com.chalwk.diagnostics.ProfileFlushEvent;
+import com.chalwk.rating.RatingManager;
+import com.chalwk.util.Logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the profile of every player, keyed by user ID, in a log of fixed-size records behind a bounded LRU cache.
+ * <p>
+ * Updates never touch the disk on the caller's thread: they are added to a per-player pending delta, so a player who
+ * makes many moves between two flushes costs one record. A single writer thread flushes the deltas in batches every
+ * flush interval (or sooner, once too many players are pending), appending each updated profile to the log with one
+ * write per batch and one sync per flush. Reads merge the pending delta into the cached or stored profile, so they
+ * always see every update.
+ * <p>
+ * The latest record of a player is the one that counts. The log is scanned at startup to rebuild the in-memory index
+ * from user ID to record position, which takes 16 bytes per slot; a torn record at the end of the log is cut off,
+ * and a log that is mostly superseded records is compacted. The same scan collects every player's latest rating, so
+ * that the {@link RatingManager} can rebuild the leaderboard without reading the profiles one by one.
+ * <p>
+ * The log of earlier versions, whose records have no rating, is converted to the current log when the store is
+ * first opened, with every player unrated.
+ */
+public class ProfileStore {
+
+    private static final String LOG_FILE = "profiles-v2.log";
+    private static final String LEGACY_LOG_FILE = "profiles.log";
+    private static final String COMPACT_FILE = "profiles.log.tmp";
+    private static final int BATCH_RECORDS = 4096;
+    private static final int SCAN_BUFFER_BYTES = PlayerProfile.RECORD_BYTES * 8192;
+    private static final int MIN_RECORDS_TO_COMPACT = 1 << 16;
+
+    private final Path directory;
+    private final int cacheSize;
+    private final int maxPending;
+    private final Map<Long, ProfileDelta> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private Map<Long, Integer> storedRatings = new HashMap<>();
+
+    /**
+     * The most recently used profiles, without their pending deltas. Guarded by this store, like the index.
+     */
+    private final LinkedHashMap<Long, PlayerProfile> cache;
+    private OffsetIndex index;
+    private FileChannel channel;
+    private long length;
+
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "profile-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ByteBuffer batch = ByteBuffer.allocate(BATCH_RECORDS * PlayerProfile.RECORD_BYTES);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(PlayerProfile.RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong recordsFlushed = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private volatile long lastFlushRecords;
+    private volatile long lastFlushNanos;
+
+    /**
+     * Opens the profile store in a directory, creating it if needed, and starts flushing updates.
+     *
+     * @param directory       the profile directory
+     * @param cacheSize       the number of profiles to keep in memory
+     * @param maxPending      the number of players with pending updates at which a flush starts early
+     * @param flushIntervalMs the time between flushes, in milliseconds
+     * @throws IOException if the profile log cannot be read
+     */
+    public ProfileStore(Path directory, int cacheSize, int maxPending, long flushIntervalMs) throws IOException {
+        this.directory = directory;
+        this.cacheSize = cacheSize;
+        this.maxPending = maxPending;
+        this.cache = new LinkedHashMap<>(Math.min(cacheSize, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PlayerProfile> eldest) {
+                return size() > ProfileStore.this.cacheSize;
+            }
+        };
+
+        Files.createDirectories(directory);
+        migrateLegacyLog();
+        long start = System.nanoTime();
+        long records = open();
+        if (records >= MIN_RECORDS_TO_COMPACT && records > 2L * index.size()) {
+            compact();
+            records = open();
+        }
+        Logger.info(String.format("Loaded %,d player profiles from %,d records in %d ms", index.size(), records,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a move played by a player.
+     *
+     * @param userID the player's user ID
+     */
+    public void recordMove(long userID) {
+        update(userID, delta -> delta.movesPlayed++);
+    }
+
+    /**
+     * Records the result of a finished game for a player.
+     *
+     * @param userID     the player's user ID
+     * @param score      the player's score: {@link RatingManager#WIN}, {@link RatingManager#DRAW} or
+     *                   {@link RatingManager#LOSS}
+     * @param timeMillis when the game finished, in epoch milliseconds
+     */
+    public void recordResult(long userID, double score, long timeMillis) {
+        update(userID, delta -> {
+            if (score == RatingManager.WIN) {
+                delta.wins++;
+            } else if (score == RatingManager.LOSS) {
+                delta.losses++;
+            } else {
+                delta.draws++;
+            }
+            delta.lastPlayedMillis = Math.max(delta.lastPlayedMillis, timeMillis);
+        });
+    }
+
+    /**
+     * Records a player's new rating.
+     *
+     * @param userID the player's user ID
+     * @param rating the rating
+     */
+    public void recordRating(long userID, int rating) {
+        update(userID, delta -> delta.rating = rating);
+    }
+
+    /**
+     * Gets the latest rating of every rated player, as stored when the store was opened, and forgets them. Ratings
+     * recorded since then are not included.
+     *
+     * @return the ratings by user ID
+     */
+    public synchronized Map<Long, Integer> takeStoredRatings() {
+        Map<Long, Integer> ratings = storedRatings;
+        storedRatings = new HashMap<>();
+        return ratings;
+    }
+
+    private void update(long userID, Consumer<ProfileDelta> change) {
+        updates.incrementAndGet();
+        boolean[] added = new boolean[1];
+        pending.compute(userID, (key, delta) -> {
+            if (delta == null) {
+                delta = new ProfileDelta();
+                added[0] = true;
+            }
+            change.accept(delta);
+            return delta;
+        });
+        if (added[0] && pending.size() >= maxPending && flushQueued.compareAndSet(false, true)) {
+            writer.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Gets the profile of a player, including updates that have not been flushed yet. May read from disk.
+     *
+     * @param userID the player's user ID
+     * @return the profile, empty if the player has never played
+     * @throws IOException if the profile cannot be read
+     */
+    public synchronized PlayerProfile get(long userID) throws IOException {
+        PlayerProfile profile = load(userID);
+        ProfileDelta[] delta = new ProfileDelta[1];
+        pending.computeIfPresent(userID, (key, value) -> {
+            delta[0] = value.copy();
+            return value;
+        });
+        return delta[0] != null ? profile.plus(delta[0]) : profile;
+    }
+
+    /**
+     * Waits until every update recorded so far has been written and synced to disk.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return true if the store was flushed, false if it failed or the timeout was reached first
+     */
+    public boolean awaitFlush(long timeoutMillis) {
+        try {
+            writer.submit(() -> {
+                flush();
+                return null;
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes and syncs every update recorded so far, then closes the store. The store must not be used afterwards.
+     *
+     * @param timeoutMillis the maximum time to wait for the last flush, in milliseconds
+     * @return true if the store was flushed, false if it failed or the timeout was reached first
+     */
+    public boolean close(long timeoutMillis) {
+        boolean flushed = awaitFlush(timeoutMillis);
+        writer.shutdownNow();
+        synchronized (this) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Logger.warning("Failed to close the profile log: " + e.getMessage());
+                return false;
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * Describes the store's cache, load and flush counters.
+     *
+     * @return the metrics, one line
+     */
+    public String getMetrics() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        long loadCount = loads.get();
+        long flushCount = flushes.get();
+        int stored, cached;
+        synchronized (this) {
+            stored = index.size();
+            cached = cache.size();
+        }
+        return String.format("%,d profiles stored, %,d cached, %,d pending; cache hit rate %.1f%% of %,d lookups; "
+                        + "%,d disk loads averaging %.1f us; %,d updates flushed as %,d records in %,d flushes "
+                        + "averaging %.1f ms, last %,d records in %.1f ms",
+                stored, cached, pending.size(), lookups == 0 ? 0 : hitCount * 100.0 / lookups, lookups,
+                loadCount, loadCount == 0 ? 0 : loadNanos.get() / 1e3 / loadCount,
+                updates.get(), recordsFlushed.get(), flushCount,
+                flushCount == 0 ? 0 : flushNanos.get() / 1e6 / flushCount, lastFlushRecords, lastFlushNanos / 1e6);
+    }
+
+    /**
+     * Gets a profile without its pending delta, from the cache or else from disk. Must hold the lock.
+     */
+    private PlayerProfile load(long userID) throws IOException {
+        PlayerProfile profile = cache.get(userID);
+        if (profile != null) {
+            hits.incrementAndGet();
+            return profile;
+        }
+        misses.incrementAndGet();
+        long offset = index.get(userID);
+        if (offset < 0) {
+            profile = PlayerProfile.empty(userID);
+        } else {
+            long start = System.nanoTime();
+            readBuffer.clear();
+            while (readBuffer.hasRemaining()) {
+                if (channel.read(readBuffer, offset + readBuffer.position()) < 0) {
+                    throw new IOException("Profile log ends inside the record of " + userID);
+                }
+            }
+            readBuffer.flip();
+            profile = PlayerProfile.read(readBuffer);
+            loads.incrementAndGet();
+            loadNanos.addAndGet(System.nanoTime() - start);
+        }
+        cache.put(userID, profile);
+        return profile;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            Logger.warning("Failed to flush player profiles: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every pending delta to the log in batches and syncs it. Runs on the writer thread only.
+     */
+    private void flush() throws IOException {
+        flushQueued.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+        ProfileFlushEvent event = new ProfileFlushEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int written = 0;
+        int cacheMisses = 0;
+        long[] userIDs = new long[BATCH_RECORDS];
+        PlayerProfile[] profiles = new PlayerProfile[BATCH_RECORDS];
+        Iterator<Long> keys = pending.keySet().iterator();
+        while (keys.hasNext()) {
+            synchronized (this) {
+                batch.clear();
+                int count = 0;
+                while (keys.hasNext() && count < BATCH_RECORDS) {
+                    long userID = keys.next();
+                    ProfileDelta delta = pending.remove(userID);
+                    if (delta == null) {
+                        continue;
+                    }
+                    if (!cache.containsKey(userID)) {
+                        cacheMisses++;
+                    }
+                    PlayerProfile profile = load(userID).plus(delta);
+                    int recordStart = batch.position();
+                    profile.write(batch);
+                    crc.reset();
+                    crc.update(batch.array(), recordStart, batch.position() - recordStart);
+                    batch.putInt((int) crc.getValue());
+                    userIDs[count] = userID;
+                    profiles[count] = profile;
+                    count++;
+                }
+                batch.flip();
+                long batchStart = length;
+                while (batch.hasRemaining()) {
+                    channel.write(batch, batchStart + batch.position());
+                }
+                length = batchStart + (long) count * PlayerProfile.RECORD_BYTES;
+                for (int i = 0; i < count; i++) {
+                    index.put(userIDs[i], batchStart + (long) i * PlayerProfile.RECORD_BYTES);
+                    cache.put(userIDs[i], profiles[i]);
+                }
+                written += count;
+            }
+        }
+        channel.force(false);
+
+        long elapsed = System.nanoTime() - start;
+        flushes.incrementAndGet();
+        recordsFlushed.addAndGet(written);
+        flushNanos.addAndGet(elapsed);
+        lastFlushRecords = written;
+        lastFlushNanos = elapsed;
+        event.end();
+        if (event.shouldCommit()) {
+            event.records = written;
+            event.bytes = (long) written * PlayerProfile.RECORD_BYTES;
+            event.cacheMisses = cacheMisses;
+            event.commit();
+        }
+    }
+
+    /**
+     * Opens the log and rebuilds the index by scanning it, cutting off a torn record at its end.
+     *
+     * @return the number of records in the log
+     */
+    private long open() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        index = new OffsetIndex((int) Math.min(size / PlayerProfile.RECORD_BYTES, 1 << 20));
+        storedRatings = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        long position = 0;
+        long records = 0;
+        scan:
+        while (position < size) {
+            buffer.clear();
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                // fill the buffer
+            }
+            buffer.flip();
+            if (buffer.remaining() < PlayerProfile.RECORD_BYTES) {
+                break;
+            }
+            while (buffer.remaining() >= PlayerProfile.RECORD_BYTES) {
+                int recordStart = buffer.position();
+                crc.reset();
+                crc.update(buffer.array(), recordStart, PlayerProfile.RECORD_BYTES - 4);
+                if (buffer.getInt(recordStart + PlayerProfile.RECORD_BYTES - 4) != (int) crc.getValue()) {
+                    break scan;
+                }
+                long userID = buffer.getLong(recordStart);
+                int rating = buffer.getInt(recordStart + PlayerProfile.RATING_OFFSET);
+                index.put(userID, position);
+                if (rating != PlayerProfile.UNRATED) {
+                    storedRatings.put(userID, rating);
+                }
+                buffer.position(recordStart + PlayerProfile.RECORD_BYTES);
+                position += PlayerProfile.RECORD_BYTES;
+                records++;
+            }
+        }
+        if (position < size) {
+            Logger.warning(String.format("Cut %,d bytes of torn or corrupt records off the end of the profile log",
+                    size - position));
+            channel.truncate(position);
+        }
+        length = position;
+        return records;
+    }
+
+    /**
+     * Converts the log of an earlier version into the current log, unless the current log already exists. A torn
+     * or corrupt record ends the conversion, as it ends the scan of the current log.
+     */
+    private void migrateLegacyLog() throws IOException {
+        Path legacy = directory.resolve(LEGACY_LOG_FILE);
+        Path log = directory.resolve(LOG_FILE);
+        if (!Files.exists(legacy) || Files.exists(log)) {
+            return;
+        }
+        Path converted = directory.resolve(COMPACT_FILE);
+        long records = 0;
+        try (FileChannel in = FileChannel.open(legacy, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(converted, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(PlayerProfile.LEGACY_RECORD_BYTES * 8192);
+            long position = 0;
+            long size = in.size();
+            scan:
+            while (position < size) {
+                buffer.clear();
+                while (buffer.hasRemaining() && in.read(buffer, position + buffer.position()) > 0) {
+                    // fill the buffer
+                }
+                buffer.flip();
+                if (buffer.remaining() < PlayerProfile.LEGACY_RECORD_BYTES) {
+                    break;
+                }
+                batch.clear();
+                while (buffer.remaining() >= PlayerProfile.LEGACY_RECORD_BYTES && batch.hasRemaining()) {
+                    int recordStart = buffer.position();
+                    crc.reset();
+                    crc.update(buffer.array(), recordStart, PlayerProfile.LEGACY_RECORD_BYTES - 4);
+                    if (buffer.getInt(recordStart + PlayerProfile.LEGACY_RECORD_BYTES - 4) != (int) crc.getValue()) {
+                        writeFully(out, batch.flip());
+                        break scan;
+                    }
+                    PlayerProfile profile = PlayerProfile.readLegacy(buffer);
+                    buffer.position(recordStart + PlayerProfile.LEGACY_RECORD_BYTES);
+                    int convertedStart = batch.position();
+                    profile.write(batch);
+                    crc.reset();
+                    crc.update(batch.array(), convertedStart, batch.position() - convertedStart);
+                    batch.putInt((int) crc.getValue());
+                    position += PlayerProfile.LEGACY_RECORD_BYTES;
+                    records++;
+                }
+                writeFully(out, batch.flip());
+            }
+            out.force(true);
+        }
+        Files.move(converted, log, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(legacy);
+        Logger.info(String.format("Converted %,d records of the profile log to the current version", records));
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Rewrites the log with only the latest record of each player, then swaps it in.
+     */
+    private void compact() throws IOException {
+        Path compacted = directory.resolve(COMPACT_FILE);
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(PlayerProfile.RECORD_BYTES);
+            for (long offset : index.sortedOffsets()) {
+                record.clear();
+                while (record.hasRemaining() && channel.read(record, offset + record.position()) > 0) {
+                    // read the whole record
+                }
+                record.flip();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        channel = null;
+        Files.move(compacted, directory.resolve(LOG_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,138 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.rating;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps every rated player ranked by rating and renders the ranking as pages of embeds.
+ * Rendered pages are cached and only invalidated when a rating change moves ranks inside that page.
+ */
+public class Leaderboard {
+
+    /**
+     * The number of players shown on each leaderboard page.
+     */
+    public static final int PAGE_SIZE = 10;
+
+    private final RankedSkipList ranking = new RankedSkipList();
+    private final Map<Integer, MessageEmbed> pageCache = new HashMap<>();
+
+    /**
+     * Moves a player to their new rating, or adds them if they are not ranked yet.
+     *
+     * @param userID    the player's user ID
+     * @param oldRating the player's previous rating, or -1 if they are not ranked yet
+     * @param newRating the player's new rating
+     */
+    public synchronized void update(long userID, int oldRating, int newRating) {
+        int oldRank = oldRating < 0 ? -1 : ranking.remove(userID, oldRating);
+        int newRank = ranking.insert(userID, newRating);
+
+        if (oldRank < 0) {
+            // Everyone ranked below the new player moved down one place.
+            invalidate(newRank, ranking.size() - 1);
+        } else {
+            invalidate(Math.min(oldRank, newRank), Math.max(oldRank, newRank));
+        }
+    }
+
+    /**
+     * Gets the rank of a player.
+     *
+     * @param userID the player's user ID
+     * @param rating the player's current rating
+     * @return the one-based rank of the player, or -1 if they are not ranked
+     */
+    public synchronized int getRank(long userID, int rating) {
+        int rank = ranking.rankOf(userID, rating);
+        return rank < 0 ? -1 : rank + 1;
+    }
+
+    /**
+     * Gets the number of ranked players.
+     *
+     * @return the number of ranked players
+     */
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    /**
+     * Gets the number of leaderboard pages.
+     *
+     * @return the number of pages, at least one
+     */
+    public synchronized int getPageCount() {
+        return Math.max(1, (ranking.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * Gets the embed for a leaderboard page, rendering it only if it is not cached.
+     *
+     * @param page the zero-based page number
+     * @return the leaderboard page embed
+     */
+    public synchronized MessageEmbed getPage(int page) {
+        MessageEmbed embed = pageCache.get(page);
+        if (embed == null) {
+            embed = renderPage(page);
+            pageCache.put(page, embed);
+        }
+        return embed;
+    }
+
+    /**
+     * Renders a leaderboard page.
+     *
+     * @param page the zero-based page number
+     * @return the leaderboard page embed
+     */
+    private MessageEmbed renderPage(int page) {
+        long[] userIDs = new long[PAGE_SIZE];
+        int[] ratings = new int[PAGE_SIZE];
+        int firstRank = page * PAGE_SIZE;
+        int count = ranking.range(firstRank, userIDs, ratings);
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append("**#").append(firstRank + i + 1).append("** <@").append(userIDs[i]).append("> - ")
+                    .append(ratings[i]).append('\n');
+        }
+        if (count == 0) {
+            lines.append("No ranked players on this page yet.");
+        }
+
+        return new EmbedBuilder()
+                .setTitle("Leaderboard")
+                .setDescription(lines)
+                .setFooter("Page " + (page + 1))
+                .setColor(Color.ORANGE)
+                .build();
+    }
+
+    /**
+     * Drops every cached page that shows a rank within the given range.
+     *
+     * @param fromRank the first changed zero-based rank
+     * @param toRank   the last changed zero-based rank
+     */
+    private void invalidate(int fromRank, int toRank) {
+        int firstPage = fromRank / PAGE_SIZE;
+        int lastPage = toRank / PAGE_SIZE;
+        Iterator<Integer> pages = pageCache.keySet().iterator();
+        while (pages.hasNext()) {
+            int page = pages.next();
+            if (page >= firstPage && page <= lastPage) {
+                pages.remove();
+            }
+        }
+    }
+}
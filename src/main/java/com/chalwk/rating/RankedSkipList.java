@@ -0,0 +1,204 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.rating;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An indexable skip list of players ordered by rating, highest first (ties are broken by the lowest user ID).
+ * Every forward link also stores how many entries it skips, so inserting, removing, finding the rank of a player
+ * and finding the player at a rank all take O(log n) expected time.
+ * <p>
+ * This class is not thread-safe; callers must synchronize access.
+ */
+public class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double LEVEL_PROBABILITY = 0.25;
+
+    private final Node head = new Node(0, Integer.MAX_VALUE, MAX_LEVEL);
+    private int level = 1;
+    private int size;
+
+    /**
+     * Checks if entry a is ranked before entry b.
+     */
+    private static boolean before(int ratingA, long idA, int ratingB, long idB) {
+        return ratingA > ratingB || (ratingA == ratingB && idA < idB);
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && random.nextDouble() < LEVEL_PROBABILITY) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Inserts a player with the given rating.
+     *
+     * @param userID the player's user ID
+     * @param rating the player's rating
+     * @return the zero-based rank the player was inserted at
+     */
+    public int insert(long userID, int rating) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (node.next[i] != null && before(node.next[i].rating, node.next[i].userID, rating, userID)) {
+                rank[i] += node.span[i];
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].span[i] = size;
+            }
+            level = newLevel;
+        }
+
+        Node inserted = new Node(userID, rating, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            inserted.next[i] = update[i].next[i];
+            update[i].next[i] = inserted;
+            inserted.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+
+        size++;
+        return rank[0];
+    }
+
+    /**
+     * Removes a player.
+     *
+     * @param userID the player's user ID
+     * @param rating the player's rating, as it was inserted
+     * @return the zero-based rank the player had, or -1 if the player was not found
+     */
+    public int remove(long userID, int rating) {
+        Node[] update = new Node[MAX_LEVEL];
+        int rank = 0;
+
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && before(node.next[i].rating, node.next[i].userID, rating, userID)) {
+                rank += node.span[i];
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        Node target = node.next[0];
+        if (target == null || target.userID != userID || target.rating != rating) {
+            return -1;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].span[i] += target.span[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+
+        size--;
+        return rank;
+    }
+
+    /**
+     * Gets the rank of a player.
+     *
+     * @param userID the player's user ID
+     * @param rating the player's rating
+     * @return the zero-based rank of the player, or -1 if the player was not found
+     */
+    public int rankOf(long userID, int rating) {
+        int rank = 0;
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && !before(rating, userID, node.next[i].rating, node.next[i].userID)) {
+                rank += node.span[i];
+                node = node.next[i];
+            }
+            if (node != head && node.userID == userID && node.rating == rating) {
+                return rank - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copies a range of the ranking into the given arrays.
+     *
+     * @param fromRank the zero-based rank to start at
+     * @param userIDs  receives the user IDs, in rank order
+     * @param ratings  receives the ratings, in rank order
+     * @return the number of entries copied
+     */
+    public int range(int fromRank, long[] userIDs, int[] ratings) {
+        if (fromRank < 0 || fromRank >= size) {
+            return 0;
+        }
+
+        int traversed = 0;
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && traversed + node.span[i] <= fromRank + 1) {
+                traversed += node.span[i];
+                node = node.next[i];
+            }
+        }
+
+        int count = 0;
+        while (node != null && count < userIDs.length) {
+            userIDs[count] = node.userID;
+            ratings[count] = node.rating;
+            count++;
+            node = node.next[0];
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of ranked players.
+     *
+     * @return the number of ranked players
+     */
+    public int size() {
+        return size;
+    }
+
+    private static final class Node {
+
+        private final long userID;
+        private final int rating;
+        private final Node[] next;
+        private final int[] span;
+
+        private Node(long userID, int rating, int level) {
+            this.userID = userID;
+            this.rating = rating;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.rating;
+
+import com.chalwk.profile.ProfileStore;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks Elo ratings for every player and keeps the leaderboard up to date as games finish. Ratings are kept in the
+ * players' profiles, so the leaderboard is rebuilt from the {@link ProfileStore} when the bot starts.
+ */
+public class RatingManager {
+
+    /**
+     * The score of a player who won a game.
+     */
+    public static final double WIN = 1.0;
+
+    /**
+     * The score of a player in a drawn game.
+     */
+    public static final double DRAW = 0.5;
+
+    /**
+     * The score of a player who lost a game.
+     */
+    public static final double LOSS = 0.0;
+
+    private final Map<Long, Integer> ratings = new HashMap<>();
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final ProfileStore profiles;
+
+    /**
+     * Creates a rating manager that keeps ratings in memory only.
+     */
+    public RatingManager() {
+        this(null);
+    }
+
+    /**
+     * Creates a rating manager that stores ratings in the players' profiles, and loads the stored ratings into the
+     * leaderboard.
+     *
+     * @param profiles the profile store, or null to keep ratings in memory only
+     */
+    public RatingManager(ProfileStore profiles) {
+        this.profiles = profiles;
+        if (profiles != null) {
+            long start = System.nanoTime();
+            Map<Long, Integer> stored = profiles.takeStoredRatings();
+            stored.forEach(this::setRating);
+            Logger.info(String.format("Loaded %,d ratings into the leaderboard in %d ms", stored.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        }
+    }
+
+    /**
+     * Gets the expected score of a player against an opponent.
+     *
+     * @param rating         the player's rating
+     * @param opponentRating the opponent's rating
+     * @return the expected score, between 0 and 1
+     */
+    private static double expectedScore(int rating, int opponentRating) {
+        return 1.0 / (1.0 + Math.pow(10, (opponentRating - rating) / 400.0));
+    }
+
+    /**
+     * Gets a player's rating.
+     *
+     * @param player the player
+     * @return the player's rating, or the default rating if they have not finished a game yet
+     */
+    public synchronized int getRating(User player) {
+        return ratings.getOrDefault(player.getIdLong(), settings.getDefaultRating());
+    }
+
+    /**
+     * Gets a player's one-based leaderboard rank.
+     *
+     * @param player the player
+     * @return the player's rank, or -1 if they have not finished a game yet
+     */
+    public synchronized int getRank(User player) {
+        Integer rating = ratings.get(player.getIdLong());
+        return rating == null ? -1 : leaderboard.getRank(player.getIdLong(), rating);
+    }
+
+    /**
+     * Updates both players' ratings with the result of a game.
+     *
+     * @param player   the first player
+     * @param opponent the second player
+     * @param score    the first player's score: {@link #WIN}, {@link #DRAW} or {@link #LOSS}
+     */
+    public synchronized void recordResult(User player, User opponent, double score) {
+        long playerID = player.getIdLong();
+        long opponentID = opponent.getIdLong();
+        int playerRating = getRating(player);
+        int opponentRating = getRating(opponent);
+
+        int k = settings.getRatingKFactor();
+        int playerChange = (int) Math.round(k * (score - expectedScore(playerRating, opponentRating)));
+        int opponentChange = (int) Math.round(k * ((1.0 - score) - expectedScore(opponentRating, playerRating)));
+
+        int newPlayerRating = setRating(playerID, playerRating + playerChange);
+        int newOpponentRating = setRating(opponentID, opponentRating + opponentChange);
+        if (profiles != null) {
+            profiles.recordRating(playerID, newPlayerRating);
+            profiles.recordRating(opponentID, newOpponentRating);
+        }
+    }
+
+    /**
+     * Sets a player's rating and moves them on the leaderboard.
+     *
+     * @param userID the player's user ID
+     * @param rating the new rating
+     * @return the rating set, which is never negative
+     */
+    private int setRating(long userID, int rating) {
+        rating = Math.max(0, rating);
+        Integer previous = ratings.put(userID, rating);
+        leaderboard.update(userID, previous == null ? -1 : previous, rating);
+        return rating;
+    }
+
+    /**
+     * Returns the leaderboard.
+     *
+     * @return the leaderboard
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+}
@@ -0,0 +1,267 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.simulation;
+
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.Listeners.EventListeners;
+import com.chalwk.bot.BotInitializer;
+import com.chalwk.game.Game;
+import com.chalwk.game.GameEmbedRenderer;
+import com.chalwk.game.GameManager;
+import com.chalwk.game.GameRules;
+import com.chalwk.util.Scheduler;
+import com.chalwk.util.VirtualScheduler;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs game lifecycles in virtual time: a player invites another, the invite is accepted, declined or expires, and
+ * accepted games are played move by move against the chess clock until someone wins or runs out of time. The game
+ * manager, invite store, cooldowns, clocks, ratings and button listener are the real classes, handed {@link Stubs}
+ * for users, events and the shard manager and driven by a {@link VirtualScheduler}, so hours of play take
+ * milliseconds and a 300-second timeout costs nothing.
+ * <p>
+ * Everything random is drawn from one seeded generator and every event runs on the calling thread, so a seed always
+ * replays the same trace. The trace is summarised as a hash of every event, to compare runs.
+ */
+public class GameSimulation {
+
+    private static final long GUILD_ID = 1;
+    private static final long MEAN_ARRIVAL_MILLIS = 2_000;
+    private static final long MAX_RESPONSE_MILLIS = 180_000;
+    private static final double ACCEPT_RATE = 0.8;
+    private static final long MEAN_THINK_MILLIS = 20_000;
+
+    private final Random random;
+    private final VirtualScheduler scheduler;
+    private final CommandCooldownManager cooldowns = new CommandCooldownManager();
+    private final EventListeners listeners = new EventListeners();
+    private final Guild guild = Stubs.guild(GUILD_ID);
+    private final User[] players;
+    private final boolean[] busy;
+    private final boolean[] hasInvited;
+    private GameManager gameManager;
+    private GameRules rules;
+    private int[] legalMoves;
+
+    private final long lifecycles;
+    private long started;
+    private long arrived;
+    private int open;
+    private long trace = 0xcbf29ce484222325L;
+
+    private long games;
+    private long moves;
+    private long timeouts;
+    private long expiredInvites;
+    private long skipped;
+
+    /**
+     * Creates a simulation. The virtual scheduler and the game manager are installed when the simulation runs.
+     *
+     * @param seed        the seed of every random choice
+     * @param lifecycles  the number of invites to simulate
+     * @param playerCount the number of simulated players
+     */
+    public GameSimulation(long seed, long lifecycles, int playerCount) {
+        this.random = new Random(seed);
+        this.scheduler = new VirtualScheduler(0);
+        this.lifecycles = lifecycles;
+        this.players = new User[playerCount];
+        this.busy = new boolean[playerCount];
+        this.hasInvited = new boolean[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            players[i] = Stubs.user(i + 1);
+        }
+    }
+
+    /**
+     * Runs a simulation from the command line and prints its summary.
+     *
+     * @param seed       the seed of every random choice
+     * @param lifecycles the number of invites to simulate
+     * @throws IOException if the game archive cannot be created
+     */
+    public static void runAndReport(long seed, long lifecycles) throws IOException {
+        long start = System.nanoTime();
+        GameSimulation simulation = new GameSimulation(seed, lifecycles, 1000);
+        simulation.run();
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println(simulation.summary() + " in " + wallMillis + " ms of real time");
+    }
+
+    /**
+     * Runs every lifecycle to completion, in a game manager with an empty archive in a temporary directory.
+     *
+     * @throws IOException if the game archive cannot be created
+     */
+    public void run() throws IOException {
+        Scheduler previousScheduler = Scheduler.get();
+        ShardManager previousShards = BotInitializer.shardManager;
+        GameManager previousGames = BotInitializer.gameManager;
+        Scheduler.use(scheduler);
+        BotInitializer.shardManager = Stubs.stub(ShardManager.class, Map.of(), null);
+        try {
+            gameManager = new GameManager(Files.createTempDirectory("simulation-archive"), new Random(random.nextLong()));
+            BotInitializer.gameManager = gameManager;
+            gameManager.addGameEndListener(this::gameEnded);
+            rules = gameManager.getRules();
+            legalMoves = new int[rules.getMaxMoves()];
+
+            scheduleArrival();
+            while ((arrived < lifecycles || open > 0) && scheduler.runNext()) {
+                // every event schedules the ones that follow it; housekeeping sweeps reschedule themselves forever
+            }
+        } finally {
+            Scheduler.use(previousScheduler);
+            BotInitializer.shardManager = previousShards;
+            BotInitializer.gameManager = previousGames;
+        }
+    }
+
+    /**
+     * Gets the hash of every event of the run, equal for equal seeds.
+     *
+     * @return the trace hash
+     */
+    public long getTraceHash() {
+        return trace;
+    }
+
+    /**
+     * Describes the outcome of the run.
+     *
+     * @return the summary
+     */
+    public String summary() {
+        return String.format("Simulated %d invites (%d games, %d moves, %d timeouts, %d expired invites, %d skipped) "
+                        + "over %d hours of virtual time, trace %016x",
+                started, games, moves, timeouts, expiredInvites, skipped,
+                TimeUnit.NANOSECONDS.toHours(scheduler.nanoTime()), trace);
+    }
+
+    private void record(long value) {
+        trace = (trace ^ value) * 0x100000001b3L;
+    }
+
+    private long exponential(long mean) {
+        return (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+
+    private SlashCommandInteractionEvent command(String name, User user) {
+        return Stubs.command(name, user, guild, false, null);
+    }
+
+    private void scheduleArrival() {
+        if (started == lifecycles) {
+            return;
+        }
+        started++;
+        scheduler.schedule(() -> {
+            arrive();
+            scheduleArrival();
+        }, exponential(MEAN_ARRIVAL_MILLIS), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A player invites another idle player.
+     */
+    private void arrive() {
+        arrived++;
+        int inviter = random.nextInt(players.length);
+        int invitee = random.nextInt(players.length);
+        if (inviter == invitee || busy[inviter] || busy[invitee]
+                || hasInvited[inviter] && cooldowns.isOnCooldown("invite", players[inviter])) {
+            skipped++;
+            return;
+        }
+        cooldowns.setCooldown("invite", players[inviter]);
+        hasInvited[inviter] = true;
+        gameManager.invitePlayer(players[inviter], players[invitee], command("invite", players[inviter]));
+        if (gameManager.getPendingInvites().peek(players[invitee], players[inviter]) == null) {
+            skipped++;
+            return;
+        }
+        busy[inviter] = true;
+        busy[invitee] = true;
+        open++;
+        record(inviter);
+        record(invitee);
+
+        boolean accepts = random.nextDouble() < ACCEPT_RATE;
+        long responseMillis = (long) (random.nextDouble() * MAX_RESPONSE_MILLIS);
+        scheduler.schedule(() -> respond(inviter, invitee, accepts), responseMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The invited player answers, if the invite has not expired in the meantime.
+     */
+    private void respond(int inviter, int invitee, boolean accepts) {
+        User invited = players[invitee];
+        if (gameManager.getPendingInvites().peek(invited, players[inviter]) == null) {
+            expiredInvites++;
+            record(-1);
+        } else if (accepts) {
+            gameManager.acceptInvite(invited, players[inviter], command("accept", invited));
+            Game game = gameManager.getGame(invited);
+            if (game != null) {
+                games++;
+                scheduleMove(game);
+                return;
+            }
+        } else {
+            gameManager.declineInvite(invited, players[inviter], command("decline", invited));
+        }
+        busy[inviter] = false;
+        busy[invitee] = false;
+        open--;
+    }
+
+    private void scheduleMove(Game game) {
+        scheduler.schedule(() -> move(game), exponential(MEAN_THINK_MILLIS), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The player to move presses the button of a random legal move, unless the game ended in the meantime.
+     */
+    private void move(Game game) {
+        if (gameManager.getGameByID(game.getGameID()) != game || game.isOver()) {
+            return;
+        }
+        int count = rules.getLegalMoves(game.getState(), legalMoves);
+        int move = legalMoves[random.nextInt(count)];
+        int recorded = game.getRecord().getMoveCount();
+        String componentID = GameEmbedRenderer.COMPONENT_PREFIX + game.getGameID() + ":" + GameEmbedRenderer.MOVE_ACTION + move;
+        listeners.onButtonInteraction(Stubs.button(componentID, game.getWhosTurn(), guild, null));
+        if (game.getRecord().getMoveCount() > recorded) {
+            moves++;
+            record(move);
+        }
+        scheduleMove(game);
+    }
+
+    /**
+     * Frees the players of a game that was won or lost on time, and records the inviter's new rating.
+     */
+    private void gameEnded(Game game, User winner) {
+        if (!rules.isOver(game.getState())) {
+            timeouts++;
+            record(-2);
+        }
+        User inviter = game.getInvitingPlayer();
+        record(gameManager.getRatingManager(GUILD_ID).getRating(inviter));
+        record(scheduler.nanoTime());
+        busy[(int) inviter.getIdLong() - 1] = false;
+        busy[(int) game.getInvitedPlayer().getIdLong() - 1] = false;
+        open--;
+    }
+}
@@ -0,0 +1,179 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.simulation;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+import net.dv8tion.jda.api.interactions.components.buttons.ButtonInteraction;
+import net.dv8tion.jda.api.requests.restaction.MessageCreateAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-ins for the JDA objects the game code is handed, so that it can run without a connection to Discord.
+ * <p>
+ * A stub answers the methods it was given answers for, returns itself from builder methods such as
+ * {@code setEphemeral}, and returns another stub from any other method that returns an interface. REST actions
+ * complete at once, with a stub message as their result. The calls made on an event's stubs can be recorded, so
+ * that the caller can tell how the event was answered.
+ */
+public final class Stubs {
+
+    private static final JDA JDA_STUB = stub(JDA.class, Map.of(), null);
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private Stubs() {
+    }
+
+    /**
+     * Creates a stub of an interface.
+     *
+     * @param type    the interface
+     * @param answers the return values of methods, by method name
+     * @param calls   where to record the names of the methods called, or null
+     * @param <T>     the interface
+     * @return the stub
+     */
+    public static <T> T stub(Class<T> type, Map<String, Object> answers, List<String> calls) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return type.getSimpleName() + " stub";
+            }
+            if (calls != null) {
+                calls.add(name);
+            }
+            if (answers.containsKey(name)) {
+                return answers.get(name);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == void.class) {
+                return null;
+            } else if (returnType == boolean.class) {
+                return false;
+            } else if (returnType == long.class) {
+                return 0L;
+            } else if (returnType == int.class) {
+                return 0;
+            } else if (returnType.isPrimitive()) {
+                return null; // no stubbed method returns another primitive
+            } else if (returnType.isInstance(self)) {
+                return self;
+            } else if (returnType == CompletableFuture.class) {
+                return CompletableFuture.completedFuture(stub(Message.class, Map.of(), null));
+            } else if (returnType.isInterface()) {
+                return stub(returnType, Map.of(), calls);
+            }
+            return null;
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Creates a new interaction or message ID, made now, that no other stub event has.
+     *
+     * @return the snowflake ID
+     */
+    public static long nextSnowflake() {
+        return TimeUtil.getDiscordTimestamp(System.currentTimeMillis()) | (SEQUENCE.incrementAndGet() & 0x3FFFFF);
+    }
+
+    /**
+     * Creates a user with an ID. Users are only ever equal to themselves, so each player must be created once.
+     *
+     * @param userID the user ID
+     * @return the user
+     */
+    public static User user(long userID) {
+        return stub(User.class, Map.of("getIdLong", userID, "getId", Long.toString(userID), "getName", "player" + userID,
+                "getAsMention", "<@" + userID + ">", "getJDA", JDA_STUB), null);
+    }
+
+    /**
+     * Creates a guild with an ID.
+     *
+     * @param guildID the guild ID
+     * @return the guild
+     */
+    public static Guild guild(long guildID) {
+        return stub(Guild.class, Map.of("getIdLong", guildID, "getId", Long.toString(guildID)), null);
+    }
+
+    /**
+     * Creates a text channel in a guild. Messages sent to it are posted at once, all as the same message.
+     *
+     * @param channelID the channel ID
+     * @param guild     the guild of the channel
+     * @return the channel
+     */
+    public static TextChannel channel(long channelID, Guild guild) {
+        long messageID = nextSnowflake();
+        Message posted = stub(Message.class, Map.of("getIdLong", messageID, "getId", Long.toString(messageID)), null);
+        MessageCreateAction send = stub(MessageCreateAction.class, Map.of("submit", CompletableFuture.completedFuture(posted)), null);
+        return stub(TextChannel.class, Map.of("getIdLong", channelID, "getId", Long.toString(channelID),
+                "getGuild", guild, "sendMessageEmbeds", send), null);
+    }
+
+    /**
+     * Creates a shard manager that finds users by ID, e.g. to rehydrate their games.
+     *
+     * @param users the users it knows, by user ID
+     * @return the shard manager
+     */
+    public static ShardManager shardManager(Map<Long, User> users) {
+        ShardManager others = stub(ShardManager.class, Map.of(), null);
+        Object proxy = Proxy.newProxyInstance(ShardManager.class.getClassLoader(), new Class<?>[]{ShardManager.class},
+                (self, method, args) -> method.getName().equals("getUserById") && args[0] instanceof Long userID
+                        ? users.get(userID) : method.invoke(others, args));
+        return (ShardManager) proxy;
+    }
+
+    /**
+     * Creates a slash command event from a user.
+     *
+     * @param name     the command name
+     * @param user     the user who ran the command
+     * @param guild    the guild the command was run in
+     * @param deferred whether the command listener has deferred the reply, as it does for expensive commands
+     * @param calls    where to record how the command was answered, or null
+     * @return the event
+     */
+    public static SlashCommandInteractionEvent command(String name, User user, Guild guild, boolean deferred, List<String> calls) {
+        SlashCommandInteraction interaction = stub(SlashCommandInteraction.class, Map.of("getName", name,
+                "getUser", user, "getGuild", guild, "getIdLong", nextSnowflake(), "isAcknowledged", deferred), calls);
+        return new SlashCommandInteractionEvent(JDA_STUB, 0, interaction);
+    }
+
+    /**
+     * Creates a button press by a user.
+     *
+     * @param componentID the custom ID of the button
+     * @param user        the user who pressed the button
+     * @param guild       the guild of the button's message
+     * @param calls       where to record how the press was answered
+     * @return the event
+     */
+    public static ButtonInteractionEvent button(String componentID, User user, Guild guild, List<String> calls) {
+        ButtonInteraction interaction = stub(ButtonInteraction.class, Map.of("getComponentId", componentID,
+                "getUser", user, "getGuild", guild, "getIdLong", nextSnowflake()), calls);
+        return new ButtonInteractionEvent(JDA_STUB, 0, interaction);
+    }
+}
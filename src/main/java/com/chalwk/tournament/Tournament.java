@@ -0,0 +1,374 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.tournament;
+
+import java.util.Arrays;
+
+/**
+ * The bracket of one tournament. Players are referred to by their index in join order, which is also their seed,
+ * and all bracket state is kept in primitive arrays indexed by player or by match, so that even a tournament of
+ * thousands of players only takes a few arrays of ints.
+ * <p>
+ * Only the current round's matches are kept. A match between {@code first} and a missing second player is a bye.
+ * Wins are worth two points and draws one; in single elimination, a draw sends the higher seed through.
+ */
+public class Tournament {
+
+    public static final byte PENDING = 0;
+    public static final byte FIRST_WON = 1;
+    public static final byte SECOND_WON = 2;
+    public static final byte DRAW = 3;
+
+    /**
+     * The player index of the missing opponent in a bye.
+     */
+    public static final int BYE = -1;
+
+    private final long tournamentID;
+    private final TournamentFormat format;
+    private final long guildID;
+    private final long hostID;
+    private final int maxPlayers;
+
+    private long[] playerIDs = new long[16];
+    private int playerCount;
+    private int[] points;
+
+    private int round = -1;
+    private int totalRounds;
+    private int[] first;
+    private int[] second;
+    private byte[] results;
+    private int matchCount;
+    private int pendingMatches;
+
+    private int[] alive;
+    private int aliveCount;
+    private int[] opponents;
+    private int winner = BYE;
+    private String messageID;
+
+    /**
+     * Creates a tournament that players can join.
+     *
+     * @param tournamentID the tournament ID
+     * @param format       the format of the tournament
+     * @param guildID      the ID of the guild the tournament is played in
+     * @param hostID       the user ID of the player who created the tournament
+     * @param maxPlayers   the most players that can join
+     */
+    public Tournament(long tournamentID, TournamentFormat format, long guildID, long hostID, int maxPlayers) {
+        this.tournamentID = tournamentID;
+        this.format = format;
+        this.guildID = guildID;
+        this.hostID = hostID;
+        this.maxPlayers = maxPlayers;
+    }
+
+    private static int log2Ceil(int n) {
+        return n <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(n - 1);
+    }
+
+    /**
+     * Adds a player before the tournament starts.
+     *
+     * @param userID the player's user ID
+     * @return true if the player joined, false if they already had, the tournament is full, or it has started
+     */
+    public synchronized boolean addPlayer(long userID) {
+        if (isStarted() || playerCount >= maxPlayers || indexOf(userID) >= 0) {
+            return false;
+        }
+        if (playerCount == playerIDs.length) {
+            playerIDs = Arrays.copyOf(playerIDs, Math.min(maxPlayers, playerIDs.length * 2));
+        }
+        playerIDs[playerCount++] = userID;
+        return true;
+    }
+
+    /**
+     * Starts the tournament and pairs the first round.
+     *
+     * @return true if the tournament started, false if it already had or has fewer than two players
+     */
+    public synchronized boolean start() {
+        if (isStarted() || playerCount < 2) {
+            return false;
+        }
+        playerIDs = Arrays.copyOf(playerIDs, playerCount);
+        points = new int[playerCount];
+        int maxMatches = (playerCount + 1) / 2;
+        first = new int[maxMatches];
+        second = new int[maxMatches];
+        results = new byte[maxMatches];
+
+        switch (format) {
+            case SINGLE_ELIMINATION -> {
+                totalRounds = log2Ceil(playerCount);
+                alive = new int[playerCount];
+                for (int i = 0; i < playerCount; i++) {
+                    alive[i] = i;
+                }
+                aliveCount = playerCount;
+            }
+            case SWISS -> {
+                totalRounds = Math.min(log2Ceil(playerCount), playerCount - 1);
+                opponents = new int[playerCount * totalRounds];
+                Arrays.fill(opponents, BYE);
+            }
+            case ROUND_ROBIN -> totalRounds = playerCount % 2 == 0 ? playerCount - 1 : playerCount;
+        }
+        nextRound();
+        return true;
+    }
+
+    /**
+     * Records the result of a match of the current round, and pairs the next round once every match is decided.
+     *
+     * @param match  the index of the match in the current round
+     * @param result {@link #FIRST_WON}, {@link #SECOND_WON} or {@link #DRAW}
+     * @return true if the result completed the round, false otherwise or if the match was already decided
+     */
+    public synchronized boolean recordResult(int match, byte result) {
+        if (match >= matchCount || results[match] != PENDING || isFinished()) {
+            return false;
+        }
+        decide(match, result);
+        if (pendingMatches > 0) {
+            return false;
+        }
+        advance();
+        return true;
+    }
+
+    private void decide(int match, byte result) {
+        results[match] = result;
+        pendingMatches--;
+        int a = first[match];
+        int b = second[match];
+        if (b == BYE) {
+            if (format == TournamentFormat.SWISS) points[a] += 2;
+            return;
+        }
+        switch (result) {
+            case FIRST_WON -> points[a] += 2;
+            case SECOND_WON -> points[b] += 2;
+            default -> {
+                points[a]++;
+                points[b]++;
+            }
+        }
+    }
+
+    private void advance() {
+        if (format == TournamentFormat.SINGLE_ELIMINATION) {
+            aliveCount = 0;
+            for (int i = 0; i < matchCount; i++) {
+                alive[aliveCount++] = results[i] == SECOND_WON ? second[i] : first[i];
+            }
+            if (aliveCount == 1) {
+                winner = alive[0];
+                return;
+            }
+        } else if (round + 1 == totalRounds) {
+            winner = 0;
+            for (int i = 1; i < playerCount; i++) {
+                if (points[i] > points[winner]) winner = i;
+            }
+            return;
+        }
+        nextRound();
+    }
+
+    private void nextRound() {
+        round++;
+        matchCount = 0;
+        switch (format) {
+            case SINGLE_ELIMINATION -> pairElimination();
+            case SWISS -> pairSwiss();
+            case ROUND_ROBIN -> pairRoundRobin();
+        }
+        Arrays.fill(results, 0, matchCount, PENDING);
+        pendingMatches = matchCount;
+        for (int i = 0; i < matchCount; i++) {
+            if (second[i] == BYE) decide(i, FIRST_WON);
+        }
+        if (pendingMatches == 0) {
+            advance();
+        }
+    }
+
+    private void addMatch(int a, int b) {
+        first[matchCount] = a;
+        second[matchCount] = b;
+        matchCount++;
+        if (opponents != null && b != BYE) {
+            opponents[a * totalRounds + round] = b;
+            opponents[b * totalRounds + round] = a;
+        }
+    }
+
+    private void pairElimination() {
+        int half = aliveCount / 2;
+        for (int i = 0; i < half; i++) {
+            addMatch(alive[i], alive[aliveCount - 1 - i]);
+        }
+        if (aliveCount % 2 == 1) {
+            addMatch(alive[half], BYE);
+        }
+    }
+
+    private void pairRoundRobin() {
+        int size = playerCount % 2 == 0 ? playerCount : playerCount + 1;
+        for (int i = 0; i < size / 2; i++) {
+            int a = circlePosition(i, size);
+            int b = circlePosition(size - 1 - i, size);
+            if (a >= playerCount) {
+                addMatch(b, BYE);
+            } else if (b >= playerCount) {
+                addMatch(a, BYE);
+            } else {
+                addMatch(Math.min(a, b), Math.max(a, b));
+            }
+        }
+    }
+
+    private int circlePosition(int slot, int size) {
+        return slot == 0 ? 0 : 1 + (slot - 1 + round) % (size - 1);
+    }
+
+    private void pairSwiss() {
+        int maxPoints = 2 * totalRounds;
+        long[] order = new long[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            order[i] = ((long) (maxPoints - points[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        boolean[] paired = new boolean[playerCount];
+        for (int a = 0; a < playerCount; a++) {
+            int player = (int) order[a];
+            if (paired[player]) continue;
+            paired[player] = true;
+
+            int opponent = BYE;
+            int fallback = BYE;
+            for (int b = a + 1; b < playerCount; b++) {
+                int candidate = (int) order[b];
+                if (paired[candidate]) continue;
+                if (fallback == BYE) fallback = candidate;
+                if (!havePlayed(player, candidate)) {
+                    opponent = candidate;
+                    break;
+                }
+            }
+            if (opponent == BYE) opponent = fallback;
+            if (opponent != BYE) paired[opponent] = true;
+            addMatch(player, opponent);
+        }
+    }
+
+    private boolean havePlayed(int a, int b) {
+        int base = a * totalRounds;
+        for (int r = 0; r < round; r++) {
+            if (opponents[base + r] == b) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the index of a player.
+     *
+     * @param userID the player's user ID
+     * @return the player index, or -1 if the player has not joined
+     */
+    public synchronized int indexOf(long userID) {
+        for (int i = 0; i < playerCount; i++) {
+            if (playerIDs[i] == userID) return i;
+        }
+        return -1;
+    }
+
+    public long getTournamentID() {
+        return tournamentID;
+    }
+
+    public TournamentFormat getFormat() {
+        return format;
+    }
+
+    public long getGuildID() {
+        return guildID;
+    }
+
+    public long getHostID() {
+        return hostID;
+    }
+
+    public synchronized int getPlayerCount() {
+        return playerCount;
+    }
+
+    public synchronized long getPlayerID(int player) {
+        return playerIDs[player];
+    }
+
+    public synchronized int getPoints(int player) {
+        return points == null ? 0 : points[player];
+    }
+
+    public synchronized boolean isStarted() {
+        return round >= 0;
+    }
+
+    public synchronized boolean isFinished() {
+        return winner != BYE;
+    }
+
+    /**
+     * Gets the winner of the tournament.
+     *
+     * @return the winner's user ID, or 0 if the tournament has not finished
+     */
+    public synchronized long getWinnerID() {
+        return winner == BYE ? 0 : playerIDs[winner];
+    }
+
+    /**
+     * Gets the current round.
+     *
+     * @return the zero-based round index, or -1 before the tournament starts
+     */
+    public synchronized int getRound() {
+        return round;
+    }
+
+    public synchronized int getTotalRounds() {
+        return totalRounds;
+    }
+
+    public synchronized int getMatchCount() {
+        return matchCount;
+    }
+
+    public synchronized int getFirst(int match) {
+        return first[match];
+    }
+
+    public synchronized int getSecond(int match) {
+        return second[match];
+    }
+
+    public synchronized byte getResult(int match) {
+        return results[match];
+    }
+
+    public String getMessageID() {
+        return messageID;
+    }
+
+    public void setMessageID(String messageID) {
+        this.messageID = messageID;
+    }
+}
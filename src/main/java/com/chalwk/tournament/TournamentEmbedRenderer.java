@@ -0,0 +1,137 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.tournament;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Renders the embed of a tournament. The line of each match in the current round is cached and only rebuilt when
+ * that match is decided, and the standings are only rebuilt when a round ends, so updating the embed after a game
+ * costs one line rather than the whole bracket.
+ * <p>
+ * Locks are always taken in the same order: the tournament first, then the renderer. {@link TournamentManager}
+ * invalidates a match while holding the tournament, so rendering takes the tournament before its own lock too.
+ */
+public class TournamentEmbedRenderer {
+
+    private static final int STANDINGS_SHOWN = 10;
+
+    private final Tournament tournament;
+    private final String title;
+    private String[] matchLines = new String[0];
+    private int renderedRound = -1;
+    private String standings = "";
+
+    /**
+     * Creates a renderer for a tournament.
+     *
+     * @param tournament the tournament
+     */
+    public TournamentEmbedRenderer(Tournament tournament) {
+        this.tournament = tournament;
+        this.title = "\uD83C\uDFC6 Tournament #" + tournament.getTournamentID() + " - " + tournament.getFormat().getDisplayName();
+    }
+
+    private static String mention(long userID) {
+        return "<@" + userID + ">";
+    }
+
+    /**
+     * Marks a match of the current round as changed.
+     *
+     * @param match the index of the match
+     */
+    public synchronized void invalidateMatch(int match) {
+        if (match < matchLines.length) {
+            matchLines[match] = null;
+        }
+    }
+
+    /**
+     * Renders the tournament embed from a consistent view of the bracket.
+     *
+     * @return the tournament embed
+     */
+    public MessageEmbed render() {
+        synchronized (tournament) {
+            synchronized (this) {
+                return renderLocked();
+            }
+        }
+    }
+
+    private MessageEmbed renderLocked() {
+        EmbedBuilder embed = new EmbedBuilder().setTitle(title).setColor(Color.ORANGE);
+        if (!tournament.isStarted()) {
+            return embed.setDescription(tournament.getPlayerCount() + " players have joined.")
+                    .setFooter("Use /tournament join to take part.").build();
+        }
+        if (tournament.isFinished()) {
+            return embed.setDescription("\uD83E\uDD47 " + mention(tournament.getWinnerID()) + " won the tournament!")
+                    .addField("Standings: ", rebuildStandings(), false).build();
+        }
+
+        int round = tournament.getRound();
+        if (round != renderedRound) {
+            matchLines = new String[tournament.getMatchCount()];
+            standings = rebuildStandings();
+            renderedRound = round;
+        }
+
+        StringBuilder description = new StringBuilder();
+        description.append("**Round ").append(round + 1).append('/').append(tournament.getTotalRounds()).append("**\n");
+        for (int i = 0; i < matchLines.length; i++) {
+            if (matchLines[i] == null) {
+                matchLines[i] = matchLine(i);
+            }
+            if (description.length() + matchLines[i].length() > MessageEmbed.DESCRIPTION_MAX_LENGTH - 32) {
+                description.append("... and ").append(matchLines.length - i).append(" more matches");
+                break;
+            }
+            description.append(matchLines[i]);
+        }
+        embed.setDescription(description);
+        if (tournament.getFormat() != TournamentFormat.SINGLE_ELIMINATION) {
+            embed.addField("Standings: ", standings, false);
+        }
+        return embed.build();
+    }
+
+    private String matchLine(int match) {
+        int first = tournament.getFirst(match);
+        int second = tournament.getSecond(match);
+        String firstPlayer = mention(tournament.getPlayerID(first));
+        if (second == Tournament.BYE) {
+            return firstPlayer + " has a bye\n";
+        }
+        String secondPlayer = mention(tournament.getPlayerID(second));
+        return switch (tournament.getResult(match)) {
+            case Tournament.FIRST_WON -> "**" + firstPlayer + "** beat " + secondPlayer + "\n";
+            case Tournament.SECOND_WON -> "**" + secondPlayer + "** beat " + firstPlayer + "\n";
+            case Tournament.DRAW -> firstPlayer + " drew with " + secondPlayer + "\n";
+            default -> firstPlayer + " VS " + secondPlayer + "\n";
+        };
+    }
+
+    private String rebuildStandings() {
+        int players = tournament.getPlayerCount();
+        long[] order = new long[players];
+        for (int i = 0; i < players; i++) {
+            order[i] = ((long) -tournament.getPoints(i) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < Math.min(STANDINGS_SHOWN, players); i++) {
+            int player = (int) order[i];
+            lines.append("**#").append(i + 1).append("** ").append(mention(tournament.getPlayerID(player)))
+                    .append(" - ").append(tournament.getPoints(player) / 2.0).append(" points\n");
+        }
+        return lines.toString();
+    }
+}
@@ -0,0 +1,40 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.tournament;
+
+/**
+ * The formats a tournament can be played in.
+ */
+public enum TournamentFormat {
+
+    /**
+     * Players are knocked out by their first loss; the remaining players are reseeded every round.
+     */
+    SINGLE_ELIMINATION("Single elimination"),
+
+    /**
+     * Players with equal scores are paired each round, avoiding rematches, for a logarithmic number of rounds.
+     */
+    SWISS("Swiss"),
+
+    /**
+     * Every player plays every other player once.
+     */
+    ROUND_ROBIN("Round robin");
+
+    private final String displayName;
+
+    TournamentFormat(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Gets the name of the format as shown to players.
+     *
+     * @return the display name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
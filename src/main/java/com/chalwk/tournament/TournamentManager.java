@@ -0,0 +1,241 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.tournament;
+
+import com.chalwk.game.Game;
+import com.chalwk.game.GameEndListener;
+import com.chalwk.game.GameManager;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.RestQueue;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the tournaments of every guild, one at a time per guild. When a round is paired, all of its games are
+ * started together in the game channel; as each game ends, its result is fed into the bracket and the tournament
+ * embed is updated, and the next round starts as soon as the last game of the round has ended.
+ * <p>
+ * A player who is already playing another game when their tournament match starts forfeits the match.
+ */
+public class TournamentManager implements GameEndListener {
+
+    private final GameManager gameManager;
+    private final Map<Long, Running> tournaments = new ConcurrentHashMap<>();
+    private final Map<Long, Match> matchesByGame = new ConcurrentHashMap<>();
+    private final AtomicLong nextTournamentID = new AtomicLong(1);
+
+    /**
+     * Creates the tournament manager and subscribes it to game results.
+     *
+     * @param gameManager the game manager running the tournament games
+     */
+    public TournamentManager(GameManager gameManager) {
+        this.gameManager = gameManager;
+        gameManager.addGameEndListener(this);
+    }
+
+    /**
+     * Creates a tournament in a guild and posts its embed in the game channel.
+     *
+     * @param guildID the guild ID
+     * @param format  the format of the tournament
+     * @param host    the player creating the tournament, who joins it straight away
+     * @return the tournament, or null if the guild already has a tournament
+     */
+    public Tournament create(long guildID, TournamentFormat format, User host) {
+        Tournament tournament = new Tournament(nextTournamentID.getAndIncrement(), format, guildID, host.getIdLong(),
+                settings.getTournamentMaxPlayers());
+        Running running = new Running(tournament);
+        if (tournaments.putIfAbsent(guildID, running) != null) {
+            return null;
+        }
+        tournament.addPlayer(host.getIdLong());
+
+        TextChannel channel = GameManager.getGameChannel(guildID);
+        if (channel != null) {
+            RestQueue.queue(RestQueue.Lane.GAME_STATE, channel.getIdLong(), channel.sendMessageEmbeds(running.renderer.render()),
+                    message -> tournament.setMessageID(message.getId()));
+        }
+        return tournament;
+    }
+
+    /**
+     * Gets the tournament of a guild.
+     *
+     * @param guildID the guild ID
+     * @return the tournament, or null if the guild has none
+     */
+    public Tournament getTournament(long guildID) {
+        Running running = tournaments.get(guildID);
+        return running == null ? null : running.tournament;
+    }
+
+    /**
+     * Adds a player to the tournament of a guild.
+     *
+     * @param guildID the guild ID
+     * @param player  the player joining
+     * @return true if the player joined, false otherwise
+     */
+    public boolean join(long guildID, User player) {
+        Running running = tournaments.get(guildID);
+        if (running == null || !running.tournament.addPlayer(player.getIdLong())) {
+            return false;
+        }
+        updateEmbed(running);
+        return true;
+    }
+
+    /**
+     * Starts the tournament of a guild and its first round.
+     *
+     * @param guildID the guild ID
+     * @return true if the tournament started, false otherwise
+     */
+    public boolean start(long guildID) {
+        Running running = tournaments.get(guildID);
+        if (running == null || !running.tournament.start()) {
+            return false;
+        }
+        Logger.info("Tournament #" + running.tournament.getTournamentID() + " started with "
+                + running.tournament.getPlayerCount() + " players");
+        startRound(running);
+        return true;
+    }
+
+    /**
+     * Starts every game of the current round at once. The players are looked up together, then each match gets
+     * its own game in the game channel.
+     *
+     * @param running the tournament
+     */
+    private void startRound(Running running) {
+        updateEmbed(running);
+        Tournament tournament = running.tournament;
+        if (tournament.isFinished()) {
+            finish(running);
+            return;
+        }
+        TextChannel channel = GameManager.getGameChannel(tournament.getGuildID());
+        if (channel == null) {
+            Logger.warning("Tournament #" + tournament.getTournamentID() + ": game channel is not available");
+            return;
+        }
+
+        int round = tournament.getRound();
+        int matchCount = tournament.getMatchCount();
+        List<RestAction<User>> lookups = new ArrayList<>();
+        for (int match = 0; match < matchCount; match++) {
+            if (tournament.getSecond(match) == Tournament.BYE) continue;
+            lookups.add(channel.getJDA().retrieveUserById(tournament.getPlayerID(tournament.getFirst(match))));
+            lookups.add(channel.getJDA().retrieveUserById(tournament.getPlayerID(tournament.getSecond(match))));
+        }
+        if (lookups.isEmpty()) {
+            return;
+        }
+        RestAction.allOf(lookups).queue(users -> {
+            int next = 0;
+            for (int match = 0; match < matchCount; match++) {
+                if (tournament.getSecond(match) == Tournament.BYE) continue;
+                startMatch(running, round, match, users.get(next++), users.get(next++), channel);
+            }
+        }, failure -> Logger.warning("Tournament #" + tournament.getTournamentID() + ": failed to look up players: "
+                + failure.getMessage()));
+    }
+
+    /**
+     * Starts the game of a match. A player who is busy in another game forfeits the match.
+     */
+    private void startMatch(Running running, int round, int match, User first, User second, TextChannel channel) {
+        while (true) {
+            Game game = gameManager.createGameIfFree(first, second, channel);
+            if (game != null) {
+                matchesByGame.put(game.getGameID(), new Match(running, round, match));
+                return;
+            }
+            boolean firstBusy = gameManager.isInGame(first);
+            boolean secondBusy = gameManager.isInGame(second);
+            if (firstBusy || secondBusy) {
+                byte result = firstBusy && secondBusy ? Tournament.DRAW : firstBusy ? Tournament.SECOND_WON : Tournament.FIRST_WON;
+                recordResult(running, round, match, result);
+                return;
+            }
+            // the busy player's game ended just now, so try again
+        }
+    }
+
+    /**
+     * Feeds the result of a tournament game into its bracket.
+     *
+     * @param game   the game that ended
+     * @param winner the player who won, or null for a draw
+     */
+    @Override
+    public void onGameEnd(Game game, User winner) {
+        Match match = matchesByGame.remove(game.getGameID());
+        if (match == null) {
+            return;
+        }
+        byte result = winner == null ? Tournament.DRAW
+                : winner.equals(game.getInvitingPlayer()) ? Tournament.FIRST_WON : Tournament.SECOND_WON;
+        recordResult(match.running, match.round, match.match, result);
+    }
+
+    private void recordResult(Running running, int round, int match, byte result) {
+        Tournament tournament = running.tournament;
+        boolean roundComplete;
+        synchronized (tournament) {
+            if (tournament.getRound() != round) {
+                return;
+            }
+            running.renderer.invalidateMatch(match);
+            roundComplete = tournament.recordResult(match, result);
+        }
+        if (roundComplete) {
+            startRound(running);
+        } else {
+            updateEmbed(running);
+        }
+    }
+
+    private void finish(Running running) {
+        Tournament tournament = running.tournament;
+        tournaments.remove(tournament.getGuildID(), running);
+        Logger.info("Tournament #" + tournament.getTournamentID() + " won by " + tournament.getWinnerID());
+    }
+
+    private void updateEmbed(Running running) {
+        String messageID = running.tournament.getMessageID();
+        TextChannel channel = GameManager.getGameChannel(running.tournament.getGuildID());
+        if (messageID == null || channel == null) {
+            return;
+        }
+        RestQueue.edit(channel.getIdLong(), messageID, channel.editMessageEmbedsById(messageID, running.renderer.render()));
+    }
+
+    /**
+     * A tournament with the renderer of its embed.
+     */
+    private static final class Running {
+        private final Tournament tournament;
+        private final TournamentEmbedRenderer renderer;
+
+        private Running(Tournament tournament) {
+            this.tournament = tournament;
+            this.renderer = new TournamentEmbedRenderer(tournament);
+        }
+    }
+
+    /**
+     * The tournament match a game is played for.
+     */
+    private record Match(Running running, int round, int match) {
+    }
+}
@@ -0,0 +1,128 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the snowflake IDs of recently handled messages and interactions, so that an event delivered twice, e.g.
+ * replayed by the gateway after a shard resumes, is only handled once.
+ * <p>
+ * IDs are kept in a ring of time buckets, each a fixed-size open-addressed set of longs, and filed by the creation
+ * time encoded in the snowflake itself. The newest bucket seen moves the ring forward and clears the bucket it
+ * reuses, so memory never grows and nothing is allocated per event. An ID older than the whole ring is treated as a
+ * duplicate: it can no longer be told apart from one, and anything that old is not worth acting on. A bucket that
+ * fills up lets further IDs through rather than dropping real events.
+ */
+public class DuplicateFilter {
+
+    private static final int DISCORD_TIMESTAMP_SHIFT = 22;
+    private static final long EMPTY = 0; // snowflakes are never 0
+
+    private final long bucketMillis;
+    private final long[][] buckets;
+    private final long[] bucketEpochs;
+    private final int[] bucketSizes;
+    private final int maxBucketSize;
+    private final int mask;
+    private long newestEpoch = Long.MIN_VALUE;
+
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param bucketMillis   the span of creation times each bucket covers, in milliseconds
+     * @param bucketCount    the number of buckets; IDs are remembered for bucketMillis times this
+     * @param bucketCapacity the number of IDs each bucket can hold, rounded up to a power of two
+     */
+    public DuplicateFilter(long bucketMillis, int bucketCount, int bucketCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(bucketCapacity - 1, 1)) << 1;
+        this.bucketMillis = bucketMillis;
+        this.buckets = new long[bucketCount][capacity];
+        this.bucketEpochs = new long[bucketCount];
+        this.bucketSizes = new int[bucketCount];
+        this.maxBucketSize = capacity / 4 * 3;
+        this.mask = capacity - 1;
+        Arrays.fill(bucketEpochs, Long.MIN_VALUE);
+    }
+
+    /**
+     * Gets the filter shared by every event listener.
+     *
+     * @return the shared filter
+     */
+    public static DuplicateFilter shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Records a message or interaction ID and tells whether it is seen for the first time.
+     *
+     * @param snowflake the ID of the message or interaction
+     * @return true if the event should be handled, false if it is a duplicate or too old to tell
+     */
+    public boolean firstDelivery(long snowflake) {
+        long epoch = (snowflake >>> DISCORD_TIMESTAMP_SHIFT) / bucketMillis;
+        synchronized (this) {
+            if (epoch > newestEpoch) {
+                newestEpoch = epoch;
+            } else if (epoch <= newestEpoch - buckets.length) {
+                stale.incrementAndGet();
+                return false;
+            }
+            int index = (int) Math.floorMod(epoch, (long) buckets.length);
+            long[] bucket = buckets[index];
+            if (bucketEpochs[index] != epoch) {
+                Arrays.fill(bucket, EMPTY);
+                bucketEpochs[index] = epoch;
+                bucketSizes[index] = 0;
+            }
+
+            int slot = hash(snowflake);
+            while (bucket[slot] != EMPTY) {
+                if (bucket[slot] == snowflake) {
+                    duplicates.incrementAndGet();
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (bucketSizes[index] < maxBucketSize) {
+                bucket[slot] = snowflake;
+                bucketSizes[index]++;
+            } else {
+                overflows.incrementAndGet();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Describes how many events the filter has dropped or let through unrecorded.
+     *
+     * @return the counts, one line
+     */
+    public String getMetrics() {
+        return String.format("%,d duplicates dropped, %,d too old to check, %,d let through by full buckets; "
+                        + "remembers %d s of events", duplicates.get(), stale.get(), overflows.get(),
+                TimeUnit.MILLISECONDS.toSeconds(bucketMillis * buckets.length));
+    }
+
+    private int hash(long snowflake) {
+        long h = snowflake * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Holds the shared filter, created on first use.
+     */
+    private static final class Holder {
+        private static final DuplicateFilter SHARED = new DuplicateFilter(settings.getDedupeBucketSeconds() * 1000L,
+                settings.getDedupeBuckets(), settings.getDedupeBucketCapacity());
+    }
+}
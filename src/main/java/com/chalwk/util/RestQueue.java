@@ -0,0 +1,338 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.util;
+
+import com.chalwk.diagnostics.InteractionTracer;
+import com.chalwk.diagnostics.RestQueueEvent;
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Queues the bot's outbound REST actions (interaction replies, embed edits, message deletes, notices) in priority
+ * lanes and keeps track of the ones still in flight, so that they can be flushed before the bot shuts down.
+ * <p>
+ * Interaction acknowledgements are submitted straight away, since they have their own rate limit and must arrive
+ * within seconds. Every other action is held per channel and only a few are handed to JDA at a time; whenever one
+ * finishes, the next comes from the highest priority lane, so a backlog of deletes never delays a game embed edit.
+ * An embed edit that is still waiting when a newer edit of the same message arrives is replaced by the newer one.
+ */
+public class RestQueue {
+
+    private static final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    private static final Map<Long, ChannelQueue> channels = new ConcurrentHashMap<>();
+    private static final AtomicInteger[] depths = new AtomicInteger[Lane.values().length];
+    private static final AtomicLong superseded = new AtomicLong();
+
+    static {
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = new AtomicInteger();
+        }
+    }
+
+    private RestQueue() {
+    }
+
+    /**
+     * Submits an interaction acknowledgement straight away.
+     *
+     * @param action the reply or deferral to submit
+     */
+    public static void ack(RestAction<?> action) {
+        Entry entry = new Entry(Lane.ACK, 0, action, null);
+        depths[Lane.ACK.ordinal()].incrementAndGet();
+        pending.add(entry.done);
+        if (entry.trace != null) {
+            entry.trace.restQueued();
+        }
+        submit(entry, null);
+    }
+
+    /**
+     * Queues a REST action in a lane of a channel.
+     *
+     * @param lane      the priority lane
+     * @param channelID the ID of the channel the action targets
+     * @param action    the action to queue
+     */
+    public static void queue(Lane lane, long channelID, RestAction<?> action) {
+        queue(lane, channelID, action, null);
+    }
+
+    /**
+     * Queues a REST action in a lane of a channel and calls back with its result.
+     *
+     * @param lane      the priority lane
+     * @param channelID the ID of the channel the action targets
+     * @param action    the action to queue
+     * @param onSuccess called with the result once the action succeeds, or null
+     * @param <T>       the result type of the action
+     */
+    public static <T> void queue(Lane lane, long channelID, RestAction<T> action, Consumer<? super T> onSuccess) {
+        if (lane == Lane.ACK) {
+            throw new IllegalArgumentException("Interaction acknowledgements are submitted with ack()");
+        }
+        Entry entry = new Entry(lane, channelID, action, onSuccess);
+        channels.computeIfAbsent(channelID, k -> new ChannelQueue()).enqueue(entry, null);
+    }
+
+    /**
+     * Queues an edit of a game message. If an earlier edit of the same message is still waiting, it is dropped and
+     * this edit takes its place in the queue.
+     *
+     * @param channelID the ID of the channel of the message
+     * @param messageID the ID of the message to edit
+     * @param action    the edit action
+     */
+    public static void edit(long channelID, String messageID, RestAction<?> action) {
+        edit(Lane.GAME_STATE, channelID, messageID, action);
+    }
+
+    /**
+     * Queues an edit of a message in a lane. If an earlier edit of the same message is still waiting, it is dropped
+     * and this edit takes its place in the queue.
+     *
+     * @param lane      the priority lane
+     * @param channelID the ID of the channel of the message
+     * @param messageID the ID of the message to edit
+     * @param action    the edit action
+     */
+    public static void edit(Lane lane, long channelID, String messageID, RestAction<?> action) {
+        if (lane == Lane.ACK) {
+            throw new IllegalArgumentException("Interaction acknowledgements are submitted with ack()");
+        }
+        Entry entry = new Entry(lane, channelID, action, null);
+        channels.computeIfAbsent(channelID, k -> new ChannelQueue()).enqueue(entry, messageID);
+    }
+
+    /**
+     * Gets the number of actions in a lane that are waiting or in flight.
+     *
+     * @param lane the lane
+     * @return the lane's depth
+     */
+    public static int getDepth(Lane lane) {
+        return depths[lane.ordinal()].get();
+    }
+
+    /**
+     * Gets the number of edits that were dropped because a newer edit of the same message replaced them.
+     *
+     * @return the number of superseded edits
+     */
+    public static long getSupersededCount() {
+        return superseded.get();
+    }
+
+    /**
+     * Gets the number of REST actions still waiting or in flight.
+     *
+     * @return the number of pending actions
+     */
+    public static int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Waits for every REST action queued so far to finish.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return true if every action finished, false if the timeout was reached first
+     */
+    public static boolean flush(long timeoutMillis) {
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            return true; // failed actions are finished too
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Hands an action to JDA and finishes its entry once it completes, recording how long it waited and ran. The
+     * entry is finished, and the channel's next action submitted, even if the success callback throws.
+     *
+     * @param entry the entry to submit
+     * @param queue the channel queue to notify when the action finishes, or null for acknowledgements
+     */
+    @SuppressWarnings("unchecked")
+    private static void submit(Entry entry, ChannelQueue queue) {
+        RestQueueEvent event = new RestQueueEvent();
+        event.begin();
+        long submittedNanos = System.nanoTime();
+        long queueNanos = submittedNanos - entry.queuedNanos;
+        CompletableFuture<Object> future;
+        try {
+            future = (CompletableFuture<Object>) entry.action.submit();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((result, failure) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.lane = entry.lane.name();
+                event.channelID = entry.channelID;
+                event.queueTime = queueNanos;
+                event.succeeded = failure == null;
+                event.commit();
+            }
+            if (entry.trace != null) {
+                entry.trace.restFinished(entry.action.getClass().getSimpleName(), entry.queuedNanos, submittedNanos,
+                        failure == null);
+            }
+            try {
+                if (failure == null && entry.onSuccess != null) {
+                    ((Consumer<Object>) entry.onSuccess).accept(result);
+                }
+            } catch (RuntimeException e) {
+                Logger.warning("REST action callback failed: " + e.getMessage());
+            } finally {
+                finish(entry);
+                if (queue != null) {
+                    queue.next();
+                }
+            }
+        });
+    }
+
+    private static void finish(Entry entry) {
+        depths[entry.lane.ordinal()].decrementAndGet();
+        pending.remove(entry.done);
+        entry.done.complete(null);
+    }
+
+    /**
+     * The priority lanes, highest priority first.
+     */
+    public enum Lane {
+        /**
+         * Replies to and deferrals of interactions.
+         */
+        ACK,
+        /**
+         * Game embed edits and game announcements players are waiting on.
+         */
+        GAME_STATE,
+        /**
+         * Copies of game embeds shown to spectators.
+         */
+        SPECTATOR,
+        /**
+         * Cosmetic work such as deleting move messages.
+         */
+        HOUSEKEEPING
+    }
+
+    /**
+     * A queued action and the callback for its result.
+     */
+    private static final class Entry {
+        private final Lane lane;
+        private final long channelID;
+        private final long queuedNanos = System.nanoTime();
+        private final InteractionTracer.Trace trace = InteractionTracer.current();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private RestAction<?> action;
+        private Consumer<?> onSuccess;
+        private String messageID;
+
+        private Entry(Lane lane, long channelID, RestAction<?> action, Consumer<?> onSuccess) {
+            this.lane = lane;
+            this.channelID = channelID;
+            this.action = action;
+            this.onSuccess = onSuccess;
+        }
+    }
+
+    /**
+     * The waiting actions of one channel, one queue per lane.
+     */
+    private static final class ChannelQueue {
+        private final ArrayDeque<Entry>[] lanes;
+        private final Map<String, Entry> waitingEdits = new HashMap<>();
+        private int inFlight;
+
+        @SuppressWarnings({"unchecked", "rawtypes"}) // an array of a generic type can only be created raw
+        private ChannelQueue() {
+            lanes = new ArrayDeque[Lane.values().length];
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new ArrayDeque<>();
+            }
+        }
+
+        private void enqueue(Entry entry, String messageID) {
+            Entry ready;
+            synchronized (this) {
+                if (messageID != null) {
+                    Entry waiting = waitingEdits.get(messageID);
+                    if (waiting != null) {
+                        waiting.action = entry.action;
+                        waiting.onSuccess = entry.onSuccess;
+                        superseded.incrementAndGet();
+                        if (entry.trace != null) {
+                            long now = System.nanoTime();
+                            entry.trace.span("edit merged into a queued edit", now, now);
+                        }
+                        return;
+                    }
+                    entry.messageID = messageID;
+                    waitingEdits.put(messageID, entry);
+                }
+                depths[entry.lane.ordinal()].incrementAndGet();
+                pending.add(entry.done);
+                if (entry.trace != null) {
+                    entry.trace.restQueued();
+                }
+                lanes[entry.lane.ordinal()].add(entry);
+                ready = poll();
+            }
+            if (ready != null) {
+                submit(ready, this);
+            }
+        }
+
+        private void next() {
+            Entry ready;
+            synchronized (this) {
+                inFlight--;
+                ready = poll();
+            }
+            if (ready != null) {
+                submit(ready, this);
+            }
+        }
+
+        /**
+         * Takes the next action to submit, if the channel has room for another action in flight.
+         *
+         * @return the next action, or null
+         */
+        private Entry poll() {
+            if (inFlight >= settings.getRestMaxInFlightPerChannel()) {
+                return null;
+            }
+            for (ArrayDeque<Entry> lane : lanes) {
+                Entry entry = lane.poll();
+                if (entry != null) {
+                    if (entry.messageID != null) {
+                        waitingEdits.remove(entry.messageID);
+                    }
+                    inFlight++;
+                    return entry;
+                }
+            }
+            return null;
+        }
+    }
+}
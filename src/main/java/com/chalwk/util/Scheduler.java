@@ -0,0 +1,80 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The source of time and delayed tasks for game logic. The bot runs on the {@link SystemScheduler}; simulations run
+ * on a {@link VirtualScheduler}, where time only moves when the simulation advances it.
+ * <p>
+ * Game code reads the current scheduler through {@link #get()} rather than calling {@link System#nanoTime()},
+ * {@link System#currentTimeMillis()} or creating its own timers.
+ */
+public interface Scheduler {
+
+    /**
+     * Gets the scheduler in use.
+     *
+     * @return the current scheduler
+     */
+    static Scheduler get() {
+        return Holder.current;
+    }
+
+    /**
+     * Replaces the scheduler in use, e.g. to run a simulation. Objects created before the switch keep the
+     * scheduler they were created with.
+     *
+     * @param scheduler the new scheduler
+     */
+    static void use(Scheduler scheduler) {
+        Holder.current = scheduler;
+    }
+
+    /**
+     * Gets the monotonic time, for measuring durations.
+     *
+     * @return the current monotonic time, in nanoseconds
+     */
+    long nanoTime();
+
+    /**
+     * Gets the wall-clock time, for timestamps.
+     *
+     * @return the current time, in epoch milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * Runs a task once after a delay.
+     *
+     * @param task  the task to run
+     * @param delay the delay
+     * @param unit  the unit of the delay
+     * @return a handle to cancel the task
+     */
+    Task schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * A scheduled task.
+     */
+    interface Task {
+
+        /**
+         * Cancels the task if it has not run yet.
+         */
+        void cancel();
+    }
+
+    /**
+     * Holds the scheduler in use.
+     */
+    final class Holder {
+        private static volatile Scheduler current = new SystemScheduler();
+
+        private Holder() {
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.util;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scheduler with virtual time, for simulations. Time stands still until the simulation advances it, at which point
+ * every task that falls due runs on the calling thread, in order of due time and then of scheduling. Because nothing
+ * runs concurrently, the same sequence of calls always produces the same result.
+ * <p>
+ * The scheduler may also be shared by threads, e.g. to let a deadline fall due while another thread is playing a
+ * move. Tasks run outside its lock, so a task may schedule or cancel other tasks and may take locks of its own.
+ */
+public class VirtualScheduler implements Scheduler {
+
+    private final PriorityQueue<VirtualTask> tasks = new PriorityQueue<>();
+    private final long epochMillis;
+    private long nowNanos;
+    private long sequence;
+
+    /**
+     * Creates a virtual scheduler.
+     *
+     * @param epochMillis the wall-clock time at virtual time zero, in epoch milliseconds
+     */
+    public VirtualScheduler(long epochMillis) {
+        this.epochMillis = epochMillis;
+    }
+
+    @Override
+    public synchronized long nanoTime() {
+        return nowNanos;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return epochMillis + TimeUnit.NANOSECONDS.toMillis(nowNanos);
+    }
+
+    @Override
+    public synchronized Task schedule(Runnable task, long delay, TimeUnit unit) {
+        VirtualTask scheduled = new VirtualTask(nowNanos + Math.max(0, unit.toNanos(delay)), sequence++, task);
+        tasks.add(scheduled);
+        return scheduled;
+    }
+
+    /**
+     * Moves time forward, running every task that falls due on the way.
+     *
+     * @param duration how far to move
+     * @param unit     the unit of the duration
+     */
+    public void advance(long duration, TimeUnit unit) {
+        long target;
+        synchronized (this) {
+            target = nowNanos + unit.toNanos(duration);
+        }
+        VirtualTask next;
+        while ((next = takeNext(target)) != null) {
+            next.task.run();
+        }
+    }
+
+    /**
+     * Moves time forward to the next task and runs it.
+     *
+     * @return true if a task ran, false if no tasks are scheduled
+     */
+    public boolean runNext() {
+        VirtualTask next = takeNext(Long.MAX_VALUE);
+        if (next == null) {
+            return false;
+        }
+        next.task.run();
+        return true;
+    }
+
+    /**
+     * Takes the next task that is due by a time and moves time forward to it, or to the time if there is none.
+     *
+     * @param limitNanos the latest due time to take a task for, or {@link Long#MAX_VALUE} to take any task without
+     *                   moving time past it
+     * @return the task, or null if none is due by the time
+     */
+    private synchronized VirtualTask takeNext(long limitNanos) {
+        VirtualTask next;
+        while ((next = tasks.peek()) != null && next.dueNanos <= limitNanos) {
+            tasks.poll();
+            if (!next.canceled) {
+                nowNanos = Math.max(nowNanos, next.dueNanos);
+                return next;
+            }
+        }
+        if (limitNanos != Long.MAX_VALUE) {
+            nowNanos = Math.max(nowNanos, limitNanos);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of scheduled tasks, including canceled ones not yet discarded.
+     *
+     * @return the number of scheduled tasks
+     */
+    public synchronized int getScheduledCount() {
+        return tasks.size();
+    }
+
+    private static final class VirtualTask implements Task, Comparable<VirtualTask> {
+        private final long dueNanos;
+        private final long sequence;
+        private final Runnable task;
+        private volatile boolean canceled;
+
+        private VirtualTask(long dueNanos, long sequence, Runnable task) {
+            this.dueNanos = dueNanos;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public int compareTo(VirtualTask other) {
+            int byTime = Long.compare(dueNanos, other.dueNanos);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
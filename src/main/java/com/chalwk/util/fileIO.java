@@ -3,93 +3,80 @@
 
 package com.chalwk.util;
 
-import com.chalwk.game.GameManager;
 import com.chalwk.util.Logging.Logger;
-import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 
 import java.io.IOException;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
 
 public class fileIO {
 
     private static final String configFile = "/config.txt";
 
     /**
-     * Loads the channel ID from the config file.
-     *
-     * @return the channel ID as a String
+     * The key of the channel ID saved by earlier versions, which kept a single channel without its guild.
      */
-    public static String loadChannelID() {
-        try (Stream<String> lines = Files.lines(Paths.get(fileIO.class.getResource(configFile).toURI()))) {
-            return lines.filter(line -> !line.trim().isEmpty())
-                    .findFirst()
-                    .map(String::trim)
-                    .orElse("");
-        } catch (IOException | URISyntaxException e) {
-            Logger.info("Failed to load Channel ID " + e.getMessage());
-            return null;
-        }
-    }
+    public static final long LEGACY_GUILD_ID = 0;
 
     /**
-     * Saves the channel ID to the config file.
+     * Loads the game channel of every guild from the config file. Each line holds a guild ID and a channel ID; a
+     * line with only a channel ID, as saved by earlier versions, is loaded under {@link #LEGACY_GUILD_ID}.
      *
-     * @param channelID      the channel ID to save
-     * @param isAddOperation true if the operation is to add the channel ID, false if it is to remove it
-     * @param event          the event that triggered the save operation
-     * @param gameManager    the game manager to update
+     * @return the channel IDs by guild ID
      */
-    public static void saveChannelID(String channelID, boolean isAddOperation, SlashCommandInteractionEvent event, GameManager gameManager) {
+    public static Map<Long, String> loadChannelIDs() {
+        Map<Long, String> channelIDs = new HashMap<>();
         try {
-            URI fileUri = fileIO.class.getResource(configFile).toURI();
-            Path filePath = Paths.get(fileUri);
-            List<String> lines = Files.readAllLines(filePath);
-
-            if (isAddOperation) {
-                lines.add(channelID);
-                event.reply("## Channel ID saved!").setEphemeral(true).queue();
-                gameManager.setChannelID(channelID);
-            } else {
-                lines.removeIf(line -> line.trim().equals(channelID));
-                event.reply("## Channel ID removed!").setEphemeral(true).queue();
-                gameManager.setChannelID("");
+            for (String line : Files.readAllLines(getConfigPath())) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length == 2) {
+                    channelIDs.put(Long.parseLong(fields[0]), fields[1]);
+                } else if (fields.length == 1 && !fields[0].isEmpty()) {
+                    channelIDs.putIfAbsent(LEGACY_GUILD_ID, fields[0]);
+                }
             }
-
-            Files.writeString(filePath, String.join("\n", lines));
-        } catch (URISyntaxException e) {
-            Logger.info("Failed to parse file URI: " + e.getMessage());
-            event.reply("## Failed to read data from the config file!").setEphemeral(true).queue();
-        } catch (IOException e) {
-            Logger.info("Failed to read data: " + e.getMessage());
-            event.reply("## Failed to save channel ID!").setEphemeral(true).queue();
+        } catch (IOException | URISyntaxException | NumberFormatException e) {
+            Logger.info("Failed to load Channel IDs " + e.getMessage());
         }
+        return channelIDs;
     }
 
     /**
-     * Checks if the channel ID is configured in the config file.
+     * Saves the game channel of a guild to the config file, replacing the guild's line and a legacy line naming the
+     * same channel. The lines of other guilds are read again first, so that other processes sharing the file keep
+     * theirs.
      *
-     * @param channelID the channel ID to check
-     * @return true if the channel ID is configured, false otherwise
+     * @param guildID   the guild ID
+     * @param channelID the channel ID, or an empty string to remove the guild's channel
+     * @throws IOException if the config file cannot be read or written
      */
-    public static boolean isChannelIdConfigured(String channelID) {
-
-        if (channelID == null) {
-            return false;
-        } else if (!GameManager.getChannelID().isEmpty()) {
-            return true;
+    public static void saveChannelID(long guildID, String channelID) throws IOException {
+        try {
+            Path filePath = getConfigPath();
+            List<String> lines = new ArrayList<>();
+            String guildPrefix = guildID + " ";
+            for (String line : Files.readAllLines(filePath)) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith(guildPrefix) && !trimmed.equals(channelID)) {
+                    lines.add(trimmed); // another guild's line, or a legacy line not taken over by this guild
+                }
+            }
+            if (!channelID.isEmpty()) {
+                lines.add(guildID + " " + channelID);
+            }
+            Files.writeString(filePath, String.join("\n", lines));
+        } catch (URISyntaxException e) {
+            throw new IOException("Failed to parse file URI: " + e.getMessage(), e);
         }
+    }
 
-        try (Stream<String> lines = Files.lines(Paths.get(fileIO.class.getResource(configFile).toURI()))) {
-            return lines.anyMatch(line -> line.trim().equals(channelID));
-        } catch (IOException | URISyntaxException e) {
-            Logger.info("Failed to read data: " + e.getMessage());
-            return false;
-        }
+    private static Path getConfigPath() throws URISyntaxException {
+        return Paths.get(fileIO.class.getResource(configFile).toURI());
     }
 }
@@ -3,6 +3,7 @@
 
 package com.chalwk.util;
 
+import com.chalwk.CommandManager.CommandReply;
 import com.chalwk.game.GameManager;
 import net.dv8tion.jda.api.entities.channel.Channel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
@@ -10,29 +11,269 @@ import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEve
 public class settings {
 
     public static final int DEFAULT_TIME_LIMIT = 300;
+    public static final int CLOCK_INCREMENT_SECONDS = 5;
+    public static final int INVITE_EXPIRY_SECONDS = 120;
+    public static final int MAX_INVITES_PER_PLAYER = 3;
+    public static final int DEFAULT_RATING = 1500;
+    public static final int RATING_K_FACTOR = 32;
+    public static final int MATCHMAKING_TICK_MILLIS = 1000;
+    public static final int MATCHMAKING_BASE_BAND = 50;
+    public static final int MATCHMAKING_BAND_GROWTH = 10;
+    public static final int MATCHMAKING_MAX_BAND = 400;
+    public static final String ARCHIVE_DIRECTORY = "archive";
+    public static final long ARCHIVE_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final int ARCHIVE_INDEX_INTERVAL = 64;
+    public static final int REPLAY_MOVE_DELAY_MILLIS = 1500;
+    public static final int MAX_CONCURRENT_REPLAYS = 16;
+    public static final String STATE_DIRECTORY = "state";
+    public static final int DRAIN_TIMEOUT_SECONDS = 15;
+    public static final int REST_MAX_IN_FLIGHT_PER_CHANNEL = 2;
+    public static final int NIM_PILE_SIZE = 21;
+    public static final int NIM_MAX_TAKE = 3;
+    public static final boolean MESSAGE_MOVES_ENABLED = false;
+    public static final int MAX_SPECTATORS_PER_GAME = 25;
+    public static final int TOURNAMENT_MAX_PLAYERS = 4096;
+    public static final int BOT_MOVE_BUDGET_MILLIS = 1000;
+    public static final int BOT_SEARCH_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int BOT_TABLE_SIZE = 1 << 16;
+    public static final boolean JFR_RECORDING_ENABLED = true;
+    public static final String JFR_RECORDING_FILE = "recordings/bot.jfr";
+    public static final int JFR_MAX_AGE_MINUTES = 60;
+    public static final int TRACE_BUFFER_SIZE = 512;
+    public static final double TRACE_SAMPLE_RATE = 0.05;
+    public static final int TRACE_SLOW_THRESHOLD_MILLIS = 1500;
+    public static final int COMMAND_WORKER_THREADS = 4;
+    public static final String PROFILE_DIRECTORY = "profiles";
+    public static final int PROFILE_CACHE_SIZE = 100_000;
+    public static final int PROFILE_MAX_PENDING = 50_000;
+    public static final int PROFILE_FLUSH_INTERVAL_MILLIS = 2000;
+    public static final int DEDUPE_BUCKET_SECONDS = 10;
+    public static final int DEDUPE_BUCKETS = 32;
+    public static final int DEDUPE_BUCKET_CAPACITY = 1 << 14;
+    public static final int EVENT_BUS_THREADS = 2;
+    public static final int EVENT_BUFFER_SIZE = 1024;
+    public static final boolean GAME_EVENT_LOG_ENABLED = false;
+    public static final int HIBERNATE_IDLE_SECONDS = 60;
+    public static final int HIBERNATION_SWEEP_SECONDS = 15;
+    public static final String HIBERNATION_DIRECTORY = "hibernated";
+    public static final int HANDOFF_RESCAN_SECONDS = 5;
+    public static final int HANDOFF_WINDOW_SECONDS = 60;
+    public static final String GUILD_DATA_DIRECTORY = "guilds";
 
     public static int getDefaultTimeLimit() {
         return DEFAULT_TIME_LIMIT;
     }
 
+    public static int getClockIncrementSeconds() {
+        return CLOCK_INCREMENT_SECONDS;
+    }
+
+    public static int getInviteExpirySeconds() {
+        return INVITE_EXPIRY_SECONDS;
+    }
+
+    public static int getMaxInvitesPerPlayer() {
+        return MAX_INVITES_PER_PLAYER;
+    }
+
+    public static int getDefaultRating() {
+        return DEFAULT_RATING;
+    }
+
+    public static int getRatingKFactor() {
+        return RATING_K_FACTOR;
+    }
+
+    public static int getMatchmakingTickMillis() {
+        return MATCHMAKING_TICK_MILLIS;
+    }
+
+    public static int getMatchmakingBaseBand() {
+        return MATCHMAKING_BASE_BAND;
+    }
+
+    public static int getMatchmakingBandGrowth() {
+        return MATCHMAKING_BAND_GROWTH;
+    }
+
+    public static int getMatchmakingMaxBand() {
+        return MATCHMAKING_MAX_BAND;
+    }
+
+    public static String getArchiveDirectory() {
+        return ARCHIVE_DIRECTORY;
+    }
+
+    public static long getArchiveSegmentBytes() {
+        return ARCHIVE_SEGMENT_BYTES;
+    }
+
+    public static int getArchiveIndexInterval() {
+        return ARCHIVE_INDEX_INTERVAL;
+    }
+
+    public static int getReplayMoveDelayMillis() {
+        return REPLAY_MOVE_DELAY_MILLIS;
+    }
+
+    public static int getMaxConcurrentReplays() {
+        return MAX_CONCURRENT_REPLAYS;
+    }
+
+    public static String getStateDirectory() {
+        return STATE_DIRECTORY;
+    }
+
+    public static int getDrainTimeoutSeconds() {
+        return DRAIN_TIMEOUT_SECONDS;
+    }
+
+    public static int getRestMaxInFlightPerChannel() {
+        return REST_MAX_IN_FLIGHT_PER_CHANNEL;
+    }
+
+    public static int getNimPileSize() {
+        return NIM_PILE_SIZE;
+    }
+
+    public static int getNimMaxTake() {
+        return NIM_MAX_TAKE;
+    }
+
+    public static boolean isMessageMovesEnabled() {
+        return MESSAGE_MOVES_ENABLED;
+    }
+
+    public static int getMaxSpectatorsPerGame() {
+        return MAX_SPECTATORS_PER_GAME;
+    }
+
+    public static int getTournamentMaxPlayers() {
+        return TOURNAMENT_MAX_PLAYERS;
+    }
+
+    public static int getBotMoveBudgetMillis() {
+        return BOT_MOVE_BUDGET_MILLIS;
+    }
+
+    public static int getBotSearchThreads() {
+        return BOT_SEARCH_THREADS;
+    }
+
+    public static int getBotTableSize() {
+        return BOT_TABLE_SIZE;
+    }
+
+    public static boolean isJfrRecordingEnabled() {
+        return JFR_RECORDING_ENABLED;
+    }
+
+    public static String getJfrRecordingFile() {
+        return JFR_RECORDING_FILE;
+    }
+
+    public static int getJfrMaxAgeMinutes() {
+        return JFR_MAX_AGE_MINUTES;
+    }
+
+    public static int getTraceBufferSize() {
+        return TRACE_BUFFER_SIZE;
+    }
+
+    public static double getTraceSampleRate() {
+        return TRACE_SAMPLE_RATE;
+    }
+
+    public static int getTraceSlowThresholdMillis() {
+        return TRACE_SLOW_THRESHOLD_MILLIS;
+    }
+
+    public static int getCommandWorkerThreads() {
+        return COMMAND_WORKER_THREADS;
+    }
+
+    public static String getProfileDirectory() {
+        return PROFILE_DIRECTORY;
+    }
+
+    public static int getProfileCacheSize() {
+        return PROFILE_CACHE_SIZE;
+    }
+
+    public static int getProfileMaxPending() {
+        return PROFILE_MAX_PENDING;
+    }
+
+    public static int getProfileFlushIntervalMillis() {
+        return PROFILE_FLUSH_INTERVAL_MILLIS;
+    }
+
+    public static int getDedupeBucketSeconds() {
+        return DEDUPE_BUCKET_SECONDS;
+    }
+
+    public static int getDedupeBuckets() {
+        return DEDUPE_BUCKETS;
+    }
+
+    public static int getDedupeBucketCapacity() {
+        return DEDUPE_BUCKET_CAPACITY;
+    }
+
+    public static int getEventBusThreads() {
+        return EVENT_BUS_THREADS;
+    }
+
+    public static int getEventBufferSize() {
+        return EVENT_BUFFER_SIZE;
+    }
+
+    public static boolean isGameEventLogEnabled() {
+        return GAME_EVENT_LOG_ENABLED;
+    }
+
+    public static int getHibernateIdleSeconds() {
+        return HIBERNATE_IDLE_SECONDS;
+    }
+
+    public static int getHibernationSweepSeconds() {
+        return HIBERNATION_SWEEP_SECONDS;
+    }
+
+    public static String getHibernationDirectory() {
+        return HIBERNATION_DIRECTORY;
+    }
+
+    public static int getHandoffRescanSeconds() {
+        return HANDOFF_RESCAN_SECONDS;
+    }
+
+    public static int getHandoffWindowSeconds() {
+        return HANDOFF_WINDOW_SECONDS;
+    }
+
+    public static String getGuildDataDirectory() {
+        return GUILD_DATA_DIRECTORY;
+    }
+
     public static boolean notCorrectChannel(SlashCommandInteractionEvent event) {
         String thisChannel = event.getChannel().getId();
-        String requiredChannel = GameManager.getChannelID();
+        String requiredChannel = event.getGuild() != null ? GameManager.getChannelID(event.getGuild().getIdLong()) : "";
 
         if (requiredChannel.isEmpty()) {
-            event.reply("""
+            CommandReply.reply(event, """
                     # Game is not set up.
                     Please set the channel for the game to use first.
                     Ask an admin to use the `/setchannel` command.
-                    """).setEphemeral(true).queue();
+                    """, true).queue();
             return true;
         } else if (!thisChannel.equals(requiredChannel)) {
             Channel channel = event.getGuild().getTextChannelById(requiredChannel);
 
             if (channel != null) {
-                event.reply("This game only works in " + channel).setEphemeral(true).queue();
+                CommandReply.reply(event, "This game only works in " + channel, true).queue();
             } else {
-                event.reply("The required channel is not available").setEphemeral(true).queue();
+                CommandReply.reply(event, "The required channel is not available", true).queue();
             }
             return true;
         }
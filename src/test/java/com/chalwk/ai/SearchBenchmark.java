@@ -0,0 +1,67 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.ai;
+
+import com.chalwk.game.GameRules;
+import com.chalwk.game.NimRules;
+import com.chalwk.util.settings;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the bot's search scales with cores: the same search from the initial state is run on pools of 1, 2,
+ * 4 and 8 threads. Each operation is one search with a fixed time budget, so the figure to compare is the
+ * {@code nodes} counter, reported per second, rather than the score.
+ * <p>
+ * Run with {@code mvn -B -Pbench -DskipTests test -Dbench=SearchBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private final GameRules rules = new NimRules(settings.getNimPileSize(), settings.getNimMaxTake());
+    private ForkJoinPool pool;
+    private MctsSearch search;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        search = new MctsSearch(rules, pool, settings.getBotTableSize());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Counts the work done by the searches, per second of the measurement.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Work {
+        public long nodes;
+        public long playouts;
+    }
+
+    @Benchmark
+    public int search(Work work) {
+        MctsSearch.Result result = search.search(rules.getInitialState(), BUDGET_NANOS, seed++);
+        work.nodes += result.nodes();
+        work.playouts += result.playouts();
+        return result.move();
+    }
+}
@@ -0,0 +1,61 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.bot;
+
+import com.chalwk.game.GameManager;
+import com.chalwk.simulation.Stubs;
+import com.chalwk.util.RestQueue;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a drain lets a REST action still in flight land before the shards are shut down, and reports the
+ * drain as clean.
+ */
+class DrainControllerTest {
+
+    @TempDir
+    Path archive;
+
+    @Test
+    void flushesBeforeShuttingShardsDown() throws IOException {
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        JDA shard = Stubs.stub(JDA.class, Map.of("awaitShutdown", true), null);
+        ShardManager shardManager = Stubs.stub(ShardManager.class, Map.of("getShards", List.of(shard)), calls);
+        RestQueue.queue(RestQueue.Lane.GAME_STATE, Stubs.nextSnowflake(), slowAction(), result -> calls.add("edited"));
+
+        GameManager gameManager = new GameManager(archive);
+        DrainController.Report report = DrainController.shutDown(gameManager, shardManager, TimeUnit.SECONDS.toNanos(5));
+
+        assertTrue(report.isClean(), report.toString());
+        assertTrue(report.inFlight() >= 1, report.toString());
+        assertTrue(calls.contains("shutdown"));
+        assertTrue(calls.indexOf("edited") >= 0 && calls.indexOf("edited") < calls.indexOf("shutdown"),
+                "REST action landed after the shards were shut down: " + calls);
+    }
+
+    /**
+     * Creates an action that takes a moment to finish, like a real edit.
+     */
+    @SuppressWarnings("unchecked")
+    private static RestAction<Object> slowAction() {
+        CompletableFuture<Object> result = CompletableFuture.supplyAsync(Object::new,
+                CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+        return Stubs.stub(RestAction.class, Map.of("submit", result), null);
+    }
+}
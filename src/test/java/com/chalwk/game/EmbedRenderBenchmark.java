@@ -0,0 +1,105 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.simulation.Stubs;
+import com.chalwk.util.Scheduler;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time and the heap allocated to render a game embed after a move: with the game's
+ * {@link GameEmbedRenderer}, and with a new builder and concatenated fields per render, as games rendered before the
+ * renderer. The allocation is the {@code gc.alloc.rate.norm} figure of JMH's gc profiler, in bytes per render.
+ * <p>
+ * Run with {@code mvn -B -Pbench -DskipTests test -Dbench=EmbedRenderBenchmark}; the bench profile adds the gc
+ * profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmbedRenderBenchmark {
+
+    private final User invitingPlayer = Stubs.user(1);
+    private final User invitedPlayer = Stubs.user(2);
+    private final GameRules rules = new NimRules(settings.getNimPileSize(), settings.getNimMaxTake());
+    private final GameEmbedRenderer renderer = new GameEmbedRenderer(invitingPlayer, invitedPlayer, 1, rules);
+    private final int[] states = new int[rules.getInitialState() + 1]; // one per stone left, down to none
+    private int stateCount;
+    private GameClock clock;
+    private int move;
+
+    @Setup
+    public void setUp() {
+        long millis = TimeUnit.SECONDS.toMillis(settings.getDefaultTimeLimit());
+        clock = new GameClock(millis, millis, TimeUnit.SECONDS.toMillis(settings.getClockIncrementSeconds()), player -> {
+        });
+        clock.start(0);
+        // the states of a game where every move is the first legal one
+        int[] moves = new int[rules.getMaxMoves()];
+        int state = rules.getInitialState();
+        states[stateCount++] = state;
+        while (!rules.isOver(state) && rules.getLegalMoves(state, moves) > 0) {
+            state = rules.play(state, moves[0]);
+            states[stateCount++] = state;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        clock.stop();
+    }
+
+    @Benchmark
+    public MessageEmbed template() {
+        return renderer.render(nextTurn(), nextState(), clock);
+    }
+
+    @Benchmark
+    public MessageEmbed fresh() {
+        User whosTurn = nextTurn();
+        int board = nextState();
+        return new EmbedBuilder()
+                .setTitle("\uD83D\uDD74 \uD80C\uDF6F GAME \uD80C\uDF6F \uD83D\uDD74")
+                .addField("Players: ", invitingPlayer.getAsMention() + " VS " + invitedPlayer.getAsMention(), true)
+                .addField("Board: ", rules.describe(board), false)
+                .addField("Turn: ", whosTurn.getAsMention(), false)
+                .addField("Clock: ", invitingPlayer.getAsMention() + " " + formatClock(0) + " | "
+                        + invitedPlayer.getAsMention() + " " + formatClock(1), false)
+                .setColor(Color.BLUE)
+                .build();
+    }
+
+    /**
+     * Alternates the turn, as moves do.
+     */
+    private User nextTurn() {
+        return (move & 1) == 0 ? invitingPlayer : invitedPlayer;
+    }
+
+    /**
+     * Moves on to the next state of the game, starting over once it is over.
+     */
+    private int nextState() {
+        return states[move++ % stateCount];
+    }
+
+    private String formatClock(int player) {
+        long remainingMillis = clock.getRemainingMillis(player);
+        if (clock.getActivePlayer() == player) {
+            return "<t:" + (Scheduler.get().currentTimeMillis() + remainingMillis) / 1000 + ":R>";
+        }
+        long seconds = remainingMillis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
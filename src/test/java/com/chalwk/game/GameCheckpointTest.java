@@ -0,0 +1,37 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a checkpoint written after its guild became ready is found by a later scan, and is taken only once.
+ */
+class GameCheckpointTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void lateCheckpointIsFoundAndTakenOnce() throws IOException {
+        assertTrue(GameCheckpoint.pending(directory.resolve("missing")).isEmpty());
+        assertNull(GameCheckpoint.take(directory, 42), "nothing to restore when the guild becomes ready");
+
+        GameCheckpoint.write(directory, 42, List.of(), List.of());
+        Files.writeString(directory.resolve("notes.txt"), "not a checkpoint");
+        assertEquals(List.of(42L), GameCheckpoint.pending(directory));
+
+        assertNotNull(GameCheckpoint.take(directory, 42));
+        assertNull(GameCheckpoint.take(directory, 42));
+        assertTrue(GameCheckpoint.pending(directory).isEmpty());
+    }
+}
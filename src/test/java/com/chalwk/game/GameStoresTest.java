@@ -0,0 +1,59 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.cluster.ShardAssignment;
+import com.chalwk.history.GameRecord;
+import com.chalwk.history.ReplayReader;
+import com.chalwk.rating.RatingManager;
+import com.chalwk.simulation.Stubs;
+import net.dv8tion.jda.api.entities.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a guild's replays, profiles and ratings follow the guild when the cluster hands it to another node,
+ * and that the nodes never hand out the same game ID.
+ */
+class GameStoresTest {
+
+    private static final long MOVED_GUILD = 2L << 22; // shard 0 of 2
+    private static final long KEPT_GUILD = 3L << 22; // shard 1 of 2
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void guildDataFollowsTheGuild() throws IOException {
+        User winner = Stubs.user(1);
+        User loser = Stubs.user(2);
+        GameManager first = new GameManager(directory, "first");
+        long gameID = first.nextGameID(MOVED_GUILD);
+        GameRecord record = new GameRecord(gameID, 1_000, winner.getIdLong(), loser.getIdLong());
+        record.setResult(GameRecord.RESULT_FIRST_PLAYER_WON);
+        first.getGameArchive(MOVED_GUILD).append(record);
+        first.getRatingManager(MOVED_GUILD).recordResult(winner, loser, RatingManager.WIN);
+        first.getProfileStore(MOVED_GUILD).recordResult(winner.getIdLong(), RatingManager.WIN, 2_000);
+        int rating = first.getRatingManager(MOVED_GUILD).getRating(winner);
+
+        first.retainGuilds(new ShardAssignment(2, 1, 1));
+        assertThrows(IllegalStateException.class, () -> first.getGameArchive(MOVED_GUILD));
+
+        GameManager second = new GameManager(directory, "second");
+        try (ReplayReader replay = second.getGameArchive(MOVED_GUILD).openReplay(gameID)) {
+            assertNotNull(replay, "the replay stayed behind on the first node");
+        }
+        assertEquals(1, second.getProfileStore(MOVED_GUILD).get(winner.getIdLong()).getWins());
+        assertEquals(rating, second.getRatingManager(MOVED_GUILD).getRating(winner));
+        assertEquals(1, second.getRatingManager(MOVED_GUILD).getRank(winner));
+        assertEquals(-1, first.getRatingManager(KEPT_GUILD).getRank(winner), "ratings are kept per guild");
+
+        assertNotEquals(first.nextGameID(KEPT_GUILD), second.nextGameID(MOVED_GUILD));
+    }
+}
@@ -0,0 +1,96 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.simulation.Stubs;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pairing tick of the {@link MatchmakingQueue} with 100,000 players queued, which bounds the latency
+ * from a player joining to their game starting, on top of the tick interval.
+ * <p>
+ * {@code pairBurst} pairs a queue that 100,000 players with normally distributed ratings joined at once.
+ * {@code pairNewcomers} pairs two new players while 100,000 others keep waiting, their ratings too far apart to be
+ * paired, as every tick re-examines every waiting player. Ticks run on the benchmark thread rather than the pairing
+ * thread.
+ * <p>
+ * Run with {@code mvn -B -Pbench -DskipTests test -Dbench=MatchmakingBenchmark}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Thread)
+public class MatchmakingBenchmark {
+
+    @Param({"100000"})
+    public int players;
+
+    private final Map<User, Integer> ratings = new HashMap<>();
+    private User[] queued;
+    private User[] newcomers;
+    private MatchmakingQueue waiting;
+    private int matched;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queued = new User[players];
+        for (int i = 0; i < players; i++) {
+            queued[i] = Stubs.user(i + 1);
+        }
+        newcomers = new User[]{Stubs.user(players + 1), Stubs.user(players + 2)};
+        ratings.put(newcomers[0], settings.getDefaultRating());
+        ratings.put(newcomers[1], settings.getDefaultRating());
+
+        // every waiting player is further from the next than the widest band
+        waiting = new MatchmakingQueue(ratings::get, (first, second) -> matched++, 0);
+        int spacing = settings.getMatchmakingMaxBand() + 1;
+        for (int i = 0; i < players; i++) {
+            ratings.put(queued[i], settings.getDefaultRating() + spacing * (i - players / 2) + spacing / 2);
+            waiting.join(queued[i]);
+        }
+        waiting.tick();
+    }
+
+    /**
+     * A queue that every player has just joined.
+     */
+    @State(Scope.Thread)
+    public static class Burst {
+        private final SplittableRandom random = new SplittableRandom(27);
+        private MatchmakingQueue queue;
+        private int matched;
+
+        @Setup(Level.Invocation)
+        public void fill(MatchmakingBenchmark benchmark) {
+            queue = new MatchmakingQueue(player -> settings.getDefaultRating() + (int) (random.nextGaussian() * 200),
+                    (first, second) -> matched++, 0);
+            for (User player : benchmark.queued) {
+                queue.join(player);
+            }
+        }
+    }
+
+    @Benchmark
+    public int pairBurst(Burst burst) {
+        burst.queue.tick();
+        return burst.matched;
+    }
+
+    @Benchmark
+    public int pairNewcomers() {
+        waiting.join(newcomers[0]);
+        waiting.join(newcomers[1]);
+        waiting.tick();
+        return matched;
+    }
+}
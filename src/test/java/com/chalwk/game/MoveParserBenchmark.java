@@ -0,0 +1,45 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import com.chalwk.util.settings;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time and the heap allocated per message of the {@link MoveParser}, for move codes, move labels and
+ * chatter, next to the {@code Integer.parseInt(text.trim())} it replaced. The allocation is the
+ * {@code gc.alloc.rate.norm} figure of JMH's gc profiler, in bytes per message: 0 for the parser.
+ * <p>
+ * Run with {@code mvn -B -Pbench -DskipTests test -Dbench=MoveParserBenchmark}; the bench profile adds the gc
+ * profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoveParserBenchmark {
+
+    @Param({"2", " Take  3 ", "nice move, good luck!", "take 12 stones"})
+    public String message;
+
+    private final MoveParser parser = new MoveParser(new NimRules(settings.getNimPileSize(), settings.getNimMaxTake()));
+
+    @Benchmark
+    public int parser() {
+        return parser.parse(message);
+    }
+
+    @Benchmark
+    public int parseInt() {
+        try {
+            return Integer.parseInt(message.trim());
+        } catch (NumberFormatException e) {
+            return MoveParser.NO_MOVE;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.history;
+
+import com.chalwk.util.settings;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the {@link GameArchive} with a million games: {@code archive} appends them all to an empty archive and
+ * waits until they are on disk, reporting the time per game, and {@code replay} opens the replay of a random game in
+ * the full archive. Games end up to a hundred games after they started, so they are not archived in ID order.
+ * <p>
+ * Run with {@code mvn -B -Pbench -DskipTests test -Dbench=GameArchiveBenchmark}.
+ */
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class GameArchiveBenchmark {
+
+    private static final int GAMES = 1_000_000;
+    private static final long EPOCH_MILLIS = 1_700_000_000_000L;
+
+    private final SplittableRandom random = new SplittableRandom(30);
+    private GameRecord[] records;
+    private Path directory;
+    private GameArchive archive;
+
+    @Setup(Level.Trial)
+    public void createRecords() {
+        long[] endOrder = new long[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            endOrder[i] = i + 1;
+        }
+        for (int start = 0; start < GAMES; start += 100) {
+            for (int i = Math.min(GAMES, start + 100) - 1; i > start; i--) {
+                int j = start + random.nextInt(i - start + 1);
+                long swap = endOrder[i];
+                endOrder[i] = endOrder[j];
+                endOrder[j] = swap;
+            }
+        }
+        records = new GameRecord[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            long gameID = endOrder[i];
+            long startMillis = EPOCH_MILLIS + gameID * 1000;
+            GameRecord record = new GameRecord(gameID, startMillis, 1 + random.nextInt(100_000), 1 + random.nextInt(100_000));
+            int moves = 5 + random.nextInt(10);
+            for (int move = 0; move < moves; move++) {
+                record.addMove(move & 1, 1 + random.nextInt(settings.getNimMaxTake()), startMillis + 2000L * (move + 1));
+            }
+            record.setResult((byte) random.nextInt(3));
+            records[i] = record;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openArchive() throws IOException {
+        directory = Files.createTempDirectory("archive-benchmark");
+        archive = new GameArchive(directory, settings.getArchiveSegmentBytes(), settings.getArchiveIndexInterval());
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteArchive() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(GAMES)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public boolean archive() {
+        for (GameRecord record : records) {
+            archive.append(record);
+        }
+        if (!archive.awaitFlush(TimeUnit.MINUTES.toMillis(5))) {
+            throw new IllegalStateException("the archive was not flushed");
+        }
+        return true;
+    }
+
+    /**
+     * The archive of every game, for reading.
+     */
+    @State(Scope.Benchmark)
+    public static class Full {
+        private GameArchive archive;
+
+        @Setup(Level.Iteration)
+        public void fill(GameArchiveBenchmark benchmark) {
+            benchmark.archive();
+            archive = benchmark.archive;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int replay(Full full) throws IOException {
+        try (ReplayReader reader = full.archive.openReplay(1 + random.nextInt(GAMES))) {
+            return reader.getHeader().getMoveCount();
+        }
+    }
+}
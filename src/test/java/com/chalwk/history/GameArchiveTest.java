@@ -0,0 +1,133 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that games are found in the archive whatever order they ended in, before and after the index is rebuilt
+ * from the segment files.
+ */
+class GameArchiveTest {
+
+    private static final int GAMES = 500;
+    private static final long EPOCH_MILLIS = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsGamesArchivedOutOfOrder() throws IOException {
+        GameArchive archive = new GameArchive(directory, 8 * 1024, 4);
+        archive.append(record(2));
+        archive.append(record(1));
+        assertTrue(archive.awaitFlush(5000));
+
+        assertReplays(archive, 1);
+        assertReplays(archive, 2);
+        assertNull(archive.openReplay(3));
+    }
+
+    @Test
+    void findsEveryGameAfterReopening() throws IOException {
+        List<Long> endOrder = shuffledGameIDs();
+        GameArchive archive = new GameArchive(directory, 8 * 1024, 4);
+        for (long gameID : endOrder) {
+            archive.append(record(gameID));
+        }
+        assertTrue(archive.awaitFlush(5000));
+        for (long gameID = 1; gameID <= GAMES; gameID++) {
+            assertReplays(archive, gameID);
+        }
+
+        GameArchive reopened = new GameArchive(directory, 8 * 1024, 4);
+        for (long gameID = 1; gameID <= GAMES; gameID++) {
+            assertReplays(reopened, gameID);
+        }
+        assertNull(reopened.openReplay(GAMES + 1));
+        assertEquals(GAMES + 1, reopened.nextGameID());
+    }
+
+    @Test
+    void findsGamesByStartTime() throws IOException {
+        List<Long> endOrder = shuffledGameIDs();
+        GameArchive archive = new GameArchive(directory, 8 * 1024, 4);
+        for (long gameID : endOrder) {
+            archive.append(record(gameID));
+        }
+        assertTrue(archive.awaitFlush(5000));
+
+        List<Long> expected = new ArrayList<>();
+        for (long gameID : endOrder) {
+            if (gameID >= 100 && gameID <= 150) {
+                expected.add(gameID);
+            }
+        }
+        List<Long> found = new ArrayList<>();
+        for (GameRecord game : archive.findGamesStartedBetween(startMillis(100), startMillis(150), GAMES)) {
+            found.add(game.getGameID());
+        }
+        assertEquals(expected, found);
+        assertEquals(10, archive.findGamesStartedBetween(startMillis(100), startMillis(150), 10).size());
+        assertTrue(archive.findGamesStartedBetween(startMillis(GAMES + 1), Long.MAX_VALUE, GAMES).isEmpty());
+    }
+
+    private static void assertReplays(GameArchive archive, long gameID) throws IOException {
+        try (ReplayReader reader = archive.openReplay(gameID)) {
+            assertNotNull(reader, "game " + gameID);
+            assertEquals(gameID, reader.getHeader().getGameID());
+            assertEquals(startMillis(gameID), reader.getHeader().getStartMillis());
+            int moves = 0;
+            while (reader.hasNextMove()) {
+                reader.nextMove();
+                assertEquals(moves % 2, reader.getPlayerIndex());
+                assertEquals((int) (gameID % 3) + 1, reader.getMove());
+                moves++;
+            }
+            assertEquals(moveCount(gameID), moves);
+        }
+    }
+
+    /**
+     * Game IDs in the order the games ended: a game ends up to 20 games after it started.
+     */
+    private static List<Long> shuffledGameIDs() {
+        List<Long> gameIDs = new ArrayList<>();
+        for (long gameID = 1; gameID <= GAMES; gameID++) {
+            gameIDs.add(gameID);
+        }
+        Random random = new Random(30);
+        for (int start = 0; start < GAMES; start += 20) {
+            Collections.shuffle(gameIDs.subList(start, Math.min(GAMES, start + 20)), random);
+        }
+        return gameIDs;
+    }
+
+    private static GameRecord record(long gameID) {
+        GameRecord record = new GameRecord(gameID, startMillis(gameID), 1000 + gameID % 7, 2000 + gameID % 11);
+        for (int i = 0; i < moveCount(gameID); i++) {
+            record.addMove(i % 2, (int) (gameID % 3) + 1, startMillis(gameID) + 1000L * (i + 1));
+        }
+        record.setResult(GameRecord.RESULT_FIRST_PLAYER_WON);
+        return record;
+    }
+
+    private static long startMillis(long gameID) {
+        return EPOCH_MILLIS + gameID * 60_000;
+    }
+
+    private static int moveCount(long gameID) {
+        return (int) (gameID % 9) + 1;
+    }
+}
@@ -0,0 +1,74 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.profile;
+
+import com.chalwk.rating.RatingManager;
+import com.chalwk.simulation.Stubs;
+import net.dv8tion.jda.api.entities.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that ratings survive a restart, with the leaderboard rebuilt from the store, and that the log of an earlier
+ * version is converted without losing any profile.
+ */
+class ProfileStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ratingsAndRanksSurviveReopening() throws IOException {
+        User first = Stubs.user(1);
+        User second = Stubs.user(2);
+        User third = Stubs.user(3);
+        ProfileStore store = open();
+        RatingManager ratings = new RatingManager(store);
+        ratings.recordResult(first, second, RatingManager.WIN);
+        ratings.recordResult(third, second, RatingManager.DRAW);
+        assertTrue(store.awaitFlush(5000));
+
+        RatingManager reopened = new RatingManager(open());
+        for (User player : new User[]{first, second, third}) {
+            assertEquals(ratings.getRating(player), reopened.getRating(player));
+            assertEquals(ratings.getRank(player), reopened.getRank(player));
+        }
+        assertEquals(3, reopened.getLeaderboard().size());
+        assertEquals(-1, reopened.getRank(Stubs.user(4)));
+    }
+
+    @Test
+    void legacyLogIsConverted() throws IOException {
+        ByteBuffer legacy = ByteBuffer.allocate(2 * PlayerProfile.LEGACY_RECORD_BYTES);
+        for (long userID = 1; userID <= 2; userID++) {
+            int start = legacy.position();
+            legacy.putLong(userID).putInt(3).putInt(2).putInt(1).putLong(40).putLong(1_000L * userID);
+            CRC32 crc = new CRC32();
+            crc.update(legacy.array(), start, legacy.position() - start);
+            legacy.putInt((int) crc.getValue());
+        }
+        Files.write(directory.resolve("profiles.log"), legacy.array());
+
+        ProfileStore store = open();
+        PlayerProfile profile = store.get(2);
+        assertEquals(6, profile.getGamesPlayed());
+        assertEquals(40, profile.getMovesPlayed());
+        assertEquals(2_000, profile.getLastPlayedMillis());
+        assertEquals(PlayerProfile.UNRATED, profile.getRating());
+        assertTrue(store.takeStoredRatings().isEmpty());
+        assertFalse(Files.exists(directory.resolve("profiles.log")));
+    }
+
+    private ProfileStore open() throws IOException {
+        return new ProfileStore(directory, 16, 1024, 60_000);
+    }
+}
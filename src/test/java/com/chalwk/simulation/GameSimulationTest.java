@@ -0,0 +1,33 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks that a {@link GameSimulation} replays the same trace for the same seed and a different one for another seed.
+ */
+class GameSimulationTest {
+
+    private static final long LIFECYCLES = 500;
+    private static final int PLAYERS = 50;
+
+    @Test
+    void seedDeterminesTheTrace() throws IOException {
+        long first = traceOf(42);
+        assertEquals(first, traceOf(42), "the same seed replayed a different trace");
+        assertNotEquals(first, traceOf(43), "different seeds replayed the same trace");
+    }
+
+    private static long traceOf(long seed) throws IOException {
+        GameSimulation simulation = new GameSimulation(seed, LIFECYCLES, PLAYERS);
+        simulation.run();
+        return simulation.getTraceHash();
+    }
+}
@@ -0,0 +1,110 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.simulation;
+
+import com.chalwk.bot.BotInitializer;
+import com.chalwk.game.Game;
+import com.chalwk.game.GameManager;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what hibernating idle games saves and what it costs: the heap a game takes while it is in memory and
+ * once it is hibernated, and how long a game takes to rehydrate when it is next looked up, as a move does.
+ * <p>
+ * The games are real games between {@link Stubs stub} players, in a game manager with an empty archive in a
+ * temporary directory. The players stay in memory throughout, as JDA's user cache keeps them, so the heap figures
+ * are the games' own. They are measured once per trial, over all the games, and printed before the first
+ * iteration; the benchmark itself samples the time of each rehydration.
+ * <p>
+ * Run with {@code mvn -B -Pbench -DskipTests test -Dbench=HibernationBenchmark}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HibernationBenchmark {
+
+    private static final long GUILD_ID = 1;
+    private static final long CHANNEL_ID = 2;
+    private static final int GC_ROUNDS = 3;
+
+    @Param({"20000"})
+    public int games;
+
+    private final Map<Long, User> users = new HashMap<>();
+    private ShardManager previousShards;
+    private GameManager gameManager;
+    private long[] gameIDs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        for (long userID = 1; userID <= 2L * games; userID++) {
+            users.put(userID, Stubs.user(userID));
+        }
+        previousShards = BotInitializer.shardManager;
+        BotInitializer.shardManager = Stubs.shardManager(users);
+        TextChannel channel = Stubs.channel(CHANNEL_ID, Stubs.guild(GUILD_ID));
+        gameManager = new GameManager(Files.createTempDirectory("hibernation-archive"));
+        gameIDs = new long[games];
+
+        long baseline = usedHeap();
+        for (int i = 0; i < games; i++) {
+            gameIDs[i] = gameManager.createGame(users.get(2L * i + 1), users.get(2L * i + 2), channel).getGameID();
+        }
+        long inMemory = usedHeap();
+        for (long gameID : gameIDs) {
+            hibernate(gameID);
+        }
+        long hibernated = usedHeap();
+        System.out.printf("%nheap per game: %,d bytes in memory, %,d bytes hibernated%n",
+                (inMemory - baseline) / games, (hibernated - baseline) / games);
+        System.out.println("hibernation store: " + gameManager.getHibernationMetrics());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BotInitializer.shardManager = previousShards;
+    }
+
+    /**
+     * Makes sure the next game to be looked up is hibernated, whether or not the last round of lookups woke it.
+     */
+    @Setup(Level.Invocation)
+    public void hibernateNext() {
+        next = (next + 1) % games;
+        hibernate(gameIDs[next]);
+    }
+
+    @Benchmark
+    public Game rehydrate() {
+        return gameManager.getGameByID(gameIDs[next]);
+    }
+
+    private void hibernate(long gameID) {
+        Game game = gameManager.getGameByID(gameID);
+        if (game == null || !gameManager.hibernate(game, 0, 0)) {
+            throw new IllegalStateException("Game " + gameID + " could not be hibernated");
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
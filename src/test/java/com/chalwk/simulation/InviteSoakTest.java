@@ -0,0 +1,94 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.simulation;
+
+import com.chalwk.game.GameInvite;
+import com.chalwk.game.InviteStore;
+import com.chalwk.util.Scheduler;
+import com.chalwk.util.VirtualScheduler;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Spams the {@link InviteStore} with invites for an hour of virtual time and checks that what it holds stays bounded
+ * by the players and the per-player cap, not by how many invites were sent: the store never holds more than
+ * {@code spammers * MAX_INVITES_PER_PLAYER} invites, replaced and taken invites leave no expiry tasks behind, and
+ * once the spam stops everything expires.
+ */
+class InviteSoakTest {
+
+    private static final int SPAMMERS = 500;
+    private static final int TARGETS = 2000;
+    private static final int INVITES_PER_SECOND = 5;
+    private static final int SOAK_SECONDS = 3600;
+
+    private final VirtualScheduler scheduler = new VirtualScheduler(0);
+    private Scheduler previousScheduler;
+
+    @BeforeEach
+    void useVirtualTime() {
+        previousScheduler = Scheduler.get();
+        Scheduler.use(scheduler);
+    }
+
+    @AfterEach
+    void restoreScheduler() {
+        Scheduler.use(previousScheduler);
+    }
+
+    @Test
+    void inviteSpamStaysBounded() {
+        InviteStore store = new InviteStore(settings.getMaxInvitesPerPlayer(), settings.getInviteExpirySeconds());
+        User[] spammers = users(1, SPAMMERS);
+        User[] targets = users(SPAMMERS + 1, TARGETS);
+        SplittableRandom random = new SplittableRandom(26);
+        int maxLive = SPAMMERS * settings.getMaxInvitesPerPlayer();
+        // expiry tasks of removed invites are canceled, and a canceled task is dropped when it falls due
+        int maxScheduled = SPAMMERS * INVITES_PER_SECOND * (settings.getInviteExpirySeconds() + 1);
+        int accepted = 0;
+
+        for (int second = 0; second < SOAK_SECONDS; second++) {
+            for (User spammer : spammers) {
+                for (int i = 0; i < INVITES_PER_SECOND; i++) {
+                    User target = targets[random.nextInt(TARGETS)];
+                    store.add(new GameInvite(spammer, target, 1, scheduler.currentTimeMillis()));
+                }
+            }
+            for (int i = 0; i < TARGETS / 10; i++) {
+                if (store.take(targets[random.nextInt(TARGETS)]) != null) {
+                    accepted++;
+                }
+            }
+            int live = store.size();
+            assertTrue(live <= maxLive, "second " + second + ": " + live + " live invites, cap " + maxLive);
+            assertTrue(scheduler.getScheduledCount() <= maxScheduled,
+                    "second " + second + ": " + scheduler.getScheduledCount() + " expiry tasks");
+            scheduler.advance(1, TimeUnit.SECONDS);
+        }
+        assertTrue(accepted > 0, "no invite was accepted during the soak");
+
+        scheduler.advance(settings.getInviteExpirySeconds() + 1, TimeUnit.SECONDS);
+        assertEquals(0, store.size());
+        assertEquals(0, scheduler.getScheduledCount());
+        for (User target : targets) {
+            assertFalse(store.hasInvite(target));
+        }
+    }
+
+    private static User[] users(long firstID, int count) {
+        User[] users = new User[count];
+        for (int i = 0; i < count; i++) {
+            users[i] = Stubs.user(firstID + i);
+        }
+        return users;
+    }
+}
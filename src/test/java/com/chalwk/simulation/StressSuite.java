@@ -0,0 +1,451 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.simulation;
+
+import com.chalwk.CommandManager.CommandCooldownManager;
+import com.chalwk.CommandManager.CommandCost;
+import com.chalwk.CommandManager.CommandRegistry;
+import com.chalwk.Listeners.EventListeners;
+import com.chalwk.bot.BotInitializer;
+import com.chalwk.game.*;
+import com.chalwk.util.Scheduler;
+import com.chalwk.util.VirtualScheduler;
+import com.chalwk.util.settings;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Races the invite, accept, cancel and move paths against each other the way JDA's event threads can, and checks
+ * after every round that no player is in two games, that every accepted move was kept and every game ended exactly
+ * once, and that no invite outlives the game one of its players started.
+ * <p>
+ * The game manager, invite store, clocks, cooldowns and event listeners are the real classes; users, guilds and
+ * events are {@link Stubs}, so the suite runs without a connection to Discord. Time is virtual, and one of the racing
+ * threads can move it past a player's deadline while another plays that player's move. Every round starts its
+ * threads together, so both orders of each race, and the interleavings in between, come up over many rounds.
+ * <p>
+ * The suite runs as part of the Maven build, from {@link StressSuiteTest}.
+ */
+class StressSuite {
+
+    private static final long GUILD_ID = 1;
+    private static final int RACERS = 4;
+    private static final int MAX_REPORTED_VIOLATIONS = 10;
+
+    private final int rounds;
+    private final VirtualScheduler scheduler = new VirtualScheduler(System.currentTimeMillis());
+    private final Guild guild = Stubs.guild(GUILD_ID);
+    private final CommandCooldownManager cooldowns = new CommandCooldownManager();
+    private final EventListeners listeners = new EventListeners();
+    private final ExecutorService racers = Executors.newFixedThreadPool(RACERS, runnable -> {
+        Thread thread = new Thread(runnable, "stress-racer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Long, List<Long>> results = new ConcurrentHashMap<>();
+    private final List<String> violations = new CopyOnWriteArrayList<>();
+    private final StringBuilder report = new StringBuilder();
+    private Map<String, AtomicInteger> outcomes;
+    private String scenario;
+    private long nextUserID = 1;
+    private GameManager gameManager;
+    private GameRules rules;
+    private int[] legalMoves;
+
+    /**
+     * Creates a stress suite.
+     *
+     * @param rounds the number of rounds of every scenario
+     */
+    StressSuite(int rounds) {
+        this.rounds = rounds;
+    }
+
+    /**
+     * Runs every scenario in a game manager with an empty archive in a temporary directory.
+     *
+     * @return true if every invariant held
+     * @throws IOException if the game archive cannot be created
+     */
+    boolean run() throws IOException {
+        Path archive = Files.createTempDirectory("stress-archive");
+        Scheduler previousScheduler = Scheduler.get();
+        ShardManager previousShards = BotInitializer.shardManager;
+        GameManager previousGames = BotInitializer.gameManager;
+        Scheduler.use(scheduler);
+        BotInitializer.shardManager = Stubs.stub(ShardManager.class, Map.of(), null);
+        try {
+            gameManager = new GameManager(archive, new Random(0));
+            BotInitializer.gameManager = gameManager;
+            gameManager.addGameEndListener((game, winner) -> results.computeIfAbsent(game.getGameID(),
+                    k -> new CopyOnWriteArrayList<>()).add(winner != null ? winner.getIdLong() : 0));
+            rules = gameManager.getRules();
+            legalMoves = new int[rules.getMaxMoves()];
+
+            runScenario("accept/accept", this::acceptAccept);
+            runScenario("mutual accept", this::mutualAccept);
+            runScenario("accept/cancel", this::acceptCancel);
+            runScenario("invite/accept", this::inviteAccept);
+            runScenario("move/timeout", this::moveTimeout);
+            runScenario("move/move", this::moveMove);
+            runScenario("cooldowns", this::cooldowns);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            violations.add("interrupted");
+        } finally {
+            racers.shutdownNow();
+            Scheduler.use(previousScheduler);
+            BotInitializer.shardManager = previousShards;
+            BotInitializer.gameManager = previousGames;
+        }
+
+        for (int i = 0; i < Math.min(violations.size(), MAX_REPORTED_VIOLATIONS); i++) {
+            report.append("  ").append(violations.get(i)).append('\n');
+        }
+        if (violations.size() > MAX_REPORTED_VIOLATIONS) {
+            report.append("  ... and ").append(violations.size() - MAX_REPORTED_VIOLATIONS).append(" more\n");
+        }
+        report.append(violations.isEmpty() ? "Stress suite passed\n" : "Stress suite FAILED with " + violations.size() + " violations\n");
+        return violations.isEmpty();
+    }
+
+    /**
+     * Gets the report of the run: one line per scenario, then the first violations, if there were any.
+     *
+     * @return the report
+     */
+    String getReport() {
+        return report.toString();
+    }
+
+    private void runScenario(String name, Round round) throws InterruptedException {
+        scenario = name;
+        outcomes = new TreeMap<>();
+        int before = violations.size();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            round.run();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        report.append(String.format("%-14s %d rounds in %d ms, %d violations, outcomes %s%n",
+                name, rounds, millis, violations.size() - before, outcomes));
+    }
+
+    /**
+     * Two players accept invites from the same player at once. Only one of them may get the game.
+     */
+    private void acceptAccept() throws InterruptedException {
+        User inviter = newUser();
+        User first = newUser();
+        User second = newUser();
+        gameManager.invitePlayer(inviter, first, command("invite", inviter));
+        gameManager.invitePlayer(inviter, second, command("invite", inviter));
+
+        race(() -> accept(first), () -> accept(second));
+
+        outcome(gameManager.isInGame(first) ? "first accepted" : gameManager.isInGame(second) ? "second accepted" : "none");
+        checkGames(inviter, first, second);
+        settle(inviter, first, second);
+    }
+
+    /**
+     * Two players who invited each other both accept at once. They may only get one game.
+     */
+    private void mutualAccept() throws InterruptedException {
+        User first = newUser();
+        User second = newUser();
+        gameManager.invitePlayer(first, second, command("invite", first));
+        gameManager.invitePlayer(second, first, command("invite", second));
+
+        race(() -> accept(first), () -> accept(second));
+
+        Game game = gameManager.getGame(first);
+        outcome(game == null ? "none" : game.getInvitedPlayer() == first ? "first accepted" : "second accepted");
+        checkGames(first, second);
+        settle(first, second);
+    }
+
+    /**
+     * A player cancels their invite while it is being accepted. Either the game starts or the cancel succeeds.
+     */
+    private void acceptCancel() throws InterruptedException {
+        User inviter = newUser();
+        User invited = newUser();
+        gameManager.invitePlayer(inviter, invited, command("invite", inviter));
+        AtomicBoolean canceled = new AtomicBoolean();
+
+        race(() -> accept(invited), () -> canceled.set(!gameManager.cancelInvites(inviter).isEmpty()));
+
+        boolean started = gameManager.isInGame(invited);
+        outcome(started ? "accepted" : "canceled");
+        if (started == canceled.get()) {
+            violation(started ? "a canceled invite started a game" : "the invite was neither accepted nor canceled");
+        }
+        checkGames(inviter, invited);
+        settle(inviter, invited);
+    }
+
+    /**
+     * A player is invited while accepting another invite. The new invite must not outlive the game's start.
+     */
+    private void inviteAccept() throws InterruptedException {
+        User inviter = newUser();
+        User invited = newUser();
+        User latecomer = newUser();
+        gameManager.invitePlayer(inviter, invited, command("invite", inviter));
+        List<String> answer = new CopyOnWriteArrayList<>();
+
+        race(() -> accept(invited), () -> gameManager.invitePlayer(latecomer, inviter, command("invite", latecomer, answer)));
+
+        outcome(answer.contains("setEphemeral") ? "invite refused" : "invite sent");
+        checkGames(inviter, invited, latecomer);
+        settle(inviter, invited, latecomer);
+    }
+
+    /**
+     * A player's time runs out while they play a move. Either the move is played and the opponent later runs out
+     * of time, or the move is refused and the player loses on time; a move that is played is never lost.
+     */
+    private void moveTimeout() throws InterruptedException {
+        User first = newUser();
+        User second = newUser();
+        Game game = startGame(first, second);
+        User mover = game.getWhosTurn();
+        User opponent = mover == first ? second : first;
+        List<String> answer = new CopyOnWriteArrayList<>();
+        long limitSeconds = settings.getDefaultTimeLimit() + 1;
+
+        race(() -> press(game, mover, firstLegalMove(game.getState()), answer),
+                () -> scheduler.advance(limitSeconds, TimeUnit.SECONDS));
+        scheduler.advance(limitSeconds, TimeUnit.SECONDS);
+
+        boolean played = answer.contains("deferEdit");
+        outcome(played ? "move first" : "timeout first");
+        if (played == answer.contains("deferReply")) {
+            violation("the move was answered " + answer);
+        }
+        if (game.getRecord().getMoveCount() != (played ? 1 : 0)) {
+            violation("the move was " + (played ? "accepted" : "refused") + " but " + game.getRecord().getMoveCount()
+                    + " moves were recorded");
+        }
+        List<Long> result = results.remove(game.getGameID());
+        long expectedWinner = (played ? mover : opponent).getIdLong();
+        if (result == null || result.size() != 1) {
+            violation("the game ended " + (result == null ? 0 : result.size()) + " times");
+        } else if (result.get(0) != expectedWinner) {
+            violation("the move was " + (played ? "accepted" : "refused") + " but the " + (played ? "mover" : "opponent")
+                    + " lost");
+        }
+        checkGames(first, second);
+        settle(first, second);
+    }
+
+    /**
+     * The player to move presses the same move twice while the opponent presses a move too. The presses that are
+     * played must make a legal sequence of turns: the first press, then the opponent's, then the repeated press as
+     * the mover's next move. The record, state and turn must match that sequence.
+     */
+    private void moveMove() throws InterruptedException {
+        User first = newUser();
+        User second = newUser();
+        Game game = startGame(first, second);
+        User mover = game.getWhosTurn();
+        User opponent = mover == first ? second : first;
+        int initialState = game.getState();
+        int move = firstLegalMove(initialState);
+        int reply = firstLegalMove(rules.play(initialState, move));
+        List<String> firstPress = new CopyOnWriteArrayList<>();
+        List<String> secondPress = new CopyOnWriteArrayList<>();
+        List<String> opponentPress = new CopyOnWriteArrayList<>();
+
+        race(() -> press(game, mover, move, firstPress), () -> press(game, mover, move, secondPress),
+                () -> press(game, opponent, reply, opponentPress));
+
+        int moverPlayed = (firstPress.contains("deferEdit") ? 1 : 0) + (secondPress.contains("deferEdit") ? 1 : 0);
+        boolean opponentPlayed = opponentPress.contains("deferEdit");
+        outcome(moverPlayed + (opponentPlayed ? 1 : 0) + " played");
+        if (moverPlayed == 0 || moverPlayed == 2 && !opponentPlayed) {
+            violation("the mover's presses were played " + moverPlayed + " times, the opponent's "
+                    + (opponentPlayed ? "once" : "not at all"));
+            return;
+        }
+        int expectedMoves = moverPlayed + (opponentPlayed ? 1 : 0);
+        int expectedState = rules.play(initialState, move);
+        if (opponentPlayed) expectedState = rules.play(expectedState, reply);
+        if (moverPlayed == 2) expectedState = rules.play(expectedState, move);
+        if (game.getRecord().getMoveCount() != expectedMoves || game.getState() != expectedState) {
+            violation(expectedMoves + " moves were played but " + game.getRecord().getMoveCount()
+                    + " were recorded, state " + game.getState() + " instead of " + expectedState);
+        }
+        if (!game.isOver() && game.getWhosTurn() != (expectedMoves % 2 == 0 ? mover : opponent)) {
+            violation("the turn did not pass after " + expectedMoves + " moves");
+        }
+        checkGames(first, second);
+        settle(first, second);
+    }
+
+    /**
+     * Several commands of one player go on cooldown at once. None of the cooldowns may be lost.
+     */
+    private void cooldowns() throws InterruptedException {
+        User player = newUser();
+        Runnable[] commands = new Runnable[RACERS];
+        for (int i = 0; i < RACERS; i++) {
+            String name = "command" + i;
+            commands[i] = () -> {
+                cooldowns.setCooldown(name, player);
+                if (!cooldowns.isOnCooldown(Stubs.command(name, player, guild, true, null))) {
+                    violation("the cooldown of " + name + " was lost");
+                }
+            };
+        }
+        race(commands);
+        outcome("set");
+    }
+
+    /**
+     * Does what the accept command does once it is allowed to run.
+     */
+    private void accept(User player) {
+        if (!gameManager.isInGame(player) && gameManager.hasPendingInvite(player)) {
+            gameManager.acceptInvite(player, null, command("accept", player));
+        }
+    }
+
+    /**
+     * Presses a move button on a game embed.
+     */
+    private void press(Game game, User player, int move, List<String> answer) {
+        String componentID = GameEmbedRenderer.COMPONENT_PREFIX + game.getGameID() + ":" + GameEmbedRenderer.MOVE_ACTION + move;
+        listeners.onButtonInteraction(Stubs.button(componentID, player, guild, answer));
+    }
+
+    private Game startGame(User first, User second) {
+        gameManager.createGame(first, second, command("accept", second));
+        return gameManager.getGame(first);
+    }
+
+    private int firstLegalMove(int state) {
+        rules.getLegalMoves(state, legalMoves);
+        return legalMoves[0];
+    }
+
+    /**
+     * Runs actions on the racing threads, starting them all at once, and waits for them to finish.
+     */
+    private void race(Runnable... actions) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(actions.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> running = new ArrayList<>();
+        for (Runnable action : actions) {
+            running.add(racers.submit(() -> {
+                ready.countDown();
+                start.await();
+                action.run();
+                return null;
+            }));
+        }
+        ready.await();
+        start.countDown();
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                violation("a racing thread threw " + e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Checks that none of the players is in more than one game, that the game indexes agree, and that no pending
+     * invite involves a player who is in a game. Leaked invites are removed.
+     */
+    private void checkGames(User... players) {
+        Set<Game> active = new HashSet<>(gameManager.getGames().values());
+        for (User player : players) {
+            int count = 0;
+            for (Game game : active) {
+                if (game.isPlayer(player)) count++;
+            }
+            if (count > 1) {
+                violation(player.getName() + " is in " + count + " games");
+            }
+            Game game = gameManager.getGame(player);
+            if (game != null && (!game.isPlayer(player) || gameManager.getGameByID(game.getGameID()) != game)) {
+                violation(player.getName() + " is indexed under game " + game.getGameID() + " inconsistently");
+            }
+        }
+        List<GameInvite> leaked = gameManager.getPendingInvites().removeIf(invite ->
+                gameManager.isInGame(invite.getInvitingPlayer()) || gameManager.isInGame(invite.getInvitedPlayer()));
+        if (!leaked.isEmpty()) {
+            violation(leaked.size() + " invites outlived the start of a game");
+        }
+    }
+
+    /**
+     * Ends the players' games and drops their invites, and checks that every game ended exactly once.
+     */
+    private void settle(User... players) {
+        Set<Game> games = new HashSet<>();
+        for (User player : players) {
+            Game game = gameManager.getGame(player);
+            if (game != null) games.add(game);
+        }
+        for (Game game : games) {
+            game.resign(game.getInvitingPlayer());
+            List<Long> result = results.remove(game.getGameID());
+            if (result == null || result.size() != 1) {
+                violation("game " + game.getGameID() + " ended " + (result == null ? 0 : result.size()) + " times");
+            }
+        }
+        for (User player : players) {
+            gameManager.getPendingInvites().removeAll(player);
+            if (gameManager.isInGame(player)) {
+                violation(player.getName() + " is still in a game after it ended");
+            }
+        }
+    }
+
+    private User newUser() {
+        return Stubs.user(nextUserID++);
+    }
+
+    /**
+     * Creates a command event, deferred if the command is expensive, as the command listener would.
+     */
+    private SlashCommandInteractionEvent command(String name, User user) {
+        return command(name, user, null);
+    }
+
+    private SlashCommandInteractionEvent command(String name, User user, List<String> calls) {
+        int index = CommandRegistry.indexOf(name);
+        return Stubs.command(name, user, guild, index >= 0 && CommandRegistry.getCost(index) == CommandCost.EXPENSIVE, calls);
+    }
+
+    private void outcome(String name) {
+        outcomes.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void violation(String description) {
+        violations.add(scenario + ": " + description);
+    }
+
+    /**
+     * One round of a scenario.
+     */
+    @FunctionalInterface
+    private interface Round {
+        void run() throws InterruptedException;
+    }
+}
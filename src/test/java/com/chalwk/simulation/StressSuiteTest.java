@@ -0,0 +1,23 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the {@link StressSuite}, for the number of rounds in the {@code stress.rounds} system property.
+ */
+class StressSuiteTest {
+
+    @Test
+    void invariantsHoldUnderRaces() throws IOException {
+        StressSuite suite = new StressSuite(Integer.getInteger("stress.rounds", 500));
+        boolean passed = suite.run();
+        assertTrue(passed, suite.getReport());
+    }
+}
@@ -0,0 +1,163 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.tournament;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays brackets of 2, an odd number and 4096 players to the end, checking pairing, byes, Swiss rematch avoidance
+ * and the round-robin rotation.
+ */
+class TournamentTest {
+
+    @Test
+    void twoPlayerEliminationIsOneMatch() {
+        Tournament tournament = started(TournamentFormat.SINGLE_ELIMINATION, 2);
+        assertEquals(1, tournament.getTotalRounds());
+        assertEquals(1, tournament.getMatchCount());
+        assertEquals(0, tournament.getFirst(0));
+        assertEquals(1, tournament.getSecond(0));
+
+        assertTrue(tournament.recordResult(0, Tournament.SECOND_WON));
+        assertTrue(tournament.isFinished());
+        assertEquals(2, tournament.getWinnerID());
+    }
+
+    @Test
+    void oddEliminationGivesTheMiddleSeedABye() {
+        Tournament tournament = started(TournamentFormat.SINGLE_ELIMINATION, 5);
+        assertEquals(3, tournament.getTotalRounds());
+        assertEquals(3, tournament.getMatchCount());
+        assertEquals(0, tournament.getFirst(0));
+        assertEquals(4, tournament.getSecond(0));
+        assertEquals(1, tournament.getFirst(1));
+        assertEquals(3, tournament.getSecond(1));
+        assertEquals(2, tournament.getFirst(2));
+        assertEquals(Tournament.BYE, tournament.getSecond(2));
+        assertEquals(Tournament.FIRST_WON, tournament.getResult(2), "a bye is decided at once");
+
+        assertEquals(3, playToTheEnd(tournament, new SplittableRandom(1), false));
+        assertTrue(tournament.isFinished());
+    }
+
+    @Test
+    void largeEliminationHalvesEachRound() {
+        Tournament tournament = started(TournamentFormat.SINGLE_ELIMINATION, 4096);
+        assertEquals(12, tournament.getTotalRounds());
+        int expectedMatches = 2048;
+        while (!tournament.isFinished()) {
+            assertEquals(expectedMatches, tournament.getMatchCount());
+            for (int match = 0; match < expectedMatches; match++) {
+                assertNotEquals(Tournament.BYE, tournament.getSecond(match));
+                tournament.recordResult(match, Tournament.FIRST_WON);
+            }
+            expectedMatches /= 2;
+        }
+        assertEquals(1, tournament.getWinnerID(), "the top seed wins when every first player wins");
+    }
+
+    @Test
+    void drawSendsTheHigherSeedThrough() {
+        Tournament tournament = started(TournamentFormat.SINGLE_ELIMINATION, 2);
+        tournament.recordResult(0, Tournament.DRAW);
+        assertEquals(1, tournament.getWinnerID());
+    }
+
+    @Test
+    void swissAvoidsRematches() {
+        for (int players : new int[]{2, 7, 4096}) {
+            Tournament tournament = started(TournamentFormat.SWISS, players);
+            int rounds = playToTheEnd(tournament, new SplittableRandom(players), true);
+            assertEquals(tournament.getTotalRounds(), rounds, players + " players");
+            assertTrue(tournament.isFinished());
+        }
+    }
+
+    @Test
+    void roundRobinPairsEveryoneOnce() {
+        for (int players : new int[]{2, 7, 4096}) {
+            Tournament tournament = started(TournamentFormat.ROUND_ROBIN, players);
+            int[] byes = new int[players];
+            BitSet played = new BitSet(players * players);
+            while (!tournament.isFinished()) {
+                int matches = tournament.getMatchCount();
+                for (int match = 0; match < matches; match++) {
+                    int first = tournament.getFirst(match);
+                    int second = tournament.getSecond(match);
+                    if (second == Tournament.BYE) {
+                        byes[first]++;
+                        continue;
+                    }
+                    assertFalse(played.get(first * players + second), first + " met " + second + " twice");
+                    played.set(first * players + second);
+                    played.set(second * players + first);
+                }
+                for (int match = 0; match < matches; match++) {
+                    if (tournament.getResult(match) == Tournament.PENDING) {
+                        tournament.recordResult(match, Tournament.DRAW);
+                    }
+                }
+            }
+            assertEquals((long) players * (players - 1), played.cardinality(), players + " players");
+            for (int player = 0; player < players; player++) {
+                assertEquals(players % 2, byes[player], "byes of player " + player);
+            }
+        }
+    }
+
+    private static Tournament started(TournamentFormat format, int players) {
+        Tournament tournament = new Tournament(1, format, 1, 1, 4096);
+        for (int i = 1; i <= players; i++) {
+            assertTrue(tournament.addPlayer(i));
+        }
+        assertTrue(tournament.start());
+        return tournament;
+    }
+
+    /**
+     * Plays random results until the tournament ends, checking that each round pairs every player once.
+     *
+     * @return the number of rounds played
+     */
+    private static int playToTheEnd(Tournament tournament, SplittableRandom random, boolean checkRematches) {
+        int players = tournament.getPlayerCount();
+        BitSet played = new BitSet(checkRematches ? players * players : 0);
+        int rounds = 0;
+        while (!tournament.isFinished()) {
+            int matches = tournament.getMatchCount();
+            BitSet paired = new BitSet(players);
+            int byes = 0;
+            for (int match = 0; match < matches; match++) {
+                int first = tournament.getFirst(match);
+                int second = tournament.getSecond(match);
+                assertFalse(paired.get(first), "player " + first + " paired twice in a round");
+                paired.set(first);
+                if (second == Tournament.BYE) {
+                    byes++;
+                    continue;
+                }
+                assertFalse(paired.get(second), "player " + second + " paired twice in a round");
+                paired.set(second);
+                if (checkRematches) {
+                    assertFalse(played.get(first * players + second), first + " met " + second + " twice");
+                    played.set(first * players + second);
+                    played.set(second * players + first);
+                }
+            }
+            assertTrue(byes <= 1, byes + " byes in one round");
+            for (int match = 0; match < matches; match++) {
+                if (tournament.getResult(match) == Tournament.PENDING) {
+                    tournament.recordResult(match, random.nextBoolean() ? Tournament.FIRST_WON : Tournament.SECOND_WON);
+                }
+            }
+            rounds++;
+        }
+        return rounds;
+    }
+}
@@ -0,0 +1,43 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.util;
+
+import com.chalwk.simulation.Stubs;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a failing success callback does not hold up the actions queued after it in the same channel.
+ */
+class RestQueueTest {
+
+    @Test
+    void throwingCallbackDoesNotStallTheChannel() {
+        long channelID = Stubs.nextSnowflake();
+        AtomicInteger callbacks = new AtomicInteger();
+        int actions = settings.getRestMaxInFlightPerChannel() * 3;
+        for (int i = 0; i < actions; i++) {
+            RestQueue.queue(RestQueue.Lane.GAME_STATE, channelID, action(), result -> {
+                callbacks.incrementAndGet();
+                throw new IllegalStateException("callback failed");
+            });
+        }
+
+        assertTrue(RestQueue.flush(1000));
+        assertEquals(actions, callbacks.get());
+        assertEquals(0, RestQueue.getDepth(RestQueue.Lane.GAME_STATE));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RestAction<Object> action() {
+        return Stubs.stub(RestAction.class, Map.of("submit", CompletableFuture.completedFuture(new Object())), null);
+    }
+}